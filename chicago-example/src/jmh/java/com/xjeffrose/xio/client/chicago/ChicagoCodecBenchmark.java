@@ -0,0 +1,57 @@
+package com.xjeffrose.xio.client.chicago;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.embedded.EmbeddedChannel;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/** Encodes and decodes a chicago message, run with ./gradlew :chicago-example:jmh */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ChicagoCodecBenchmark {
+  @Param({"16", "1024"})
+  public int valueSize;
+
+  private EmbeddedChannel encoder;
+  private EmbeddedChannel decoder;
+  private ChicagoMessage message;
+  private ByteBuf encoded;
+
+  @Setup
+  public void setUp() {
+    encoder = new EmbeddedChannel(new ChicagoRequestEncoder());
+    encoder.config().setAllocator(PooledByteBufAllocator.DEFAULT);
+    decoder = new EmbeddedChannel(new ChicagoResponseDecoder());
+    StringBuilder value = new StringBuilder();
+    for (int i = 0; i < valueSize; i++) {
+      value.append((char) ('a' + i % 26));
+    }
+    message = ChicagoMessage.write(42, "chicago", "some/key", value.toString());
+    encoder.writeOutbound(message);
+    encoded = encoder.readOutbound();
+  }
+
+  @Benchmark
+  public int encode() {
+    encoder.writeOutbound(message);
+    ByteBuf out = encoder.readOutbound();
+    int size = out.readableBytes();
+    out.release();
+    return size;
+  }
+
+  @Benchmark
+  public ChicagoMessage decode() {
+    decoder.writeInbound(encoded.retainedDuplicate());
+    return decoder.readInbound();
+  }
+}
@@ -0,0 +1,69 @@
+package com.xjeffrose.xio.client.chicago;
+
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.util.concurrent.Future;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/** Pipelines quorum writes over loopback, run with ./gradlew :chicago-example:jmh */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class XioChicagoClientBenchmark {
+  private static final int WRITES = 1_000;
+
+  private NioEventLoopGroup group;
+  private XioChicagoClient client;
+  private int next;
+
+  @Setup
+  public void setUp() {
+    group = new NioEventLoopGroup();
+    List<InetSocketAddress> nodes =
+        XioChicagoClient.startEchoServers(
+            group,
+            Arrays.asList(
+                new InetSocketAddress("127.0.0.1", 0),
+                new InetSocketAddress("127.0.0.1", 0),
+                new InetSocketAddress("127.0.0.1", 0),
+                new InetSocketAddress("127.0.0.1", 0)));
+    client =
+        XioChicagoClient.newClient(
+            XioChicagoClient.clusterBootstrap(group, nodes).timeout(10, TimeUnit.SECONDS));
+  }
+
+  @TearDown
+  public void tearDown() {
+    client.close();
+    group.shutdownGracefully(0, 0, TimeUnit.SECONDS);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(WRITES)
+  public int pipelinedWrites() {
+    List<Future<WriteResultGroup>> results = new ArrayList<>(WRITES);
+    for (int i = 0; i < WRITES; i++) {
+      int key = next++;
+      results.add(client.write("chicago", "key" + key, "value" + key));
+    }
+    int succeeded = 0;
+    for (Future<WriteResultGroup> result : results) {
+      if (result.awaitUninterruptibly(10, TimeUnit.SECONDS) && result.isSuccess()) {
+        succeeded++;
+      }
+    }
+    return succeeded;
+  }
+}
@@ -1,42 +1,42 @@
 package com.xjeffrose.xio.client.chicago;
 
-import com.xjeffrose.xio.client.asyncretry.AsyncRetryLoopFactory;
-import com.xjeffrose.xio.client.XioConnectionPool;
-import io.netty.bootstrap.Bootstrap;
-import io.netty.buffer.ByteBuf;
-import io.netty.channel.ChannelHandlerContext;
-import io.netty.channel.ChannelInitializer;
-import io.netty.channel.CombinedChannelDuplexHandler;
-import io.netty.channel.EventLoopGroup;
-import io.netty.channel.SimpleChannelInboundHandler;
-import io.netty.channel.nio.NioEventLoopGroup;
-import io.netty.channel.socket.SocketChannel;
-import io.netty.handler.codec.ByteToMessageDecoder;
-import io.netty.handler.codec.MessageToByteEncoder;
-import io.netty.util.concurrent.DefaultPromise;
-import io.netty.util.concurrent.Future;
-import java.util.Arrays;
-import java.util.Collection;
-import java.util.List;
-import java.util.UUID;
-import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.ConcurrentHashMap;
 import java.net.InetSocketAddress;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
+/**
+ * The nodes of a chicago cluster. Each key is replicated on replicationFactor nodes picked by a
+ * {@link ChicagoRing}, so the work done per request doesn't grow with the size of the cluster.
+ */
 public class ChicagoCluster {
-  private final ConcurrentMap<InetSocketAddress, ChicagoNode> nodeMap;
+  private final ChicagoRing<ChicagoNode> ring;
+  private final int replicationFactor;
+  private final int quorum;
+
   private static ChicagoNode buildNode(XioClusterBootstrap clusterBootstrap, InetSocketAddress address) {
     return new ChicagoNode(clusterBootstrap, address);
   }
 
   public ChicagoCluster(XioClusterBootstrap clusterBootstrap) {
-    nodeMap = new ConcurrentHashMap<>();
-    for (InetSocketAddress address : clusterBootstrap.config().nodes()) {
-      nodeMap.put(address, buildNode(clusterBootstrap, address));
+    XioClusterBootstrap.Config config = clusterBootstrap.config();
+    Map<String, ChicagoNode> nodes = new LinkedHashMap<>();
+    for (InetSocketAddress address : config.nodes()) {
+      String name = address.getHostString() + ":" + address.getPort();
+      nodes.put(name, buildNode(clusterBootstrap, address));
     }
+    ring = new ChicagoRing<>(nodes, config.virtualNodes());
+    replicationFactor = config.replicationFactor();
+    quorum = config.quorum();
+  }
+
+  /** @return the nodes holding the replicas of key */
+  public List<ChicagoNode> quorumNodesForKey(String key) {
+    return ring.nodesForKey(key, replicationFactor);
   }
 
-  public Collection<ChicagoNode> quorumNodesForKey(String key) {
-    return nodeMap.values();
+  /** @return the number of replicas that have to acknowledge a request */
+  public int quorum() {
+    return quorum;
   }
 }
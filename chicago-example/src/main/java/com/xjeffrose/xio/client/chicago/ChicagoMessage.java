@@ -1,14 +1,12 @@
 package com.xjeffrose.xio.client.chicago;
 
-import java.util.UUID;
-
 public class ChicagoMessage {
-  final UUID id;
+  final long id;
   final Op op;
   final String colFam;
   final String key;
   final String val;
-  protected ChicagoMessage(UUID id, Op op, String colFam, String key, String val) {
+  protected ChicagoMessage(long id, Op op, String colFam, String key, String val) {
     this.id = id;
     this.op = op;
     this.colFam = colFam;
@@ -16,7 +14,11 @@ public class ChicagoMessage {
     this.val = val;
   }
 
-  static ChicagoMessage write(UUID id, String colFam, String key, String val) {
+  static ChicagoMessage write(long id, String colFam, String key, String val) {
     return new ChicagoMessage(id, Op.WRITE, colFam, key, val);
   }
+
+  static ChicagoMessage read(long id, String colFam, String key) {
+    return new ChicagoMessage(id, Op.READ, colFam, key, "");
+  }
 }
@@ -1,36 +1,49 @@
 package com.xjeffrose.xio.client.chicago;
 
-import com.xjeffrose.xio.client.asyncretry.AsyncRetryLoopFactory;
 import com.xjeffrose.xio.client.XioConnectionPool;
 import io.netty.bootstrap.Bootstrap;
-import io.netty.buffer.ByteBuf;
 import io.netty.channel.Channel;
-import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.CombinedChannelDuplexHandler;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.SimpleChannelInboundHandler;
-import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.SocketChannel;
-import io.netty.handler.codec.ByteToMessageDecoder;
-import io.netty.handler.codec.MessageToByteEncoder;
 import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
 import io.netty.handler.codec.LengthFieldPrepender;
-import io.netty.util.concurrent.Promise;
+import io.netty.util.AttributeKey;
 import io.netty.util.concurrent.Future;
 import io.netty.util.concurrent.FutureListener;
-import java.util.Arrays;
-import java.util.List;
-import java.util.UUID;
-import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.ConcurrentHashMap;
+import io.netty.util.concurrent.Promise;
+import io.netty.util.concurrent.ScheduledFuture;
 import java.net.InetSocketAddress;
+import java.nio.channels.ClosedChannelException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+/**
+ * A node of a chicago cluster. Requests are pipelined over a single connection and correlated with
+ * their responses by id. Writes are coalesced, the connection is flushed once per event loop tick
+ * no matter how many requests were written during it.
+ */
 public class ChicagoNode {
+  private static final AttributeKey<AtomicBoolean> FLUSH_PENDING =
+      AttributeKey.newInstance("xio_chicago_flush_pending");
+
+  private final InetSocketAddress address;
+  private final EventLoopGroup eventLoopGroup;
+  private final long timeoutMillis;
   private final XioConnectionPool connectionPool;
-  private final ConcurrentMap<UUID, Promise<WriteResult>> resultMap;
+  private final ConcurrentMap<Long, Promise<ChicagoMessage>> resultMap;
+  // guarded by this
+  private Future<Channel> channelResult;
+
   private CombinedChannelDuplexHandler<ChicagoResponseDecoder, ChicagoRequestEncoder> newMessageHandler() {
     return new CombinedChannelDuplexHandler<ChicagoResponseDecoder, ChicagoRequestEncoder>(
       new ChicagoResponseDecoder(),
@@ -53,21 +66,34 @@ public class ChicagoNode {
     return new SimpleChannelInboundHandler<ChicagoMessage>() {
       @Override
       protected void channelRead0(ChannelHandlerContext ctx, ChicagoMessage msg) throws Exception {
-        Promise<WriteResult> result = resultMap.get(msg.id);
+        Promise<ChicagoMessage> result = resultMap.remove(msg.id);
         if (result != null) {
-          System.out.println("Got result for id " + msg.id);
-          result.setSuccess(new WriteResult());
+          result.trySuccess(msg);
         } else {
           System.out.println("Couldn't find result for id " + msg.id);
         }
       }
+
+      @Override
+      public void channelInactive(ChannelHandlerContext ctx) {
+        // every outstanding request was sent on this connection
+        for (Map.Entry<Long, Promise<ChicagoMessage>> entry : resultMap.entrySet()) {
+          if (resultMap.remove(entry.getKey(), entry.getValue())) {
+            entry.getValue().tryFailure(new ClosedChannelException());
+          }
+        }
+        ctx.fireChannelInactive();
+      }
     };
   }
   private ChannelInitializer<SocketChannel> newHandler() {
     return new ChannelInitializer<SocketChannel>() {
       @Override
       protected void initChannel(SocketChannel channel) throws Exception {
+        channel.attr(FLUSH_PENDING).set(new AtomicBoolean());
         channel.pipeline()
+          // input split the frames, output prepend the frame length
+          .addLast(newLengthFieldBasedFrameHandler())
           // input check the hash, output create the hash
           .addLast(newMurmur3HashHandler())
           // input handle the message, output create the message
@@ -87,28 +113,76 @@ public class ChicagoNode {
     return new XioConnectionPool(bootstrap, config.retryLoopFactory());
   }
   public ChicagoNode(XioClusterBootstrap clusterBootstrap, InetSocketAddress address) {
+    this.address = address;
+    eventLoopGroup = clusterBootstrap.config().bootstrap().config().group();
+    timeoutMillis = clusterBootstrap.config().timeoutMillis();
     resultMap = new ConcurrentHashMap<>();
     connectionPool = buildPool(clusterBootstrap.config(), address);
   }
 
-  public Future<WriteResult> send(ChicagoMessage message, Promise<WriteResult> result) {
-    // TODO schedule a timeout to fail this write
+  public InetSocketAddress address() {
+    return address;
+  }
+
+  /** @return the connection shared by every request, a new one once it was closed */
+  private synchronized Future<Channel> channel() {
+    if (channelResult == null
+        || (channelResult.isDone()
+            && (!channelResult.isSuccess() || !channelResult.getNow().isActive()))) {
+      channelResult = connectionPool.acquire();
+    }
+    return channelResult;
+  }
+
+  /** Writes without flushing, the first write of an event loop tick schedules the flush. */
+  private static ChannelFuture write(Channel channel, ChicagoMessage message) {
+    ChannelFuture result = channel.write(message);
+    AtomicBoolean flushPending = channel.attr(FLUSH_PENDING).get();
+    if (flushPending.compareAndSet(false, true)) {
+      channel.eventLoop().execute(new Runnable() {
+        public void run() {
+          flushPending.set(false);
+          channel.flush();
+        }
+      });
+    }
+    return result;
+  }
+
+  /**
+   * Sends a request to the node, result is completed with the response or failed if there is no
+   * response within the configured timeout.
+   */
+  public Future<ChicagoMessage> send(ChicagoMessage message, Promise<ChicagoMessage> result) {
     resultMap.put(message.id, result);
-    Future<Channel> channelResult = connectionPool.acquire();
-    System.out.println("Acquiring Node");
-    channelResult.addListener(new FutureListener<Channel>() {
+    ScheduledFuture<?> timeout = eventLoopGroup.schedule(new Runnable() {
+      public void run() {
+        if (resultMap.remove(message.id, result)) {
+          result.tryFailure(new TimeoutException(
+            "no response from " + address + " for " + message.id + " after " + timeoutMillis + "ms"
+          ));
+        }
+      }
+    }, timeoutMillis, TimeUnit.MILLISECONDS);
+    result.addListener(new FutureListener<ChicagoMessage>() {
+      public void operationComplete(Future<ChicagoMessage> future) {
+        timeout.cancel(false);
+      }
+    });
+    channel().addListener(new FutureListener<Channel>() {
       public void operationComplete(Future<Channel> future) {
         if (future.isSuccess()) {
-          System.out.println("Node acquired!");
-          Channel channel = future.getNow();
-          // TODO could maybe put a listener here to track successful writes
-          channel.writeAndFlush(message).addListener(new ChannelFutureListener() {
+          write(future.getNow(), message).addListener(new ChannelFutureListener() {
             public void operationComplete(ChannelFuture channelFuture) {
-              System.out.println("write finished for " + message.id);
+              if (!channelFuture.isSuccess()) {
+                resultMap.remove(message.id, result);
+                result.tryFailure(channelFuture.cause());
+              }
             }
           });
         } else {
-          result.setFailure(future.cause());
+          resultMap.remove(message.id, result);
+          result.tryFailure(future.cause());
         }
       }
     });
@@ -1,26 +1,10 @@
 package com.xjeffrose.xio.client.chicago;
 
-import com.google.common.primitives.Ints;
-import com.xjeffrose.xio.client.asyncretry.AsyncRetryLoopFactory;
-import com.xjeffrose.xio.client.XioConnectionPool;
-import io.netty.bootstrap.Bootstrap;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.channel.ChannelHandler.Sharable;
 import io.netty.channel.ChannelHandlerContext;
-import io.netty.channel.ChannelInitializer;
-import io.netty.channel.CombinedChannelDuplexHandler;
-import io.netty.channel.EventLoopGroup;
-import io.netty.channel.nio.NioEventLoopGroup;
-import io.netty.channel.socket.SocketChannel;
-import io.netty.handler.codec.ByteToMessageDecoder;
 import io.netty.handler.codec.MessageToByteEncoder;
-import io.netty.util.concurrent.DefaultPromise;
-import io.netty.util.concurrent.Future;
-import java.util.Arrays;
-import java.util.List;
-import java.util.UUID;
-import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.ConcurrentHashMap;
-import java.net.InetSocketAddress;
 
 /**
  * [LengthFieldBasedFrame [MumurHashedFrame [ChicagoMessage]]]
@@ -28,33 +12,78 @@ import java.net.InetSocketAddress;
  *
  * hash [4 bytes]
  * msg [variable]
- *  id [36 bytes]
- *  op [4 bytes]
- *  colFamSize [4 bytes]
- *  colFam [variable]
- *  keySize [4 bytes]
- *  key [variable]
- *  valSize [4 bytes]
- *  val [variable]
+ *  id [8 bytes]
+ *  op [1 byte]
+ *  colFamSize [varint]
+ *  colFam [utf-8]
+ *  keySize [varint]
+ *  key [utf-8]
+ *  valSize [varint]
+ *  val [utf-8]
+ *
+ * Sizes are unsigned LEB128 varints of the utf-8 byte count. Strings are encoded straight into a
+ * buffer sized for the whole message. The buffer is a heap buffer so that the murmur3 hash is
+ * computed over its backing array without a copy.
  */
+@Sharable
 public class ChicagoRequestEncoder extends MessageToByteEncoder<ChicagoMessage> {
+  static final int MAX_VARINT_SIZE = 5;
+
+  public ChicagoRequestEncoder() {
+    super(false);
+  }
+
+  /** @return the number of bytes ByteBufUtil.writeUtf8 writes for value */
+  static int utf8Length(CharSequence value) {
+    int length = 0;
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c < 0x80) {
+        length += 1;
+      } else if (c < 0x800) {
+        length += 2;
+      } else if (Character.isHighSurrogate(c)
+          && i + 1 < value.length()
+          && Character.isLowSurrogate(value.charAt(i + 1))) {
+        length += 4;
+        i++;
+      } else if (Character.isSurrogate(c)) {
+        // written as '?'
+        length += 1;
+      } else {
+        length += 3;
+      }
+    }
+    return length;
+  }
+
+  static void writeVarint(ByteBuf out, int value) {
+    while ((value & ~0x7f) != 0) {
+      out.writeByte((value & 0x7f) | 0x80);
+      value >>>= 7;
+    }
+    out.writeByte(value);
+  }
+
+  private static void writeString(ByteBuf out, String value, int length) {
+    writeVarint(out, length);
+    ByteBufUtil.writeUtf8(out, value);
+  }
+
+  @Override
+  protected ByteBuf allocateBuffer(
+      ChannelHandlerContext ctx, ChicagoMessage msg, boolean preferDirect) {
+    int size = Long.BYTES + 1 + MAX_VARINT_SIZE * 3
+      + utf8Length(msg.colFam) + utf8Length(msg.key) + utf8Length(msg.val);
+    return ctx.alloc().heapBuffer(size);
+  }
+
   @Override
   protected void encode(ChannelHandlerContext ctx, ChicagoMessage msg, ByteBuf out) {
-    // uuid
-    out.writeBytes(msg.id.toString().getBytes());
-    // op
-    out.writeBytes(Ints.toByteArray(msg.op.ordinal()));
-    // colFamSize
-    out.writeBytes(Ints.toByteArray(msg.colFam.getBytes().length));
-    // colFam
-    out.writeBytes(msg.colFam.getBytes());
-    // keySize
-    out.writeBytes(Ints.toByteArray(msg.key.getBytes().length));
-    // key
-    out.writeBytes(msg.key.getBytes());
-    // valSize
-    out.writeBytes(Ints.toByteArray(msg.val.getBytes().length));
-    // val
-    out.writeBytes(msg.val.getBytes());
+    out.writeLong(msg.id);
+    out.writeByte(msg.op.ordinal());
+    writeString(out, msg.colFam, utf8Length(msg.colFam));
+    writeString(out, msg.key, utf8Length(msg.key));
+    writeString(out, msg.val, utf8Length(msg.val));
   }
 }
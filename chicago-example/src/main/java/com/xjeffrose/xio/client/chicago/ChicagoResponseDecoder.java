@@ -1,31 +1,39 @@
 package com.xjeffrose.xio.client.chicago;
 
-import com.xjeffrose.xio.client.asyncretry.AsyncRetryLoopFactory;
-import com.xjeffrose.xio.client.XioConnectionPool;
-import io.netty.bootstrap.Bootstrap;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
-import io.netty.channel.ChannelInitializer;
-import io.netty.channel.CombinedChannelDuplexHandler;
-import io.netty.channel.EventLoopGroup;
-import io.netty.channel.nio.NioEventLoopGroup;
-import io.netty.channel.socket.SocketChannel;
-import io.netty.handler.codec.ByteToMessageDecoder;
-import io.netty.handler.codec.MessageToByteEncoder;
-import io.netty.util.concurrent.DefaultPromise;
-import io.netty.util.concurrent.Future;
-//import com.google.common.util.concurrent.ListenableFuture;
-//import com.google.common.util.concurrent.ListeningExecutorService;
-//import com.google.common.util.concurrent.MoreExecutors;
-import java.util.Arrays;
+import io.netty.handler.codec.CorruptedFrameException;
+import io.netty.handler.codec.MessageToMessageDecoder;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
-import java.util.UUID;
-import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.ConcurrentHashMap;
-import java.net.InetSocketAddress;
 
-public class ChicagoResponseDecoder extends ByteToMessageDecoder {
+/**
+ * Decodes a framed response laid out like the request, see {@link ChicagoRequestEncoder}.
+ */
+public class ChicagoResponseDecoder extends MessageToMessageDecoder<ByteBuf> {
+  static int readVarint(ByteBuf in) {
+    int value = 0;
+    for (int shift = 0; shift < 32; shift += 7) {
+      byte b = in.readByte();
+      value |= (b & 0x7f) << shift;
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+    }
+    throw new CorruptedFrameException("malformed varint");
+  }
+
+  private static String readString(ByteBuf in) {
+    return in.readCharSequence(readVarint(in), StandardCharsets.UTF_8).toString();
+  }
+
   @Override
   protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) {
+    long id = in.readLong();
+    Op op = Op.fromValue(in.readUnsignedByte());
+    String colFam = readString(in);
+    String key = readString(in);
+    String val = readString(in);
+    out.add(new ChicagoMessage(id, op, colFam, key, val));
   }
 }
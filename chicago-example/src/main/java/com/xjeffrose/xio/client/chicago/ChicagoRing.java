@@ -0,0 +1,61 @@
+package com.xjeffrose.xio.client.chicago;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Places keys on the nodes of a cluster with consistent hashing.
+ *
+ * <p>Every node owns a number of virtual nodes on a ring of murmur3 hashes. The replicas of a key
+ * are the first distinct nodes found walking the ring clockwise from the hash of the key, so adding
+ * or removing a node only moves the keys next to its virtual nodes.
+ */
+public class ChicagoRing<T> {
+  private static final HashFunction hashFunction = Hashing.murmur3_128();
+
+  private final NavigableMap<Long, T> ring = new TreeMap<>();
+  private final int nodeCount;
+
+  public ChicagoRing(Map<String, T> nodes, int virtualNodes) {
+    for (Map.Entry<String, T> node : nodes.entrySet()) {
+      for (int i = 0; i < virtualNodes; i++) {
+        ring.put(hash(node.getKey() + "#" + i), node.getValue());
+      }
+    }
+    nodeCount = nodes.size();
+  }
+
+  private static long hash(String value) {
+    return hashFunction.hashString(value, StandardCharsets.UTF_8).asLong();
+  }
+
+  /** @return the nodes holding the replicas of key, at most count of them */
+  public List<T> nodesForKey(String key, int count) {
+    int replicas = Math.min(count, nodeCount);
+    Set<T> result = new LinkedHashSet<>();
+    if (replicas <= 0) {
+      return new ArrayList<>(result);
+    }
+    long hash = hash(key);
+    for (T node : ring.tailMap(hash, true).values()) {
+      if (result.add(node) && result.size() == replicas) {
+        return new ArrayList<>(result);
+      }
+    }
+    // wrap around the ring
+    for (T node : ring.headMap(hash, false).values()) {
+      if (result.add(node) && result.size() == replicas) {
+        break;
+      }
+    }
+    return new ArrayList<>(result);
+  }
+}
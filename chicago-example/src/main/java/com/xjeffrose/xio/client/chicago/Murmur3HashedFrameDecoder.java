@@ -1,7 +1,6 @@
 package com.xjeffrose.xio.client.chicago;
 
 import com.google.common.hash.HashCode;
-import com.google.common.hash.Hashing;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandler.Sharable;
 import io.netty.channel.ChannelHandlerContext;
@@ -17,17 +16,11 @@ public class Murmur3HashedFrameDecoder extends MessageToMessageDecoder<ByteBuf>
   @Override
   protected void decode(ChannelHandlerContext ctx, ByteBuf msg, List<Object> out) throws Exception {
     HashCode sentHash = HashCode.fromInt(msg.readInt());
-    HashCode hash = Hashing.murmur3_32().hashBytes(
-      msg.array(),
-      msg.readerIndex(),
-      msg.readableBytes()
-    );
+    HashCode hash = Murmur3HashedFrameEncoder.hash(msg);
 
-    out.add(msg);
+    out.add(msg.retain());
 
-    if (sentHash.equals(hash)) {
-      System.out.println("Hashes matches");
-    } else {
+    if (!sentHash.equals(hash)) {
       System.out.println("Hashes no matches");
     }
   }
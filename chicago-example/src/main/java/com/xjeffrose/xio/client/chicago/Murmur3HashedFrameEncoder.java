@@ -1,7 +1,11 @@
 package com.xjeffrose.xio.client.chicago;
 
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
 import com.google.common.hash.Hashing;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelHandler.Sharable;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.MessageToMessageEncoder;
@@ -13,17 +17,25 @@ import java.util.List;
  */
 @Sharable
 public class Murmur3HashedFrameEncoder extends MessageToMessageEncoder<ByteBuf> {
+  private static final HashFunction murmur3 = Hashing.murmur3_32();
+
+  /** Hashes the readable bytes of buf, in place if it is backed by an array. */
+  static HashCode hash(ByteBuf buf) {
+    if (buf.hasArray()) {
+      return murmur3.hashBytes(
+        buf.array(), buf.arrayOffset() + buf.readerIndex(), buf.readableBytes());
+    }
+    return murmur3.hashBytes(ByteBufUtil.getBytes(buf));
+  }
+
   @Override
   protected void encode(ChannelHandlerContext ctx, ByteBuf msg, List<Object> out) throws Exception {
     // allocate a 4 byte (32 bit) buffer
     // using the same allocator as the provided ByteBuf
     ByteBuf hash = msg.alloc().buffer(4);
-    hash.writeBytes(Hashing.murmur3_32().hashBytes(
-      msg.array(),
-      msg.readerIndex(),
-      msg.readableBytes()
-    ).asBytes());
-    out.add(hash);
-    out.add(msg);
+    // same byte order as Murmur3HashedFrameDecoder reads it
+    hash.writeInt(hash(msg).asInt());
+    // a single buffer, so the hash and the message end up in the same length prefixed frame
+    out.add(Unpooled.wrappedBuffer(hash, msg.retain()));
   }
 }
@@ -0,0 +1,68 @@
+package com.xjeffrose.xio.client.chicago;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tracks the replica reads of a key. The read completes with the value returned by most replicas
+ * once quorum replicas answered. Once every replica answered or failed, the replicas that returned
+ * another value are repaired with a write of the winning value.
+ */
+public class ReadResultGroup {
+  private final int replicas;
+  private final int quorum;
+  private final Map<ChicagoNode, String> values = new LinkedHashMap<>();
+  private int failed;
+
+  ReadResultGroup(int replicas, int quorum) {
+    this.replicas = replicas;
+    this.quorum = quorum;
+  }
+
+  /** @return true for the response that completes the quorum */
+  public synchronized boolean quorumAcheived(ChicagoNode node, String value) {
+    values.put(node, value);
+    return values.size() == quorum;
+  }
+
+  /** @return true for the failure that makes the quorum unreachable */
+  public synchronized boolean quorumFailed(Throwable cause) {
+    failed++;
+    return failed == replicas - quorum + 1;
+  }
+
+  /** @return true once every replica answered or failed */
+  public synchronized boolean complete() {
+    return values.size() + failed == replicas;
+  }
+
+  /** @return the value returned by most replicas, the first one returned on a tie */
+  public synchronized String value() {
+    Map<String, Integer> counts = new HashMap<>();
+    String result = null;
+    int best = 0;
+    for (String value : values.values()) {
+      int count = counts.merge(value, 1, Integer::sum);
+      if (count > best) {
+        best = count;
+        result = value;
+      }
+    }
+    return result;
+  }
+
+  /** @return the replicas that returned another value than {@link #value()} */
+  public synchronized List<ChicagoNode> staleNodes() {
+    String value = value();
+    List<ChicagoNode> result = new ArrayList<>();
+    for (Map.Entry<ChicagoNode, String> entry : values.entrySet()) {
+      if (!entry.getValue().equals(value)) {
+        result.add(entry.getKey());
+      }
+    }
+    return result;
+  }
+}
@@ -1,13 +1,37 @@
 package com.xjeffrose.xio.client.chicago;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tracks the replica writes of a key. The write succeeds once quorum replicas acknowledged it and
+ * fails once so many replicas failed that the quorum can't be reached anymore.
+ */
 public class WriteResultGroup {
+  private final int replicas;
   private final int quorum;
-  WriteResultGroup(int quorum) {
+  private final AtomicInteger succeeded = new AtomicInteger();
+  private final AtomicInteger failed = new AtomicInteger();
+
+  WriteResultGroup(int replicas, int quorum) {
+    this.replicas = replicas;
     this.quorum = quorum;
   }
 
+  /** @return true for the write result that completes the quorum */
   public boolean quorumAcheived(WriteResult result) {
-    System.out.println("Quorum acheived!");
-    return true;
+    if (succeeded.incrementAndGet() == quorum) {
+      System.out.println("Quorum acheived!");
+      return true;
+    }
+    return false;
+  }
+
+  /** @return true for the failure that makes the quorum unreachable */
+  public boolean quorumFailed(Throwable cause) {
+    return failed.incrementAndGet() == replicas - quorum + 1;
+  }
+
+  public int succeeded() {
+    return succeeded.get();
   }
 }
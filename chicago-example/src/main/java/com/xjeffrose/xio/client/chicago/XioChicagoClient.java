@@ -25,24 +25,32 @@ import io.netty.util.concurrent.FutureListener;
 import java.util.Arrays;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.UUID;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.net.InetSocketAddress;
+import lombok.extern.slf4j.Slf4j;
 
+@Slf4j
 public class XioChicagoClient implements AutoCloseable {
   private final EventLoopGroup eventLoopGroup;
   private final ChicagoCluster cluster;
+  // correlates responses with requests, unique per connection
+  private final AtomicLong nextId = new AtomicLong();
 
-  private DefaultPromise<WriteResult> writeResult() {
-    return new DefaultPromise<WriteResult>(eventLoopGroup.next());
+  private DefaultPromise<ChicagoMessage> response() {
+    return new DefaultPromise<ChicagoMessage>(eventLoopGroup.next());
   }
 
   private DefaultPromise<WriteResultGroup> writeResultGroup() {
     return new DefaultPromise<WriteResultGroup>(eventLoopGroup.next());
   }
 
+  private DefaultPromise<String> readResult() {
+    return new DefaultPromise<String>(eventLoopGroup.next());
+  }
+
   public static class XioCluster {
   }
 
@@ -60,31 +68,72 @@ public class XioChicagoClient implements AutoCloseable {
     System.out.println("Stopping");
   }
 
+  /**
+   * Writes value to the replicas of key, the result succeeds once a quorum of the replicas
+   * acknowledged the write.
+   */
   public Future<WriteResultGroup> write(String columnFamily, String key, String value) {
     DefaultPromise<WriteResultGroup> result = writeResultGroup();
-    WriteResultGroup resultGroup = new WriteResultGroup(3);
-    for(ChicagoNode node : cluster.quorumNodesForKey(key)) {
-      UUID id = UUID.randomUUID();
-      DefaultPromise<WriteResult> thisResult = writeResult();
+    List<ChicagoNode> nodes = cluster.quorumNodesForKey(key);
+    WriteResultGroup resultGroup = new WriteResultGroup(nodes.size(), cluster.quorum());
+    for(ChicagoNode node : nodes) {
+      DefaultPromise<ChicagoMessage> thisResult = response();
+      long id = nextId.incrementAndGet();
       node.send(ChicagoMessage.write(id, columnFamily, key, value), thisResult);
-      thisResult.addListener(new FutureListener<WriteResult>() {
-        public void operationComplete(Future<WriteResult> future) {
+      thisResult.addListener(new FutureListener<ChicagoMessage>() {
+        public void operationComplete(Future<ChicagoMessage> future) {
+          if (future.isSuccess()) {
+            if (resultGroup.quorumAcheived(new WriteResult())) {
+              result.trySuccess(resultGroup);
+            }
+          } else if (resultGroup.quorumFailed(future.cause())) {
+            result.tryFailure(future.cause());
+          }
+        }
+      });
+    }
+    return result;
+  }
+
+  /**
+   * Reads key from its replicas, the result succeeds with the value returned by most of the first
+   * quorum replicas to answer. Replicas that returned another value are repaired once every replica
+   * answered.
+   */
+  public Future<String> read(String columnFamily, String key) {
+    DefaultPromise<String> result = readResult();
+    List<ChicagoNode> nodes = cluster.quorumNodesForKey(key);
+    ReadResultGroup resultGroup = new ReadResultGroup(nodes.size(), cluster.quorum());
+    for(ChicagoNode node : nodes) {
+      DefaultPromise<ChicagoMessage> thisResult = response();
+      node.send(ChicagoMessage.read(nextId.incrementAndGet(), columnFamily, key), thisResult);
+      thisResult.addListener(new FutureListener<ChicagoMessage>() {
+        public void operationComplete(Future<ChicagoMessage> future) {
           if (future.isSuccess()) {
-            WriteResult writeResult = future.getNow();
-            if (resultGroup.quorumAcheived(writeResult)) {
-              result.setSuccess(resultGroup);
+            if (resultGroup.quorumAcheived(node, future.getNow().val)) {
+              result.trySuccess(resultGroup.value());
             }
-          } else {
-            // TODO retry?
-            result.setFailure(future.cause());
+          } else if (resultGroup.quorumFailed(future.cause())) {
+            result.tryFailure(future.cause());
+          }
+          if (resultGroup.complete()) {
+            repair(columnFamily, key, resultGroup);
           }
         }
       });
     }
-    //result.setSuccess(new WriteResultGroup(3));
     return result;
   }
 
+  private void repair(String columnFamily, String key, ReadResultGroup resultGroup) {
+    String value = resultGroup.value();
+    for (ChicagoNode node : resultGroup.staleNodes()) {
+      log.debug("Repairing {} on {}", key, node.address());
+      long id = nextId.incrementAndGet();
+      node.send(ChicagoMessage.write(id, columnFamily, key, value), response());
+    }
+  }
+
   static public XioChicagoClient newClient(XioClusterBootstrap clusterBootstrap) {
     ChicagoCluster cluster = new ChicagoCluster(clusterBootstrap);
     Bootstrap bootstrap = clusterBootstrap.config().bootstrap();
@@ -95,15 +144,13 @@ public class XioChicagoClient implements AutoCloseable {
     stop();
   }
 
-  static public void main(String[] args) {
-    List<InetSocketAddress> endpoints = Arrays.asList(
-      new InetSocketAddress("localhost", 9001),
-      new InetSocketAddress("localhost", 9002),
-      new InetSocketAddress("localhost", 9003),
-      new InetSocketAddress("localhost", 9004)
-    );
-    NioEventLoopGroup group = new NioEventLoopGroup();
-    List<ChannelFuture> serverChannels = new ArrayList<ChannelFuture>();
+  /**
+   * Starts a server echoing every frame back for each of endpoints, a stand in for chicago nodes.
+   *
+   * @return the addresses the servers are bound to
+   */
+  static List<InetSocketAddress> startEchoServers(
+      EventLoopGroup group, List<InetSocketAddress> endpoints) {
     ServerBootstrap serverBootstrap = new ServerBootstrap()
       .group(group)
       .channel(NioServerSocketChannel.class)
@@ -137,29 +184,43 @@ public class XioChicagoClient implements AutoCloseable {
           ;
         }
       })
-      .childHandler(new ChannelInboundHandlerAdapter() {
-        @Override
-        public void channelRead(ChannelHandlerContext ctx, Object msg) {
-          System.out.println("Got data" + msg);
-          ctx.writeAndFlush(msg);
-        }
-      })
     ;
+    List<InetSocketAddress> result = new ArrayList<InetSocketAddress>();
     for(InetSocketAddress address : endpoints) {
-      serverChannels.add(serverBootstrap.clone().localAddress(address).bind());
+      ChannelFuture bound = serverBootstrap.clone().localAddress(address).bind();
+      bound.syncUninterruptibly();
+      result.add((InetSocketAddress) bound.channel().localAddress());
     }
+    return result;
+  }
+
+  static XioClusterBootstrap clusterBootstrap(EventLoopGroup group, List<InetSocketAddress> nodes) {
     Bootstrap bootstrap = new Bootstrap()
       .group(group)
       .channel(NioSocketChannel.class)
     ;
-    XioClusterBootstrap clusterBootstrap = new XioClusterBootstrap(bootstrap)
-      .addNodes(endpoints)
+    return new XioClusterBootstrap(bootstrap)
+      .addNodes(nodes)
+      .replicationFactor(3)
+      .timeout(1, TimeUnit.SECONDS)
       .retryLoopFactory(new AsyncRetryLoopFactory() {
         public AsyncRetryLoop buildLoop(EventLoopGroup eventLoopGroup) {
           return new AsyncRetryLoop(0, eventLoopGroup, 1, TimeUnit.MILLISECONDS);
         }
       })
     ;
+  }
+
+  static public void main(String[] args) {
+    List<InetSocketAddress> endpoints = Arrays.asList(
+      new InetSocketAddress("localhost", 9001),
+      new InetSocketAddress("localhost", 9002),
+      new InetSocketAddress("localhost", 9003),
+      new InetSocketAddress("localhost", 9004)
+    );
+    NioEventLoopGroup group = new NioEventLoopGroup();
+    XioClusterBootstrap clusterBootstrap =
+      clusterBootstrap(group, startEchoServers(group, endpoints));
 
     try (XioChicagoClient client = XioChicagoClient.newClient(clusterBootstrap)) {
       System.out.println("HI!!!");
@@ -168,6 +229,9 @@ public class XioChicagoClient implements AutoCloseable {
       result.awaitUninterruptibly();
       System.out.println("done waiting");
       System.out.println("result " + result);
+      Future<String> value = client.read("chicago", "key");
+      value.awaitUninterruptibly();
+      System.out.println("read " + value);
     }
     group.shutdownGracefully();
   }
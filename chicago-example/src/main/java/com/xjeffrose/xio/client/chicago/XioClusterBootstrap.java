@@ -5,12 +5,16 @@ import io.netty.bootstrap.Bootstrap;
 import java.net.InetSocketAddress;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 public class XioClusterBootstrap {
   public class Config {
     final Bootstrap bootstrap;
     final List<InetSocketAddress> nodeAddresses;
     int quorum;
+    int replicationFactor = 3;
+    int virtualNodes = 128;
+    long timeoutMillis = 1000;
     AsyncRetryLoopFactory retryLoopFactory;
 
     Config(Bootstrap bootstrap) {
@@ -23,8 +27,28 @@ public class XioClusterBootstrap {
     public List<InetSocketAddress> nodes() {
       return nodeAddresses;
     }
+    /**
+     * @return the number of replicas that have to acknowledge a request, a majority of the
+     *     replicas if it wasn't configured
+     */
     public int quorum() {
-      return quorum;
+      int replicas = Math.min(replicationFactor, nodeAddresses.size());
+      if (quorum <= 0) {
+        return replicas / 2 + 1;
+      }
+      return Math.min(quorum, replicas);
+    }
+    /** @return the number of nodes each key is replicated on */
+    public int replicationFactor() {
+      return replicationFactor;
+    }
+    /** @return the number of points each node owns on the placement ring */
+    public int virtualNodes() {
+      return virtualNodes;
+    }
+    /** @return how long a node has to answer a request before it is failed */
+    public long timeoutMillis() {
+      return timeoutMillis;
     }
     public AsyncRetryLoopFactory retryLoopFactory() {
       return retryLoopFactory;
@@ -49,6 +73,18 @@ public class XioClusterBootstrap {
     config.quorum = quorum;
     return this;
   }
+  public XioClusterBootstrap replicationFactor(int replicationFactor) {
+    config.replicationFactor = replicationFactor;
+    return this;
+  }
+  public XioClusterBootstrap virtualNodes(int virtualNodes) {
+    config.virtualNodes = virtualNodes;
+    return this;
+  }
+  public XioClusterBootstrap timeout(long timeout, TimeUnit unit) {
+    config.timeoutMillis = unit.toMillis(timeout);
+    return this;
+  }
   public XioClusterBootstrap retryLoopFactory(AsyncRetryLoopFactory retryLoopFactory) {
     config.retryLoopFactory = retryLoopFactory;
     return this;
@@ -0,0 +1,70 @@
+package com.xjeffrose.xio.client.chicago;
+
+import com.google.common.base.Strings;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
+import io.netty.handler.codec.LengthFieldPrepender;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ChicagoCodecUnitTest extends Assert {
+
+  private static EmbeddedChannel newChannel() {
+    return new EmbeddedChannel(
+        new LengthFieldBasedFrameDecoder(65535, 0, 2, 0, 2),
+        new LengthFieldPrepender(2),
+        new Murmur3HashedFrameDecoder(),
+        new Murmur3HashedFrameEncoder(),
+        new ChicagoResponseDecoder(),
+        new ChicagoRequestEncoder());
+  }
+
+  private static ChicagoMessage roundTrip(ChicagoMessage message) {
+    EmbeddedChannel client = newChannel();
+    assertTrue(client.writeOutbound(message));
+    ByteBuf wire = Unpooled.buffer();
+    ByteBuf frame;
+    while ((frame = client.readOutbound()) != null) {
+      wire.writeBytes(frame);
+      frame.release();
+    }
+
+    EmbeddedChannel server = newChannel();
+    assertTrue(server.writeInbound(wire));
+    return server.readInbound();
+  }
+
+  @Test
+  public void testRoundTrip() {
+    ChicagoMessage decoded =
+        roundTrip(ChicagoMessage.write(Long.MAX_VALUE, "chicago", "key", "value"));
+
+    assertEquals(Long.MAX_VALUE, decoded.id);
+    assertEquals(Op.WRITE, decoded.op);
+    assertEquals("chicago", decoded.colFam);
+    assertEquals("key", decoded.key);
+    assertEquals("value", decoded.val);
+  }
+
+  @Test
+  public void testMultiByteLengthsAndCharacters() {
+    String key = Strings.repeat("k", 300);
+    String value = "café € 😀";
+    ChicagoMessage decoded = roundTrip(ChicagoMessage.write(7, "", key, value));
+
+    assertEquals("", decoded.colFam);
+    assertEquals(key, decoded.key);
+    assertEquals(value, decoded.val);
+  }
+
+  @Test
+  public void testUtf8Length() {
+    String value = "aé€😀\ud83d";
+    ByteBuf buf = Unpooled.buffer();
+    ByteBufUtil.writeUtf8(buf, value);
+    assertEquals(buf.readableBytes(), ChicagoRequestEncoder.utf8Length(value));
+  }
+}
@@ -0,0 +1,102 @@
+package com.xjeffrose.xio.client.chicago;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ChicagoRingTest extends Assert {
+
+  private static final int VIRTUAL_NODES = 128;
+  private static final int KEYS = 4000;
+
+  private static ChicagoRing<String> ring(String... names) {
+    Map<String, String> nodes = new LinkedHashMap<>();
+    for (String name : names) {
+      nodes.put(name, name);
+    }
+    return new ChicagoRing<>(nodes, VIRTUAL_NODES);
+  }
+
+  private static List<String> without(List<String> nodes, String node) {
+    List<String> result = new ArrayList<>(nodes);
+    result.remove(node);
+    return result;
+  }
+
+  @Test
+  public void testReplicasAreDistinctAndStable() {
+    ChicagoRing<String> ring = ring("a", "b", "c", "d", "e");
+    // placement only depends on the node names, not on the order they were added in
+    ChicagoRing<String> reordered = ring("e", "d", "c", "b", "a");
+    for (int i = 0; i < KEYS; i++) {
+      List<String> replicas = ring.nodesForKey("key" + i, 3);
+      assertEquals(3, replicas.size());
+      assertEquals(3, new HashSet<>(replicas).size());
+      assertEquals(replicas, ring.nodesForKey("key" + i, 3));
+      assertEquals(replicas, reordered.nodesForKey("key" + i, 3));
+    }
+  }
+
+  @Test
+  public void testReplicasAreCappedByNodeCount() {
+    ChicagoRing<String> ring = ring("a", "b");
+    assertEquals(2, ring.nodesForKey("key", 3).size());
+    assertTrue(ring.nodesForKey("key", 0).isEmpty());
+    assertTrue(ring().nodesForKey("key", 3).isEmpty());
+  }
+
+  @Test
+  public void testKeysAreSpreadOverNodes() {
+    ChicagoRing<String> ring = ring("a", "b", "c", "d");
+    Map<String, Integer> primaries = new HashMap<>();
+    for (int i = 0; i < KEYS; i++) {
+      primaries.merge(ring.nodesForKey("key" + i, 1).get(0), 1, Integer::sum);
+    }
+    assertEquals(4, primaries.size());
+    for (int count : primaries.values()) {
+      // a quarter each, give or take the variance of the virtual nodes
+      assertTrue(String.valueOf(primaries), count > KEYS * 0.15 && count < KEYS * 0.35);
+    }
+  }
+
+  @Test
+  public void testAddingNodeOnlyMovesKeysToIt() {
+    ChicagoRing<String> before = ring("a", "b", "c", "d");
+    ChicagoRing<String> after = ring("a", "b", "c", "d", "e");
+    int moved = 0;
+    for (int i = 0; i < KEYS; i++) {
+      List<String> old = before.nodesForKey("key" + i, 3);
+      List<String> replicas = after.nodesForKey("key" + i, 3);
+      // the new node takes a place in the replica list, the others keep their order
+      List<String> kept = without(replicas, "e");
+      assertEquals(old.subList(0, kept.size()), kept);
+      if (replicas.contains("e")) {
+        moved++;
+      }
+    }
+    // roughly the share of the new node, 3 of 5 replicas
+    assertTrue(String.valueOf(moved), moved > KEYS * 0.4 && moved < KEYS * 0.8);
+  }
+
+  @Test
+  public void testRemovingNodeOnlyMovesItsKeys() {
+    ChicagoRing<String> before = ring("a", "b", "c", "d", "e");
+    ChicagoRing<String> after = ring("a", "b", "c", "d");
+    for (int i = 0; i < KEYS; i++) {
+      List<String> old = before.nodesForKey("key" + i, 3);
+      List<String> replicas = after.nodesForKey("key" + i, 3);
+      if (!old.contains("e")) {
+        assertEquals(old, replicas);
+      } else {
+        // the next node on the ring takes over the replica of the removed node
+        List<String> kept = without(old, "e");
+        assertEquals(kept, replicas.subList(0, kept.size()));
+      }
+    }
+  }
+}
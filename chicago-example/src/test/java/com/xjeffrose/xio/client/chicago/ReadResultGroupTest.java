@@ -0,0 +1,103 @@
+package com.xjeffrose.xio.client.chicago;
+
+import com.xjeffrose.xio.client.asyncretry.AsyncRetryLoop;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ReadResultGroupTest extends Assert {
+
+  private static final Throwable FAILURE = new IOException("replica failed");
+
+  private NioEventLoopGroup group;
+  private ChicagoNode first;
+  private ChicagoNode second;
+  private ChicagoNode third;
+
+  @Before
+  public void setUp() {
+    group = new NioEventLoopGroup(1);
+    List<InetSocketAddress> addresses =
+        Arrays.asList(
+            new InetSocketAddress("127.0.0.1", 9001),
+            new InetSocketAddress("127.0.0.1", 9002),
+            new InetSocketAddress("127.0.0.1", 9003));
+    // nodes only connect once a request is sent to them
+    XioClusterBootstrap bootstrap =
+        new XioClusterBootstrap(new Bootstrap().group(group).channel(NioSocketChannel.class))
+            .addNodes(addresses)
+            .retryLoopFactory(
+                eventLoopGroup -> new AsyncRetryLoop(0, eventLoopGroup, 1, TimeUnit.MILLISECONDS));
+    first = new ChicagoNode(bootstrap, addresses.get(0));
+    second = new ChicagoNode(bootstrap, addresses.get(1));
+    third = new ChicagoNode(bootstrap, addresses.get(2));
+  }
+
+  @After
+  public void tearDown() {
+    group.shutdownGracefully(0, 0, TimeUnit.SECONDS);
+  }
+
+  @Test
+  public void testAgreeingReplicasNeedNoRepair() {
+    ReadResultGroup result = new ReadResultGroup(3, 2);
+
+    assertFalse(result.quorumAcheived(first, "value"));
+    assertTrue(result.quorumAcheived(second, "value"));
+    assertEquals("value", result.value());
+    assertFalse(result.complete());
+
+    assertFalse(result.quorumAcheived(third, "value"));
+    assertTrue(result.complete());
+    assertEquals(Collections.emptyList(), result.staleNodes());
+  }
+
+  @Test
+  public void testDivergentReplicaIsRepaired() {
+    ReadResultGroup result = new ReadResultGroup(3, 2);
+
+    assertFalse(result.quorumAcheived(first, "new"));
+    assertTrue(result.quorumAcheived(second, "old"));
+    assertFalse(result.quorumAcheived(third, "new"));
+
+    assertTrue(result.complete());
+    // the value returned by most replicas wins, the other replica is rewritten with it
+    assertEquals("new", result.value());
+    assertEquals(Collections.singletonList(second), result.staleNodes());
+  }
+
+  @Test
+  public void testTieIsWonByFirstValue() {
+    ReadResultGroup result = new ReadResultGroup(3, 2);
+
+    assertFalse(result.quorumAcheived(first, "first"));
+    assertFalse(result.quorumFailed(FAILURE));
+    assertTrue(result.quorumAcheived(second, "second"));
+
+    assertTrue(result.complete());
+    assertEquals("first", result.value());
+    // a failed replica has no value to repair
+    assertEquals(Collections.singletonList(second), result.staleNodes());
+  }
+
+  @Test
+  public void testQuorumFailsOnceUnreachable() {
+    ReadResultGroup result = new ReadResultGroup(3, 2);
+
+    assertFalse(result.quorumFailed(FAILURE));
+    assertFalse(result.quorumAcheived(first, "value"));
+    assertTrue(result.quorumFailed(FAILURE));
+    assertTrue(result.complete());
+    assertEquals(Collections.emptyList(), result.staleNodes());
+  }
+}
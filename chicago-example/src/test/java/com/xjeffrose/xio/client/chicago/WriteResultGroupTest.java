@@ -0,0 +1,49 @@
+package com.xjeffrose.xio.client.chicago;
+
+import java.io.IOException;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class WriteResultGroupTest extends Assert {
+
+  private static final Throwable FAILURE = new IOException("replica failed");
+
+  @Test
+  public void testQuorumAchievedOnce() {
+    WriteResultGroup group = new WriteResultGroup(3, 2);
+
+    assertFalse(group.quorumAcheived(new WriteResult()));
+    assertTrue(group.quorumAcheived(new WriteResult()));
+    // the last replica doesn't complete the write again
+    assertFalse(group.quorumAcheived(new WriteResult()));
+    assertEquals(3, group.succeeded());
+  }
+
+  @Test
+  public void testQuorumFailsOnceUnreachable() {
+    WriteResultGroup group = new WriteResultGroup(3, 2);
+
+    assertFalse(group.quorumFailed(FAILURE));
+    assertTrue(group.quorumFailed(FAILURE));
+    assertFalse(group.quorumFailed(FAILURE));
+    assertEquals(0, group.succeeded());
+  }
+
+  @Test
+  public void testQuorumSurvivesMinorityFailure() {
+    WriteResultGroup group = new WriteResultGroup(3, 2);
+
+    assertFalse(group.quorumAcheived(new WriteResult()));
+    assertFalse(group.quorumFailed(FAILURE));
+    assertTrue(group.quorumAcheived(new WriteResult()));
+  }
+
+  @Test
+  public void testSingleFailureFailsFullQuorum() {
+    WriteResultGroup group = new WriteResultGroup(3, 3);
+
+    assertFalse(group.quorumAcheived(new WriteResult()));
+    assertTrue(group.quorumFailed(FAILURE));
+    assertFalse(group.quorumAcheived(new WriteResult()));
+  }
+}
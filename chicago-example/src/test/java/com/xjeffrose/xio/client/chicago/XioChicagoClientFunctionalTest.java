@@ -0,0 +1,63 @@
+package com.xjeffrose.xio.client.chicago;
+
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.util.concurrent.Future;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class XioChicagoClientFunctionalTest extends Assert {
+
+  private static final int WRITES = 1_000;
+
+  private NioEventLoopGroup group;
+  private XioChicagoClient client;
+
+  @Before
+  public void setUp() {
+    group = new NioEventLoopGroup();
+    List<InetSocketAddress> nodes =
+        XioChicagoClient.startEchoServers(
+            group,
+            Arrays.asList(
+                new InetSocketAddress("127.0.0.1", 0),
+                new InetSocketAddress("127.0.0.1", 0),
+                new InetSocketAddress("127.0.0.1", 0),
+                new InetSocketAddress("127.0.0.1", 0)));
+    client =
+        XioChicagoClient.newClient(
+            XioChicagoClient.clusterBootstrap(group, nodes).timeout(10, TimeUnit.SECONDS));
+  }
+
+  @After
+  public void tearDown() {
+    client.close();
+    group.shutdownGracefully(0, 0, TimeUnit.SECONDS);
+  }
+
+  @Test
+  public void testPipelinedWritesOverLoopback() {
+    List<Future<WriteResultGroup>> results = new ArrayList<>(WRITES);
+    for (int i = 0; i < WRITES; i++) {
+      results.add(client.write("chicago", "key" + i, "value" + i));
+    }
+    for (Future<WriteResultGroup> result : results) {
+      assertTrue(result.awaitUninterruptibly(10, TimeUnit.SECONDS));
+      assertTrue(String.valueOf(result.cause()), result.isSuccess());
+    }
+  }
+
+  @Test
+  public void testReadReturnsTheEchoedValue() {
+    Future<String> result = client.read("chicago", "key");
+    assertTrue(result.awaitUninterruptibly(10, TimeUnit.SECONDS));
+    // the echo servers answer a read with the request, which has an empty value
+    assertEquals("", result.getNow());
+  }
+}
@@ -7,8 +7,7 @@ import ipaddress
 import sys
 
 from thrift import Thrift
-from thrift.transport import TSocket
-from thrift.transport import TTransport
+from thrift.transport import THttpClient
 from thrift.protocol import TBinaryProtocol
 from configurator.thriftgen.ConfigurationService import ConfigurationService
 from configurator.thriftgen.ConfigurationService.ConfigurationService import RuleType, IpRule
@@ -228,8 +227,8 @@ def parse_args():
 
 def connect(args):
   try:
-    tsocket = TSocket.TSocket(args.config_host, args.config_port)
-    transport = TTransport.TBufferedTransport(tsocket)
+    transport = THttpClient.THttpClient(
+      'http://%s:%s/thrift' % (args.config_host, args.config_port))
     protocol = TBinaryProtocol.TBinaryProtocol(transport)
     client = ConfigurationService.Client(protocol)
     transport.open()
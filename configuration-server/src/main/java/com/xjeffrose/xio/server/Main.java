@@ -1,7 +1,7 @@
 package com.xjeffrose.xio.server;
 
-import com.typesafe.config.Config;
-import com.typesafe.config.ConfigFactory;
+import com.xjeffrose.xio.application.ApplicationConfig;
+import com.xjeffrose.xio.application.ApplicationState;
 import com.xjeffrose.xio.config.Configurator;
 import org.apache.curator.test.TestingServer;
 
@@ -13,7 +13,8 @@ public class Main {
   public Main() throws Exception {
     zkServer = new TestingServer(2181, true);
 
-    server = Configurator.build(ConfigFactory.load().getConfig("xio.exampleApplication.settings"));
+    ApplicationConfig config = ApplicationConfig.fromConfig("xio.exampleApplication");
+    server = Configurator.build(new ApplicationState(config));
   }
 
   public void run() throws Exception {
@@ -0,0 +1,53 @@
+package com.xjeffrose.xio.log;
+
+import java.util.concurrent.TimeUnit;
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.apache.log4j.spi.LoggingEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Records per second formatted by {@link GlogLayout}, with and without location info and stack
+ * traces. Run with the gc profiler (-prof gc) to see the bytes allocated per record, reported as
+ * gc.alloc.rate.norm.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class GlogLayoutBenchmark {
+  private static final String FQCN = GlogLayoutBenchmark.class.getName();
+
+  @Param({"true", "false"})
+  public boolean locationInfo;
+
+  @Param({"false", "true"})
+  public boolean withThrowable;
+
+  private GlogLayout layout;
+  private Logger logger;
+  private Throwable throwable;
+
+  @Setup
+  public void setUp() {
+    layout = new GlogLayout();
+    layout.setLocationInfo(locationInfo);
+    layout.activateOptions();
+    logger = Logger.getLogger(GlogLayoutBenchmark.class);
+    throwable = withThrowable ? new IllegalStateException("upstream connection refused") : null;
+  }
+
+  @Benchmark
+  public String format() {
+    // a new event per record, location info is resolved and cached per event
+    LoggingEvent event =
+        new LoggingEvent(FQCN, logger, Level.ERROR, "request failed for route /foo/", throwable);
+    return layout.format(event);
+  }
+}
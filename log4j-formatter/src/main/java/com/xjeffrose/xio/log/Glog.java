@@ -16,50 +16,101 @@ package com.xjeffrose.xio.log;
  * limitations under the License.
  */
 
-import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
 
+/**
+ * Formats records in the glog format. Records are written into a StringBuilder that is reused by
+ * each thread and the formatted timestamp is cached for the current second, so the only
+ * allocation per record is the resulting String.
+ */
 public class Glog {
 
-  private static final int BASE_MESSAGE_LENGTH = 30;
+  private static final DateTimeFormatter TIMESTAMP_FORMAT =
+      DateTimeFormatter.ofPattern(" MMdd HH:mm:ss.");
+
+  // buffers grown beyond this size by a large stack trace are not kept
+  private static final int MAX_RETAINED_CAPACITY = 64 * 1024;
+
+  private static final int INITIAL_CAPACITY = 256;
+
+  private static final ThreadLocal<Buffer> BUFFERS = ThreadLocal.withInitial(Buffer::new);
 
   public Glog() {
   }
 
+  /** Per thread output buffer and the timestamp prefix of the last second formatted. */
+  private static final class Buffer {
+    StringBuilder sb = new StringBuilder(INITIAL_CAPACITY);
+    long second = Long.MIN_VALUE;
+    String timestampPrefix;
+    boolean inUse;
+
+    String timestampPrefix(long timeStamp) {
+      long recordSecond = Math.floorDiv(timeStamp, 1000L);
+      if (recordSecond != second) {
+        timestampPrefix =
+            LocalDateTime.ofEpochSecond(recordSecond, 0, ZoneOffset.UTC).format(TIMESTAMP_FORMAT);
+        second = recordSecond;
+      }
+      return timestampPrefix;
+    }
+  }
+
   public static <T> String formatRecord(Formatter<T> formatter, T record) {
-    String message = formatter.getMessage(record);
-    int messageLength = BASE_MESSAGE_LENGTH + 2 + message.length();
-    String className = formatter.getClassName(record);
-    String methodName = null;
-    if (className != null) {
-      messageLength += className.length();
-      methodName = formatter.getMethodName(record);
-      if (methodName != null) {
-        messageLength += 1;  // Period between class and method.
-        messageLength += methodName.length();
+    Buffer buffer = BUFFERS.get();
+    if (buffer.inUse) {
+      // a formatter call logged and reentered on this thread
+      buffer = new Buffer();
+    }
+    buffer.inUse = true;
+    try {
+      StringBuilder sb = buffer.sb;
+      sb.setLength(0);
+      append(formatter, record, sb, buffer);
+      return sb.toString();
+    } finally {
+      if (buffer.sb.capacity() > MAX_RETAINED_CAPACITY) {
+        buffer.sb = new StringBuilder(INITIAL_CAPACITY);
       }
+      buffer.inUse = false;
     }
+  }
 
-    StringBuilder sb = new StringBuilder(messageLength)
-        // TODO implement Lambda for checking nonNull logs
-//        .append( (T r) ->
-//         formatter.getLevel(r)  != null ? formatter.getLevel(r) : Level.UNKNOWN.label)
-        .append(formatter.getLevel(record).label)
-        .append(LocalDateTime.ofInstant(Instant.ofEpochMilli(formatter.getTimeStamp(record)),
-            ZoneOffset.UTC).format(DateTimeFormatter.ofPattern(" MMdd HH:mm:ss.SSS")))
-        .append(formatter.getTimeStamp(record))
+  /** Appends the formatted record to sb, for callers that write the builder out themselves. */
+  public static <T> StringBuilder formatRecord(Formatter<T> formatter, T record, StringBuilder sb) {
+    append(formatter, record, sb, BUFFERS.get());
+    return sb;
+  }
+
+  private static <T> void append(
+      Formatter<T> formatter, T record, StringBuilder sb, Buffer buffer) {
+    Level level = formatter.getLevel(record);
+    long timeStamp = formatter.getTimeStamp(record);
+    int millis = (int) Math.floorMod(timeStamp, 1000L);
+    sb.append(level != null ? level.label : Level.UNKNOWN.label)
+        .append(buffer.timestampPrefix(timeStamp));
+    if (millis < 100) {
+      sb.append('0');
+    }
+    if (millis < 10) {
+      sb.append('0');
+    }
+    sb.append(millis)
+        .append(timeStamp)
         .append(" THREAD")
         .append(formatter.getThreadId(record));
+    String className = formatter.getClassName(record);
     if (className != null) {
       sb.append(' ').append(className);
+      String methodName = formatter.getMethodName(record);
       if (methodName != null) {
         sb.append('.').append(methodName);
       }
     }
 
-    sb.append(": ").append(message);
+    sb.append(": ").append(formatter.getMessage(record));
     Throwable throwable = formatter.getThrowable(record);
     if (throwable != null) {
       sb.append("\n  ").append(throwable.getClass().getCanonicalName());
@@ -72,18 +123,18 @@ public class Glog {
       for (StackTraceElement element : throwable.getStackTrace()) {
         sb.append("\n    at ")
             .append(element.getClassName())
-            .append(".")
+            .append('.')
             .append(element.getMethodName())
-            .append("(")
+            .append('(')
             .append(element.getFileName())
-            .append(":")
+            .append(':')
             .append(element.getLineNumber())
-            .append(")")
+            .append(')')
         ;
       }
     }
 
-    return sb.append('\n').toString();
+    sb.append('\n');
   }
 
   public enum Level {
@@ -17,28 +17,31 @@ package com.xjeffrose.xio.log;
  *
  */
 
-import java.util.HashMap;
-import java.util.Map;
 import org.apache.log4j.Layout;
 import org.apache.log4j.Level;
 import org.apache.log4j.spi.LocationInfo;
 import org.apache.log4j.spi.LoggingEvent;
 import org.apache.log4j.spi.ThrowableInformation;
 
+/**
+ * Formats log4j events in the glog format, see {@link Glog}. Resolving the class and method of an
+ * event walks the stack, set the LocationInfo option to false to print the logger name instead:
+ *
+ * <pre>
+ * log4j.appender.CONSOLE.layout=com.xjeffrose.xio.log.GlogLayout
+ * log4j.appender.CONSOLE.layout.LocationInfo=false
+ * </pre>
+ */
 public class GlogLayout extends Layout implements Glog.Formatter<LoggingEvent> {
 
-  private static final Map<Level, Glog.Level> LEVEL_LABELS = getLabels();
+  private boolean locationInfo = true;
 
-  private static Map<Level, Glog.Level> getLabels() {
-    final Map<Level, Glog.Level> LEVEL_LABELS = new HashMap<>();
+  public void setLocationInfo(boolean locationInfo) {
+    this.locationInfo = locationInfo;
+  }
 
-    LEVEL_LABELS.put(Level.TRACE, Glog.Level.DEBUG);
-    LEVEL_LABELS.put(Level.DEBUG, Glog.Level.DEBUG);
-    LEVEL_LABELS.put(Level.INFO, Glog.Level.INFO);
-    LEVEL_LABELS.put(Level.WARN, Glog.Level.WARNING);
-    LEVEL_LABELS.put(Level.ERROR, Glog.Level.ERROR);
-    LEVEL_LABELS.put(Level.FATAL, Glog.Level.FATAL);
-    return LEVEL_LABELS;
+  public boolean getLocationInfo() {
+    return locationInfo;
   }
 
   @Override
@@ -63,6 +66,9 @@ public class GlogLayout extends Layout implements Glog.Formatter<LoggingEvent> {
 
   @Override
   public String getClassName(LoggingEvent record) {
+    if (!locationInfo) {
+      return record.getLoggerName();
+    }
     LocationInfo locationInformation = record.getLocationInformation();
     return (locationInformation != null)
         ? locationInformation.getClassName()
@@ -71,6 +77,9 @@ public class GlogLayout extends Layout implements Glog.Formatter<LoggingEvent> {
 
   @Override
   public String getMethodName(LoggingEvent record) {
+    if (!locationInfo) {
+      return null;
+    }
     LocationInfo locationInformation = record.getLocationInformation();
     return (locationInformation != null)
         ? record.getLocationInformation().getMethodName()
@@ -79,7 +88,21 @@ public class GlogLayout extends Layout implements Glog.Formatter<LoggingEvent> {
 
   @Override
   public Glog.Level getLevel(LoggingEvent record) {
-    return LEVEL_LABELS.get(record.getLevel());
+    switch (record.getLevel().toInt()) {
+      case Level.TRACE_INT:
+      case Level.DEBUG_INT:
+        return Glog.Level.DEBUG;
+      case Level.INFO_INT:
+        return Glog.Level.INFO;
+      case Level.WARN_INT:
+        return Glog.Level.WARNING;
+      case Level.ERROR_INT:
+        return Glog.Level.ERROR;
+      case Level.FATAL_INT:
+        return Glog.Level.FATAL;
+      default:
+        return Glog.Level.UNKNOWN;
+    }
   }
 
   @Override
@@ -0,0 +1,122 @@
+package com.xjeffrose.xio.bootstrap;
+
+import com.xjeffrose.xio.core.EchoCodec;
+import com.xjeffrose.xio.core.SocketAddresses;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.SimpleChannelInboundHandler;
+import java.io.File;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.file.Files;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Round trip latency of an echo over loopback tcp and over a unix domain socket, run with
+ * ./gradlew :xio:jmh. Unix domain sockets require epoll.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TransportLatencyBenchmark {
+  @Param({"tcp", "unix"})
+  public String transport;
+
+  @Param({"64", "4096"})
+  public int payloadSize;
+
+  private ServerChannelConfiguration serverConfig;
+  private ClientChannelConfiguration clientConfig;
+  private File socketDir;
+  private Channel server;
+  private Channel client;
+  private ByteBuf payload;
+  private final BlockingQueue<Integer> echoed = new LinkedBlockingQueue<>();
+  private int pending;
+
+  @Setup
+  public void setUp() throws Exception {
+    serverConfig =
+        ChannelConfiguration.serverConfig(1, "bench-boss-%d", 1, "bench-server-worker-%d");
+    clientConfig = ChannelConfiguration.clientConfig(1, "bench-client-worker-%d");
+    SocketAddress address;
+    if ("unix".equals(transport)) {
+      socketDir = Files.createTempDirectory("xio-bench").toFile();
+      String path = new File(socketDir, "echo.sock").getPath();
+      address = SocketAddresses.parse(SocketAddresses.UNIX_PREFIX + path, 0);
+    } else {
+      address = new InetSocketAddress("127.0.0.1", 0);
+    }
+    server =
+        new ServerBootstrap()
+            .group(serverConfig.bossGroup(), serverConfig.workerGroup())
+            .channel(ChannelConfiguration.serverChannel(serverConfig, address))
+            .childHandler(new EchoCodec())
+            .bind(address)
+            .sync()
+            .channel();
+    client =
+        new Bootstrap()
+            .group(clientConfig.workerGroup())
+            .channel(
+                ChannelConfiguration.clientConfig(clientConfig.workerGroup(), address).channel())
+            .handler(
+                new ChannelInitializer<Channel>() {
+                  @Override
+                  protected void initChannel(Channel ch) {
+                    ch.pipeline()
+                        .addLast(
+                            new SimpleChannelInboundHandler<ByteBuf>() {
+                              @Override
+                              protected void channelRead0(ChannelHandlerContext ctx, ByteBuf msg) {
+                                echoed.add(msg.readableBytes());
+                              }
+                            });
+                  }
+                })
+            .connect(server.localAddress())
+            .sync()
+            .channel();
+    payload =
+        Unpooled.unreleasableBuffer(Unpooled.directBuffer(payloadSize).writeZero(payloadSize));
+  }
+
+  @TearDown
+  public void tearDown() throws Exception {
+    client.close().sync();
+    server.close().sync();
+    clientConfig.workerGroup().shutdownGracefully(0, 0, TimeUnit.SECONDS).sync();
+    serverConfig.workerGroup().shutdownGracefully(0, 0, TimeUnit.SECONDS).sync();
+    serverConfig.bossGroup().shutdownGracefully(0, 0, TimeUnit.SECONDS).sync();
+    if (socketDir != null) {
+      socketDir.delete();
+    }
+  }
+
+  @Benchmark
+  public int roundTrip() throws InterruptedException {
+    client.writeAndFlush(payload.duplicate());
+    // the echo may arrive in several reads
+    pending += payloadSize;
+    while (pending > 0) {
+      pending -= echoed.take();
+    }
+    return pending;
+  }
+}
@@ -0,0 +1,108 @@
+package com.xjeffrose.xio.http;
+
+import com.xjeffrose.xio.http.internal.Http1Headers;
+import com.xjeffrose.xio.http.internal.Http2HeadersWrapper;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http2.DefaultHttp2Headers;
+import io.netty.handler.codec.http2.Http2Headers;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Cost of handing the headers of a proxied request to the backend codec, for every pair of
+ * frontend and backend protocols. Same protocol forwarding returns the native headers, the copy
+ * benchmarks measure the translation a protocol change needs and the copy h2 to h2 used to make.
+ * Run with ./gradlew :xio:jmh.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class HeaderForwardingBenchmark {
+  private static final String HOST = "backend.example.com";
+  private static final String PATH = "/api/v1/resource";
+
+  @Param({"8", "32"})
+  public int headerCount;
+
+  private Request h1Request;
+  private Request h2Request;
+  private Request h2RewrittenRequest;
+  private Http1Headers h1Headers;
+  private Http2HeadersWrapper h2Headers;
+
+  private static Request request(Headers headers, String path) {
+    return DefaultFullRequest.builder()
+        .body(Unpooled.EMPTY_BUFFER)
+        .headers(headers)
+        .method(HttpMethod.GET)
+        .path(path)
+        .host(HOST)
+        .streamId(1)
+        .build();
+  }
+
+  @Setup
+  public void setUp() {
+    HttpHeaders http1 = new DefaultHttpHeaders();
+    Http2Headers http2 =
+        new DefaultHttp2Headers().authority(HOST).method(HttpMethod.GET.asciiName()).path(PATH);
+    for (int i = 0; i < headerCount; i++) {
+      http1.add("x-header-" + i, "value-" + i);
+      http2.add("x-header-" + i, "value-" + i);
+    }
+    h1Headers = new Http1Headers(http1);
+    h2Headers = new Http2HeadersWrapper(http2);
+    h1Request = request(h1Headers, PATH);
+    h2Request = request(h2Headers, PATH);
+    // proxied to a different path, the incoming headers must be copied
+    h2RewrittenRequest = request(h2Headers, "/rewritten" + PATH);
+  }
+
+  @Benchmark
+  public HttpHeaders h1ToH1() {
+    return h1Headers.http1Headers(false, true);
+  }
+
+  @Benchmark
+  public Http2Headers h1ToH2() {
+    return Http2ClientCodec.requestHeaders(h1Request);
+  }
+
+  @Benchmark
+  public HttpHeaders h2ToH1() {
+    return h2Headers.http1Headers(false, true);
+  }
+
+  @Benchmark
+  public Http2Headers h2ToH2() {
+    return h2Headers.http2Headers();
+  }
+
+  @Benchmark
+  public Http2Headers h2ToH2Copy() {
+    // what every h2 to h2 request paid before the native headers were forwarded
+    Http2Headers copy = new DefaultHttp2Headers();
+    copy.add(h2Headers.http2Headers());
+    return copy;
+  }
+
+  @Benchmark
+  public Http2Headers h2ToH2Request() {
+    return Http2ClientCodec.requestHeaders(h2Request);
+  }
+
+  @Benchmark
+  public Http2Headers h2ToH2RewrittenRequest() {
+    return Http2ClientCodec.requestHeaders(h2RewrittenRequest);
+  }
+}
@@ -40,6 +40,7 @@ public class Application implements AutoCloseable {
   public void close() {
     log.debug("Closing " + this);
     servers.values().stream().forEach((v) -> v.close());
+    state.close();
     configurator.close();
   }
 }
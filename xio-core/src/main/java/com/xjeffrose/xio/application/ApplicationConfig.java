@@ -6,7 +6,12 @@ import com.typesafe.config.ConfigFactory;
 import com.xjeffrose.xio.bootstrap.ChannelConfiguration;
 import com.xjeffrose.xio.bootstrap.ServerChannelConfiguration;
 import com.xjeffrose.xio.config.TracingConfig;
+import com.xjeffrose.xio.http.CircuitBreakerConfig;
+import com.xjeffrose.xio.server.AccessLogConfig;
+import com.xjeffrose.xio.server.AdaptiveLimitConfig;
+import com.xjeffrose.xio.server.LoadSheddingConfig;
 import io.netty.util.internal.PlatformDependent;
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
 import lombok.Getter;
@@ -22,15 +27,24 @@ public class ApplicationConfig {
   @Getter private final int workerThreads;
   @Getter private final String workerNameFormat;
   @Getter private final String zookeeperCluster;
+  @Getter private final int maxConnections;
+  @Getter private final AdaptiveLimitConfig requestLimiterConfig;
+  @Getter private final LoadSheddingConfig loadSheddingConfig;
   @Getter private final String ipFilterPath;
   @Getter private final String http1FilterPath;
+  @Getter private final String snapshotPath;
+  @Getter private final Duration snapshotFlushDelay;
   @Getter private final double globalSoftReqPerSec;
   @Getter private final double globalHardReqPerSec;
   @Getter private final double softReqPerSec;
   @Getter private final double hardReqPerSec;
   @Getter private final int rateLimiterPoolSize;
   @Getter private final int clientPoolSize;
+  @Getter private final CircuitBreakerConfig circuitBreakerConfig;
   @Getter private final TracingConfig tracingConfig;
+  @Getter private final boolean adminServerEnabled;
+  @Getter private final Duration eventLoopProbeInterval;
+  @Getter private final AccessLogConfig accessLogConfig;
 
   @Getter
   private final Map<String, List<Double>> clientRateLimitOverride =
@@ -44,15 +58,25 @@ public class ApplicationConfig {
     workerThreads = config.getInt("settings.workerThreads");
     workerNameFormat = config.getString("settings.workerNameFormat");
     zookeeperCluster = config.getString("settings.zookeeper.cluster");
+    maxConnections = config.getInt("limits.maxConnections");
+    requestLimiterConfig = new AdaptiveLimitConfig(config.getConfig("limits.requestLimiter"));
+    loadSheddingConfig = new LoadSheddingConfig(config.getConfig("limits.loadShedding"));
     ipFilterPath = config.getString("settings.configurationManager.ipFilter.path");
     http1FilterPath = config.getString("settings.configurationManager.http1Filter.path");
+    snapshotPath = config.getString("settings.configurationManager.snapshot.path");
+    snapshotFlushDelay = config.getDuration("settings.configurationManager.snapshot.flushDelay");
     globalSoftReqPerSec = config.getDouble("settings.global_soft_req_per_sec");
     globalHardReqPerSec = config.getDouble("settings.global_hard_req_per_sec");
     softReqPerSec = config.getDouble("settings.soft_req_per_sec");
     hardReqPerSec = config.getDouble("settings.hard_req_per_sec");
     rateLimiterPoolSize = config.getInt("settings.rate_limiter_pool_size");
     clientPoolSize = config.getInt("clientLimits.clientPoolSize");
+    circuitBreakerConfig =
+        new CircuitBreakerConfig(config.getConfig("clientLimits.circuitBreaker"));
     tracingConfig = new TracingConfig(name, config.getConfig("settings.tracing"));
+    adminServerEnabled = config.getBoolean("settings.adminServer.enabled");
+    eventLoopProbeInterval = config.getDuration("settings.eventLoopProbeInterval");
+    accessLogConfig = new AccessLogConfig(config.getConfig("settings.accessLog"));
   }
 
   public static ApplicationConfig fromConfig(String key, Config config) {
@@ -81,6 +105,10 @@ public class ApplicationConfig {
     }
   }
 
+  public Config getAdminServer() {
+    return config.getConfig("settings.adminServer");
+  }
+
   // TODO(CK): parse settings at construction time
   public Config settings() {
     return config.getConfig("settings");
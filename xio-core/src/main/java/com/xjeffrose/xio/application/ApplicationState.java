@@ -9,8 +9,16 @@ import com.xjeffrose.xio.config.TracingConfig;
 import com.xjeffrose.xio.core.ZkClient;
 import com.xjeffrose.xio.filter.Http1FilterConfig;
 import com.xjeffrose.xio.filter.IpFilterConfig;
+import com.xjeffrose.xio.http.CircuitBreakers;
+import com.xjeffrose.xio.metric.EventLoopProbe;
+import com.xjeffrose.xio.server.AccessLog;
+import com.xjeffrose.xio.server.LoadShedder;
+import com.xjeffrose.xio.server.RequestLimiter;
+import com.xjeffrose.xio.server.XioConnectionLimiter;
+import com.xjeffrose.xio.storage.LocalSnapshotStore;
 import com.xjeffrose.xio.tracing.XioTracing;
 import io.netty.channel.EventLoopGroup;
+import java.nio.file.Paths;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
 import lombok.Getter;
@@ -32,6 +40,21 @@ public class ApplicationState {
 
   @Getter private MetricRegistry metricRegistry;
 
+  @Getter private final EventLoopProbe eventLoopProbe;
+
+  @Getter private final XioConnectionLimiter connectionLimiter;
+
+  @Getter private final RequestLimiter requestLimiter;
+
+  @Getter private final LoadShedder loadShedder;
+
+  @Getter private final CircuitBreakers circuitBreakers;
+
+  @Getter private final AccessLog accessLog;
+
+  // null if no snapshot path is configured
+  @Getter private final LocalSnapshotStore snapshotStore;
+
   @VisibleForTesting
   public void setMetricRegistry(MetricRegistry metricRegistry) {
     this.metricRegistry = metricRegistry;
@@ -48,6 +71,20 @@ public class ApplicationState {
     JmxReporter jmxReporter = JmxReporter.forRegistry(metricRegistry).build();
     jmxReporter.start();
     this.channelConfiguration = config.serverChannelConfig();
+    this.eventLoopProbe = new EventLoopProbe(workerGroup(), config.getEventLoopProbeInterval());
+    eventLoopProbe.register(metricRegistry);
+    eventLoopProbe.start();
+    this.connectionLimiter = new XioConnectionLimiter(config.getMaxConnections());
+    this.requestLimiter = new RequestLimiter(config.getRequestLimiterConfig(), metricRegistry);
+    this.loadShedder = new LoadShedder(config.getLoadSheddingConfig(), metricRegistry);
+    this.circuitBreakers = new CircuitBreakers(config.getCircuitBreakerConfig(), metricRegistry);
+    this.accessLog = new AccessLog(config.getAccessLogConfig(), metricRegistry);
+    accessLog.start();
+    this.snapshotStore =
+        config.getSnapshotPath().isEmpty()
+            ? null
+            : new LocalSnapshotStore(
+                Paths.get(config.getSnapshotPath()), config.getSnapshotFlushDelay());
     this.ipFilterConfig = new AtomicReference<>(new IpFilterConfig());
     this.http1FilterConfig = new AtomicReference<>(new Http1FilterConfig());
   }
@@ -62,6 +99,15 @@ public class ApplicationState {
     this(config, new XioTracing(config.getTracingConfig()));
   }
 
+  /** Stops the background work of the application, called once its servers are closed. */
+  public void close() {
+    eventLoopProbe.stop();
+    accessLog.stop();
+    if (snapshotStore != null) {
+      snapshotStore.close();
+    }
+  }
+
   public EventLoopGroup workerGroup() {
     return channelConfiguration.workerGroup();
   }
@@ -10,18 +10,28 @@ import com.xjeffrose.xio.config.TracingConfig;
 import com.xjeffrose.xio.core.ZkClient;
 import com.xjeffrose.xio.filter.Http1FilterConfig;
 import com.xjeffrose.xio.filter.IpFilterConfig;
+import com.xjeffrose.xio.http.PipelineRouter;
+import com.xjeffrose.xio.marshall.ThriftMarshaller;
+import com.xjeffrose.xio.metric.AdminRoutes;
+import com.xjeffrose.xio.pipeline.SmartHttpPipeline;
 import com.xjeffrose.xio.server.XioServer;
 import com.xjeffrose.xio.server.XioServerConfig;
 import com.xjeffrose.xio.server.XioServerState;
+import com.xjeffrose.xio.storage.LocalSnapshotStore;
 import com.xjeffrose.xio.tracing.XioTracing;
+import io.netty.channel.ChannelHandler;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.UnaryOperator;
 import lombok.Getter;
 
 public class ApplicationBootstrap {
 
+  public static final String ADMIN_SERVER = "admin";
+
   // TODO(CK): Make this configurable
   /** ApplicationRunner knows how to stop a running Application */
   public static class ApplicationRunner {
@@ -97,18 +107,75 @@ public class ApplicationBootstrap {
     return this;
   }
 
+  private XioServerBootstrap adminServerBootstrap() {
+    XioServerConfig serverConfig = new XioServerConfig(config.getAdminServer());
+    XioServerState serverState = new XioServerState(serverConfig);
+    return new XioServerBootstrap(state, serverConfig, serverState)
+        .channelConfig(state.getChannelConfiguration())
+        .addToPipeline(
+            new SmartHttpPipeline() {
+              @Override
+              public ChannelHandler getApplicationRouter() {
+                return new PipelineRouter(AdminRoutes.build(state));
+              }
+            });
+  }
+
+  /**
+   * Registers the filter updaters, restoring the rules applied before the last restart from the
+   * local snapshot if there is one. Zookeeper replaces the restored rules once it is synced.
+   *
+   * @return true if rules were restored from the snapshot
+   */
+  private boolean registerFilterUpdaters(ZkClient zkClient) {
+    String ipFilterPath = config.getIpFilterPath();
+    String http1FilterPath = config.getHttp1FilterPath();
+    Consumer<IpFilterConfig> ipFilterSetter = state::setIpFilterConfig;
+    Consumer<Http1FilterConfig> http1FilterSetter = state::setHttp1FilterConfig;
+    boolean restored = false;
+
+    LocalSnapshotStore snapshots = state.getSnapshotStore();
+    if (snapshots != null) {
+      Optional<byte[]> ipRules = snapshots.get(ipFilterPath);
+      Optional<byte[]> http1Rules = snapshots.get(http1FilterPath);
+      ipRules.ifPresent(new IpFilterConfig.Updater(ipFilterPath, ipFilterSetter)::update);
+      http1Rules.ifPresent(
+          new Http1FilterConfig.Updater(http1FilterPath, http1FilterSetter)::update);
+      restored = ipRules.isPresent() || http1Rules.isPresent();
+
+      // only used on the snapshot writer thread
+      ThriftMarshaller marshaller = new ThriftMarshaller();
+      ipFilterSetter =
+          ipFilterSetter.andThen(
+              filter -> snapshots.put(ipFilterPath, () -> filter.marshall(marshaller)));
+      http1FilterSetter =
+          http1FilterSetter.andThen(
+              filter -> snapshots.put(http1FilterPath, () -> filter.marshall(marshaller)));
+    }
+
+    zkClient.registerUpdater(new IpFilterConfig.Updater(ipFilterPath, ipFilterSetter));
+    zkClient.registerUpdater(new Http1FilterConfig.Updater(http1FilterPath, http1FilterSetter));
+    return restored;
+  }
+
   public Application build() {
     Map<String, XioServer> servers = new HashMap<>();
     serverBootstraps.forEach((k, v) -> servers.put(k, v.build()));
+    if (config.isAdminServerEnabled()) {
+      servers.put(ADMIN_SERVER, adminServerBootstrap().build());
+    }
 
     ZkClient zkClient = state.getZkClient();
-    zkClient.registerUpdater(
-        new IpFilterConfig.Updater(config.getIpFilterPath(), state::setIpFilterConfig));
-    zkClient.registerUpdater(
-        new Http1FilterConfig.Updater(config.getHttp1FilterPath(), state::setHttp1FilterConfig));
-    state.getZkClient().start();
+    if (registerFilterUpdaters(zkClient)) {
+      // the filters are in place already, don't hold up startup on zookeeper
+      Thread starter = new Thread(zkClient::start, "xio-zookeeper-start");
+      starter.setDaemon(true);
+      starter.start();
+    } else {
+      zkClient.start();
+    }
 
-    Configurator configurator = Configurator.build(config.settings());
+    Configurator configurator = Configurator.build(state);
     configurator.start();
     Application application = new Application(config, servers, state, configurator);
     new ApplicationRunner(application).start();
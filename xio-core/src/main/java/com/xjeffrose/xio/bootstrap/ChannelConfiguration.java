@@ -1,17 +1,21 @@
 package com.xjeffrose.xio.bootstrap;
 
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.xjeffrose.xio.core.SocketAddresses;
 import io.netty.channel.Channel;
 import io.netty.channel.EventLoop;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.ServerChannel;
 import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollDomainSocketChannel;
 import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerDomainSocketChannel;
 import io.netty.channel.epoll.EpollServerSocketChannel;
 import io.netty.channel.epoll.EpollSocketChannel;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
 import io.netty.channel.socket.nio.NioSocketChannel;
+import java.net.SocketAddress;
 import java.util.concurrent.ThreadFactory;
 
 // TODO(CK): Configuration is the wrong name as we store
@@ -28,6 +32,20 @@ public class ChannelConfiguration {
     return new ThreadFactoryBuilder().setNameFormat(nameFormat).build();
   }
 
+  private static EventLoopGroup parent(EventLoopGroup group) {
+    if (group instanceof EventLoop) {
+      return ((EventLoop) group).parent();
+    }
+    return group;
+  }
+
+  private static void checkDomainSocketSupport(EventLoopGroup group, SocketAddress address) {
+    if (!(parent(group) instanceof EpollEventLoopGroup)) {
+      throw new IllegalStateException(
+          "Unix domain socket " + address + " requires epoll, it isn't available on this platform");
+    }
+  }
+
   /**
    * This method will configure a worker EventLoopGroup and a Channel for use by a client. It will
    * try to use Epoll if it's available.
@@ -59,10 +77,7 @@ public class ChannelConfiguration {
    * @return ClientChannelConfiguration
    */
   public static ClientChannelConfiguration clientConfig(EventLoopGroup workerGroup) {
-    EventLoopGroup parent = workerGroup;
-    if (parent instanceof EventLoop) {
-      parent = ((EventLoop) workerGroup).parent();
-    }
+    EventLoopGroup parent = parent(workerGroup);
     Class<? extends Channel> channelClass;
     if (parent instanceof EpollEventLoopGroup) {
       channelClass = EpollSocketChannel.class;
@@ -75,6 +90,38 @@ public class ChannelConfiguration {
     return new ClientChannelConfiguration(workerGroup, channelClass);
   }
 
+  /**
+   * This method will configure a worker EventLoopGroup and a Channel for use by a client connecting
+   * to remote. Unix domain sockets use EpollDomainSocketChannel and require an epoll workerGroup.
+   *
+   * @param workerGroup uses EventLoopGroup in the ClientChannelConfiguration
+   * @param remote the address the client connects to
+   * @return ClientChannelConfiguration
+   */
+  public static ClientChannelConfiguration clientConfig(
+      EventLoopGroup workerGroup, SocketAddress remote) {
+    if (SocketAddresses.isDomainSocket(remote)) {
+      checkDomainSocketSupport(workerGroup, remote);
+      return new ClientChannelConfiguration(workerGroup, EpollDomainSocketChannel.class);
+    }
+    return clientConfig(workerGroup);
+  }
+
+  /**
+   * @param channelConfig the server's boss and worker EventLoopGroups
+   * @param address the address the server binds
+   * @return the ServerChannel class of channelConfig, or EpollServerDomainSocketChannel for unix
+   *     domain sockets
+   */
+  public static Class<? extends ServerChannel> serverChannel(
+      ServerChannelConfiguration channelConfig, SocketAddress address) {
+    if (SocketAddresses.isDomainSocket(address)) {
+      checkDomainSocketSupport(channelConfig.bossGroup(), address);
+      return EpollServerDomainSocketChannel.class;
+    }
+    return channelConfig.channel();
+  }
+
   /**
    * This method will configure a boss EventLoopGroup, a worker EventLoopGroup and a ServerChannel
    * for use by a server. It will try to use Epoll if it's available.
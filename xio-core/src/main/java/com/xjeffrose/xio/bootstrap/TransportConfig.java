@@ -0,0 +1,129 @@
+package com.xjeffrose.xio.bootstrap;
+
+import com.typesafe.config.Config;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.WriteBufferWaterMark;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.epoll.EpollMode;
+import io.netty.channel.unix.DomainSocketChannel;
+import io.netty.channel.unix.ServerDomainSocketChannel;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import lombok.Getter;
+import lombok.experimental.Accessors;
+
+/**
+ * Socket options applied to every channel of a server or client, see serverSettings.transport and
+ * clientTemplate.transport in reference.conf. Options that don't apply to the channel class are
+ * left out: tcp options for unix domain sockets and epoll options for nio.
+ */
+@Accessors(fluent = true)
+@Getter
+public class TransportConfig {
+
+  /** Only servers bind with SO_REUSEPORT */
+  private final boolean reusePort;
+  private final boolean tcpNoDelay;
+  // 0 leaves the os default
+  private final int receiveBufferSize;
+  private final int sendBufferSize;
+  private final int writeBufferLowWaterMark;
+  private final int writeBufferHighWaterMark;
+  /** Only clients have a connect timeout, 0 leaves netty's default */
+  private final Duration connectTimeout;
+  private final int tcpFastOpen;
+  private final boolean tcpQuickAck;
+  private final boolean edgeTriggered;
+
+  public TransportConfig(Config config) {
+    reusePort = config.hasPath("reusePort") && config.getBoolean("reusePort");
+    tcpNoDelay = config.getBoolean("tcpNoDelay");
+    receiveBufferSize = config.getBytes("receiveBufferSize").intValue();
+    sendBufferSize = config.getBytes("sendBufferSize").intValue();
+    writeBufferLowWaterMark = config.getBytes("writeBufferLowWaterMark").intValue();
+    writeBufferHighWaterMark = config.getBytes("writeBufferHighWaterMark").intValue();
+    connectTimeout =
+        config.hasPath("connectTimeout") ? config.getDuration("connectTimeout") : Duration.ZERO;
+    tcpFastOpen = config.getInt("tcpFastOpen");
+    tcpQuickAck = config.getBoolean("tcpQuickAck");
+    edgeTriggered = config.getBoolean("edgeTriggered");
+  }
+
+  private static boolean isEpoll(Class<? extends Channel> channelClass) {
+    return channelClass.getPackage() == Epoll.class.getPackage();
+  }
+
+  private static boolean isTcp(Class<? extends Channel> channelClass) {
+    return !DomainSocketChannel.class.isAssignableFrom(channelClass)
+        && !ServerDomainSocketChannel.class.isAssignableFrom(channelClass);
+  }
+
+  private static void put(
+      Map<ChannelOption<Object>, Object> options, ChannelOption<?> option, Object value) {
+    @SuppressWarnings("unchecked")
+    ChannelOption<Object> key = (ChannelOption<Object>) option;
+    options.put(key, value);
+  }
+
+  /** @return the options of the listening sockets of a server */
+  public Map<ChannelOption<Object>, Object> serverOptions(Class<? extends Channel> channelClass) {
+    Map<ChannelOption<Object>, Object> options = new LinkedHashMap<>();
+    if (receiveBufferSize > 0) {
+      // set before listen so that accepted sockets may scale their window beyond 64KiB
+      put(options, ChannelOption.SO_RCVBUF, receiveBufferSize);
+    }
+    if (isEpoll(channelClass)) {
+      if (isTcp(channelClass)) {
+        if (reusePort) {
+          put(options, EpollChannelOption.SO_REUSEPORT, true);
+        }
+        if (tcpFastOpen > 0) {
+          put(options, EpollChannelOption.TCP_FASTOPEN, tcpFastOpen);
+        }
+      }
+      put(options, EpollChannelOption.EPOLL_MODE, epollMode());
+    }
+    return options;
+  }
+
+  /** @return the options of connections, accepted by a server or opened by a client */
+  public Map<ChannelOption<Object>, Object> connectionOptions(
+      Class<? extends Channel> channelClass, boolean client) {
+    Map<ChannelOption<Object>, Object> options = new LinkedHashMap<>();
+    if (isTcp(channelClass)) {
+      put(options, ChannelOption.TCP_NODELAY, tcpNoDelay);
+    }
+    if (receiveBufferSize > 0) {
+      put(options, ChannelOption.SO_RCVBUF, receiveBufferSize);
+    }
+    if (sendBufferSize > 0) {
+      put(options, ChannelOption.SO_SNDBUF, sendBufferSize);
+    }
+    put(
+        options,
+        ChannelOption.WRITE_BUFFER_WATER_MARK,
+        new WriteBufferWaterMark(writeBufferLowWaterMark, writeBufferHighWaterMark));
+    if (client && !connectTimeout.isZero()) {
+      put(options, ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis());
+    }
+    if (isEpoll(channelClass)) {
+      if (isTcp(channelClass)) {
+        if (tcpQuickAck) {
+          put(options, EpollChannelOption.TCP_QUICKACK, true);
+        }
+        if (client && tcpFastOpen > 0) {
+          put(options, EpollChannelOption.TCP_FASTOPEN_CONNECT, true);
+        }
+      }
+      put(options, EpollChannelOption.EPOLL_MODE, epollMode());
+    }
+    return options;
+  }
+
+  private EpollMode epollMode() {
+    return edgeTriggered ? EpollMode.EDGE_TRIGGERED : EpollMode.LEVEL_TRIGGERED;
+  }
+}
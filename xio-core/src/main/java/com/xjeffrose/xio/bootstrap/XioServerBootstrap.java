@@ -1,5 +1,6 @@
 package com.xjeffrose.xio.bootstrap;
 
+import com.google.common.collect.Iterables;
 import com.typesafe.config.Config;
 import com.typesafe.config.ConfigFactory;
 import com.xjeffrose.xio.application.ApplicationConfig;
@@ -12,8 +13,17 @@ import com.xjeffrose.xio.server.XioServerInstrumentation;
 import com.xjeffrose.xio.server.XioServerState;
 import com.xjeffrose.xio.tracing.XioTracing;
 import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.ServerChannel;
+import io.netty.channel.epoll.EpollChannelOption;
 import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.function.Consumer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -31,6 +41,8 @@ public class XioServerBootstrap {
 
   private ServerChannelConfiguration channelConfig;
 
+  private SocketAddress bindAddress;
+
   public XioServerBootstrap(
       ApplicationState appState, XioServerConfig config, XioServerState state) {
     serverBootstrap = new ServerBootstrap();
@@ -70,7 +82,8 @@ public class XioServerBootstrap {
     return this;
   }
 
-  public XioServerBootstrap bindAddress(InetSocketAddress address) {
+  public XioServerBootstrap bindAddress(SocketAddress address) {
+    bindAddress = address;
     serverBootstrap.localAddress(address);
     return this;
   }
@@ -80,20 +93,51 @@ public class XioServerBootstrap {
     return this;
   }
 
+  private static Channel bind(ServerBootstrap bootstrap, SocketAddress address) {
+    ChannelFuture future = bootstrap.bind(address);
+    future.awaitUninterruptibly();
+    if (!future.isSuccess()) {
+      log.error("Couldn't bind channel", future.cause());
+      throw new RuntimeException(future.cause());
+    }
+    return future.channel();
+  }
+
   public XioServer build() {
     log.debug("Building");
-    serverBootstrap.group(channelConfig.bossGroup(), channelConfig.workerGroup());
-    serverBootstrap.channel(channelConfig.channel());
+    Class<? extends ServerChannel> channelClass =
+        ChannelConfiguration.serverChannel(channelConfig, bindAddress);
+    TransportConfig transport = config.getTransport();
+    Map<ChannelOption<Object>, Object> serverOptions = transport.serverOptions(channelClass);
+    // with SO_REUSEPORT every worker event loop accepts on a listening socket of its own
+    boolean reusePort = serverOptions.containsKey(EpollChannelOption.SO_REUSEPORT);
+    EventLoopGroup acceptorGroup =
+        reusePort ? channelConfig.workerGroup() : channelConfig.bossGroup();
+    serverBootstrap.group(acceptorGroup, channelConfig.workerGroup());
+    serverBootstrap.channel(channelClass);
+    serverOptions.forEach(serverBootstrap::option);
+    transport.connectionOptions(channelClass, false).forEach(serverBootstrap::childOption);
     final XioServerInstrumentation instrumentation = new XioServerInstrumentation();
     serverBootstrap.childHandler(pipelineAssembler.build(instrumentation));
-    ChannelFuture future = serverBootstrap.bind();
-    future.awaitUninterruptibly();
-    if (future.isSuccess()) {
-      instrumentation.addressBound = (InetSocketAddress) future.channel().localAddress();
-    } else {
-      log.error("Couldn't bind channel", future.cause());
-      throw new RuntimeException(future.cause());
+    List<Channel> serverChannels = new ArrayList<>();
+    serverChannels.add(bind(serverBootstrap, bindAddress));
+    SocketAddress localAddress = serverChannels.get(0).localAddress();
+    if (reusePort) {
+      // the others bind the port the first one got, bindPort may be 0
+      int acceptors = Iterables.size(acceptorGroup);
+      try {
+        for (int i = 1; i < acceptors; i++) {
+          serverChannels.add(bind(serverBootstrap, localAddress));
+        }
+      } catch (RuntimeException e) {
+        serverChannels.forEach(Channel::close);
+        throw e;
+      }
+    }
+    instrumentation.localAddress = localAddress;
+    if (localAddress instanceof InetSocketAddress) {
+      instrumentation.addressBound = (InetSocketAddress) localAddress;
     }
-    return new XioServer(future.channel(), instrumentation, config, state);
+    return new XioServer(serverChannels, instrumentation, config, state);
   }
 }
@@ -3,8 +3,11 @@ package com.xjeffrose.xio.client;
 import com.typesafe.config.Config;
 import com.typesafe.config.ConfigFactory;
 import com.xjeffrose.xio.SSL.TlsConfig;
+import com.xjeffrose.xio.bootstrap.TransportConfig;
+import com.xjeffrose.xio.core.SocketAddresses;
 import io.netty.channel.ChannelOption;
 import java.net.InetSocketAddress;
+import java.net.SocketAddress;
 import java.util.Map;
 import javax.annotation.Nullable;
 import lombok.Getter;
@@ -19,9 +22,14 @@ public class ClientConfig {
   private final Map<ChannelOption<Object>, Object> bootstrapOptions;
   private final TlsConfig tls;
   private final boolean messageLoggerEnabled;
+  // speak http/2 without tls and without negotiation, only if tls is disabled
+  private final boolean h2cPriorKnowledge;
   private final InetSocketAddress local;
-  private final InetSocketAddress remote;
+  // a unix domain socket if remoteIp is "unix:/path/to/socket"
+  private final SocketAddress remote;
   private final IdleTimeoutConfig idleTimeoutConfig;
+  // null leaves netty's default socket options
+  @Nullable private final TransportConfig transport;
 
   public TlsConfig getTls() {
     return tls;
@@ -34,14 +42,17 @@ public class ClientConfig {
   public static ClientConfig from(Config config) {
     TlsConfig tls = new TlsConfig(config.getConfig("settings.tls"));
     boolean messageLoggerEnabled = config.getBoolean("settings.messageLoggerEnabled");
+    boolean h2cPriorKnowledge =
+        config.hasPath("settings.h2cPriorKnowledge")
+            && config.getBoolean("settings.h2cPriorKnowledge");
 
     InetSocketAddress local = null;
     if (!config.getString("localIp").isEmpty()) {
       local = new InetSocketAddress(config.getString("localIp"), config.getInt("localPort"));
     }
 
-    InetSocketAddress remote =
-        new InetSocketAddress(config.getString("remoteIp"), config.getInt("remotePort"));
+    SocketAddress remote =
+        SocketAddresses.parse(config.getString("remoteIp"), config.getInt("remotePort"));
 
     boolean idleTimeoutEnabled = config.getBoolean("idleTimeoutEnabled");
     int idleTimeoutDuration = 0;
@@ -51,25 +62,60 @@ public class ClientConfig {
     IdleTimeoutConfig idleTimeoutConfig =
         new IdleTimeoutConfig(idleTimeoutEnabled, idleTimeoutDuration);
 
-    return new ClientConfig(null, tls, messageLoggerEnabled, local, remote, idleTimeoutConfig);
+    TransportConfig transport = null;
+    if (config.hasPath("transport")) {
+      transport = new TransportConfig(config.getConfig("transport"));
+    }
+
+    return new ClientConfig(
+        null,
+        tls,
+        messageLoggerEnabled,
+        h2cPriorKnowledge,
+        local,
+        remote,
+        idleTimeoutConfig,
+        transport);
   }
 
   public ClientConfig(
       Map<ChannelOption<Object>, Object> bootstrapOptions,
       TlsConfig tls,
       boolean messageLoggerEnabled,
+      boolean h2cPriorKnowledge,
       InetSocketAddress local,
-      InetSocketAddress remote,
-      IdleTimeoutConfig idleTimeoutConfig) {
+      SocketAddress remote,
+      IdleTimeoutConfig idleTimeoutConfig,
+      @Nullable TransportConfig transport) {
     this.bootstrapOptions = bootstrapOptions;
     this.tls = tls;
     if (!tls.isUseSsl() && tls.isLogInsecureConfig()) {
       log.warn("Client '{}' has useSsl set to false!", remote.toString());
     }
     this.messageLoggerEnabled = messageLoggerEnabled;
+    this.h2cPriorKnowledge = h2cPriorKnowledge;
     this.local = local;
     this.remote = remote;
     this.idleTimeoutConfig = idleTimeoutConfig;
+    this.transport = transport;
+  }
+
+  public ClientConfig(
+      Map<ChannelOption<Object>, Object> bootstrapOptions,
+      TlsConfig tls,
+      boolean messageLoggerEnabled,
+      InetSocketAddress local,
+      SocketAddress remote,
+      IdleTimeoutConfig idleTimeoutConfig) {
+    this(
+        bootstrapOptions,
+        tls,
+        messageLoggerEnabled,
+        false,
+        local,
+        remote,
+        idleTimeoutConfig,
+        null);
   }
 
   public boolean isTlsEnabled() {
@@ -102,9 +148,11 @@ public class ClientConfig {
     private Map<ChannelOption<Object>, Object> bootstrapOptions;
     private TlsConfig tls;
     private boolean messageLoggerEnabled;
+    private Boolean h2cPriorKnowledge;
     private InetSocketAddress local;
-    private InetSocketAddress remote;
+    private SocketAddress remote;
     private IdleTimeoutConfig idleTimeoutConfig;
+    private TransportConfig transport;
 
     private Builder(ClientConfig fallbackObject) {
       this.fallbackObject = fallbackObject;
@@ -125,12 +173,17 @@ public class ClientConfig {
       return this;
     }
 
+    public Builder setH2cPriorKnowledge(boolean h2cPriorKnowledge) {
+      this.h2cPriorKnowledge = h2cPriorKnowledge;
+      return this;
+    }
+
     public Builder setLocal(InetSocketAddress local) {
       this.local = local;
       return this;
     }
 
-    public Builder setRemote(InetSocketAddress remote) {
+    public Builder setRemote(SocketAddress remote) {
       this.remote = remote;
       return this;
     }
@@ -140,14 +193,21 @@ public class ClientConfig {
       return this;
     }
 
+    public Builder setTransport(TransportConfig transport) {
+      this.transport = transport;
+      return this;
+    }
+
     public ClientConfig build() {
       return new ClientConfig(
           valueOrFallback(bootstrapOptions, fallbackObject.bootstrapOptions()),
           valueOrFallback(tls, fallbackObject.tls()),
           valueOrFallback(messageLoggerEnabled, fallbackObject.messageLoggerEnabled()),
+          valueOrFallback(h2cPriorKnowledge, fallbackObject.h2cPriorKnowledge()),
           valueOrFallback(local, fallbackObject.local()),
           valueOrFallback(remote, fallbackObject.remote()),
-          valueOrFallback(idleTimeoutConfig, fallbackObject.idleTimeoutConfig()));
+          valueOrFallback(idleTimeoutConfig, fallbackObject.idleTimeoutConfig()),
+          valueOrFallback(transport, fallbackObject.transport()));
     }
 
     private <T> T valueOrFallback(@Nullable T value, T fallback) {
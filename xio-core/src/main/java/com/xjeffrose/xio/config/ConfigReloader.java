@@ -13,6 +13,7 @@ import java.security.DigestInputStream;
 import java.security.MessageDigest;
 import java.util.*;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.function.BiConsumer;
 import java.util.function.Function;
@@ -20,7 +21,12 @@ import java.util.stream.Collectors;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
-public class ConfigReloader<T> {
+public class ConfigReloader<T> implements Closeable {
+
+  // interval used when file system events are unavailable
+  private static final long POLL_MILLIS = 2000;
+  // safety net for file system events that were missed
+  private static final long FALLBACK_POLL_MILLIS = 30000;
 
   private static class Meta<T> {
     final T value;
@@ -53,6 +59,8 @@ public class ConfigReloader<T> {
   private BiConsumer<T, T> updater;
   private Meta<T> metadata;
   private Map<String, ConfigFileMetadata> watchFiles = new HashMap<String, ConfigFileMetadata>();
+  private FileWatcher watcher;
+  private ScheduledFuture<?> poll;
 
   public ConfigReloader(ScheduledExecutorService executor, Function<Config, T> factory) {
     this.executor = executor;
@@ -113,6 +121,10 @@ public class ConfigReloader<T> {
       Set<String> keys = new HashSet<String>(watchFiles.keySet());
       List<ConfigFileMetadata> toUpdateList =
           keys.stream()
+              // only files whose timestamp moved are read and hashed
+              .filter(
+                  filePath ->
+                      new File(filePath).lastModified() != watchFiles.get(filePath).lastModified)
               .map(filePath -> loadMetaData(new File(filePath)))
               .filter(
                   currentMetaData ->
@@ -128,7 +140,7 @@ public class ConfigReloader<T> {
   }
 
   @VisibleForTesting
-  void checkForUpdates() {
+  synchronized void checkForUpdates() {
     try {
       // check to see if any of the specific watch files have changed
       if (haveWatchFilesChanged()) {
@@ -165,11 +177,31 @@ public class ConfigReloader<T> {
     }
   }
 
-  public void start(BiConsumer<T, T> updater) {
+  public synchronized void start(BiConsumer<T, T> updater) {
     checkNotNull(updater, "updater cannot be null");
     checkNotNull(metadata, "init must be called before start");
     checkState(this.updater == null, "start cannot be called more than once");
     setUpdater(updater);
-    executor.scheduleWithFixedDelay(this::checkForUpdates, 2000, 2000, TimeUnit.MILLISECONDS);
+    // changes are picked up from file system events, polling is only a safety net
+    watcher = FileWatcher.start(executor, watchFiles.keySet(), this::checkForUpdates);
+    long pollMillis = watcher == null ? POLL_MILLIS : FALLBACK_POLL_MILLIS;
+    poll =
+        executor.scheduleWithFixedDelay(
+            this::checkForUpdates, pollMillis, pollMillis, TimeUnit.MILLISECONDS);
+  }
+
+  /** Stops watching and polling the files, a reload that is already running still completes. */
+  @Override
+  public synchronized void close() {
+    if (poll != null) {
+      poll.cancel(false);
+    }
+    if (watcher != null) {
+      try {
+        watcher.close();
+      } catch (IOException e) {
+        log.warn("Couldn't close the file watcher", e);
+      }
+    }
   }
 }
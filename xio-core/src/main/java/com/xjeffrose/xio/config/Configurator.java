@@ -1,43 +1,67 @@
 package com.xjeffrose.xio.config;
 
+import com.google.common.collect.ImmutableMap;
 import com.typesafe.config.Config;
+import com.xjeffrose.xio.application.ApplicationState;
+import com.xjeffrose.xio.bootstrap.XioServerBootstrap;
 import com.xjeffrose.xio.config.thrift.ConfigurationService;
 import com.xjeffrose.xio.config.thrift.IpRule;
 import com.xjeffrose.xio.config.thrift.Result;
 import com.xjeffrose.xio.config.thrift.RuleType;
 import com.xjeffrose.xio.core.ZooKeeperClientFactory;
+import com.xjeffrose.xio.http.PipelineRequestHandler;
+import com.xjeffrose.xio.http.PipelineRouter;
+import com.xjeffrose.xio.http.RouteConfig;
+import com.xjeffrose.xio.http.RouteState;
 import com.xjeffrose.xio.marshall.ThriftMarshaller;
 import com.xjeffrose.xio.marshall.ThriftUnmarshaller;
 import com.xjeffrose.xio.marshall.thrift.Http1Rule;
+import com.xjeffrose.xio.pipeline.SmartHttpPipeline;
+import com.xjeffrose.xio.server.XioServer;
+import com.xjeffrose.xio.server.XioServerConfig;
+import com.xjeffrose.xio.server.XioServerState;
 import com.xjeffrose.xio.storage.ZooKeeperReadProvider;
 import com.xjeffrose.xio.storage.ZooKeeperWriteProvider;
-import java.net.InetSocketAddress;
+import io.netty.channel.ChannelHandler;
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Timer;
 import java.util.TimerTask;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.curator.framework.CuratorFramework;
-import org.apache.thrift.server.TServer;
-import org.apache.thrift.server.TServer.Args;
-import org.apache.thrift.server.TSimpleServer;
-import org.apache.thrift.transport.TServerSocket;
-import org.apache.thrift.transport.TServerTransport;
-import org.apache.thrift.transport.TTransportException;
 
+/**
+ * Serves rule updates over http on xio's server stack, so any number of clients are handled
+ * concurrently by the event loops:
+ *
+ * <ul>
+ *   <li>/thrift - the single rule calls of {@link ConfigurationService}, see {@link
+ *       ThriftRequestHandler}
+ *   <li>/rules/ip - streaming bulk import of ip rules, see {@link IpRuleImportRequestHandler}
+ *   <li>/rules - a batch of ip and http1 rule updates, see {@link RuleBatchRequestHandler}
+ * </ul>
+ *
+ * <p>Accepted updates are queued and persisted together every write interval.
+ */
 @Slf4j
-public class Configurator implements Runnable {
+public class Configurator {
+  public static final String THRIFT_PATH = "/thrift";
+  public static final String IP_RULES_PATH = "/rules/ip";
+  public static final String RULES_PATH = "/rules";
+
+  static final int MAX_REQUEST_SIZE = 16 * 1024 * 1024;
+
   private final UpdateHandler storage;
   private final Duration updateInterval;
-  private final InetSocketAddress bindAddress;
+  private final XioServerBootstrap serverBootstrap;
   private final ZooKeeperValidator zkValidator;
-  private final Thread serverThread;
   private final ConfigurationService.Iface service;
   private final ConfigurationService.Processor<ConfigurationService.Iface> processor;
-  private TServerTransport serverTransport;
-  private TServer server;
   private final IpRules ipRules;
   private final Http1Rules http1Rules;
   private final BlockingQueue<UpdateMessage> workLoad = new LinkedBlockingQueue<>();
@@ -49,10 +73,12 @@ public class Configurator implements Runnable {
           writeToStorage();
         }
       };
+  private XioServer server;
   private int storageRuns = 0;
   private int validationInterval = 2;
 
-  private void writeToStorage() {
+  // called from the timer thread and on close
+  private synchronized void writeToStorage() {
     storageRuns++;
     log.info("writeToStorage - started");
     ArrayList<UpdateMessage> messages = new ArrayList<>();
@@ -98,45 +124,65 @@ public class Configurator implements Runnable {
     };
   }
 
+  private static RouteState route(String path, PipelineRequestHandler handler) {
+    return new RouteState(new RouteConfig(Collections.emptyList(), "", path, "*"), handler);
+  }
+
+  ImmutableMap<String, RouteState> routes() {
+    Map<String, RouteState> routes = new LinkedHashMap<>();
+    // more specific paths need to be listed first, see PathToRequestHandler
+    routes.put(
+        THRIFT_PATH, route(THRIFT_PATH, new ThriftRequestHandler(processor, MAX_REQUEST_SIZE)));
+    routes.put(
+        IP_RULES_PATH, route(IP_RULES_PATH, new IpRuleImportRequestHandler(ipRules, workLoad)));
+    routes.put(
+        RULES_PATH,
+        route(
+            RULES_PATH,
+            new RuleBatchRequestHandler(ipRules, http1Rules, workLoad, MAX_REQUEST_SIZE)));
+    return ImmutableMap.copyOf(routes);
+  }
+
   public Configurator(
       UpdateHandler storage,
       Duration updateInterval,
-      InetSocketAddress bindAddress,
+      XioServerBootstrap serverBootstrap,
       Ruleset existing,
       ZooKeeperValidator zkValidator) {
     this.storage = storage;
     this.updateInterval = updateInterval;
-    this.bindAddress = bindAddress;
+    this.serverBootstrap = serverBootstrap;
     this.zkValidator = zkValidator;
-    serverThread = new Thread(this, "Configurator server thread");
     service = newService();
     processor = new ConfigurationService.Processor<>(service);
     ipRules = new IpRules(existing);
     http1Rules = new Http1Rules(existing);
+    if (serverBootstrap != null) {
+      ImmutableMap<String, RouteState> routes = routes();
+      serverBootstrap.addToPipeline(
+          new SmartHttpPipeline() {
+            @Override
+            public ChannelHandler getApplicationRouter() {
+              return new PipelineRouter(routes);
+            }
+          });
+    }
   }
 
   public void start() {
     timer.scheduleAtFixedRate(timerTask, 0, updateInterval.toMillis());
-    serverThread.start();
+    log.info("Starting up!");
+    server = serverBootstrap.build();
   }
 
   public void close() {
     timerTask.cancel(); // cancels the task in flight
     timer.cancel(); // cancels the timer thread
-    server.stop(); // stops the thrift server
-  }
-
-  public void run() {
-    log.info("Starting up!");
-    try {
-      serverTransport = new TServerSocket(bindAddress);
-      server = new TSimpleServer(new Args(serverTransport).processor(processor));
-      server.serve(); // blocks until stop() is called.
-      // timer and timer task should be stopped at this point
-      writeToStorage();
-    } catch (TTransportException e) {
-      log.error("Couldn't start Configurator {}", this, e);
+    if (server != null) {
+      server.close();
     }
+    // persist whatever was accepted since the last run
+    writeToStorage();
   }
 
   public static class NullConfigurator extends Configurator {
@@ -151,7 +197,8 @@ public class Configurator implements Runnable {
     public void close() {}
   }
 
-  public static Configurator build(Config config) {
+  public static Configurator build(ApplicationState state) {
+    Config config = state.config().settings();
     Config configurationUpdateServer = config.getConfig("configurationUpdateServer");
     if (configurationUpdateServer.getBoolean("enabled") == false) {
       return new NullConfigurator();
@@ -164,16 +211,18 @@ public class Configurator implements Runnable {
     Config configurationManager = config.getConfig("configurationManager");
     Ruleset rules = new Ruleset(configurationManager);
     rules.read(zkReader);
-    ZooKeeperUpdateHandler zkUpdater = new ZooKeeperUpdateHandler(zkWriter, rules);
+    ZooKeeperUpdateHandler zkUpdater =
+        new ZooKeeperUpdateHandler(
+            zkWriter, rules, configurationUpdateServer.getInt("compactionInterval"));
     ZooKeeperValidator zkValidator = new ZooKeeperValidator(zkReader, rules, configurationManager);
 
     Duration writeInterval = configurationUpdateServer.getDuration("writeInterval");
-    InetSocketAddress serverAddress =
-        new InetSocketAddress(
-            configurationUpdateServer.getString("bindIp"),
-            configurationUpdateServer.getInt("bindPort"));
+    XioServerConfig serverConfig = new XioServerConfig(configurationUpdateServer);
+    XioServerBootstrap serverBootstrap =
+        new XioServerBootstrap(state, serverConfig, new XioServerState(serverConfig))
+            .channelConfig(state.getChannelConfiguration());
     Configurator server =
-        new Configurator(zkUpdater, writeInterval, serverAddress, rules, zkValidator);
+        new Configurator(zkUpdater, writeInterval, serverBootstrap, rules, zkValidator);
     return server;
   }
 }
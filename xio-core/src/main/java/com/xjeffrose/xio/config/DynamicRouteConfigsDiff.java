@@ -0,0 +1,72 @@
+package com.xjeffrose.xio.config;
+
+import com.google.common.collect.HashMultiset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * The structural difference between two generations of dynamic routes, routes are identified by
+ * their path and compared by their set of clients so that reordering the entries of route.json
+ * doesn't count as a change.
+ */
+@EqualsAndHashCode
+@Getter
+@ToString
+public class DynamicRouteConfigsDiff {
+  private final List<DynamicRouteConfig> added;
+  private final List<DynamicRouteConfig> removed;
+  private final List<DynamicRouteConfig> changed;
+
+  private DynamicRouteConfigsDiff(
+      List<DynamicRouteConfig> added,
+      List<DynamicRouteConfig> removed,
+      List<DynamicRouteConfig> changed) {
+    this.added = Collections.unmodifiableList(added);
+    this.removed = Collections.unmodifiableList(removed);
+    this.changed = Collections.unmodifiableList(changed);
+  }
+
+  /**
+   * @param previous the routes currently in use
+   * @param next the routes that were just loaded
+   * @return the diff, {@link #getChanged()} holds the new version of each changed route
+   */
+  public static DynamicRouteConfigsDiff diff(
+      List<DynamicRouteConfig> previous, List<DynamicRouteConfig> next) {
+    Map<String, DynamicRouteConfig> remaining = byPath(previous);
+    List<DynamicRouteConfig> added = new ArrayList<>();
+    List<DynamicRouteConfig> changed = new ArrayList<>();
+    for (DynamicRouteConfig route : next) {
+      DynamicRouteConfig old = remaining.remove(route.getPath());
+      if (old == null) {
+        added.add(route);
+      } else if (!sameClients(old, route)) {
+        changed.add(route);
+      }
+    }
+    return new DynamicRouteConfigsDiff(added, new ArrayList<>(remaining.values()), changed);
+  }
+
+  static Map<String, DynamicRouteConfig> byPath(List<DynamicRouteConfig> routes) {
+    Map<String, DynamicRouteConfig> result = new LinkedHashMap<>();
+    for (DynamicRouteConfig route : routes) {
+      result.put(route.getPath(), route);
+    }
+    return result;
+  }
+
+  static boolean sameClients(DynamicRouteConfig a, DynamicRouteConfig b) {
+    return HashMultiset.create(a.getClientConfigs())
+        .equals(HashMultiset.create(b.getClientConfigs()));
+  }
+
+  public boolean isEmpty() {
+    return added.isEmpty() && removed.isEmpty() && changed.isEmpty();
+  }
+}
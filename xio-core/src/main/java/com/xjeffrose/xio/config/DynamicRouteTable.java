@@ -0,0 +1,140 @@
+package com.xjeffrose.xio.config;
+
+import com.google.common.collect.ImmutableMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * A copy-on-write table of the states built from dynamic routes (e.g. ProxyRouteState), keyed by
+ * path in the order of the route configs.
+ *
+ * <p>On reload only routes that were added or whose clients changed get a new state. Unchanged
+ * routes keep their state, and with it their warm client pools and health. The new table is
+ * published with a single volatile write, so readers always see a complete table without locking,
+ * and the states of removed or replaced routes are retired afterwards. Kept up to date with a route
+ * file by {@link #load}:
+ *
+ * <pre>
+ *   RouteReloader&lt;List&lt;DynamicRouteConfig&gt;&gt; reloader =
+ *       new RouteReloader&lt;&gt;(executor, DynamicRouteConfigsFactory::build);
+ *   DynamicRouteTable&lt;ProxyRouteState&gt; table =
+ *       DynamicRouteTable.load(reloader, path, this::buildState, this::closeState);
+ * </pre>
+ *
+ * @param <S> the state built for each route
+ */
+@Slf4j
+public class DynamicRouteTable<S> {
+
+  private static class Entry<S> {
+    final DynamicRouteConfig config;
+    final S state;
+
+    Entry(DynamicRouteConfig config, S state) {
+      this.config = config;
+      this.state = state;
+    }
+  }
+
+  private final Function<DynamicRouteConfig, S> factory;
+  private final Consumer<S> retire;
+  private volatile ImmutableMap<String, Entry<S>> entries = ImmutableMap.of();
+  private volatile ImmutableMap<String, S> states = ImmutableMap.of();
+
+  /**
+   * @param factory builds the state of an added or changed route
+   * @param retire releases the state of a removed or replaced route
+   */
+  public DynamicRouteTable(
+      List<DynamicRouteConfig> initial,
+      Function<DynamicRouteConfig, S> factory,
+      Consumer<S> retire) {
+    this.factory = factory;
+    this.retire = retire;
+    update(initial);
+  }
+
+  /**
+   * Builds the table from the routes in the file and starts the reloader, every reload of the file
+   * swaps in the routes that changed. Closing the reloader stops the updates.
+   */
+  public static <S> DynamicRouteTable<S> load(
+      RouteReloader<List<DynamicRouteConfig>> reloader,
+      String path,
+      Function<DynamicRouteConfig, S> factory,
+      Consumer<S> retire) {
+    DynamicRouteTable<S> table = new DynamicRouteTable<>(reloader.init(path), factory, retire);
+    reloader.start((previous, next) -> table.update(next));
+    return table;
+  }
+
+  /** @return the current route states keyed by path, the map never changes once returned */
+  public ImmutableMap<String, S> states() {
+    return states;
+  }
+
+  /**
+   * Swaps in the states for the given routes, building only what changed. If building any state
+   * fails the table is left untouched.
+   *
+   * @return the difference to the previous routes
+   */
+  public synchronized DynamicRouteConfigsDiff update(List<DynamicRouteConfig> routes) {
+    ImmutableMap<String, Entry<S>> previous = entries;
+    List<DynamicRouteConfig> previousRoutes = new ArrayList<>();
+    for (Entry<S> entry : previous.values()) {
+      previousRoutes.add(entry.config);
+    }
+    DynamicRouteConfigsDiff diff = DynamicRouteConfigsDiff.diff(previousRoutes, routes);
+    if (diff.isEmpty() && previousRoutes.equals(routes)) {
+      return diff;
+    }
+
+    List<S> built = new ArrayList<>();
+    ImmutableMap.Builder<String, Entry<S>> next = ImmutableMap.builder();
+    try {
+      for (DynamicRouteConfig route : DynamicRouteConfigsDiff.byPath(routes).values()) {
+        Entry<S> old = previous.get(route.getPath());
+        if (old != null && DynamicRouteConfigsDiff.sameClients(old.config, route)) {
+          next.put(route.getPath(), new Entry<>(route, old.state));
+        } else {
+          S state = factory.apply(route);
+          built.add(state);
+          next.put(route.getPath(), new Entry<>(route, state));
+        }
+      }
+    } catch (RuntimeException e) {
+      built.forEach(this::retireQuietly);
+      throw e;
+    }
+
+    ImmutableMap<String, Entry<S>> nextEntries = next.build();
+    ImmutableMap.Builder<String, S> nextStates = ImmutableMap.builder();
+    for (Map.Entry<String, Entry<S>> entry : nextEntries.entrySet()) {
+      nextStates.put(entry.getKey(), entry.getValue().state);
+    }
+    entries = nextEntries;
+    states = nextStates.build();
+    log.debug("swapped dynamic routes: {}", diff);
+
+    for (Entry<S> old : previous.values()) {
+      Entry<S> current = nextEntries.get(old.config.getPath());
+      if (current == null || current.state != old.state) {
+        retireQuietly(old.state);
+      }
+    }
+    return diff;
+  }
+
+  private void retireQuietly(S state) {
+    try {
+      retire.accept(state);
+    } catch (RuntimeException e) {
+      log.error("Couldn't retire route state {}", state, e);
+    }
+  }
+}
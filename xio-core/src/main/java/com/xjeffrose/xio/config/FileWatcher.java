@@ -0,0 +1,144 @@
+package com.xjeffrose.xio.config;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Watches a set of files with a {@link WatchService} (inotify on linux) and runs a callback on the
+ * executor once the files have stopped changing for the debounce delay, so that an editor or a
+ * deployment tool writing a file in several steps only causes a single reload.
+ *
+ * <p>The parent directories of the files are watched rather than the files themselves so that
+ * files replaced by a rename are picked up as well.
+ */
+@Slf4j
+class FileWatcher implements Closeable {
+
+  static final long DEBOUNCE_MILLIS = 200;
+
+  private final ScheduledExecutorService executor;
+  private final long debounceMillis;
+  private final Runnable onChange;
+  private final WatchService watchService;
+  private final Map<WatchKey, Path> directories = new HashMap<>();
+  private final Set<Path> files = new HashSet<>();
+  private ScheduledFuture<?> pending;
+
+  FileWatcher(ScheduledExecutorService executor, long debounceMillis, Runnable onChange)
+      throws IOException {
+    this.executor = executor;
+    this.debounceMillis = debounceMillis;
+    this.onChange = onChange;
+    this.watchService = FileSystems.getDefault().newWatchService();
+  }
+
+  /**
+   * Starts watching the files, changes are reported after {@link #DEBOUNCE_MILLIS}.
+   *
+   * @return the started watcher, or null if the files can't be watched
+   */
+  static FileWatcher start(
+      ScheduledExecutorService executor, Collection<String> paths, Runnable onChange) {
+    FileWatcher watcher = null;
+    try {
+      watcher = new FileWatcher(executor, DEBOUNCE_MILLIS, onChange);
+      for (String path : paths) {
+        watcher.watch(new File(path));
+      }
+      watcher.start();
+      return watcher;
+    } catch (IOException | UnsupportedOperationException e) {
+      log.warn("Couldn't watch files {}, falling back to polling", paths, e);
+      if (watcher != null) {
+        try {
+          watcher.close();
+        } catch (IOException ignored) {
+          // nothing left to clean up
+        }
+      }
+      return null;
+    }
+  }
+
+  synchronized void watch(File file) throws IOException {
+    Path path = file.getAbsoluteFile().toPath();
+    Path directory = path.getParent();
+    if (!directories.containsValue(directory)) {
+      WatchKey key = directory.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+      directories.put(key, directory);
+    }
+    files.add(path);
+  }
+
+  void start() {
+    Thread thread = new Thread(this::run, "xio-file-watcher");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  private void run() {
+    try {
+      while (true) {
+        WatchKey key = watchService.take();
+        if (isWatched(key)) {
+          debounce();
+        }
+        key.reset();
+      }
+    } catch (ClosedWatchServiceException e) {
+      log.debug("file watcher closed");
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private synchronized boolean isWatched(WatchKey key) {
+    Path directory = directories.get(key);
+    boolean watched = false;
+    for (WatchEvent<?> event : key.pollEvents()) {
+      if (event.kind() == OVERFLOW) {
+        // events were lost, one of them may have been for a watched file
+        watched = true;
+      } else if (directory != null && files.contains(directory.resolve((Path) event.context()))) {
+        watched = true;
+      }
+    }
+    return watched;
+  }
+
+  private synchronized void debounce() {
+    if (pending != null) {
+      pending.cancel(false);
+    }
+    pending = executor.schedule(onChange, debounceMillis, TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    if (pending != null) {
+      pending.cancel(false);
+    }
+    watchService.close();
+  }
+}
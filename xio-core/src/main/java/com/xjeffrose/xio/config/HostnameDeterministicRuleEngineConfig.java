@@ -4,7 +4,9 @@ import com.google.common.collect.ImmutableSet;
 import com.xjeffrose.xio.marshall.Marshallable;
 import com.xjeffrose.xio.marshall.Marshaller;
 import com.xjeffrose.xio.marshall.Unmarshaller;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import lombok.EqualsAndHashCode;
 
@@ -49,4 +51,11 @@ public class HostnameDeterministicRuleEngineConfig implements Marshallable {
   public void putBytes(Unmarshaller unmarshaller, byte[] data) {
     unmarshaller.unmarshall(this, data);
   }
+
+  @Override
+  public void putUpdates(Unmarshaller unmarshaller, byte[] data) {
+    List<UpdateMessage> updates = new ArrayList<>();
+    unmarshaller.unmarshall(updates, data);
+    updates.forEach(update -> update.apply(this));
+  }
 }
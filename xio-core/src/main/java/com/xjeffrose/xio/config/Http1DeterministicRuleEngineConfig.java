@@ -8,7 +8,9 @@ import com.xjeffrose.xio.marshall.Unmarshaller;
 import io.netty.handler.codec.http.HttpMethod;
 import io.netty.handler.codec.http.HttpRequest;
 import io.netty.handler.codec.http.HttpVersion;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
@@ -146,6 +148,13 @@ public class Http1DeterministicRuleEngineConfig implements Marshallable {
     unmarshaller.unmarshall(this, data);
   }
 
+  @Override
+  public void putUpdates(Unmarshaller unmarshaller, byte[] data) {
+    List<UpdateMessage> updates = new ArrayList<>();
+    unmarshaller.unmarshall(updates, data);
+    updates.forEach(update -> update.apply(this));
+  }
+
   public void remove(Rule rule) {
     if (blacklistRules.contains(rule)) {
       blacklistRules.remove(rule);
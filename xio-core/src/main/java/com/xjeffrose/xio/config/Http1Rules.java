@@ -9,6 +9,7 @@ import java.util.Map;
 import java.util.concurrent.BlockingQueue;
 import lombok.extern.slf4j.Slf4j;
 
+/** Tracks the http1 rules of the configuration update server, updates may come from any thread. */
 @Slf4j
 public class Http1Rules {
 
@@ -19,8 +20,14 @@ public class Http1Rules {
   }
 
   public Result add(Http1Rule http1Rule, RuleType ruleType, BlockingQueue<UpdateMessage> workLoad) {
+    return add(ThriftUnmarshaller.build(http1Rule), ruleType, workLoad);
+  }
+
+  public synchronized Result add(
+      Http1DeterministicRuleEngineConfig.Rule newRule,
+      RuleType ruleType,
+      BlockingQueue<UpdateMessage> workLoad) {
     try {
-      Http1DeterministicRuleEngineConfig.Rule newRule = ThriftUnmarshaller.build(http1Rule);
       log.debug("rule {}", newRule);
       RuleType existingRuleType = rules.get(newRule);
       if (existingRuleType != null && existingRuleType.equals(ruleType)) {
@@ -28,10 +35,9 @@ public class Http1Rules {
       } else {
         workLoad.put(UpdateMessage.addHttp1Rule(newRule, ruleType));
         rules.put(newRule, ruleType);
-        log.debug("rules {}", rules);
       }
     } catch (InterruptedException e) {
-      log.error("addIpRule couldn't add {}", http1Rule, e);
+      log.error("addHttp1Rule couldn't add {}", newRule, e);
       return new Result(false, e.getMessage());
     }
 
@@ -39,8 +45,12 @@ public class Http1Rules {
   }
 
   public Result remove(Http1Rule http1Rule, BlockingQueue<UpdateMessage> workLoad) {
+    return remove(ThriftUnmarshaller.build(http1Rule), workLoad);
+  }
+
+  public synchronized Result remove(
+      Http1DeterministicRuleEngineConfig.Rule newRule, BlockingQueue<UpdateMessage> workLoad) {
     try {
-      Http1DeterministicRuleEngineConfig.Rule newRule = ThriftUnmarshaller.build(http1Rule);
       log.debug("rule {}", newRule);
       if (!rules.containsKey(newRule)) {
         return new Result(false, "nothing to remove for rule " + newRule);
@@ -49,7 +59,7 @@ public class Http1Rules {
         rules.remove(newRule);
       }
     } catch (InterruptedException e) {
-      log.error("addIpRule couldn't add {}", http1Rule, e);
+      log.error("removeHttp1Rule couldn't remove {}", newRule, e);
       return new Result(false, e.getMessage());
     }
     return new Result(true, "");
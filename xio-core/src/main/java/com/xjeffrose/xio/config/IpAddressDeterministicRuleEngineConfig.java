@@ -5,7 +5,9 @@ import com.xjeffrose.xio.marshall.Marshallable;
 import com.xjeffrose.xio.marshall.Marshaller;
 import com.xjeffrose.xio.marshall.Unmarshaller;
 import java.net.InetAddress;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import lombok.EqualsAndHashCode;
 
@@ -60,6 +62,13 @@ public final class IpAddressDeterministicRuleEngineConfig implements Marshallabl
     unmarshaller.unmarshall(this, data);
   }
 
+  @Override
+  public void putUpdates(Unmarshaller unmarshaller, byte[] data) {
+    List<UpdateMessage> updates = new ArrayList<>();
+    unmarshaller.unmarshall(updates, data);
+    updates.forEach(update -> update.apply(this));
+  }
+
   public void clear() {
     blacklistIps.clear();
     whitelistIps.clear();
@@ -0,0 +1,123 @@
+package com.xjeffrose.xio.config;
+
+import com.google.common.net.InetAddresses;
+import com.xjeffrose.xio.config.thrift.RuleType;
+import com.xjeffrose.xio.http.Request;
+import com.xjeffrose.xio.http.Response;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.util.ByteProcessor;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Imports ip rules from a streamed text body, one rule per line:
+ *
+ * <pre>
+ * # comments and blank lines are skipped
+ * 10.0.0.1
+ * blacklist 10.0.0.2
+ * whitelist 2001:db8::1
+ * remove 10.0.0.3
+ * </pre>
+ *
+ * <p>A bare address is blacklisted. Rules are applied as soon as their line is complete, so a feed
+ * of any size is imported without being held in memory. The response counts the applied and
+ * rejected lines as json.
+ */
+class IpRuleImportRequestHandler extends UploadRequestHandler {
+
+  static final int MAX_LINE_LENGTH = 1024;
+
+  private final IpRules ipRules;
+  private final BlockingQueue<UpdateMessage> workLoad;
+
+  IpRuleImportRequestHandler(IpRules ipRules, BlockingQueue<UpdateMessage> workLoad) {
+    this.ipRules = ipRules;
+    this.workLoad = workLoad;
+  }
+
+  @Override
+  protected Upload newUpload(ChannelHandlerContext ctx, Request request) {
+    return new Import(ctx);
+  }
+
+  private class Import implements Upload {
+    private final CompositeByteBuf pending;
+    private final UpdateResults results = new UpdateResults();
+    private final ChannelHandlerContext ctx;
+    private long line = 0;
+
+    Import(ChannelHandlerContext ctx) {
+      this.ctx = ctx;
+      this.pending = ctx.alloc().compositeBuffer();
+    }
+
+    @Override
+    public void onData(ByteBuf data) {
+      pending.addComponent(true, data.retainedSlice());
+      int end;
+      while ((end = pending.forEachByte(ByteProcessor.FIND_LF)) >= 0) {
+        int length = end - pending.readerIndex();
+        onLine(pending.readCharSequence(length, StandardCharsets.US_ASCII).toString());
+        pending.skipBytes(1);
+      }
+      if (pending.readableBytes() > MAX_LINE_LENGTH) {
+        throw new IllegalArgumentException(
+            "line " + (line + 1) + " is longer than " + MAX_LINE_LENGTH + " characters");
+      }
+      pending.discardReadComponents();
+    }
+
+    @Override
+    public Response onEnd(Request request) {
+      if (pending.isReadable()) {
+        onLine(pending.toString(StandardCharsets.US_ASCII));
+      }
+      return newJsonResponse(ctx, request, results);
+    }
+
+    @Override
+    public void release() {
+      pending.release();
+    }
+
+    private void onLine(String text) {
+      line++;
+      String rule = text.trim();
+      if (rule.isEmpty() || rule.startsWith("#")) {
+        return;
+      }
+      String[] fields = rule.split("\\s+");
+      if (fields.length > 2) {
+        results.reject(line, "expected [blacklist|whitelist|remove] <address>");
+        return;
+      }
+      String action = fields.length == 2 ? fields[0] : "blacklist";
+      String addressText = fields[fields.length - 1];
+      InetAddress address;
+      try {
+        // doesn't resolve hostnames, which would block the event loop
+        address = InetAddresses.forString(addressText);
+      } catch (IllegalArgumentException e) {
+        results.reject(line, "invalid address " + addressText);
+        return;
+      }
+      switch (action) {
+        case "blacklist":
+          results.add(line, ipRules.add(address, RuleType.blacklist, workLoad));
+          break;
+        case "whitelist":
+          results.add(line, ipRules.add(address, RuleType.whitelist, workLoad));
+          break;
+        case "remove":
+          results.add(line, ipRules.remove(address, workLoad));
+          break;
+        default:
+          results.reject(line, "unknown action " + action);
+      }
+    }
+  }
+}
@@ -10,6 +10,7 @@ import java.util.Map;
 import java.util.concurrent.BlockingQueue;
 import lombok.extern.slf4j.Slf4j;
 
+/** Tracks the ip rules of the configuration update server, updates may come from any thread. */
 @Slf4j
 public class IpRules {
 
@@ -21,7 +22,16 @@ public class IpRules {
 
   public Result add(IpRule ipRule, RuleType ruleType, BlockingQueue<UpdateMessage> workLoad) {
     try {
-      InetAddress address = InetAddress.getByAddress(ipRule.getIpAddress());
+      return add(InetAddress.getByAddress(ipRule.getIpAddress()), ruleType, workLoad);
+    } catch (UnknownHostException e) {
+      log.error("addIpRule couldn't add {}", ipRule, e);
+      return new Result(false, e.getMessage());
+    }
+  }
+
+  public synchronized Result add(
+      InetAddress address, RuleType ruleType, BlockingQueue<UpdateMessage> workLoad) {
+    try {
       log.debug("address {}", address.getHostAddress());
       RuleType existingRuleType = rules.get(address);
       if (existingRuleType != null && existingRuleType.equals(ruleType)) {
@@ -30,10 +40,9 @@ public class IpRules {
       } else {
         workLoad.put(UpdateMessage.addIpRule(address, ruleType));
         rules.put(address, ruleType);
-        log.debug("rules {}", rules);
       }
-    } catch (UnknownHostException | InterruptedException e) {
-      log.error("addIpRule couldn't add {}", ipRule, e);
+    } catch (InterruptedException e) {
+      log.error("addIpRule couldn't add {}", address, e);
       return new Result(false, e.getMessage());
     }
 
@@ -42,7 +51,15 @@ public class IpRules {
 
   public Result remove(IpRule ipRule, BlockingQueue<UpdateMessage> workLoad) {
     try {
-      InetAddress address = InetAddress.getByAddress(ipRule.getIpAddress());
+      return remove(InetAddress.getByAddress(ipRule.getIpAddress()), workLoad);
+    } catch (UnknownHostException e) {
+      log.error("removeIpRule couldn't remove {}", ipRule, e);
+      return new Result(false, e.getMessage());
+    }
+  }
+
+  public synchronized Result remove(InetAddress address, BlockingQueue<UpdateMessage> workLoad) {
+    try {
       log.debug("address {}", address.getHostAddress());
       if (!rules.containsKey(address)) {
         return new Result(false, "nothing to remove for address " + address.getHostAddress());
@@ -50,8 +67,8 @@ public class IpRules {
         workLoad.put(UpdateMessage.removeIpRule(address));
         rules.remove(address);
       }
-    } catch (UnknownHostException | InterruptedException e) {
-      log.error("addIpRule couldn't add {}", ipRule, e);
+    } catch (InterruptedException e) {
+      log.error("removeIpRule couldn't remove {}", address, e);
       return new Result(false, e.getMessage());
     }
     return new Result(true, "");
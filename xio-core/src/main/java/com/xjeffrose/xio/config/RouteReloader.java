@@ -11,13 +11,19 @@ import java.nio.file.Paths;
 import java.security.MessageDigest;
 import java.util.*;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
-public class RouteReloader<T> {
+public class RouteReloader<T> implements Closeable {
+
+  // interval used when file system events are unavailable
+  private static final long POLL_MILLIS = 2000;
+  // safety net for file system events that were missed
+  private static final long FALLBACK_POLL_MILLIS = 30000;
 
   private final ScheduledExecutorService executor;
   private final ThrowingFunction<String, T> factory;
@@ -25,6 +31,8 @@ public class RouteReloader<T> {
   private RouteMeta<T> metadata;
   private Map<String, RouteConfigFileMetadata> watchFiles =
       new HashMap<String, RouteConfigFileMetadata>();
+  private FileWatcher watcher;
+  private ScheduledFuture<?> poll;
 
   public RouteReloader(ScheduledExecutorService executor, ThrowingFunction<String, T> factory) {
     this.executor = executor;
@@ -38,12 +46,32 @@ public class RouteReloader<T> {
     return metadata.value;
   }
 
-  public void start(BiConsumer<T, T> updater) {
+  public synchronized void start(BiConsumer<T, T> updater) {
     checkNotNull(updater, "updater cannot be null");
     checkNotNull(metadata, "init must be called before start");
     checkState(this.updater == null, "start cannot be called more than once");
     setUpdater(updater);
-    executor.scheduleWithFixedDelay(this::checkForUpdates, 2000, 2000, TimeUnit.MILLISECONDS);
+    // changes are picked up from file system events, polling is only a safety net
+    watcher = FileWatcher.start(executor, watchFiles.keySet(), this::checkForUpdates);
+    long pollMillis = watcher == null ? POLL_MILLIS : FALLBACK_POLL_MILLIS;
+    poll =
+        executor.scheduleWithFixedDelay(
+            this::checkForUpdates, pollMillis, pollMillis, TimeUnit.MILLISECONDS);
+  }
+
+  /** Stops watching and polling the files, a reload that is already running still completes. */
+  @Override
+  public synchronized void close() {
+    if (poll != null) {
+      poll.cancel(false);
+    }
+    if (watcher != null) {
+      try {
+        watcher.close();
+      } catch (IOException e) {
+        log.warn("Couldn't close the file watcher", e);
+      }
+    }
   }
 
   private RouteMeta<T> load(String filePath) {
@@ -99,6 +127,10 @@ public class RouteReloader<T> {
       Set<String> keys = new HashSet<String>(watchFiles.keySet());
       List<RouteConfigFileMetadata> toUpdateList =
           keys.stream()
+              // only files whose timestamp moved are read and hashed
+              .filter(
+                  filePath ->
+                      new File(filePath).lastModified() != watchFiles.get(filePath).lastModified)
               .map(filePath -> loadMetaData(new File(filePath)))
               .filter(
                   currentMetaData ->
@@ -113,7 +145,7 @@ public class RouteReloader<T> {
   }
 
   @VisibleForTesting
-  void checkForUpdates() {
+  synchronized void checkForUpdates() {
     try {
       // check to see if any of the specific watch files have changed
       List<RouteConfigFileMetadata> toUpdateList = getChangedFiles();
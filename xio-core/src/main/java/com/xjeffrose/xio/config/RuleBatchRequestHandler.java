@@ -0,0 +1,69 @@
+package com.xjeffrose.xio.config;
+
+import com.xjeffrose.xio.config.thrift.Result;
+import com.xjeffrose.xio.http.Request;
+import com.xjeffrose.xio.http.Response;
+import com.xjeffrose.xio.marshall.ThriftUnmarshaller;
+import io.netty.channel.ChannelHandlerContext;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Applies a batch of ip and http1 rule updates in one call. The request body uses the changelog
+ * delta encoding of {@link com.xjeffrose.xio.marshall.ThriftMarshaller#marshall(List)}, the
+ * response counts the applied and rejected updates as json.
+ */
+class RuleBatchRequestHandler extends UploadRequestHandler {
+
+  private final IpRules ipRules;
+  private final Http1Rules http1Rules;
+  private final BlockingQueue<UpdateMessage> workLoad;
+  private final int maxRequestSize;
+  private final ThriftUnmarshaller unmarshaller = new ThriftUnmarshaller();
+
+  RuleBatchRequestHandler(
+      IpRules ipRules,
+      Http1Rules http1Rules,
+      BlockingQueue<UpdateMessage> workLoad,
+      int maxRequestSize) {
+    this.ipRules = ipRules;
+    this.http1Rules = http1Rules;
+    this.workLoad = workLoad;
+    this.maxRequestSize = maxRequestSize;
+  }
+
+  private Result apply(UpdateMessage update) {
+    boolean add = update.getUpdateType() == UpdateType.Add;
+    if (update instanceof UpdateMessage.IpRuleUpdate) {
+      UpdateMessage.IpRuleUpdate ipUpdate = (UpdateMessage.IpRuleUpdate) update;
+      return add
+          ? ipRules.add(ipUpdate.getAddress(), update.getRuleType(), workLoad)
+          : ipRules.remove(ipUpdate.getAddress(), workLoad);
+    }
+    UpdateMessage.Http1RuleUpdate http1Update = (UpdateMessage.Http1RuleUpdate) update;
+    return add
+        ? http1Rules.add(http1Update.getHttp1Rule(), update.getRuleType(), workLoad)
+        : http1Rules.remove(http1Update.getHttp1Rule(), workLoad);
+  }
+
+  @Override
+  protected Upload newUpload(ChannelHandlerContext ctx, Request request) {
+    return new BufferedUpload(ctx, maxRequestSize) {
+      @Override
+      Response onBody(Request request, byte[] body) {
+        List<UpdateMessage> updates = new ArrayList<>();
+        try {
+          unmarshaller.unmarshall(updates, body);
+        } catch (RuntimeException e) {
+          throw new IllegalArgumentException("malformed batch", e);
+        }
+        UpdateResults results = new UpdateResults();
+        for (int i = 0; i < updates.size(); i++) {
+          results.add(i, apply(updates.get(i)));
+        }
+        return newJsonResponse(ctx, request, results);
+      }
+    };
+  }
+}
@@ -71,6 +71,22 @@ public class Ruleset {
     return recordsWritten;
   }
 
+  public String getIpFilterPath() {
+    return ipFilterPath;
+  }
+
+  public String getHttp1FilterPath() {
+    return http1FilterPath;
+  }
+
+  public IpAddressDeterministicRuleEngineConfig getIpRules() {
+    return ipRules.get();
+  }
+
+  public Http1DeterministicRuleEngineConfig getHttp1Rules() {
+    return http1Rules.get();
+  }
+
   public void read(ReadProvider reader) {
     reader.read(ipFilterPath, ipRules.get());
     reader.read(http1FilterPath, http1Rules.get());
@@ -0,0 +1,50 @@
+package com.xjeffrose.xio.config;
+
+import com.xjeffrose.xio.http.Request;
+import com.xjeffrose.xio.http.Response;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import org.apache.thrift.TException;
+import org.apache.thrift.TProcessor;
+import org.apache.thrift.protocol.TBinaryProtocol;
+import org.apache.thrift.transport.TMemoryBuffer;
+import org.apache.thrift.transport.TMemoryInputTransport;
+
+/**
+ * Serves a thrift service over http, each request body holds one binary protocol call. Compatible
+ * with {@link org.apache.thrift.transport.THttpClient}.
+ */
+class ThriftRequestHandler extends UploadRequestHandler {
+
+  static final String THRIFT_CONTENT_TYPE = "application/x-thrift";
+
+  private final TProcessor processor;
+  private final int maxRequestSize;
+
+  ThriftRequestHandler(TProcessor processor, int maxRequestSize) {
+    this.processor = processor;
+    this.maxRequestSize = maxRequestSize;
+  }
+
+  @Override
+  protected Upload newUpload(ChannelHandlerContext ctx, Request request) {
+    return new BufferedUpload(ctx, maxRequestSize) {
+      @Override
+      Response onBody(Request request, byte[] body) {
+        TMemoryBuffer out = new TMemoryBuffer(128);
+        try {
+          processor.process(
+              new TBinaryProtocol(new TMemoryInputTransport(body)), new TBinaryProtocol(out));
+        } catch (TException e) {
+          throw new IllegalArgumentException(e.getMessage(), e);
+        }
+        return newResponse(
+            request,
+            HttpResponseStatus.OK,
+            THRIFT_CONTENT_TYPE,
+            Unpooled.wrappedBuffer(out.getArray(), 0, out.length()));
+      }
+    };
+  }
+}
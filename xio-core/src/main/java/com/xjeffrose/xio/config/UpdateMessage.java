@@ -17,15 +17,52 @@ public abstract class UpdateMessage {
 
   public abstract void process(UpdateHandler handler);
 
+  /** Applies this update to the ip rules, updates of other rules are ignored. */
+  public abstract void apply(IpAddressDeterministicRuleEngineConfig config);
+
+  /** Applies this update to the http1 rules, updates of other rules are ignored. */
+  public abstract void apply(Http1DeterministicRuleEngineConfig config);
+
+  /** Applies this update to the hostname rules, there are no hostname updates yet. */
+  public void apply(HostnameDeterministicRuleEngineConfig config) {}
+
+  public UpdateType getUpdateType() {
+    return updateType;
+  }
+
+  public RuleType getRuleType() {
+    return ruleType;
+  }
+
   public static class IpRuleUpdate extends UpdateMessage {
     IpRuleUpdate(UpdateType updateType, InetAddress address, RuleType ruleType) {
       super(updateType, address, ruleType);
     }
 
+    public InetAddress getAddress() {
+      return (InetAddress) payload;
+    }
+
     @Override
     public void process(UpdateHandler handler) {
       handler.process(updateType, (InetAddress) payload, ruleType);
     }
+
+    @Override
+    public void apply(IpAddressDeterministicRuleEngineConfig config) {
+      if (updateType == UpdateType.Add) {
+        if (ruleType == RuleType.blacklist) {
+          config.blacklistIp(getAddress());
+        } else if (ruleType == RuleType.whitelist) {
+          config.whitelistIp(getAddress());
+        }
+      } else if (updateType == UpdateType.Remove) {
+        config.remove(getAddress());
+      }
+    }
+
+    @Override
+    public void apply(Http1DeterministicRuleEngineConfig config) {}
   }
 
   public static class Http1RuleUpdate extends UpdateMessage {
@@ -36,10 +73,30 @@ public abstract class UpdateMessage {
       super(updateType, http1Rule, ruleType);
     }
 
+    public Http1DeterministicRuleEngineConfig.Rule getHttp1Rule() {
+      return (Http1DeterministicRuleEngineConfig.Rule) payload;
+    }
+
     @Override
     public void process(UpdateHandler handler) {
       handler.process(updateType, (Http1DeterministicRuleEngineConfig.Rule) payload, ruleType);
     }
+
+    @Override
+    public void apply(IpAddressDeterministicRuleEngineConfig config) {}
+
+    @Override
+    public void apply(Http1DeterministicRuleEngineConfig config) {
+      if (updateType == UpdateType.Add) {
+        if (ruleType == RuleType.blacklist) {
+          config.blacklistRule(getHttp1Rule());
+        } else if (ruleType == RuleType.whitelist) {
+          config.whitelistRule(getHttp1Rule());
+        }
+      } else if (updateType == UpdateType.Remove) {
+        config.remove(getHttp1Rule());
+      }
+    }
   }
 
   public static UpdateMessage addIpRule(InetAddress address, RuleType ruleType) {
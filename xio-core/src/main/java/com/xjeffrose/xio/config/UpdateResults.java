@@ -0,0 +1,58 @@
+package com.xjeffrose.xio.config;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.xjeffrose.xio.config.thrift.Result;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.Getter;
+
+/** Counts the rule updates of a batch, keeping the reasons of the first rejected updates. */
+public class UpdateResults {
+
+  static final int MAX_ERRORS = 100;
+
+  private static final JsonFactory jsonFactory = new JsonFactory();
+
+  @Getter private long applied = 0;
+  @Getter private long rejected = 0;
+  @Getter private final List<String> errors = new ArrayList<>();
+
+  /** @param index the position of the update in the batch */
+  public void add(long index, Result result) {
+    if (result.isSuccess()) {
+      applied++;
+    } else {
+      reject(index, result.getErrorReason());
+    }
+  }
+
+  public void reject(long index, String reason) {
+    rejected++;
+    if (errors.size() < MAX_ERRORS) {
+      errors.add(index + ": " + reason);
+    }
+  }
+
+  public void render(ByteBuf out) {
+    try (JsonGenerator json =
+        jsonFactory.createGenerator((OutputStream) new ByteBufOutputStream(out))) {
+      json.writeStartObject();
+      json.writeNumberField("applied", applied);
+      json.writeNumberField("rejected", rejected);
+      json.writeArrayFieldStart("errors");
+      for (String error : errors) {
+        json.writeString(error);
+      }
+      json.writeEndArray();
+      json.writeEndObject();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
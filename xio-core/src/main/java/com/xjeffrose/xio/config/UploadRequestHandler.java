@@ -0,0 +1,193 @@
+package com.xjeffrose.xio.config;
+
+import com.xjeffrose.xio.http.DefaultFullResponse;
+import com.xjeffrose.xio.http.PipelineRequestHandler;
+import com.xjeffrose.xio.http.Request;
+import com.xjeffrose.xio.http.Response;
+import com.xjeffrose.xio.http.ResponseBuilders;
+import com.xjeffrose.xio.http.RouteState;
+import com.xjeffrose.xio.http.SegmentedRequestData;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.util.AttributeKey;
+import io.netty.util.CharsetUtil;
+import io.netty.util.collection.IntObjectHashMap;
+import io.netty.util.collection.IntObjectMap;
+import java.util.ArrayList;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Base of the configuration update server routes. The request body of each stream is handed to an
+ * {@link Upload} as it arrives, so that a bulk import is applied while it is still being received.
+ * Uploads are only accessed from the event loop of their channel. An upload that fails is answered
+ * with a 400 and the connection is closed.
+ */
+@Slf4j
+abstract class UploadRequestHandler implements PipelineRequestHandler {
+
+  static final String JSON_CONTENT_TYPE = "application/json";
+
+  private static final AttributeKey<IntObjectMap<Upload>> UPLOADS_KEY =
+      AttributeKey.newInstance("xio_configuration_uploads");
+
+  interface Upload {
+    /** @param data only valid for the duration of the call */
+    void onData(ByteBuf data);
+
+    /** @return the response, once the whole request body was handed to the upload */
+    Response onEnd(Request request);
+
+    /** Releases what the upload holds on to, called once it is done or its channel closed. */
+    default void release() {}
+  }
+
+  private static final Upload FAILED =
+      new Upload() {
+        @Override
+        public void onData(ByteBuf data) {}
+
+        @Override
+        public Response onEnd(Request request) {
+          throw new IllegalStateException("upload failed");
+        }
+      };
+
+  /** Holds on to the request body until it is complete. */
+  abstract static class BufferedUpload implements Upload {
+    private final CompositeByteBuf body;
+    private final int maxSize;
+
+    BufferedUpload(ChannelHandlerContext ctx, int maxSize) {
+      this.body = ctx.alloc().compositeBuffer();
+      this.maxSize = maxSize;
+    }
+
+    @Override
+    public void onData(ByteBuf data) {
+      if (body.readableBytes() + data.readableBytes() > maxSize) {
+        throw new IllegalArgumentException("request body is larger than " + maxSize + " bytes");
+      }
+      body.addComponent(true, data.retainedSlice());
+    }
+
+    @Override
+    public Response onEnd(Request request) {
+      return onBody(request, ByteBufUtil.getBytes(body));
+    }
+
+    abstract Response onBody(Request request, byte[] body);
+
+    @Override
+    public void release() {
+      body.release();
+    }
+  }
+
+  protected abstract Upload newUpload(ChannelHandlerContext ctx, Request request);
+
+  static Response newResponse(
+      Request request, HttpResponseStatus status, String contentType, ByteBuf body) {
+    Response response =
+        ResponseBuilders.defaultHeaders(DefaultFullResponse.builder())
+            .status(status)
+            .body(body)
+            .httpTraceInfo(request.httpTraceInfo())
+            .streamId(request.streamId())
+            .build();
+    response.headers().set(HttpHeaderNames.CONTENT_TYPE, contentType);
+    return response;
+  }
+
+  static Response newJsonResponse(
+      ChannelHandlerContext ctx, Request request, UpdateResults results) {
+    ByteBuf body = ctx.alloc().buffer();
+    try {
+      results.render(body);
+    } catch (RuntimeException e) {
+      body.release();
+      throw e;
+    }
+    return newResponse(request, HttpResponseStatus.OK, JSON_CONTENT_TYPE, body);
+  }
+
+  private static IntObjectMap<Upload> uploads(ChannelHandlerContext ctx) {
+    IntObjectMap<Upload> uploads = ctx.channel().attr(UPLOADS_KEY).get();
+    if (uploads == null) {
+      IntObjectMap<Upload> created = new IntObjectHashMap<>();
+      ctx.channel().attr(UPLOADS_KEY).set(created);
+      ctx.channel()
+          .closeFuture()
+          .addListener(
+              f -> {
+                for (Upload upload : new ArrayList<>(created.values())) {
+                  upload.release();
+                }
+                created.clear();
+              });
+      uploads = created;
+    }
+    return uploads;
+  }
+
+  @Override
+  public void handle(ChannelHandlerContext ctx, Request request, RouteState route) {
+    ByteBuf data;
+    if (request instanceof SegmentedRequestData) {
+      data = ((SegmentedRequestData) request).content();
+    } else {
+      data = request.body();
+    }
+
+    IntObjectMap<Upload> uploads = uploads(ctx);
+    Upload upload = uploads.get(request.streamId());
+    if (upload == FAILED) {
+      if (request.endOfMessage()) {
+        uploads.remove(request.streamId());
+      }
+      return;
+    }
+    if (upload == null) {
+      upload = newUpload(ctx, request);
+      uploads.put(request.streamId(), upload);
+    }
+
+    Response response;
+    try {
+      if (data != null && data.isReadable()) {
+        upload.onData(data);
+      }
+      if (!request.endOfMessage()) {
+        return;
+      }
+      response = upload.onEnd(request);
+    } catch (RuntimeException e) {
+      log.warn("Rejecting {} {}", request.method(), request.path(), e);
+      upload.release();
+      if (request.endOfMessage()) {
+        uploads.remove(request.streamId());
+      } else {
+        // drop the rest of the request until the connection is closed
+        uploads.put(request.streamId(), FAILED);
+      }
+      String message = String.valueOf(e.getMessage());
+      ctx.writeAndFlush(
+              newResponse(
+                  request,
+                  HttpResponseStatus.BAD_REQUEST,
+                  "text/plain",
+                  Unpooled.copiedBuffer(message, CharsetUtil.UTF_8)))
+          .addListener(ChannelFutureListener.CLOSE);
+      return;
+    }
+
+    uploads.remove(request.streamId());
+    upload.release();
+    ctx.writeAndFlush(response);
+  }
+}
@@ -1,48 +1,85 @@
 package com.xjeffrose.xio.config;
 
 import com.xjeffrose.xio.config.thrift.RuleType;
+import com.xjeffrose.xio.marshall.Marshallable;
 import com.xjeffrose.xio.storage.ZooKeeperWriteProvider;
 import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.List;
 
+/**
+ * Persists rule updates as deltas appended to the changelog of each ruleset, see {@link
+ * com.xjeffrose.xio.storage.ZooKeeperChangelog}. A ruleset is compacted into a new snapshot on the
+ * first commit and once it has accumulated compactionInterval deltas.
+ */
 public class ZooKeeperUpdateHandler implements UpdateHandler {
 
+  static final int DEFAULT_COMPACTION_INTERVAL = 100;
+
+  private class Changelog {
+    final String path;
+    final Marshallable rules;
+    final List<UpdateMessage> updates = new ArrayList<>();
+    boolean compacted = false;
+    int deltas = 0;
+
+    Changelog(String path, Marshallable rules) {
+      this.path = path;
+      this.rules = rules;
+    }
+
+    long commit() {
+      long recordsWritten = updates.size();
+      if (!compacted || (!updates.isEmpty() && deltas + 1 >= compactionInterval)) {
+        // the snapshot already includes the pending updates
+        writer.compact(path, rules);
+        compacted = true;
+        deltas = 0;
+      } else if (!updates.isEmpty()) {
+        writer.append(path, updates);
+        deltas++;
+      }
+      updates.clear();
+      return recordsWritten;
+    }
+  }
+
   private final ZooKeeperWriteProvider writer;
   private final Ruleset rules;
+  private final int compactionInterval;
+  private final Changelog ipChangelog;
+  private final Changelog http1Changelog;
 
-  public ZooKeeperUpdateHandler(ZooKeeperWriteProvider writer, Ruleset rules) {
+  public ZooKeeperUpdateHandler(
+      ZooKeeperWriteProvider writer, Ruleset rules, int compactionInterval) {
     this.writer = writer;
     this.rules = rules;
+    this.compactionInterval = compactionInterval;
+    ipChangelog = new Changelog(rules.getIpFilterPath(), rules.getIpRules());
+    http1Changelog = new Changelog(rules.getHttp1FilterPath(), rules.getHttp1Rules());
+  }
+
+  public ZooKeeperUpdateHandler(ZooKeeperWriteProvider writer, Ruleset rules) {
+    this(writer, rules, DEFAULT_COMPACTION_INTERVAL);
   }
 
   @Override
   public long commit() {
-    return rules.write(writer);
+    return ipChangelog.commit() + http1Changelog.commit();
   }
 
   @Override
   public void process(UpdateType updateType, InetAddress address, RuleType ruleType) {
-    if (updateType == UpdateType.Add) {
-      if (ruleType == RuleType.blacklist) {
-        rules.mutateIpRules().blacklistIp(address);
-      } else if (ruleType == RuleType.whitelist) {
-        rules.mutateIpRules().whitelistIp(address);
-      }
-    } else if (updateType == UpdateType.Remove) {
-      rules.mutateIpRules().remove(address);
-    }
+    UpdateMessage update = new UpdateMessage.IpRuleUpdate(updateType, address, ruleType);
+    update.apply(rules.mutateIpRules());
+    ipChangelog.updates.add(update);
   }
 
   @Override
   public void process(
       UpdateType updateType, Http1DeterministicRuleEngineConfig.Rule http1Rule, RuleType ruleType) {
-    if (updateType == UpdateType.Add) {
-      if (ruleType == RuleType.blacklist) {
-        rules.mutateHttp1Rules().blacklistRule(http1Rule);
-      } else if (ruleType == RuleType.whitelist) {
-        rules.mutateHttp1Rules().whitelistRule(http1Rule);
-      }
-    } else if (updateType == UpdateType.Remove) {
-      rules.mutateHttp1Rules().remove(http1Rule);
-    }
+    UpdateMessage update = new UpdateMessage.Http1RuleUpdate(updateType, http1Rule, ruleType);
+    update.apply(rules.mutateHttp1Rules());
+    http1Changelog.updates.add(update);
   }
 }
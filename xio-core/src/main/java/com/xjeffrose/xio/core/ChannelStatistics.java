@@ -1,28 +1,54 @@
 package com.xjeffrose.xio.core;
 
+import com.xjeffrose.xio.metric.EventLoopStats;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufHolder;
 import io.netty.channel.ChannelDuplexHandler;
 import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.FileRegion;
 import io.netty.channel.group.ChannelGroup;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
+/**
+ * Counts active channels and the bytes read from and written to the wire. Totals are kept for the
+ * whole server, and if the channel's event loop is watched by an {@link
+ * com.xjeffrose.xio.metric.EventLoopProbe} the same values are also recorded per event loop.
+ */
 @ChannelHandler.Sharable
 public class ChannelStatistics extends ChannelDuplexHandler implements XioMetrics {
   public static final String NAME = ChannelStatistics.class.getSimpleName();
   private final AtomicInteger channelCount = new AtomicInteger(0);
-  private final AtomicLong bytesRead = new AtomicLong(0);
-  private final AtomicLong bytesWritten = new AtomicLong(0);
+  // shared by every event loop, LongAdder avoids contending on a single cache line
+  private final LongAdder bytesRead = new LongAdder();
+  private final LongAdder bytesWritten = new LongAdder();
   private final ChannelGroup allChannels;
 
   public ChannelStatistics(ChannelGroup allChannels) {
     this.allChannels = allChannels;
   }
 
+  private static long size(Object msg) {
+    if (msg instanceof ByteBuf) {
+      return ((ByteBuf) msg).readableBytes();
+    } else if (msg instanceof ByteBufHolder) {
+      return ((ByteBufHolder) msg).content().readableBytes();
+    } else if (msg instanceof FileRegion) {
+      return ((FileRegion) msg).count() - ((FileRegion) msg).transferred();
+    }
+    return 0;
+  }
+
   @Override
   public void channelActive(ChannelHandlerContext ctx) throws Exception {
     channelCount.incrementAndGet();
     allChannels.add(ctx.channel());
+    EventLoopStats stats = EventLoopStats.current();
+    if (stats != null) {
+      stats.channelActive();
+    }
     ctx.fireChannelActive();
   }
 
@@ -30,76 +56,49 @@ public class ChannelStatistics extends ChannelDuplexHandler implements XioMetric
   public void channelInactive(ChannelHandlerContext ctx) throws Exception {
     channelCount.decrementAndGet();
     allChannels.remove(ctx.channel());
+    EventLoopStats stats = EventLoopStats.current();
+    if (stats != null) {
+      stats.channelInactive();
+    }
     ctx.fireChannelInactive();
   }
-  // TODO: Properly implement
-  //    public void handleUpstream(ChannelHandlerContext ctx, ChannelEvent e)
-  //      throws Exception {
-  //    if (e instanceof ChannelStateEvent) {
-  //      ChannelStateEvent cse = (ChannelStateEvent) e;
-  //      switch (cse.getState()) {
-  //        case OPEN:
-  //          if (Boolean.TRUE.equals(cse.getValue())) {
-  //            // connect
-  //            channelCount.incrementAndGet();
-  //            allChannels.add(e.getChannel());
-  //          } else {
-  //            // disconnect
-  //            channelCount.decrementAndGet();
-  //            allChannels.remove(e.getChannel());
-  //          }
-  //          break;
-  //        case BOUND:
-  //          break;
-  //      }
-  //    }
-  //
-  //    if (e instanceof UpstreamMessageEvent) {
-  //      UpstreamMessageEvent ume = (UpstreamMessageEvent) e;
-  //      if (ume.getMessage() instanceof ChannelBuffer) {
-  //        ChannelBuffer cb = (ChannelBuffer) ume.getMessage();
-  //        int readableBytes = cb.readableBytes();
-  //        //  compute stats here, bytes read from remote
-  //        bytesRead.getAndAdd(readableBytes);
-  //      }
-  //    }
-  //
-  //    ctx.sendUpstream(e);
-  //  }
-  //
-  //  public void handleDownstream(ChannelHandlerContext ctx, ChannelEvent e)
-  //      throws Exception {
-  //    if (e instanceof DownstreamMessageEvent) {
-  //      DownstreamMessageEvent dme = (DownstreamMessageEvent) e;
-  //      if (dme.getMessage() instanceof ChannelBuffer) {
-  //        ChannelBuffer cb = (ChannelBuffer) dme.getMessage();
-  //        int readableBytes = cb.readableBytes();
-  //        // compute stats here, bytes written to remote
-  //        bytesWritten.getAndAdd(readableBytes);
-  //      }
-  //    }
-  //    ctx.sendDownstream(e);
-  //  }
 
   public int getChannelCount() {
     return channelCount.get();
   }
 
   public long getBytesRead() {
-    return bytesRead.get();
+    return bytesRead.sum();
   }
 
   public long getBytesWritten() {
-    return bytesWritten.get();
+    return bytesWritten.sum();
   }
 
   @Override
   public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+    long size = size(msg);
+    if (size > 0) {
+      bytesRead.add(size);
+      EventLoopStats stats = EventLoopStats.current();
+      if (stats != null) {
+        stats.bytesRead(size);
+      }
+    }
     ctx.fireChannelRead(msg);
   }
 
   @Override
-  public void channelReadComplete(ChannelHandlerContext ctx) throws Exception {
-    ctx.fireChannelReadComplete();
+  public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise)
+      throws Exception {
+    long size = size(msg);
+    if (size > 0) {
+      bytesWritten.add(size);
+      EventLoopStats stats = EventLoopStats.current();
+      if (stats != null) {
+        stats.bytesWritten(size);
+      }
+    }
+    ctx.write(msg, promise);
   }
 }
@@ -0,0 +1,13 @@
+package com.xjeffrose.xio.core;
+
+import java.util.List;
+
+/**
+ * A {@link ConfigurationUpdater} that follows the changelog of its path, {@link #update(byte[])}
+ * receives full snapshots and {@link #apply(List)} the deltas written since.
+ */
+public interface IncrementalConfigurationUpdater extends ConfigurationUpdater {
+
+  /** Applies deltas, in order, on top of the current configuration. */
+  void apply(List<byte[]> deltas);
+}
@@ -0,0 +1,44 @@
+package com.xjeffrose.xio.core;
+
+import io.netty.channel.unix.DomainSocketAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+
+/**
+ * Parses and describes the addresses servers bind and clients connect to. An ip or host prefixed
+ * with "unix:" names a unix domain socket, e.g. "unix:/var/run/sidecar.sock", its port is ignored.
+ */
+public class SocketAddresses {
+
+  public static final String UNIX_PREFIX = "unix:";
+
+  private SocketAddresses() {}
+
+  /** @return a DomainSocketAddress for "unix:" paths, an InetSocketAddress otherwise */
+  public static SocketAddress parse(String host, int port) {
+    if (host.startsWith(UNIX_PREFIX)) {
+      String path = host.substring(UNIX_PREFIX.length());
+      if (path.isEmpty()) {
+        throw new IllegalArgumentException("Missing path in unix domain socket address " + host);
+      }
+      return new DomainSocketAddress(path);
+    }
+    return new InetSocketAddress(host, port);
+  }
+
+  public static boolean isDomainSocket(SocketAddress address) {
+    return address instanceof DomainSocketAddress;
+  }
+
+  /** @return "host:port" for tcp addresses and "unix:path" for unix domain sockets */
+  public static String describe(SocketAddress address) {
+    if (address instanceof InetSocketAddress) {
+      InetSocketAddress inet = (InetSocketAddress) address;
+      return inet.getHostString() + ":" + inet.getPort();
+    }
+    if (address instanceof DomainSocketAddress) {
+      return UNIX_PREFIX + ((DomainSocketAddress) address).path();
+    }
+    return String.valueOf(address);
+  }
+}
@@ -1,12 +1,17 @@
 package com.xjeffrose.xio.core;
 
+import io.netty.channel.Channel;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.timeout.IdleStateEvent;
 import io.netty.handler.timeout.IdleStateHandler;
+import io.netty.util.AttributeKey;
 import java.time.Duration;
 import java.util.concurrent.TimeUnit;
 
 public class XioIdleDisconnectHandler extends IdleStateHandler {
+  private static final AttributeKey<Integer> LONG_LIVED_STREAMS =
+      AttributeKey.newInstance("xio_long_lived_streams");
+
   public XioIdleDisconnectHandler(
       int readerIdleTimeSeconds, int writerIdleTimeSeconds, int allIdleTimeSeconds) {
     super(readerIdleTimeSeconds, writerIdleTimeSeconds, allIdleTimeSeconds);
@@ -26,8 +31,27 @@ public class XioIdleDisconnectHandler extends IdleStateHandler {
         TimeUnit.MILLISECONDS);
   }
 
+  /**
+   * Exempts the channel from idle disconnects until every long-lived stream started on it has been
+   * ended, a streaming rpc may legitimately be quiet for longer than the idle timeout. Must be
+   * called from the channel's event loop.
+   */
+  public static void startLongLivedStream(Channel channel) {
+    Integer streams = channel.attr(LONG_LIVED_STREAMS).get();
+    channel.attr(LONG_LIVED_STREAMS).set(streams == null ? 1 : streams + 1);
+  }
+
+  /** Ends a stream started with {@link #startLongLivedStream}. */
+  public static void endLongLivedStream(Channel channel) {
+    Integer streams = channel.attr(LONG_LIVED_STREAMS).get();
+    channel.attr(LONG_LIVED_STREAMS).set(streams == null || streams <= 1 ? null : streams - 1);
+  }
+
   @Override
   protected void channelIdle(ChannelHandlerContext ctx, IdleStateEvent evt) throws Exception {
+    if (ctx.channel().attr(LONG_LIVED_STREAMS).get() != null) {
+      return;
+    }
     ctx.channel().close();
 
     throw new XioIdleDisconnectException("Disconnecting " + ctx.channel() + " due to idle state");
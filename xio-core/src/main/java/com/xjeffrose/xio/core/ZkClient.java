@@ -1,6 +1,7 @@
 package com.xjeffrose.xio.core;
 
 import com.xjeffrose.xio.application.ApplicationConfig;
+import com.xjeffrose.xio.storage.ZooKeeperChangelog;
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.nio.charset.Charset;
@@ -279,6 +280,10 @@ public class ZkClient implements ConfigurationProvider {
   }
 
   public void registerUpdater(ConfigurationUpdater updater) {
+    if (updater instanceof IncrementalConfigurationUpdater) {
+      registerChangelogUpdater((IncrementalConfigurationUpdater) updater);
+      return;
+    }
     NodeCache cache = getOrCreateNodeCache(updater.getPath());
     if (client.getState().equals(CuratorFrameworkState.STARTED)) {
       startNodeCache(cache);
@@ -295,6 +300,31 @@ public class ZkClient implements ConfigurationProvider {
             });
   }
 
+  /**
+   * Follows the changelog of the updater's path: any change below the path brings the updater up
+   * to date with the base snapshot and the deltas written since, see {@link ZooKeeperChangelog}.
+   */
+  private void registerChangelogUpdater(IncrementalConfigurationUpdater updater) {
+    ZooKeeperChangelog changelog = new ZooKeeperChangelog(client, updater.getPath());
+    // only used as a trigger, the changelog reads what it needs
+    TreeCache cache = TreeCache.newBuilder(client, updater.getPath()).setCacheData(false).build();
+    treeCaches.put(updater.getPath(), cache);
+    if (client.getState().equals(CuratorFrameworkState.STARTED)) {
+      startTreeCache(cache);
+    }
+
+    cache
+        .getListenable()
+        .addListener(
+            (curator, event) -> {
+              try {
+                changelog.sync(updater::update, updater::apply);
+              } catch (Exception e) {
+                log.error("Couldn't sync changelog of {}", updater.getPath(), e);
+              }
+            });
+  }
+
   public void registerForTreeNodeEvents(String path, Consumer<TreeCacheEvent> updater) {
     TreeCache cache = getOrCreateTreeCache(path);
     if (client.getState().equals(CuratorFrameworkState.STARTED)) {
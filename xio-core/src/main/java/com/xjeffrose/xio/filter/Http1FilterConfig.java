@@ -2,16 +2,18 @@ package com.xjeffrose.xio.filter;
 
 import com.google.common.collect.ImmutableList;
 import com.xjeffrose.xio.config.Http1DeterministicRuleEngineConfig;
-import com.xjeffrose.xio.core.ConfigurationUpdater;
+import com.xjeffrose.xio.core.IncrementalConfigurationUpdater;
+import com.xjeffrose.xio.marshall.Marshaller;
 import com.xjeffrose.xio.marshall.ThriftUnmarshaller;
 import io.netty.handler.codec.http.HttpRequest;
+import java.util.List;
 import java.util.function.Consumer;
 import lombok.EqualsAndHashCode;
 
 @EqualsAndHashCode
 public class Http1FilterConfig {
 
-  public static class Updater implements ConfigurationUpdater {
+  public static class Updater implements IncrementalConfigurationUpdater {
     private final String path;
     private final Consumer<Http1FilterConfig> setter;
     private final Http1DeterministicRuleEngineConfig config;
@@ -33,6 +35,13 @@ public class Http1FilterConfig {
       unmarshaller.unmarshall(config, data);
       setter.accept(new Http1FilterConfig(config.getBlacklistRules()));
     }
+
+    public void apply(List<byte[]> deltas) {
+      for (byte[] delta : deltas) {
+        config.putUpdates(unmarshaller, delta);
+      }
+      setter.accept(new Http1FilterConfig(config.getBlacklistRules()));
+    }
   }
 
   private final ImmutableList<Http1DeterministicRuleEngineConfig.Rule> blacklist;
@@ -45,6 +54,13 @@ public class Http1FilterConfig {
     this.blacklist = blacklist;
   }
 
+  /** @return the blacklist as a ruleset, as read back by {@link Updater#update(byte[])} */
+  public byte[] marshall(Marshaller marshaller) {
+    Http1DeterministicRuleEngineConfig rules = new Http1DeterministicRuleEngineConfig();
+    blacklist.forEach(rules::blacklistRule);
+    return marshaller.marshall(rules);
+  }
+
   public boolean denied(HttpRequest request) {
     for (Http1DeterministicRuleEngineConfig.Rule rule : blacklist) {
       if (rule.matches(request)) {
@@ -2,6 +2,7 @@ package com.xjeffrose.xio.filter;
 
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.unix.DomainSocketChannel;
 import java.net.InetSocketAddress;
 import lombok.extern.slf4j.Slf4j;
 
@@ -18,7 +19,12 @@ public class IpFilter extends ChannelInboundHandlerAdapter {
   /** channel has been registered with it's eventloop, we may have a remote ip, try to filter. */
   @Override
   public void channelRegistered(ChannelHandlerContext ctx) throws Exception {
-    eagerFilter(ctx);
+    if (ctx.channel() instanceof DomainSocketChannel) {
+      // unix domain socket peers are local processes without a remote ip
+      ctx.pipeline().remove(this);
+    } else {
+      eagerFilter(ctx);
+    }
     ctx.fireChannelRegistered();
   }
 
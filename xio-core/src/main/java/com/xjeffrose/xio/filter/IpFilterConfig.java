@@ -2,17 +2,19 @@ package com.xjeffrose.xio.filter;
 
 import com.google.common.collect.ImmutableSet;
 import com.xjeffrose.xio.config.IpAddressDeterministicRuleEngineConfig;
-import com.xjeffrose.xio.core.ConfigurationUpdater;
+import com.xjeffrose.xio.core.IncrementalConfigurationUpdater;
+import com.xjeffrose.xio.marshall.Marshaller;
 import com.xjeffrose.xio.marshall.ThriftUnmarshaller;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
+import java.util.List;
 import java.util.function.Consumer;
 import lombok.EqualsAndHashCode;
 
 @EqualsAndHashCode
 public class IpFilterConfig {
 
-  public static class Updater implements ConfigurationUpdater {
+  public static class Updater implements IncrementalConfigurationUpdater {
     private final String path;
     private final Consumer<IpFilterConfig> setter;
     private final IpAddressDeterministicRuleEngineConfig config;
@@ -34,6 +36,13 @@ public class IpFilterConfig {
       unmarshaller.unmarshall(config, data);
       setter.accept(new IpFilterConfig(config.getBlacklistIps()));
     }
+
+    public void apply(List<byte[]> deltas) {
+      for (byte[] delta : deltas) {
+        config.putUpdates(unmarshaller, delta);
+      }
+      setter.accept(new IpFilterConfig(config.getBlacklistIps()));
+    }
   }
 
   private final ImmutableSet<InetAddress> blacklist;
@@ -46,6 +55,13 @@ public class IpFilterConfig {
     this.blacklist = blacklist;
   }
 
+  /** @return the blacklist as a ruleset, as read back by {@link Updater#update(byte[])} */
+  public byte[] marshall(Marshaller marshaller) {
+    IpAddressDeterministicRuleEngineConfig rules = new IpAddressDeterministicRuleEngineConfig();
+    blacklist.forEach(rules::blacklistIp);
+    return marshaller.marshall(rules);
+  }
+
   public boolean denied(InetSocketAddress address) {
     return blacklist.contains(address.getAddress());
   }
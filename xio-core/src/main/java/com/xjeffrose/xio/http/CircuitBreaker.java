@@ -0,0 +1,163 @@
+package com.xjeffrose.xio.http;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import io.netty.util.AttributeKey;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Lock free circuit breaker for a single backend, shared by the clients of every event loop.
+ *
+ * <p>The breaker opens after {@code failureThreshold} consecutive failures (connect errors,
+ * timeouts and 5xx responses). While open every request is rejected, after {@code openDuration} it
+ * becomes half open and admits up to {@code halfOpenProbes} requests: the first success closes it
+ * again, the first failure reopens it, as does {@code halfOpenTimeout} passing without either.
+ * Candidate backends are checked with {@link #isAvailable()}, a probe is only taken by {@link
+ * #allowRequest()} once a request is actually sent. Transitions are logged and counted as
+ * circuitBreaker.&lt;host:port&gt;.&lt;state&gt; meters, the current state is exported as a gauge.
+ */
+@Slf4j
+public class CircuitBreaker {
+
+  /** Set on backend channels by {@link ClientConnectionManager} so responses can be recorded. */
+  public static final AttributeKey<CircuitBreaker> CIRCUIT_BREAKER_KEY =
+      AttributeKey.newInstance("xio_circuit_breaker");
+
+  public enum State {
+    CLOSED,
+    OPEN,
+    HALF_OPEN
+  }
+
+  private final String name;
+  private final CircuitBreakerConfig config;
+  private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+  private final AtomicInteger failures = new AtomicInteger();
+  private final AtomicInteger probes = new AtomicInteger();
+  private volatile long openedNanos;
+  private volatile long halfOpenedNanos;
+  private final Meter opened;
+  private final Meter halfOpened;
+  private final Meter closed;
+  private final Meter rejected;
+
+  public CircuitBreaker(String name, CircuitBreakerConfig config, MetricRegistry registry) {
+    this.name = name;
+    this.config = config;
+    String prefix = MetricRegistry.name("circuitBreaker", name);
+    opened = registry.meter(MetricRegistry.name(prefix, "open"));
+    halfOpened = registry.meter(MetricRegistry.name(prefix, "halfOpen"));
+    closed = registry.meter(MetricRegistry.name(prefix, "closed"));
+    rejected = registry.meter(MetricRegistry.name(prefix, "rejected"));
+    registry.gauge(
+        MetricRegistry.name(prefix, "state"), () -> (Gauge<Integer>) () -> state.get().ordinal());
+  }
+
+  public State state() {
+    return state.get();
+  }
+
+  private boolean transition(State from, State to) {
+    return transition(from, to, System.nanoTime());
+  }
+
+  private boolean transition(State from, State to, long nanos) {
+    if (!state.compareAndSet(from, to)) {
+      return false;
+    }
+    log.warn("circuit breaker {} {} -> {}", name, from, to);
+    switch (to) {
+      case OPEN:
+        openedNanos = nanos;
+        opened.mark();
+        break;
+      case HALF_OPEN:
+        halfOpenedNanos = nanos;
+        probes.set(0);
+        halfOpened.mark();
+        break;
+      case CLOSED:
+        failures.set(0);
+        closed.mark();
+        break;
+    }
+    return true;
+  }
+
+  /** @return true if none of the half open probes reported back within the half open timeout */
+  private boolean halfOpenExpired(long now) {
+    long timeout = config.halfOpenTimeout().toNanos();
+    return timeout != 0 && now - halfOpenedNanos >= timeout;
+  }
+
+  /**
+   * Checks whether {@link #allowRequest()} would let a request through, without taking a half open
+   * probe. Used to pick a backend before anything is sent to it.
+   */
+  public boolean isAvailable() {
+    long now = System.nanoTime();
+    long openDuration = config.openDuration().toNanos();
+    switch (state.get()) {
+      case OPEN:
+        return now - openedNanos >= openDuration;
+      case HALF_OPEN:
+        if (halfOpenExpired(now)) {
+          // counts as reopened when the timeout passed, see allowRequest
+          return now - halfOpenedNanos - config.halfOpenTimeout().toNanos() >= openDuration;
+        }
+        return probes.get() < config.halfOpenProbes();
+      default:
+        return true;
+    }
+  }
+
+  /**
+   * Must be called right before a request is sent to the backend, takes a probe while half open.
+   *
+   * @return false if the request should not be sent
+   */
+  public boolean allowRequest() {
+    long now = System.nanoTime();
+    State current = state.get();
+    if (current == State.HALF_OPEN && halfOpenExpired(now)) {
+      // none of the probes reported back, count them as failed
+      transition(
+          State.HALF_OPEN, State.OPEN, halfOpenedNanos + config.halfOpenTimeout().toNanos());
+      current = state.get();
+    }
+    if (current == State.OPEN) {
+      if (now - openedNanos < config.openDuration().toNanos()) {
+        rejected.mark();
+        return false;
+      }
+      transition(State.OPEN, State.HALF_OPEN, now);
+      current = state.get();
+    }
+    if (current == State.HALF_OPEN && probes.incrementAndGet() > config.halfOpenProbes()) {
+      rejected.mark();
+      return false;
+    }
+    return current != State.OPEN;
+  }
+
+  public void onSuccess() {
+    State current = state.get();
+    if (current == State.HALF_OPEN) {
+      transition(State.HALF_OPEN, State.CLOSED);
+    } else if (current == State.CLOSED && failures.get() != 0) {
+      failures.set(0);
+    }
+  }
+
+  public void onFailure() {
+    State current = state.get();
+    if (current == State.HALF_OPEN) {
+      transition(State.HALF_OPEN, State.OPEN);
+    } else if (current == State.CLOSED && failures.incrementAndGet() >= config.failureThreshold()) {
+      transition(State.CLOSED, State.OPEN);
+    }
+  }
+}
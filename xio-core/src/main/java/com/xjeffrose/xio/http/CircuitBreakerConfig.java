@@ -0,0 +1,44 @@
+package com.xjeffrose.xio.http;
+
+import com.typesafe.config.Config;
+import java.time.Duration;
+import lombok.Getter;
+import lombok.experimental.Accessors;
+
+/** Settings for {@link CircuitBreaker}, see clientLimits.circuitBreaker in reference.conf */
+@Accessors(fluent = true)
+@Getter
+public class CircuitBreakerConfig {
+
+  public static final CircuitBreakerConfig DISABLED =
+      new CircuitBreakerConfig(false, 0, Duration.ZERO, 0, Duration.ZERO);
+
+  private final boolean enabled;
+  private final int failureThreshold;
+  private final Duration openDuration;
+  private final int halfOpenProbes;
+  // zero never reopens a half open breaker whose probes didn't report back
+  private final Duration halfOpenTimeout;
+
+  public CircuitBreakerConfig(
+      boolean enabled,
+      int failureThreshold,
+      Duration openDuration,
+      int halfOpenProbes,
+      Duration halfOpenTimeout) {
+    this.enabled = enabled;
+    this.failureThreshold = failureThreshold;
+    this.openDuration = openDuration;
+    this.halfOpenProbes = halfOpenProbes;
+    this.halfOpenTimeout = halfOpenTimeout;
+  }
+
+  public CircuitBreakerConfig(Config config) {
+    this(
+        config.getBoolean("enabled"),
+        config.getInt("failureThreshold"),
+        config.getDuration("openDuration"),
+        config.getInt("halfOpenProbes"),
+        config.getDuration("halfOpenTimeout"));
+  }
+}
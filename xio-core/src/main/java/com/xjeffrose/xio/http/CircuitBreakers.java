@@ -0,0 +1,34 @@
+package com.xjeffrose.xio.http;
+
+import com.codahale.metrics.MetricRegistry;
+import com.xjeffrose.xio.core.SocketAddresses;
+import io.netty.util.internal.PlatformDependent;
+import java.net.SocketAddress;
+import java.util.concurrent.ConcurrentMap;
+
+/** Creates and holds one {@link CircuitBreaker} per backend address for the application. */
+public class CircuitBreakers {
+
+  private final CircuitBreakerConfig config;
+  private final MetricRegistry metricRegistry;
+  private final ConcurrentMap<SocketAddress, CircuitBreaker> breakers =
+      PlatformDependent.newConcurrentHashMap();
+
+  public CircuitBreakers(CircuitBreakerConfig config, MetricRegistry metricRegistry) {
+    this.config = config;
+    this.metricRegistry = metricRegistry;
+  }
+
+  public boolean isEnabled() {
+    return config.enabled();
+  }
+
+  /** @return the breaker for the address, or null if circuit breakers are disabled */
+  public CircuitBreaker get(SocketAddress address) {
+    if (!config.enabled()) {
+      return null;
+    }
+    return breakers.computeIfAbsent(
+        address, k -> new CircuitBreaker(SocketAddresses.describe(k), config, metricRegistry));
+  }
+}
@@ -1,12 +1,14 @@
 package com.xjeffrose.xio.http;
 
 import io.netty.channel.*;
+import io.netty.handler.codec.http2.Http2Error;
 import io.netty.util.concurrent.Future;
-import java.net.InetSocketAddress;
+import java.net.SocketAddress;
 import java.util.ArrayDeque;
 import java.util.Optional;
 import java.util.Queue;
 import java.util.function.Supplier;
+import javax.annotation.Nullable;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
@@ -32,7 +34,7 @@ public class Client {
         };
   }
 
-  public InetSocketAddress remoteAddress() {
+  public SocketAddress remoteAddress() {
     return state.remote;
   }
 
@@ -137,6 +139,71 @@ public class Client {
     }
   }
 
+  /** @return the circuit breaker guarding the backend, null if there is none */
+  @Nullable
+  CircuitBreaker circuitBreaker() {
+    return state.circuitBreaker;
+  }
+
+  /** @return the channel to the backend, null until the first write */
+  Channel channel() {
+    return manager.currentChannel();
+  }
+
+  /**
+   * Gives up on the response to a request without disturbing the frontend. On an http/2 backend
+   * only the request's stream is reset, an http/1 connection is closed after the backend handler
+   * has been removed so that it doesn't close the frontend along with it.
+   *
+   * @return true if the stream was reset and no response will arrive for it
+   */
+  boolean abandon(int streamId) {
+    Channel channel = manager.currentChannel();
+    return channel != null && abandon(channel, streamId);
+  }
+
+  /** Same as {@link #abandon(int)} for a connection to a backend. */
+  static boolean abandon(Channel backend, int streamId) {
+    if (backend.pipeline().get(Http2ClientHandler.class) != null) {
+      return resetStream(backend, streamId);
+    }
+    if (backend.pipeline().get(ClientChannelInitializer.APP_HANDLER) != null) {
+      backend.pipeline().remove(ClientChannelInitializer.APP_HANDLER);
+    }
+    backend.close();
+    return false;
+  }
+
+  /**
+   * Resets the stream of an http/2 backend that the frontend stream is proxied to.
+   *
+   * @return false if the backend doesn't speak http/2 or the request hasn't been written yet
+   */
+  static boolean resetStream(Channel backend, int streamId) {
+    Http2ClientHandler http2 = backend.pipeline().get(Http2ClientHandler.class);
+    if (http2 == null) {
+      return false;
+    }
+    ChannelHandlerContext ctx = backend.pipeline().context(http2);
+    Http2ClientStreamMapper mapper = Http2ClientStreamMapper.http2ClientStreamMapper(ctx);
+    Integer backendStreamId = mapper.mappedStreamId(streamId);
+    if (backendStreamId == null) {
+      // the request hasn't been written yet, its late response is dropped as it arrives
+      return false;
+    }
+    mapper.inboundStreamId(backendStreamId, true);
+    http2.resetStream(ctx, backendStreamId, Http2Error.CANCEL.code(), ctx.newPromise());
+    ctx.flush();
+    return true;
+  }
+
+  /** Closes the connection to the backend, if there is one. */
+  public void close() {
+    if (manager.currentChannel() != null) {
+      manager.currentChannel().close();
+    }
+  }
+
   private class ClientPayload {
     public final Request request;
     public final ChannelPromise promise;
@@ -155,4 +222,9 @@ public class Client {
   public boolean isReusable() {
     return manager.connectionState() == ClientConnectionState.CONNECTED;
   }
+
+  /** @return true once the connection failed or was closed, the client can't write any more */
+  public boolean isClosed() {
+    return manager.connectionState() == ClientConnectionState.CLOSED_CONNECTION;
+  }
 }
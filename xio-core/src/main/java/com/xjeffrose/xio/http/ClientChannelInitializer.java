@@ -8,6 +8,8 @@ import io.netty.channel.Channel;
 import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelInitializer;
 import io.netty.handler.codec.http.HttpClientCodec;
+import io.netty.handler.ssl.SslHandler;
+import java.net.InetSocketAddress;
 import java.util.function.Supplier;
 import lombok.Setter;
 import lombok.val;
@@ -31,16 +33,22 @@ public class ClientChannelInitializer extends ChannelInitializer {
     return new Http2HandlerBuilder().server(false).build();
   }
 
+  private SslHandler buildSslHandler(Channel channel) {
+    if (state.remote instanceof InetSocketAddress) {
+      InetSocketAddress remote = (InetSocketAddress) state.remote;
+      return state.sslContext.newHandler(channel.alloc(), remote.getHostString(), remote.getPort());
+    }
+    // unix domain sockets have no peer host for sni
+    return state.sslContext.newHandler(channel.alloc());
+  }
+
   @Override
   protected void initChannel(Channel channel) throws Exception {
     if (state.sslContext != null) {
       // This client has SSL configured, this allows us to do several things dynamically
       channel
           .pipeline()
-          .addLast(
-              "ssl handler",
-              state.sslContext.newHandler(
-                  channel.alloc(), state.remote.getHostString(), state.remote.getPort()))
+          .addLast("ssl handler", buildSslHandler(channel))
           // SSL allows us to use ALPN to negotiate for either http1 or http2
           .addLast(
               "negotiation handler",
@@ -49,10 +57,16 @@ public class ClientChannelInitializer extends ChannelInitializer {
           .addLast("codec", CodecPlaceholderHandler.INSTANCE)
           // ALPN will allow us to swap this out for the appropriate xio codec
           .addLast("application codec", ApplicationCodecPlaceholderHandler.INSTANCE);
+    } else if (state.config.h2cPriorKnowledge()) {
+      // The remote is known to speak http2 over cleartext, no negotiation needed
+      channel
+          .pipeline()
+          .addLast("codec", buildHttp2Handler())
+          .addLast("application codec", new Http2ClientCodec());
     } else {
       // This client does not have SSL configured so we can make a few assumptions
       // No need for a negotiation handler as we have no ALPN
-      // No need for an http2 handler as we don't allow that over cleartext
+      // No http2 handler unless the remote is known to speak h2c
       channel
           .pipeline()
           .addLast("codec", new HttpClientCodec())
@@ -70,9 +84,12 @@ public class ClientChannelInitializer extends ChannelInitializer {
           .addLast("idle handler", new XioIdleDisconnectHandler(duration, duration, duration));
     }
 
-    channel.pipeline().addLast("message logging", new XioMessageLogger(Client.class, "objects"));
+    if (state.config.messageLoggerEnabled()) {
+      channel.pipeline().addLast("message logging", new XioMessageLogger(Client.class, "objects"));
+    }
 
-    if (state.sslContext != null) {
+    if (state.sslContext != null || state.config.h2cPriorKnowledge()) {
+      // writes wait for ALPN or the server's h2 settings
       channel.pipeline().addLast("request buffer", new RequestBuffer());
     }
 
@@ -41,6 +41,9 @@ public class ClientConnectionManager {
             connectionState = ClientConnectionState.CONNECTED;
           } else {
             log.debug("Connection failed", f.cause());
+            if (state.circuitBreaker != null) {
+              state.circuitBreaker.onFailure();
+            }
             connectionState = ClientConnectionState.CLOSED_CONNECTION;
             this.currentChannelFuture = null;
           }
@@ -55,7 +58,17 @@ public class ClientConnectionManager {
       bootstrap.channel(state.channelConfig.channel());
       bootstrap.group(state.channelConfig.workerGroup());
       bootstrap.handler(channelInitializer);
+      if (state.config.transport() != null) {
+        state
+            .config
+            .transport()
+            .connectionOptions(state.channelConfig.channel(), true)
+            .forEach(bootstrap::option);
+      }
       ChannelFuture connectFuture = bootstrap.connect(state.remote);
+      if (state.circuitBreaker != null) {
+        connectFuture.channel().attr(CircuitBreaker.CIRCUIT_BREAKER_KEY).set(state.circuitBreaker);
+      }
       currentChannelFuture = connectFuture;
       currentChannelFuture.channel().closeFuture().addListener(releaseListener);
       connectFuture.addListener(connectionListener);
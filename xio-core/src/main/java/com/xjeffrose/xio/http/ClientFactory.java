@@ -4,9 +4,15 @@ import com.xjeffrose.xio.bootstrap.ChannelConfiguration;
 import com.xjeffrose.xio.bootstrap.ClientChannelConfiguration;
 import com.xjeffrose.xio.client.ClientConfig;
 import com.xjeffrose.xio.tracing.XioTracing;
+import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.util.AttributeKey;
+import java.net.SocketAddress;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Supplier;
+import javax.annotation.Nullable;
 import lombok.Getter;
 
 // TODO(CK): only use case is currently for proxy clients, establish more use cases.
@@ -18,6 +24,9 @@ public abstract class ClientFactory {
   private static final AttributeKey<Client> CLIENT_KEY =
       AttributeKey.newInstance("xio_http_client_key");
 
+  private static final AttributeKey<Map<SocketAddress, Client>> ALTERNATE_CLIENTS_KEY =
+      AttributeKey.newInstance("xio_http_alternate_clients_key");
+
   public ClientFactory(XioTracing tracing) {
     this.tracing = tracing;
   }
@@ -26,20 +35,101 @@ public abstract class ClientFactory {
     return ChannelConfiguration.clientConfig(ctx.channel().eventLoop());
   }
 
+  /** @return the channel for clients connecting to the remote of config, tcp or unix socket */
+  public ClientChannelConfiguration channelConfig(ChannelHandlerContext ctx, ClientConfig config) {
+    return ChannelConfiguration.clientConfig(ctx.channel().eventLoop(), config.remote());
+  }
+
   public abstract Client createClient(ChannelHandlerContext ctx, ClientConfig config);
 
+  /** @return the circuit breaker guarding the backend, or null if there is none */
+  @Nullable
+  public CircuitBreaker circuitBreaker(ClientConfig config) {
+    return null;
+  }
+
+  /**
+   * Creates a client on the event loop of ctx that is neither pooled nor bound to the channel.
+   *
+   * @param backendHandler supplies the handler for responses read from the backend
+   */
+  public Client createClient(
+      ChannelHandlerContext ctx, ClientConfig config, Supplier<ChannelHandler> backendHandler) {
+    ClientState clientState =
+        new ClientState(channelConfig(ctx, config), config, circuitBreaker(config));
+    ClientChannelInitializer clientChannelInit =
+        new ClientChannelInitializer(clientState, backendHandler, getTracing());
+    ClientConnectionManager connManager =
+        new ClientConnectionManager(clientState, clientChannelInit);
+    return new Client(clientState, connManager);
+  }
+
+  /** @return a new or pooled client for config, binding it to the channel is up to the caller */
+  protected Client acquireClient(ChannelHandlerContext ctx, ClientConfig config) {
+    return createClient(ctx, config);
+  }
+
+  /**
+   * Acquires a client that is neither bound to the channel nor released with it, a new or pooled
+   * one. Must be handed back with {@link #releaseClient}.
+   *
+   * @param backendHandler supplies the handler for responses read from the backend
+   */
+  public Client acquireClient(
+      ChannelHandlerContext ctx, ClientConfig config, Supplier<ChannelHandler> backendHandler) {
+    return createClient(ctx, config, backendHandler);
+  }
+
+  /** Hands back a client acquired with {@link #acquireClient}. */
+  public void releaseClient(Client client) {
+    client.close();
+  }
+
   protected Optional<Client> getHandlerClient(ChannelHandlerContext ctx) {
     return Optional.ofNullable(ctx.channel().attr(CLIENT_KEY).get());
   }
 
+  private static boolean connectsTo(Client client, ClientConfig config) {
+    return client.remoteAddress().equals(config.remote());
+  }
+
+  /**
+   * Returns the client bound to the channel, binding one for config if there is none yet or the
+   * bound one was closed. A channel stays bound to its backend, requests to other backends get an
+   * alternate client.
+   */
   public Client getClient(ChannelHandlerContext ctx, ClientConfig config) {
-    return getHandlerClient(ctx)
-        .orElseGet(
-            () -> {
-              Client client = createClient(ctx, config);
-              updateChannelAttr(ctx, client);
-              return client;
-            });
+    Optional<Client> bound = getHandlerClient(ctx);
+    if (!bound.isPresent() || bound.get().isClosed()) {
+      Client client = acquireClient(ctx, config);
+      updateChannelAttr(ctx, client);
+      return client;
+    }
+    return connectsTo(bound.get(), config) ? bound.get() : getAlternateClient(ctx, config);
+  }
+
+  /**
+   * Returns the client for requests the channel sends to a backend other than the one bound to it,
+   * e.g. a fallback while the circuit breaker of the bound backend is open. The client is kept for
+   * later requests to the same backend but never replaces the client bound to the channel.
+   */
+  public Client getAlternateClient(ChannelHandlerContext ctx, ClientConfig config) {
+    Optional<Client> bound =
+        getHandlerClient(ctx).filter(client -> connectsTo(client, config) && !client.isClosed());
+    if (bound.isPresent()) {
+      return bound.get();
+    }
+    Map<SocketAddress, Client> clients = ctx.channel().attr(ALTERNATE_CLIENTS_KEY).get();
+    if (clients == null) {
+      clients = new HashMap<>();
+      ctx.channel().attr(ALTERNATE_CLIENTS_KEY).set(clients);
+    }
+    Client client = clients.get(config.remote());
+    if (client == null || client.isClosed()) {
+      client = acquireClient(ctx, config);
+      clients.put(config.remote(), client);
+    }
+    return client;
   }
 
   public void updateChannelAttr(ChannelHandlerContext ctx, Client client) {
@@ -1,10 +1,14 @@
 package com.xjeffrose.xio.http;
 
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
 import com.google.common.annotations.VisibleForTesting;
 import com.xjeffrose.xio.client.ClientConfig;
+import com.xjeffrose.xio.core.SocketAddresses;
+import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.util.internal.PlatformDependent;
-import java.net.InetSocketAddress;
+import java.net.SocketAddress;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -16,15 +20,54 @@ import lombok.extern.slf4j.Slf4j;
 public class ClientPool {
 
   private final int maxSizePerAddress;
-  private final ConcurrentMap<InetSocketAddress, ConcurrentMap<Client, Meta>> clientPool;
+  private final ConcurrentMap<SocketAddress, ConcurrentMap<Client, Meta>> clientPool;
+  private final MetricRegistry metricRegistry;
 
-  public ClientPool(int maxSizePerAddress) {
+  public ClientPool(int maxSizePerAddress, MetricRegistry metricRegistry) {
     this.maxSizePerAddress = maxSizePerAddress;
     this.clientPool = PlatformDependent.newConcurrentHashMap();
+    this.metricRegistry = metricRegistry;
+  }
+
+  public ClientPool(int maxSizePerAddress) {
+    this(maxSizePerAddress, null);
   }
 
-  private ConcurrentMap<Client, Meta> getPool(InetSocketAddress address) {
-    return clientPool.computeIfAbsent(address, k -> PlatformDependent.newConcurrentHashMap());
+  private ConcurrentMap<Client, Meta> getPool(SocketAddress address) {
+    return clientPool.computeIfAbsent(
+        address,
+        k -> {
+          registerGauges(k);
+          return PlatformDependent.newConcurrentHashMap();
+        });
+  }
+
+  /**
+   * Exports the size and number of available clients for the given address. Gauges are looked up by
+   * name so the pool state for an address is only exported once per registry.
+   */
+  private void registerGauges(SocketAddress address) {
+    if (metricRegistry == null) {
+      return;
+    }
+    String prefix = MetricRegistry.name("clientPool", SocketAddresses.describe(address));
+    metricRegistry.gauge(
+        MetricRegistry.name(prefix, "size"),
+        () -> (Gauge<Integer>) () -> sizeOf(clientPool.get(address)));
+    metricRegistry.gauge(
+        MetricRegistry.name(prefix, "available"),
+        () -> (Gauge<Long>) () -> countAvailable(clientPool.get(address)));
+  }
+
+  private static int sizeOf(ConcurrentMap<Client, Meta> pool) {
+    return pool == null ? 0 : pool.size();
+  }
+
+  private static long countAvailable(ConcurrentMap<Client, Meta> pool) {
+    if (pool == null) {
+      return 0;
+    }
+    return pool.values().stream().filter(meta -> meta.available.get()).count();
   }
 
   public void release(Client client) {
@@ -57,25 +100,35 @@ public class ClientPool {
 
   public Client acquire(
       ChannelHandlerContext ctx, ClientConfig config, Supplier<Client> clientSupplier) {
+    return acquire(config, () -> new ProxyBackendHandler(ctx), clientSupplier);
+  }
+
+  /** @param backendHandler supplies the handler for responses read by a reused client */
+  public Client acquire(
+      ClientConfig config,
+      Supplier<ChannelHandler> backendHandler,
+      Supplier<Client> clientSupplier) {
     return getPool(config.remote())
         .values()
         .stream()
-        .filter(meta -> checkClientMetaState(ctx, config, meta))
+        .filter(meta -> checkClientMetaState(config, meta, backendHandler))
         .findFirst()
         .map(mta -> mta.client)
         .orElseGet(clientSupplier);
   }
 
-  private boolean checkClientMetaState(ChannelHandlerContext ctx, ClientConfig config, Meta meta) {
+  private boolean checkClientMetaState(
+      ClientConfig config, Meta meta, Supplier<ChannelHandler> backendHandler) {
     boolean available = meta.available.getAndSet(false);
     if (available && meta.client.isReusable()) {
       int count = meta.usageCount.incrementAndGet();
       log.debug("reusing client in pool with usage count {}", count);
-      meta.client.prepareForReuse(() -> new ProxyBackendHandler(ctx));
+      meta.client.prepareForReuse(backendHandler);
       return true;
     } else {
       if (!meta.client.isReusable()) {
-        clientPool.remove(config.remote());
+        // only the closed client is dropped, the others to the address may still be in use
+        getPool(config.remote()).remove(meta.client, meta);
       }
       return false;
     }
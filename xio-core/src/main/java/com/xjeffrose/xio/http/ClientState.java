@@ -6,17 +6,20 @@ import com.xjeffrose.xio.bootstrap.ClientChannelConfiguration;
 import com.xjeffrose.xio.client.ClientConfig;
 import io.netty.channel.EventLoopGroup;
 import io.netty.handler.ssl.SslContext;
-import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import javax.annotation.Nullable;
 
 // TODO(CK): This needs to replace the ClientState in client
 public class ClientState {
 
   public final ClientChannelConfiguration channelConfig;
   public final ClientConfig config;
-  public final InetSocketAddress remote;
+  public final SocketAddress remote;
   public final SslContext sslContext;
   public final boolean idleTimeoutEnabled;
   public final int idleTimeoutDuration;
+  // null unless circuit breakers are enabled
+  @Nullable public final CircuitBreaker circuitBreaker;
 
   private static SslContext sslContext(boolean enableTls, ClientConfig clientConfig) {
     if (enableTls) {
@@ -29,12 +32,14 @@ public class ClientState {
   public ClientState(
       ClientChannelConfiguration channelConfig,
       ClientConfig config,
-      InetSocketAddress remote,
-      SslContext sslContext) {
+      SocketAddress remote,
+      SslContext sslContext,
+      @Nullable CircuitBreaker circuitBreaker) {
     this.channelConfig = channelConfig;
     this.config = config;
     this.remote = remote;
     this.sslContext = sslContext;
+    this.circuitBreaker = circuitBreaker;
     idleTimeoutEnabled = config.getIdleTimeoutConfig().enabled;
     idleTimeoutDuration = config.getIdleTimeoutConfig().duration;
   }
@@ -42,16 +47,36 @@ public class ClientState {
   public ClientState(
       ClientChannelConfiguration channelConfig,
       ClientConfig config,
-      InetSocketAddress remote,
+      SocketAddress remote,
+      SslContext sslContext) {
+    this(channelConfig, config, remote, sslContext, null);
+  }
+
+  public ClientState(
+      ClientChannelConfiguration channelConfig,
+      ClientConfig config,
+      SocketAddress remote,
       boolean enableTls) {
     this(channelConfig, config, remote, sslContext(enableTls, config));
   }
 
+  public ClientState(
+      ClientChannelConfiguration channelConfig,
+      ClientConfig config,
+      @Nullable CircuitBreaker circuitBreaker) {
+    this(
+        channelConfig,
+        config,
+        config.remote(),
+        sslContext(config.isTlsEnabled(), config),
+        circuitBreaker);
+  }
+
   public ClientState(ClientChannelConfiguration channelConfig, ClientConfig config) {
-    this(channelConfig, config, config.remote(), sslContext(config.isTlsEnabled(), config));
+    this(channelConfig, config, null);
   }
 
   public ClientState(ClientConfig config, EventLoopGroup workerGroup) {
-    this(ChannelConfiguration.clientConfig(workerGroup), config);
+    this(ChannelConfiguration.clientConfig(workerGroup, config.remote()), config);
   }
 }
@@ -0,0 +1,144 @@
+package com.xjeffrose.xio.http;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.util.AsciiString;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps gzip variants of cacheable responses so that hot responses are compressed once and served
+ * many times by {@link ResponseCompressor}. A variant is keyed by the host, path and strong ETag of
+ * the identity response, any change to the representation changes its ETag and thereby the key.
+ *
+ * <p>The first time an identity response is seen its body is copied and compressed at a high level
+ * on a background thread, responses are compressed inline until the variant is ready. Variants are
+ * weighed by their size against maxBytes and the least recently used are evicted first. They are
+ * stored as arrays and wrapped for every response, so eviction never races an in flight write.
+ */
+@Slf4j
+public class CompressedVariantCache {
+
+  private static final int MAX_QUEUED = 64;
+
+  private final Cache<String, byte[]> variants;
+  private final Set<String> pending = ConcurrentHashMap.newKeySet();
+  private final ThreadPoolExecutor executor;
+  private final int level;
+  private final int maxEntrySize;
+
+  public CompressedVariantCache(CompressionConfig.Variants config) {
+    level = config.level();
+    maxEntrySize = config.maxEntrySize();
+    variants =
+        CacheBuilder.newBuilder()
+            .maximumWeight(config.maxBytes())
+            .weigher((String key, byte[] value) -> key.length() + value.length)
+            .build();
+    executor =
+        new ThreadPoolExecutor(
+            1,
+            1,
+            60,
+            TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(MAX_QUEUED),
+            new ThreadFactoryBuilder()
+                .setNameFormat("xio-variant-compressor-%d")
+                .setDaemon(true)
+                .build());
+    executor.allowCoreThreadTimeOut(true);
+  }
+
+  /**
+   * @return true if the response may be stored, it must have a strong ETag and must neither be
+   *     private, no-store nor set cookies
+   */
+  static boolean isCacheable(Headers headers) {
+    CharSequence etag = headers.get(HttpHeaderNames.ETAG);
+    if (etag == null || AsciiString.regionMatches(etag, false, 0, "W/", 0, 2)) {
+      return false;
+    }
+    if (headers.contains(HttpHeaderNames.SET_COOKIE)) {
+      return false;
+    }
+    for (CharSequence cacheControl : headers.getAll(HttpHeaderNames.CACHE_CONTROL)) {
+      if (AsciiString.containsIgnoreCase(cacheControl, HttpHeaderValues.NO_STORE)
+          || AsciiString.containsIgnoreCase(cacheControl, HttpHeaderValues.PRIVATE)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  static String key(String resource, Headers headers) {
+    return resource + '\n' + headers.get(HttpHeaderNames.ETAG);
+  }
+
+  /** @return the gzip variant stored for key, or null if there is none yet */
+  byte[] get(String key) {
+    return variants.getIfPresent(key);
+  }
+
+  /**
+   * Compresses a copy of the identity body in the background unless a variant is already stored or
+   * pending for key. Called on the event loop, identity is not released.
+   */
+  void offer(String key, ByteBuf identity) {
+    if (identity.readableBytes() > maxEntrySize
+        || variants.getIfPresent(key) != null
+        || !pending.add(key)) {
+      return;
+    }
+    byte[] body = ByteBufUtil.getBytes(identity);
+    try {
+      executor.execute(
+          () -> {
+            try {
+              variants.put(key, compress(body, level));
+            } catch (IOException | RuntimeException e) {
+              log.error("Couldn't compress variant of {}", key, e);
+            } finally {
+              pending.remove(key);
+            }
+          });
+    } catch (RejectedExecutionException e) {
+      // the compressor is backed up, a later response will offer the body again
+      pending.remove(key);
+    }
+  }
+
+  @VisibleForTesting
+  void awaitPending() throws InterruptedException {
+    while (!pending.isEmpty()) {
+      Thread.sleep(1);
+    }
+  }
+
+  @VisibleForTesting
+  static byte[] compress(byte[] body, int level) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4 + 64);
+    try (GZIPOutputStream gzip =
+        new GZIPOutputStream(out) {
+          {
+            def.setLevel(level);
+          }
+        }) {
+      gzip.write(body);
+    }
+    return out.toByteArray();
+  }
+}
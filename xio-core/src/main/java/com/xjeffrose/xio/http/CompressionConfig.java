@@ -0,0 +1,42 @@
+package com.xjeffrose.xio.http;
+
+import com.typesafe.config.Config;
+import java.util.List;
+import lombok.Getter;
+import lombok.experimental.Accessors;
+
+/** Settings for {@link ResponseCompressor}, see serverSettings.compression in reference.conf */
+@Accessors(fluent = true)
+@Getter
+public class CompressionConfig {
+
+  @Accessors(fluent = true)
+  @Getter
+  public static class Variants {
+    private final boolean enabled;
+    private final int level;
+    private final long maxBytes;
+    private final int maxEntrySize;
+
+    public Variants(Config config) {
+      enabled = config.getBoolean("enabled");
+      level = config.getInt("level");
+      maxBytes = config.getBytes("maxBytes");
+      maxEntrySize = (int) config.getBytes("maxEntrySize").longValue();
+    }
+  }
+
+  private final boolean enabled;
+  private final int level;
+  private final int minSize;
+  private final List<String> contentTypes;
+  private final Variants variants;
+
+  public CompressionConfig(Config config) {
+    enabled = config.getBoolean("enabled");
+    level = config.getInt("level");
+    minSize = (int) config.getBytes("minSize").longValue();
+    contentTypes = config.getStringList("contentTypes");
+    variants = new Variants(config.getConfig("variants"));
+  }
+}
@@ -0,0 +1,62 @@
+package com.xjeffrose.xio.http;
+
+import io.netty.util.concurrent.FastThreadLocal;
+import java.util.ArrayDeque;
+import java.util.zip.Deflater;
+
+/**
+ * Keeps released {@link Deflater}s per thread so that responses on an event loop reuse the native
+ * zlib streams instead of allocating (and finalizing) one per response. Deflaters must be released
+ * on the thread that acquired them.
+ */
+class DeflaterPool {
+
+  private static class Deflaters {
+    final ArrayDeque<Deflater> raw = new ArrayDeque<>();
+    final ArrayDeque<Deflater> wrapped = new ArrayDeque<>();
+
+    ArrayDeque<Deflater> get(boolean nowrap) {
+      return nowrap ? raw : wrapped;
+    }
+  }
+
+  private final FastThreadLocal<Deflaters> deflaters =
+      new FastThreadLocal<Deflaters>() {
+        @Override
+        protected Deflaters initialValue() {
+          return new Deflaters();
+        }
+
+        @Override
+        protected void onRemoval(Deflaters value) {
+          value.raw.forEach(Deflater::end);
+          value.wrapped.forEach(Deflater::end);
+        }
+      };
+
+  private final int maxPooled;
+
+  DeflaterPool(int maxPooled) {
+    this.maxPooled = maxPooled;
+  }
+
+  /** @param nowrap true for raw deflate data without the zlib header and checksum */
+  Deflater acquire(int level, boolean nowrap) {
+    Deflater deflater = deflaters.get().get(nowrap).pollFirst();
+    if (deflater == null) {
+      return new Deflater(level, nowrap);
+    }
+    deflater.setLevel(level);
+    return deflater;
+  }
+
+  void release(Deflater deflater, boolean nowrap) {
+    ArrayDeque<Deflater> pool = deflaters.get().get(nowrap);
+    if (pool.size() < maxPooled) {
+      deflater.reset();
+      pool.addFirst(deflater);
+    } else {
+      deflater.end();
+    }
+  }
+}
@@ -4,26 +4,51 @@ import com.google.protobuf.InvalidProtocolBufferException;
 import io.grpc.Status;
 import io.grpc.StatusException;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.ByteBufOutputStream;
+import io.netty.buffer.CompositeByteBuf;
 import io.netty.buffer.Unpooled;
-import io.netty.buffer.UnpooledByteBufAllocator;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.http.*;
+import io.netty.handler.codec.http2.Http2Error;
 import io.netty.util.AttributeKey;
-import java.nio.ByteBuffer;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.collection.IntObjectHashMap;
+import io.netty.util.collection.IntObjectMap;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 // Documentation for gRPC over HTTP2: https://github.com/grpc/grpc/blob/master/doc/PROTOCOL-HTTP2.md
 
+/**
+ * Serves a gRPC method. Unary calls are handled by a {@link GrpcAppLogic}, streaming calls are
+ * created with {@link #serverStreaming}, {@link #clientStreaming} and {@link #bidiStreaming}.
+ *
+ * <p>Request data is added to a pooled composite buffer per stream without copying and the length
+ * prefixed messages are sliced off as soon as they are complete. Messages flagged as compressed are
+ * accepted if the call uses the gzip grpc-encoding, responses are then gzip compressed as well.
+ *
+ * <p>A call that ends before the client finished sending stays in the session of the channel until
+ * the request ends, so its remaining data is dropped instead of starting a new call. An http/2
+ * stream the client is still sending on is reset, other calls on the connection are not affected.
+ */
 public class GrpcRequestHandler<
         GrpcRequest extends com.google.protobuf.GeneratedMessageV3,
         GrpcResponse extends com.google.protobuf.GeneratedMessageV3>
     implements PipelineRequestHandler {
 
+  public static final int DEFAULT_MAX_MESSAGE_SIZE = 1_000_000;
+
   private static final int METADATA_SIZE = 5;
-  private static final int MAX_PAYLOAD_SIZE = 1_000_000;
   private static final String GRPC_TRAILING_HEADER_STATUS_KEY = "grpc-status";
   private static final String GRPC_TRAILING_HEADER_MESSAGE_KEY = "grpc-message";
+  private static final String GRPC_ENCODING_KEY = "grpc-encoding";
+  private static final String GRPC_ENCODING_GZIP = "gzip";
   private static final String GRPC_CONTENT_TYPE_VALUE = "application/grpc+proto";
   private static final String GRPC_MESSAGE_NO_COMPRESSION = "compression not supported";
   private static final String GRPC_MESSAGE_LARGE_SIZE = "payload is too large";
@@ -32,43 +57,158 @@ public class GrpcRequestHandler<
       "indicated payload size does not match actual payload size";
   private static final String GRPC_MESSAGE_CANNOT_MAKE_RESPONSE =
       "unable to create response object";
+  private static final String GRPC_MESSAGE_CANNOT_DECOMPRESS = "unable to decompress message";
 
-  private static class GrpcState {
-    int size;
-    ByteBuf buffer;
-
-    GrpcState(int size, ByteBuf buffer) {
-      this.size = size;
-      this.buffer = buffer;
-    }
-  }
+  private static final AttributeKey<IntObjectMap<GrpcRequestHandler<?, ?>.GrpcCall>>
+      CHANNEL_MESSAGE_SESSION_KEY = AttributeKey.newInstance("xio_grpc_session");
 
-  private static final AttributeKey<HashMap<Integer, GrpcState>> CHANNEL_MESSAGE_SESSION_KEY =
-      AttributeKey.newInstance("xio_grpc_session");
-
-  private static HashMap<Integer, GrpcState> lazyCreateSession(ChannelHandlerContext ctx) {
-    HashMap<Integer, GrpcState> session = ctx.channel().attr(CHANNEL_MESSAGE_SESSION_KEY).get();
+  private static IntObjectMap<GrpcRequestHandler<?, ?>.GrpcCall> lazyCreateSession(
+      ChannelHandlerContext ctx) {
+    IntObjectMap<GrpcRequestHandler<?, ?>.GrpcCall> session =
+        ctx.channel().attr(CHANNEL_MESSAGE_SESSION_KEY).get();
     if (session == null) {
-      session = new HashMap<>();
-      ctx.channel().attr(CHANNEL_MESSAGE_SESSION_KEY).set(session);
+      IntObjectMap<GrpcRequestHandler<?, ?>.GrpcCall> created = new IntObjectHashMap<>();
+      ctx.channel().attr(CHANNEL_MESSAGE_SESSION_KEY).set(created);
+      ctx.channel()
+          .closeFuture()
+          .addListener(
+              f -> {
+                for (GrpcRequestHandler<?, ?>.GrpcCall call : new ArrayList<>(created.values())) {
+                  call.cancel();
+                }
+              });
+      session = created;
     }
     return session;
   }
 
   private final GrpcRequestParser<GrpcRequest> requestParser;
   private final GrpcAppLogic<GrpcRequest, GrpcResponse> appLogic;
+  private final GrpcStreamingAppLogic<GrpcRequest, GrpcResponse> streamingAppLogic;
+  private final boolean singleRequest;
+  private final boolean singleResponse;
+  private final int maxMessageSize;
 
-  public GrpcRequestHandler(
+  private GrpcRequestHandler(
       GrpcRequestParser<GrpcRequest> requestParser,
-      GrpcAppLogic<GrpcRequest, GrpcResponse> appLogic) {
+      GrpcAppLogic<GrpcRequest, GrpcResponse> appLogic,
+      GrpcStreamingAppLogic<GrpcRequest, GrpcResponse> streamingAppLogic,
+      boolean singleRequest,
+      boolean singleResponse,
+      int maxMessageSize) {
     this.requestParser = requestParser;
     this.appLogic = appLogic;
+    this.streamingAppLogic = streamingAppLogic;
+    this.singleRequest = singleRequest;
+    this.singleResponse = singleResponse;
+    this.maxMessageSize = maxMessageSize;
+  }
+
+  public GrpcRequestHandler(
+      GrpcRequestParser<GrpcRequest> requestParser,
+      GrpcAppLogic<GrpcRequest, GrpcResponse> appLogic,
+      int maxMessageSize) {
+    this(requestParser, appLogic, unaryLogic(appLogic), true, true, maxMessageSize);
+  }
+
+  public GrpcRequestHandler(
+      GrpcRequestParser<GrpcRequest> requestParser,
+      GrpcAppLogic<GrpcRequest, GrpcResponse> appLogic) {
+    this(requestParser, appLogic, DEFAULT_MAX_MESSAGE_SIZE);
+  }
+
+  /** Creates a handler for a call with a single request and a stream of responses. */
+  public static <
+          Req extends com.google.protobuf.GeneratedMessageV3,
+          Resp extends com.google.protobuf.GeneratedMessageV3>
+      GrpcRequestHandler<Req, Resp> serverStreaming(
+          GrpcRequestParser<Req> requestParser,
+          GrpcServerStreamingAppLogic<Req, Resp> appLogic,
+          int maxMessageSize) {
+    return new GrpcRequestHandler<>(
+        requestParser, null, serverStreamingLogic(appLogic), true, false, maxMessageSize);
+  }
+
+  /** Creates a handler for a call with a stream of requests and a single response. */
+  public static <
+          Req extends com.google.protobuf.GeneratedMessageV3,
+          Resp extends com.google.protobuf.GeneratedMessageV3>
+      GrpcRequestHandler<Req, Resp> clientStreaming(
+          GrpcRequestParser<Req> requestParser,
+          GrpcStreamingAppLogic<Req, Resp> appLogic,
+          int maxMessageSize) {
+    return new GrpcRequestHandler<>(requestParser, null, appLogic, false, true, maxMessageSize);
+  }
+
+  /** Creates a handler for a call with a stream of requests and a stream of responses. */
+  public static <
+          Req extends com.google.protobuf.GeneratedMessageV3,
+          Resp extends com.google.protobuf.GeneratedMessageV3>
+      GrpcRequestHandler<Req, Resp> bidiStreaming(
+          GrpcRequestParser<Req> requestParser,
+          GrpcStreamingAppLogic<Req, Resp> appLogic,
+          int maxMessageSize) {
+    return new GrpcRequestHandler<>(requestParser, null, appLogic, false, false, maxMessageSize);
   }
 
+  /** @return the app logic of a unary call, null for streaming calls */
   public GrpcAppLogic<GrpcRequest, GrpcResponse> getAppLogic() {
     return appLogic;
   }
 
+  /** Waits for the single request of the call, then hands it to the app logic. */
+  private abstract static class SingleRequestObserver<T> implements GrpcStreamObserver<T> {
+    T request;
+
+    @Override
+    public void onNext(T value) {
+      request = value;
+    }
+
+    @Override
+    public void onError(Status status) {}
+  }
+
+  private static <Req, Resp> GrpcStreamingAppLogic<Req, Resp> unaryLogic(
+      GrpcAppLogic<Req, Resp> appLogic) {
+    return responses ->
+        new SingleRequestObserver<Req>() {
+          @Override
+          public void onCompleted() {
+            Resp response;
+            try {
+              response = appLogic.apply(request);
+            } catch (StatusException e) {
+              responses.onError(e.getStatus());
+              return;
+            }
+            responses.onNext(response);
+            responses.onCompleted();
+          }
+        };
+  }
+
+  private static <Req, Resp> GrpcStreamingAppLogic<Req, Resp> serverStreamingLogic(
+      GrpcServerStreamingAppLogic<Req, Resp> appLogic) {
+    return responses ->
+        new SingleRequestObserver<Req>() {
+          @Override
+          public void onCompleted() {
+            appLogic.apply(request, responses);
+          }
+        };
+  }
+
+  /** Called when the client reset the stream, cancels the call on it. */
+  static void reset(ChannelHandlerContext ctx, int streamId) {
+    IntObjectMap<GrpcRequestHandler<?, ?>.GrpcCall> session =
+        ctx.channel().attr(CHANNEL_MESSAGE_SESSION_KEY).get();
+    GrpcRequestHandler<?, ?>.GrpcCall call = session == null ? null : session.get(streamId);
+    if (call != null) {
+      call.cancel();
+    }
+  }
+
   @Override
   public void handle(ChannelHandlerContext ctx, Request request, RouteState route) {
     ByteBuf actualBuffer;
@@ -79,175 +219,352 @@ public class GrpcRequestHandler<
       actualBuffer = request.body();
     }
 
-    if (actualBuffer == null || !actualBuffer.isReadable()) {
-      return;
-    }
-
-    HashMap<Integer, GrpcState> session = lazyCreateSession(ctx);
-    GrpcState state = session.get(request.streamId());
+    boolean hasData = actualBuffer != null && actualBuffer.isReadable();
+    IntObjectMap<GrpcRequestHandler<?, ?>.GrpcCall> session = lazyCreateSession(ctx);
+    @SuppressWarnings("unchecked")
+    GrpcCall call = (GrpcCall) session.get(request.streamId());
 
-    if (state == null) {
-      boolean hasMetaData = actualBuffer.isReadable(METADATA_SIZE);
-      if (!hasMetaData) {
-        sendResponse(
-            ctx,
-            request.streamId(),
-            Unpooled.EMPTY_BUFFER,
-            Status.INTERNAL.withDescription(GRPC_MESSAGE_NO_METADATA));
+    if (call == null) {
+      if (!hasData && !request.endOfMessage()) {
+        // wait for the first message before starting the call
         return;
       }
+      call = new GrpcCall(ctx, request);
+      session.put(request.streamId(), call);
+    }
 
-      boolean isCompressed = actualBuffer.slice(0, 1).readBoolean();
-      if (isCompressed) {
-        sendResponse(
-            ctx,
-            request.streamId(),
-            Unpooled.EMPTY_BUFFER,
-            Status.UNIMPLEMENTED.withDescription(GRPC_MESSAGE_NO_COMPRESSION));
-        return;
-      }
+    call.onData(hasData ? actualBuffer : null, request.endOfMessage());
+  }
+
+  private static String grpcEncodedString(String input) {
+    StringBuilder output = new StringBuilder();
+    byte[] bytes;
+
+    bytes = input.getBytes(StandardCharsets.UTF_8);
+
+    for (byte b : bytes) {
+      output.append(String.format("%%%02x", b));
+    }
+    return output.toString();
+  }
+
+  /** State of a single call, only accessed from the event loop of the channel. */
+  private class GrpcCall implements GrpcStreamObserver<GrpcResponse> {
+    private final ChannelHandlerContext ctx;
+    private final int streamId;
+    private final boolean gzip;
+    private final CompositeByteBuf buffer;
+    private final GrpcStreamObserver<GrpcRequest> requests;
+    // size of the message being read, or -1 while waiting for the message metadata
+    private int messageSize = -1;
+    private boolean compressed;
+    private int requestCount;
+    private boolean headersSent;
+    private boolean finished;
+    // true once the last request message was read or the stream was reset
+    private boolean requestEnded;
+    private GrpcResponse pendingResponse;
+
+    GrpcCall(ChannelHandlerContext ctx, Request request) {
+      this.ctx = ctx;
+      this.streamId = request.streamId();
+      this.gzip = GRPC_ENCODING_GZIP.equals(request.headers().get(GRPC_ENCODING_KEY));
+      this.buffer = ctx.alloc().compositeBuffer();
+      this.requests = streamingAppLogic.apply(this);
+    }
 
-      int size = actualBuffer.slice(1, 4).readInt();
-      if (size >= MAX_PAYLOAD_SIZE) {
-        sendResponse(
-            ctx,
-            request.streamId(),
-            Unpooled.EMPTY_BUFFER,
-            Status.RESOURCE_EXHAUSTED.withDescription(GRPC_MESSAGE_LARGE_SIZE));
+    void onData(ByteBuf data, boolean endOfStream) {
+      if (endOfStream) {
+        requestEnded = true;
+      }
+      if (finished) {
+        // the call already ended, drop the rest of the request
+        if (requestEnded) {
+          removeFromSession();
+        }
         return;
       }
+      if (data != null) {
+        buffer.addComponent(true, data.retainedSlice());
+      }
 
-      int packetContentSize = actualBuffer.readableBytes() - METADATA_SIZE;
+      while (!finished) {
+        if (singleRequest && requestCount > 0 && buffer.isReadable()) {
+          fail(Status.INTERNAL.withDescription(GRPC_MESSAGE_WRONG_SIZE));
+          return;
+        }
+        if (messageSize < 0) {
+          if (!buffer.isReadable(METADATA_SIZE)) {
+            break;
+          }
+          compressed = buffer.readBoolean();
+          messageSize = buffer.readInt();
+          if (compressed && !gzip) {
+            fail(Status.UNIMPLEMENTED.withDescription(GRPC_MESSAGE_NO_COMPRESSION));
+            return;
+          }
+          if (messageSize < 0 || messageSize > maxMessageSize) {
+            fail(Status.RESOURCE_EXHAUSTED.withDescription(GRPC_MESSAGE_LARGE_SIZE));
+            return;
+          }
+        }
+        if (!buffer.isReadable(messageSize)) {
+          break;
+        }
+        ByteBuf message = buffer.readRetainedSlice(messageSize);
+        messageSize = -1;
+        buffer.discardReadComponents();
+        try {
+          onMessage(message);
+        } finally {
+          message.release();
+        }
+      }
 
-      boolean firstChunkIsLargerThanIndicatedSize = packetContentSize > size;
-      if (firstChunkIsLargerThanIndicatedSize) {
-        sendResponse(
-            ctx,
-            request.streamId(),
-            Unpooled.EMPTY_BUFFER,
-            Status.INTERNAL.withDescription(GRPC_MESSAGE_WRONG_SIZE));
+      if (!endOfStream || finished) {
         return;
       }
+      if (messageSize >= 0) {
+        fail(Status.INTERNAL.withDescription(GRPC_MESSAGE_WRONG_SIZE));
+      } else if (buffer.isReadable() || (singleRequest && requestCount == 0)) {
+        fail(Status.INTERNAL.withDescription(GRPC_MESSAGE_NO_METADATA));
+      } else {
+        requests.onCompleted();
+      }
+    }
 
-      ByteBuf contentBuffer = UnpooledByteBufAllocator.DEFAULT.buffer(packetContentSize, size);
-      contentBuffer.writeBytes(actualBuffer.slice(METADATA_SIZE, packetContentSize));
+    private void onMessage(ByteBuf message) {
+      requestCount++;
+      ByteBuf decoded = message;
+      if (compressed) {
+        try {
+          decoded = gunzip(message);
+        } catch (IOException e) {
+          fail(Status.INTERNAL.withDescription(GRPC_MESSAGE_CANNOT_DECOMPRESS));
+          return;
+        }
+        if (decoded == null) {
+          fail(Status.RESOURCE_EXHAUSTED.withDescription(GRPC_MESSAGE_LARGE_SIZE));
+          return;
+        }
+      }
 
-      state = new GrpcState(size, contentBuffer);
-    } else {
-      boolean accumulatedIsLargerThanIndicatedSize =
-          state.buffer.readableBytes() + actualBuffer.readableBytes() > state.size;
-      if (accumulatedIsLargerThanIndicatedSize) {
-        sendResponse(
-            ctx,
-            request.streamId(),
-            Unpooled.EMPTY_BUFFER,
-            Status.INTERNAL.withDescription(GRPC_MESSAGE_WRONG_SIZE));
+      GrpcRequest grpcRequest;
+      try {
+        grpcRequest = requestParser.parse(decoded.nioBuffer());
+      } catch (InvalidProtocolBufferException e) {
+        fail(Status.INTERNAL.withDescription(GRPC_MESSAGE_CANNOT_MAKE_RESPONSE));
         return;
+      } finally {
+        if (decoded != message) {
+          decoded.release();
+        }
       }
-
-      state.buffer.writeBytes(actualBuffer);
+      requests.onNext(grpcRequest);
     }
 
-    if (request.endOfMessage()) {
-      handleGrpcRequest(ctx, state, request.streamId());
-    } else {
-      session.put(request.streamId(), state);
+    /** @return the decompressed message, or null if it is larger than the max message size */
+    private ByteBuf gunzip(ByteBuf message) throws IOException {
+      ByteBuf result = ctx.alloc().buffer();
+      try (InputStream in = new GZIPInputStream(new ByteBufInputStream(message))) {
+        while (result.writeBytes(in, 8192) >= 0) {
+          if (result.readableBytes() > maxMessageSize) {
+            result.release();
+            return null;
+          }
+        }
+      } catch (IOException e) {
+        result.release();
+        throw e;
+      }
+      return result;
     }
-  }
 
-  private void handleGrpcRequest(ChannelHandlerContext ctx, GrpcState state, int streamId) {
-    if (state.size != state.buffer.readableBytes()) {
-      sendResponse(
-          ctx,
-          streamId,
-          Unpooled.EMPTY_BUFFER,
-          Status.INTERNAL.withDescription(GRPC_MESSAGE_WRONG_SIZE));
-      return;
-    }
-
-    try {
-      ByteBuf grpcResponseBuffer = makeResponseBuffer(state.buffer.nioBuffer());
-      sendResponse(ctx, streamId, grpcResponseBuffer, Status.OK);
-    } catch (InvalidProtocolBufferException e) {
-      sendResponse(
-          ctx,
-          streamId,
-          Unpooled.EMPTY_BUFFER,
-          Status.INTERNAL.withDescription(GRPC_MESSAGE_CANNOT_MAKE_RESPONSE));
-    } catch (StatusException e) {
-      sendResponse(ctx, streamId, Unpooled.EMPTY_BUFFER, e.getStatus());
+    private ByteBuf frame(GrpcResponse response) throws IOException {
+      int size = response.getSerializedSize();
+      if (!gzip) {
+        ByteBuf result = ctx.alloc().buffer(METADATA_SIZE + size);
+        result.writeByte(0);
+        result.writeInt(size);
+        response.writeTo(new ByteBufOutputStream(result));
+        return result;
+      }
+      ByteBuf result = ctx.alloc().buffer();
+      result.writeByte(1);
+      result.writeInt(0);
+      try (OutputStream out = new GZIPOutputStream(new ByteBufOutputStream(result))) {
+        response.writeTo(out);
+      } catch (IOException e) {
+        result.release();
+        throw e;
+      }
+      result.setInt(1, result.readableBytes() - METADATA_SIZE);
+      return result;
     }
-  }
 
-  private void sendResponse(
-      ChannelHandlerContext ctx, int streamId, ByteBuf grpcResponseBuffer, Status status) {
-    Headers headers =
-        new DefaultHeaders().set(HttpHeaderNames.CONTENT_TYPE, GRPC_CONTENT_TYPE_VALUE);
-    DefaultSegmentedResponse segmentedResponse =
-        DefaultSegmentedResponse.builder()
-            .streamId(streamId)
-            .status(HttpResponseStatus.OK)
-            .headers(headers)
-            .build();
-
-    ctx.writeAndFlush(segmentedResponse);
-
-    Headers trailingHeaders =
-        new DefaultHeaders()
-            .set(GRPC_TRAILING_HEADER_STATUS_KEY, Integer.toString(status.getCode().value()));
+    private void sendHeaders() {
+      if (headersSent) {
+        return;
+      }
+      headersSent = true;
+      Headers headers =
+          new DefaultHeaders().set(HttpHeaderNames.CONTENT_TYPE, GRPC_CONTENT_TYPE_VALUE);
+      if (gzip) {
+        headers.set(GRPC_ENCODING_KEY, GRPC_ENCODING_GZIP);
+      }
+      DefaultSegmentedResponse segmentedResponse =
+          DefaultSegmentedResponse.builder()
+              .streamId(streamId)
+              .status(HttpResponseStatus.OK)
+              .headers(headers)
+              .build();
+
+      ctx.writeAndFlush(segmentedResponse);
+    }
 
-    if (status.getDescription() != null) {
-      trailingHeaders.add(
-          GRPC_TRAILING_HEADER_MESSAGE_KEY, grpcEncodedString(status.getDescription()));
+    private void sendMessage(GrpcResponse response) {
+      ByteBuf content;
+      try {
+        content = frame(response);
+      } catch (IOException e) {
+        fail(Status.INTERNAL.withDescription(GRPC_MESSAGE_CANNOT_MAKE_RESPONSE));
+        return;
+      }
+      sendHeaders();
+      DefaultSegmentedData data =
+          DefaultSegmentedData.builder()
+              .streamId(streamId)
+              .content(content)
+              .endOfMessage(false)
+              .build();
+
+      ctx.writeAndFlush(data);
     }
 
-    DefaultSegmentedData data =
-        DefaultSegmentedData.builder()
-            .streamId(streamId)
-            .content(grpcResponseBuffer)
-            .trailingHeaders(trailingHeaders)
-            .endOfMessage(true)
-            .build();
+    private void sendTrailers(ByteBuf content, Status status) {
+      sendHeaders();
+
+      Headers trailingHeaders =
+          new DefaultHeaders()
+              .set(GRPC_TRAILING_HEADER_STATUS_KEY, Integer.toString(status.getCode().value()));
 
-    ctx.writeAndFlush(data);
+      if (status.getDescription() != null) {
+        trailingHeaders.add(
+            GRPC_TRAILING_HEADER_MESSAGE_KEY, grpcEncodedString(status.getDescription()));
+      }
 
-    HashMap<Integer, GrpcState> session = lazyCreateSession(ctx);
-    session.remove(streamId);
+      DefaultSegmentedData data =
+          DefaultSegmentedData.builder()
+              .streamId(streamId)
+              .content(content)
+              .trailingHeaders(trailingHeaders)
+              .endOfMessage(true)
+              .build();
 
-    if (status != Status.OK) {
-      ctx.close();
+      ctx.writeAndFlush(data);
     }
-  }
 
-  private ByteBuf makeResponseBuffer(ByteBuffer requestBuffer)
-      throws InvalidProtocolBufferException, StatusException {
-    GrpcRequest grpcRequest = requestParser.parse(requestBuffer);
-    GrpcResponse grpcResponse = appLogic.apply(grpcRequest);
+    private void removeFromSession() {
+      IntObjectMap<GrpcRequestHandler<?, ?>.GrpcCall> session =
+          ctx.channel().attr(CHANNEL_MESSAGE_SESSION_KEY).get();
+      if (session != null && session.get(streamId) == this) {
+        session.remove(streamId);
+      }
+    }
 
-    byte[] dataBytes = grpcResponse.toByteArray();
-    int length = dataBytes.length;
-    byte[] lengthByteBuffer = ByteBuffer.allocate(4).putInt(length).array();
-    byte[] compressedByteBuffer = ByteBuffer.allocate(1).put((byte) 0).array();
+    private void finish() {
+      finished = true;
+      pendingResponse = null;
+      if (requestEnded) {
+        removeFromSession();
+      }
+      ReferenceCountUtil.safeRelease(buffer);
+    }
 
-    ByteBuf responseBuffer =
-        UnpooledByteBufAllocator.DEFAULT.buffer(length + METADATA_SIZE, length + METADATA_SIZE);
+    /**
+     * Stops a client that is still sending once the trailers have been written. The rest of an
+     * http/1 request is read and dropped instead.
+     */
+    private void endRequest() {
+      Http2ServerHandler http2 = ctx.pipeline().get(Http2ServerHandler.class);
+      if (requestEnded || http2 == null) {
+        return;
+      }
+      requestEnded = true;
+      removeFromSession();
+      ChannelHandlerContext http2Ctx = ctx.pipeline().context(http2);
+      http2.resetStream(http2Ctx, streamId, Http2Error.NO_ERROR.code(), http2Ctx.newPromise());
+      http2Ctx.flush();
+    }
 
-    responseBuffer.writeBytes(compressedByteBuffer);
-    responseBuffer.writeBytes(lengthByteBuffer);
-    responseBuffer.writeBytes(dataBytes);
+    /** Ends the call because of a bad request. */
+    private void fail(Status status) {
+      requests.onError(status);
+      onError(status);
+    }
 
-    return responseBuffer;
-  }
+    /** Called when the client reset the stream or the channel closed. */
+    void cancel() {
+      requestEnded = true;
+      if (finished) {
+        removeFromSession();
+        return;
+      }
+      finish();
+      requests.onError(Status.CANCELLED);
+    }
 
-  private String grpcEncodedString(String input) {
-    StringBuilder output = new StringBuilder();
-    byte[] bytes;
+    @Override
+    public void onNext(GrpcResponse response) {
+      if (!ctx.executor().inEventLoop()) {
+        ctx.executor().execute(() -> onNext(response));
+        return;
+      }
+      if (finished) {
+        return;
+      }
+      if (singleResponse) {
+        pendingResponse = response;
+      } else {
+        sendMessage(response);
+      }
+    }
 
-    bytes = input.getBytes(StandardCharsets.UTF_8);
+    @Override
+    public void onError(Status status) {
+      if (!ctx.executor().inEventLoop()) {
+        ctx.executor().execute(() -> onError(status));
+        return;
+      }
+      if (finished) {
+        return;
+      }
+      finish();
+      sendTrailers(Unpooled.EMPTY_BUFFER, status);
+      endRequest();
+    }
 
-    for (byte b : bytes) {
-      output.append(String.format("%%%02x", b));
+    @Override
+    public void onCompleted() {
+      if (!ctx.executor().inEventLoop()) {
+        ctx.executor().execute(this::onCompleted);
+        return;
+      }
+      if (finished) {
+        return;
+      }
+      ByteBuf content = Unpooled.EMPTY_BUFFER;
+      if (pendingResponse != null) {
+        try {
+          content = frame(pendingResponse);
+        } catch (IOException e) {
+          onError(Status.INTERNAL.withDescription(GRPC_MESSAGE_CANNOT_MAKE_RESPONSE));
+          return;
+        }
+      }
+      finish();
+      sendTrailers(content, Status.OK);
+      endRequest();
     }
-    return output.toString();
   }
 }
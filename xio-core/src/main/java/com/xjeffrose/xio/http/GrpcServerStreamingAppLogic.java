@@ -0,0 +1,6 @@
+package com.xjeffrose.xio.http;
+
+/** App logic for a gRPC call with a single request and a stream of responses. */
+public interface GrpcServerStreamingAppLogic<GrpcRequest, GrpcResponse> {
+  void apply(GrpcRequest request, GrpcStreamObserver<GrpcResponse> responses);
+}
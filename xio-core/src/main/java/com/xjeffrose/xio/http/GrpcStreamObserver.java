@@ -0,0 +1,17 @@
+package com.xjeffrose.xio.http;
+
+import io.grpc.Status;
+
+/**
+ * Receives the messages of one side of a streaming gRPC call, modeled after grpc-java's
+ * StreamObserver. Response observers handed out by {@link GrpcRequestHandler} may be called from
+ * any thread.
+ */
+public interface GrpcStreamObserver<T> {
+  void onNext(T value);
+
+  /** Terminates the stream with a status other than OK. */
+  void onError(Status status);
+
+  void onCompleted();
+}
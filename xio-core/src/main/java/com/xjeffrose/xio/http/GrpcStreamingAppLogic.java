@@ -0,0 +1,16 @@
+package com.xjeffrose.xio.http;
+
+/**
+ * App logic for a gRPC call with a stream of requests, used for client streaming and bidirectional
+ * streaming calls.
+ */
+public interface GrpcStreamingAppLogic<GrpcRequest, GrpcResponse> {
+  /**
+   * Called once when the call starts.
+   *
+   * @param responses the observer to send responses to, a client streaming call must send exactly
+   *     one response before completing
+   * @return the observer that receives the requests of the call
+   */
+  GrpcStreamObserver<GrpcRequest> apply(GrpcStreamObserver<GrpcResponse> responses);
+}
@@ -46,8 +46,14 @@ public interface Headers
     return result;
   }
 
+  /**
+   * Headers that wrap a codec's native headers return them as they are when the protocol doesn't
+   * change, and translate them (lowercasing names, mapping pseudo-headers) only when it does.
+   *
+   * @return an Http2 Headers object based on the values in this Headers object.
+   */
   default Http2Headers http2Headers() {
-    Http2Headers result = new DefaultHttp2Headers();
+    Http2Headers result = new DefaultHttp2Headers(true, size());
     for (Entry<CharSequence, CharSequence> entry : this) {
       result.add(entry.getKey(), entry.getValue());
     }
@@ -0,0 +1,65 @@
+package com.xjeffrose.xio.http;
+
+import com.typesafe.config.Config;
+import java.time.Duration;
+import lombok.Getter;
+import lombok.experimental.Accessors;
+
+/**
+ * Per route hedging settings, see proxyRouteTemplate.hedge in reference.conf
+ *
+ * <pre>
+ * hedge {
+ *   enabled = true
+ *   // send the duplicate if no response has arrived after this long
+ *   delay = 50milliseconds
+ *   // or use this percentile of recent response latency instead (0 to disable)
+ *   delayPercentile = 0.95
+ *   // lower bound for the percentile based delay
+ *   minDelay = 5milliseconds
+ *   // every request earns this fraction of a hedge
+ *   budgetRatio = 0.05
+ *   // maximum number of hedges that can be saved up
+ *   maxBudget = 10
+ * }
+ * </pre>
+ */
+@Accessors(fluent = true)
+@Getter
+public class HedgeConfig {
+
+  public static final HedgeConfig DISABLED =
+      new HedgeConfig(false, Duration.ZERO, 0, Duration.ZERO, 0, 0);
+
+  private final boolean enabled;
+  private final Duration delay;
+  private final double delayPercentile;
+  private final Duration minDelay;
+  private final double budgetRatio;
+  private final int maxBudget;
+
+  public HedgeConfig(
+      boolean enabled,
+      Duration delay,
+      double delayPercentile,
+      Duration minDelay,
+      double budgetRatio,
+      int maxBudget) {
+    this.enabled = enabled;
+    this.delay = delay;
+    this.delayPercentile = delayPercentile;
+    this.minDelay = minDelay;
+    this.budgetRatio = budgetRatio;
+    this.maxBudget = maxBudget;
+  }
+
+  public HedgeConfig(Config config) {
+    this(
+        config.getBoolean("enabled"),
+        config.getDuration("delay"),
+        config.getDouble("delayPercentile"),
+        config.getDuration("minDelay"),
+        config.getDouble("budgetRatio"),
+        config.getInt("maxBudget"));
+  }
+}
@@ -0,0 +1,76 @@
+package com.xjeffrose.xio.http;
+
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.SlidingTimeWindowArrayReservoir;
+import com.codahale.metrics.Snapshot;
+import io.netty.handler.codec.http.HttpMethod;
+import java.util.concurrent.TimeUnit;
+import lombok.Getter;
+import lombok.experimental.Accessors;
+
+/**
+ * Per route hedging state shared by every connection: which requests may be hedged, how long to
+ * wait before hedging and how much hedge budget is left.
+ *
+ * <p>When a delay percentile is configured the delay follows the live latency of the route, the
+ * percentile is recomputed from the histogram at most once per second so that taking the snapshot
+ * stays off the per request path.
+ */
+@Accessors(fluent = true)
+public class HedgePolicy {
+
+  private static final long REFRESH_NANOS = TimeUnit.SECONDS.toNanos(1);
+  private static final int MIN_SAMPLES = 100;
+
+  private final HedgeConfig config;
+  @Getter private final RequestBudget budget;
+  private final Histogram latency =
+      new Histogram(new SlidingTimeWindowArrayReservoir(60, TimeUnit.SECONDS));
+  private volatile long delayNanos;
+  private volatile long lastRefreshNanos;
+
+  public HedgePolicy(HedgeConfig config) {
+    this.config = config;
+    this.budget = new RequestBudget(config.budgetRatio(), config.maxBudget());
+    this.delayNanos = config.delay().toNanos();
+    this.lastRefreshNanos = System.nanoTime();
+  }
+
+  static boolean isIdempotent(HttpMethod method) {
+    return method.equals(HttpMethod.GET)
+        || method.equals(HttpMethod.HEAD)
+        || method.equals(HttpMethod.OPTIONS)
+        || method.equals(HttpMethod.TRACE)
+        || method.equals(HttpMethod.PUT)
+        || method.equals(HttpMethod.DELETE);
+  }
+
+  /**
+   * Only complete idempotent requests can be hedged, streaming requests would require buffering the
+   * whole body.
+   */
+  public boolean canHedge(Request request) {
+    return request instanceof FullRequest && isIdempotent(request.method());
+  }
+
+  /** Records the time it took for the first response headers to arrive. */
+  public void recordLatency(long nanos) {
+    latency.update(nanos);
+  }
+
+  public long delayNanos() {
+    if (config.delayPercentile() > 0) {
+      long now = System.nanoTime();
+      if (now - lastRefreshNanos > REFRESH_NANOS) {
+        lastRefreshNanos = now;
+        Snapshot snapshot = latency.getSnapshot();
+        if (snapshot.size() >= MIN_SAMPLES) {
+          delayNanos =
+              Math.max(
+                  config.minDelay().toNanos(), (long) snapshot.getValue(config.delayPercentile()));
+        }
+      }
+    }
+    return delayNanos;
+  }
+}
@@ -0,0 +1,341 @@
+package com.xjeffrose.xio.http;
+
+import com.xjeffrose.xio.client.ClientConfig;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.util.AttributeKey;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.collection.IntObjectHashMap;
+import io.netty.util.collection.IntObjectMap;
+import io.netty.util.concurrent.ScheduledFuture;
+import java.util.ArrayDeque;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Races a proxied request against a duplicate that is sent to a different backend if no response
+ * has arrived within the {@link HedgePolicy} delay. Whichever backend responds first wins, the
+ * losing request is reset if its backend speaks http/2. A losing http/1 hedge connection is closed,
+ * the response of a losing http/1 primary is discarded as it arrives since the primary connection
+ * carries the other requests of the frontend as well.
+ *
+ * <p>Each race belongs to a single request: it is attached to the primary request as that is
+ * written to its backend, see {@link ProxyBackendHandler}, and responses from that connection are
+ * matched to the requests in the order they were written. Hedge clients are acquired from the
+ * {@link ClientFactory} and released once the race is decided. Backend clients share the frontend
+ * event loop so none of this state needs to be synchronized.
+ */
+@Slf4j
+class HedgedRequest {
+
+  // races whose primary request hasn't been written to its backend yet, by request
+  private static final AttributeKey<Map<Request, HedgedRequest>> UNSENT_RACES =
+      AttributeKey.newInstance("xio_unsent_hedged_requests");
+
+  // the race of every request written to a backend connection, empty if the request isn't hedged,
+  // by stream in the order the requests were written
+  private static final AttributeKey<IntObjectMap<ArrayDeque<Optional<HedgedRequest>>>>
+      PRIMARY_RACES = AttributeKey.newInstance("xio_primary_hedged_requests");
+
+  private enum Winner {
+    NONE,
+    PRIMARY,
+    HEDGE
+  }
+
+  private final ChannelHandlerContext ctx;
+  private final HedgePolicy policy;
+  private final ClientFactory factory;
+  private final ClientConfig hedgeConfig;
+  private final int streamId;
+  private final long startNanos;
+  private final ChannelFutureListener frontendClosed = f -> releaseHedge(true);
+  private FullRequest hedge;
+  private ScheduledFuture<?> timer;
+  // the backend connection the primary request was written to, null until then
+  private Channel primary;
+  private Client hedgeClient;
+  private boolean hedgeDone;
+  private boolean primaryLatencyRecorded;
+  private Winner winner = Winner.NONE;
+
+  private HedgedRequest(
+      ChannelHandlerContext ctx,
+      HedgePolicy policy,
+      ClientFactory factory,
+      ClientConfig hedgeConfig,
+      FullRequest hedge) {
+    this.ctx = ctx;
+    this.policy = policy;
+    this.factory = factory;
+    this.hedgeConfig = hedgeConfig;
+    this.hedge = hedge;
+    this.streamId = hedge.streamId();
+    this.startNanos = System.nanoTime();
+  }
+
+  private static Map<Request, HedgedRequest> unsentRaces(ChannelHandlerContext ctx) {
+    Map<Request, HedgedRequest> races = ctx.channel().attr(UNSENT_RACES).get();
+    if (races == null) {
+      // requests are compared by identity, two identical requests are still two races
+      Map<Request, HedgedRequest> created = new IdentityHashMap<>();
+      ctx.channel().attr(UNSENT_RACES).set(created);
+      ctx.channel().closeFuture().addListener(f -> created.clear());
+      races = created;
+    }
+    return races;
+  }
+
+  private static IntObjectMap<ArrayDeque<Optional<HedgedRequest>>> primaryRaces(Channel backend) {
+    IntObjectMap<ArrayDeque<Optional<HedgedRequest>>> races = backend.attr(PRIMARY_RACES).get();
+    if (races == null) {
+      races = new IntObjectHashMap<>();
+      backend.attr(PRIMARY_RACES).set(races);
+    }
+    return races;
+  }
+
+  /**
+   * Must be called before the primary request is written, schedules the hedge for the request.
+   *
+   * @param request the proxied request that is about to be sent to the primary backend
+   */
+  static HedgedRequest start(
+      ChannelHandlerContext ctx,
+      HedgePolicy policy,
+      ClientFactory factory,
+      ClientConfig hedgeConfig,
+      FullRequest request) {
+    HedgedRequest race =
+        new HedgedRequest(
+            ctx, policy, factory, hedgeConfig, (FullRequest) ReplayBuffer.copy(request));
+    unsentRaces(ctx).put(request, race);
+    race.timer =
+        ctx.executor().schedule(race::sendHedge, policy.delayNanos(), TimeUnit.NANOSECONDS);
+    return race;
+  }
+
+  /**
+   * Called for the first message of every request written to a primary backend of the frontend,
+   * in the order the requests are written.
+   */
+  static void onPrimaryWritten(ChannelHandlerContext frontend, Channel backend, Request request) {
+    Map<Request, HedgedRequest> unsent = frontend.channel().attr(UNSENT_RACES).get();
+    HedgedRequest race = unsent == null ? null : unsent.remove(request);
+    if (race != null) {
+      race.primary = backend;
+    }
+    primaryRaces(backend)
+        .computeIfAbsent(request.streamId(), k -> new ArrayDeque<>())
+        .add(Optional.ofNullable(race));
+  }
+
+  /**
+   * Called for every response read from a primary backend.
+   *
+   * @return true if the response should be forwarded to the frontend
+   */
+  static boolean acceptPrimary(Channel backend, Response response) {
+    IntObjectMap<ArrayDeque<Optional<HedgedRequest>>> races = backend.attr(PRIMARY_RACES).get();
+    ArrayDeque<Optional<HedgedRequest>> pending =
+        races == null ? null : races.get(response.streamId());
+    if (pending == null || pending.isEmpty()) {
+      return true;
+    }
+    Optional<HedgedRequest> race;
+    if (response.endOfMessage()) {
+      // responses on a stream arrive in request order, the next response belongs to the next one
+      race = pending.poll();
+      if (pending.isEmpty()) {
+        races.remove(response.streamId());
+      }
+    } else {
+      race = pending.peek();
+    }
+    return !race.isPresent() || race.get().onPrimaryResponse(response);
+  }
+
+  /**
+   * Called when the primary request on the stream of the backend was reset, no response will
+   * arrive for it. A hedge in flight for it is abandoned as well.
+   */
+  static void onPrimaryReset(Channel backend, int streamId) {
+    IntObjectMap<ArrayDeque<Optional<HedgedRequest>>> races = backend.attr(PRIMARY_RACES).get();
+    ArrayDeque<Optional<HedgedRequest>> pending = races == null ? null : races.get(streamId);
+    if (pending == null || pending.isEmpty()) {
+      return;
+    }
+    Optional<HedgedRequest> race = pending.poll();
+    if (pending.isEmpty()) {
+      races.remove(streamId);
+    }
+    race.filter(r -> r.winner == Winner.NONE).ifPresent(r -> r.decide(Winner.PRIMARY));
+  }
+
+  private static void discard(Response response) {
+    ByteBuf body = response.body();
+    if (body != null && body.refCnt() > 0) {
+      ReferenceCountUtil.safeRelease(body);
+    }
+  }
+
+  private void decide(Winner winner) {
+    this.winner = winner;
+    if (timer != null) {
+      timer.cancel(false);
+      timer = null;
+    }
+    if (hedge != null) {
+      ReferenceCountUtil.safeRelease(hedge.body());
+      hedge = null;
+    }
+    if (winner == Winner.PRIMARY && hedgeClient != null) {
+      releaseHedge(true);
+    } else if (winner == Winner.HEDGE) {
+      abandonPrimary();
+    }
+  }
+
+  /** Resets the losing primary request, an http/1 response is discarded as it arrives instead. */
+  private void abandonPrimary() {
+    if (primary == null) {
+      // not written yet, the race is attached to the request as it is
+      return;
+    }
+    if (Client.resetStream(primary, streamId)) {
+      IntObjectMap<ArrayDeque<Optional<HedgedRequest>>> races = primary.attr(PRIMARY_RACES).get();
+      ArrayDeque<Optional<HedgedRequest>> pending = races == null ? null : races.get(streamId);
+      if (pending != null && pending.remove(Optional.of(this)) && pending.isEmpty()) {
+        races.remove(streamId);
+      }
+    }
+  }
+
+  /**
+   * Hands the hedge client back to the factory once the race is over for it.
+   *
+   * @param abandon true if the hedge request lost and its stream or connection has to be reset
+   */
+  private void releaseHedge(boolean abandon) {
+    if (hedgeDone) {
+      return;
+    }
+    hedgeDone = true;
+    ctx.channel().closeFuture().removeListener(frontendClosed);
+    if (abandon) {
+      hedgeClient.abandon(streamId);
+    }
+    factory.releaseClient(hedgeClient);
+  }
+
+  private void sendHedge() {
+    timer = null;
+    if (winner != Winner.NONE || hedge == null || !ctx.channel().isActive()) {
+      return;
+    }
+    FullRequest request = hedge;
+    hedge = null;
+    if (!policy.budget().tryWithdraw()) {
+      log.debug("hedge budget exhausted for {}", request);
+      ReferenceCountUtil.safeRelease(request.body());
+      return;
+    }
+
+    CircuitBreaker breaker = factory.circuitBreaker(hedgeConfig);
+    if (breaker != null && !breaker.allowRequest()) {
+      log.debug("circuit breaker open, not hedging {}", request);
+      ReferenceCountUtil.safeRelease(request.body());
+      hedgeDone = true;
+      return;
+    }
+
+    log.debug("hedging request {} to {}", request, hedgeConfig.remote());
+    hedgeClient =
+        factory.acquireClient(ctx, hedgeConfig, () -> new HedgeBackendHandler(ctx, this));
+    Optional<ChannelFuture> future = hedgeClient.write(request);
+    if (future.isPresent()) {
+      ctx.channel().closeFuture().addListener(frontendClosed);
+    } else {
+      ReferenceCountUtil.safeRelease(request.body());
+      releaseHedge(false);
+    }
+  }
+
+  private boolean onPrimaryResponse(Response response) {
+    if (!primaryLatencyRecorded) {
+      // also recorded when the hedge won, so the delay percentile sees the slow primaries
+      primaryLatencyRecorded = true;
+      policy.recordLatency(System.nanoTime() - startNanos);
+    }
+    if (winner == Winner.NONE) {
+      decide(Winner.PRIMARY);
+    }
+    if (winner == Winner.PRIMARY) {
+      return true;
+    }
+    discard(response);
+    return false;
+  }
+
+  /** @return true if the hedge response should be forwarded to the frontend */
+  boolean onHedgeResponse(Response response) {
+    if (winner == Winner.NONE) {
+      decide(Winner.HEDGE);
+    }
+    if (winner == Winner.HEDGE) {
+      if (response.endOfMessage()) {
+        // release the hedge client once the response has been forwarded
+        ctx.executor().execute(() -> releaseHedge(false));
+      }
+      return true;
+    }
+    discard(response);
+    return false;
+  }
+
+  /** @return true if the frontend needs to be closed because the hedge connection was lost */
+  boolean onHedgeClosed() {
+    if (hedgeDone) {
+      return false;
+    }
+    releaseHedge(false);
+    return winner == Winner.HEDGE;
+  }
+
+  /** Forwards the winning hedge response to the frontend. */
+  private static class HedgeBackendHandler extends ProxyBackendHandler {
+    private final HedgedRequest race;
+
+    HedgeBackendHandler(ChannelHandlerContext frontend, HedgedRequest race) {
+      super(frontend);
+      this.race = race;
+    }
+
+    @Override
+    protected void onRequestWritten(ChannelHandlerContext ctx, Request request) {
+      // the hedge is no primary request
+    }
+
+    @Override
+    protected boolean accept(ChannelHandlerContext ctx, Response response) {
+      return race.onHedgeResponse(response);
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+      // the race releases the hedge itself once it is decided
+      boolean closedByRace = race.hedgeDone;
+      if (race.onHedgeClosed()) {
+        super.channelInactive(ctx);
+      } else if (!closedByRace) {
+        recordClose(ctx);
+      }
+    }
+  }
+}
@@ -122,9 +122,11 @@ public class Http1ServerCodec extends ChannelDuplexHandler {
                 full.headers().http1Headers(false, false),
                 EmptyHttpHeaders.INSTANCE);
       } else {
-        // We don't know the size of the message payload so set TransferEncoding to chunked
+        // Unless the size of the message payload is given up front (e.g. a file sent with
+        // sendfile) set TransferEncoding to chunked
         HttpHeaders headers = response.headers().http1Headers(false, false);
-        if (!response.headers().contains(HttpHeaderNames.TRANSFER_ENCODING)) {
+        if (!response.headers().contains(HttpHeaderNames.TRANSFER_ENCODING)
+            && !response.headers().contains(HttpHeaderNames.CONTENT_LENGTH)) {
           headers.set(HttpHeaderNames.TRANSFER_ENCODING, HttpHeaderValues.CHUNKED);
           headers.remove(HttpHeaderNames.CONTENT_LENGTH);
         }
@@ -2,14 +2,17 @@ package com.xjeffrose.xio.http;
 
 import com.xjeffrose.xio.core.internal.UnstableApi;
 import com.xjeffrose.xio.http.internal.FullHttp2Response;
+import com.xjeffrose.xio.http.internal.Http2HeadersWrapper;
 import com.xjeffrose.xio.http.internal.Http2SegmentedData;
 import com.xjeffrose.xio.http.internal.SegmentedHttp2Response;
 import io.netty.channel.ChannelDuplexHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelPromise;
 import io.netty.handler.codec.http2.DefaultHttp2DataFrame;
+import io.netty.handler.codec.http2.DefaultHttp2Headers;
 import io.netty.handler.codec.http2.Http2DataFrame;
 import io.netty.handler.codec.http2.Http2Headers;
+import io.netty.util.AsciiString;
 import io.netty.util.concurrent.PromiseCombiner;
 import lombok.extern.slf4j.Slf4j;
 
@@ -36,7 +39,7 @@ public class Http2ClientCodec extends ChannelDuplexHandler {
       if (msg.eos && headers.method() == null && headers.status() == null) {
         response =
             session
-                .currentResponse(msg.streamId)
+                .currentResponse(streamId)
                 .map(
                     resp ->
                         session.onInboundResponse(
@@ -75,6 +78,29 @@ public class Http2ClientCodec extends ChannelDuplexHandler {
     }
   }
 
+  /**
+   * The native headers of a request proxied from an h2 frontend are forwarded without a copy as
+   * long as their pseudo-headers already match the outgoing request. They are still used to route
+   * the rest of the incoming stream, so they are copied rather than modified when they don't.
+   */
+  static Http2Headers requestHeaders(Request request) {
+    AsciiString method = request.method().asciiName();
+    Http2Headers headers;
+    if (request.headers() instanceof Http2HeadersWrapper) {
+      Http2Headers incoming = request.headers().http2Headers();
+      if (AsciiString.contentEquals(incoming.authority(), request.host())
+          && AsciiString.contentEquals(incoming.method(), method)
+          && AsciiString.contentEquals(incoming.path(), request.path())) {
+        return incoming;
+      }
+      headers = new DefaultHttp2Headers(false, incoming.size());
+      headers.add(incoming);
+    } else {
+      headers = request.headers().http2Headers();
+    }
+    return headers.authority(request.host()).method(method).path(request.path());
+  }
+
   private void writeRequest(ChannelHandlerContext ctx, Request request, ChannelPromise promise) {
     /*
       // TOOD(CK): define ACCEPT?
@@ -83,9 +109,7 @@ public class Http2ClientCodec extends ChannelDuplexHandler {
     }
     */
 
-    Http2Headers headers = request.headers().http2Headers();
-
-    headers.authority(request.host()).method(request.method().asciiName()).path(request.path());
+    Http2Headers headers = requestHeaders(request);
 
     int streamId = request.streamId();
 
@@ -114,7 +138,11 @@ public class Http2ClientCodec extends ChannelDuplexHandler {
     Http2Request request =
         Http2Request.build(streamId, new DefaultHttp2DataFrame(data.content(), dataEos), dataEos);
 
-    if (hasTrailing) {
+    if (hasTrailing && !data.content().isReadable()) {
+      // trailers only, an empty DATA frame would just be overhead
+      data.content().release();
+      ctx.write(Http2Request.build(streamId, trailingHeaders.http2Headers(), true), promise);
+    } else if (hasTrailing) {
       Http2Headers headers = trailingHeaders.http2Headers();
       Http2Request last = Http2Request.build(streamId, headers, true);
       PromiseCombiner combiner = new PromiseCombiner();
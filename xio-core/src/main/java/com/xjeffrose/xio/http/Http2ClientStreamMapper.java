@@ -36,6 +36,11 @@ public class Http2ClientStreamMapper {
     return mappedId;
   }
 
+  /** @return the outbound stream id mapped to {@code id}, or null if the stream has ended */
+  public Integer mappedStreamId(Integer id) {
+    return streamMap.get(id);
+  }
+
   public Integer inboundStreamId(Integer id, boolean remove) {
     Integer mappedId;
     if (remove) {
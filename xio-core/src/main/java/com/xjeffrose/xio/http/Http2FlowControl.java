@@ -0,0 +1,114 @@
+package com.xjeffrose.xio.http;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http2.Http2ConnectionHandler;
+import io.netty.handler.codec.http2.Http2Exception;
+import io.netty.handler.codec.http2.Http2Stream;
+import io.netty.util.AttributeKey;
+import io.netty.util.collection.IntObjectHashMap;
+import io.netty.util.collection.IntObjectMap;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Couples the HTTP/2 flow control windows of the two legs of a proxied stream.
+ *
+ * <p>By default {@link Http2FrameForwarder} hands the bytes of every DATA frame back to the flow
+ * controller as soon as the frame has been read, so a slow receiver on one leg never slows down
+ * the sender on the other leg and the proxy buffers without bound. For deferred streams the bytes
+ * are only handed back by {@link #consumeBytes} once the frame has been written to the other leg,
+ * so WINDOW_UPDATE frames follow the pace of the slower peer.
+ *
+ * <p>Streams are deferred one at a time on server connections, where only streaming proxy routes
+ * opt in, and as a whole on backend connections, where {@link ProxyBackendHandler} writes every
+ * frame to the frontend. All state is confined to the channel's event loop.
+ */
+@Slf4j
+public final class Http2FlowControl {
+
+  private static final AttributeKey<IntObjectMap<Boolean>> DEFERRED_STREAMS =
+      AttributeKey.newInstance("xio_h2_deferred_streams");
+  private static final AttributeKey<Boolean> DEFER_ALL =
+      AttributeKey.newInstance("xio_h2_defer_all_streams");
+
+  private Http2FlowControl() {}
+
+  /** Defers flow control of the stream until its end of stream has been read. */
+  static void deferStream(ChannelHandlerContext ctx, int streamId) {
+    IntObjectMap<Boolean> streams = ctx.channel().attr(DEFERRED_STREAMS).get();
+    if (streams == null) {
+      streams = new IntObjectHashMap<>();
+      ctx.channel().attr(DEFERRED_STREAMS).set(streams);
+    }
+    streams.put(streamId, Boolean.TRUE);
+  }
+
+  /** Defers flow control of every stream of the channel. */
+  static void deferAll(Channel channel, boolean deferAll) {
+    channel.attr(DEFER_ALL).set(deferAll ? Boolean.TRUE : null);
+  }
+
+  /** Stops tracking a stream that has been ended or reset by the remote peer. */
+  static void endStream(ChannelHandlerContext ctx, int streamId) {
+    IntObjectMap<Boolean> streams = ctx.channel().attr(DEFERRED_STREAMS).get();
+    if (streams != null) {
+      streams.remove(streamId);
+    }
+  }
+
+  /**
+   * Called by the frame listener for every DATA frame read.
+   *
+   * @return the number of bytes that can be handed back to the flow controller right away
+   */
+  static int processedBytes(
+      ChannelHandlerContext ctx, int streamId, ByteBuf data, int padding, boolean endOfStream) {
+    boolean deferred = isDeferred(ctx.channel(), streamId);
+    if (endOfStream) {
+      endStream(ctx, streamId);
+    }
+    // padding never reaches the other leg, it is always handed back
+    return deferred ? padding : data.readableBytes() + padding;
+  }
+
+  private static boolean isDeferred(Channel channel, int streamId) {
+    if (channel.attr(DEFER_ALL).get() != null) {
+      return true;
+    }
+    IntObjectMap<Boolean> streams = channel.attr(DEFERRED_STREAMS).get();
+    return streams != null && streams.containsKey(streamId);
+  }
+
+  /**
+   * Hands the bytes of a deferred DATA frame back to the flow controller of the connection {@code
+   * ctx} belongs to, sending a WINDOW_UPDATE if enough bytes have been consumed. Bytes of streams
+   * that have been closed in the meantime were already handed back when the stream closed.
+   *
+   * @param streamId the id of the stream on the connection, not the id of the proxied stream
+   */
+  static void consumeBytes(ChannelHandlerContext ctx, int streamId, int bytes) {
+    if (bytes <= 0) {
+      return;
+    }
+    if (!ctx.executor().inEventLoop()) {
+      ctx.executor().execute(() -> consumeBytes(ctx, streamId, bytes));
+      return;
+    }
+    Http2ConnectionHandler handler = ctx.pipeline().get(Http2ConnectionHandler.class);
+    if (handler == null) {
+      return;
+    }
+    Http2Stream stream = handler.connection().stream(streamId);
+    if (stream == null) {
+      return;
+    }
+    try {
+      if (handler.decoder().flowController().consumeBytes(stream, bytes)) {
+        ctx.channel().flush();
+      }
+    } catch (Http2Exception e) {
+      log.debug("failed to consume {} bytes of stream {}", bytes, streamId, e);
+    }
+  }
+}
@@ -28,6 +28,8 @@ public class Http2FrameForwarder implements Http2FrameListener {
   public int onDataRead(
       ChannelHandlerContext ctx, int streamId, ByteBuf data, int padding, boolean endOfStream)
       throws Http2Exception {
+    // the frame may be consumed downstream, count its bytes first
+    int processed = Http2FlowControl.processedBytes(ctx, streamId, data, padding, endOfStream);
     if (isServer) {
       ctx.fireChannelRead(
           Http2Request.build(
@@ -41,13 +43,16 @@ public class Http2FrameForwarder implements Http2FrameListener {
               new DefaultHttp2DataFrame(data.retain(), endOfStream, padding),
               endOfStream));
     }
-    return data.readableBytes() + padding;
+    return processed;
   }
 
   @Override
   public void onHeadersRead(
       ChannelHandlerContext ctx, int streamId, Http2Headers headers, int padding, boolean endStream)
       throws Http2Exception {
+    if (endStream) {
+      Http2FlowControl.endStream(ctx, streamId);
+    }
     if (isServer) {
       ctx.fireChannelRead(Http2Request.build(streamId, headers, endStream));
     } else {
@@ -66,6 +71,9 @@ public class Http2FrameForwarder implements Http2FrameListener {
       int padding,
       boolean endStream)
       throws Http2Exception {
+    if (endStream) {
+      Http2FlowControl.endStream(ctx, streamId);
+    }
     if (isServer) {
       ctx.fireChannelRead(Http2Request.build(streamId, headers, endStream));
     } else {
@@ -87,7 +95,12 @@ public class Http2FrameForwarder implements Http2FrameListener {
   @Override
   public void onRstStreamRead(ChannelHandlerContext ctx, int streamId, long errorCode)
       throws Http2Exception {
-    // TODO(CK): We don't currently have a use case for these frames
+    Http2FlowControl.endStream(ctx, streamId);
+    if (isServer) {
+      // the client gave up on the stream, so does the backend or call it is proxied to
+      StreamingStreams.reset(ctx, streamId);
+      GrpcRequestHandler.reset(ctx, streamId);
+    }
   }
 
   @Override
@@ -110,7 +110,13 @@ public class Http2ServerCodec extends ChannelDuplexHandler {
             data.streamId(), new DefaultHttp2DataFrame(data.content(), dataEos), dataEos);
 
     Headers trailingHeaders = data.trailingHeaders();
-    if (trailingHeaders != null && trailingHeaders.size() != 0) {
+    boolean hasTrailing = trailingHeaders != null && trailingHeaders.size() != 0;
+    if (hasTrailing && !data.content().isReadable()) {
+      // trailers only (e.g. grpc-status), an empty DATA frame would just be overhead
+      data.content().release();
+      Http2Headers headers = trailingHeaders.http2Headers();
+      ctx.write(Http2Response.build(data.streamId(), headers, true), promise);
+    } else if (hasTrailing) {
       Http2Headers headers = trailingHeaders.http2Headers();
       Http2Response last = Http2Response.build(data.streamId(), headers, true);
       PromiseCombiner combiner = new PromiseCombiner();
@@ -0,0 +1,55 @@
+package com.xjeffrose.xio.http;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.ByteToMessageDecoder;
+import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.handler.codec.http2.Http2CodecUtil;
+import java.util.List;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Chooses the codec of a cleartext connection by its first bytes: connections starting with the
+ * http/2 connection preface speak h2c with prior knowledge (RFC 7540 section 3.4), all others speak
+ * http/1.1. Takes the place ALPN has for TLS connections and removes itself once it has decided,
+ * bytes read so far are passed on to the chosen codec.
+ */
+@Slf4j
+public class HttpCleartextNegotiationHandler extends ByteToMessageDecoder {
+
+  private static final ByteBuf PREFACE = Http2CodecUtil.connectionPrefaceBuf();
+
+  private final Supplier<ChannelHandler> http2Handler;
+
+  public HttpCleartextNegotiationHandler(Supplier<ChannelHandler> http2Handler) {
+    this.http2Handler = http2Handler;
+  }
+
+  private void replaceCodec(ChannelHandlerContext ctx, ChannelHandler handler) {
+    ctx.pipeline().replace(CodecPlaceholderHandler.class, "codec", handler);
+  }
+
+  private void replaceApplicationCodec(ChannelHandlerContext ctx, ChannelHandler handler) {
+    ctx.pipeline().replace(ApplicationCodecPlaceholderHandler.class, "application codec", handler);
+  }
+
+  @Override
+  protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) {
+    int length = Math.min(in.readableBytes(), PREFACE.readableBytes());
+    if (!ByteBufUtil.equals(in, in.readerIndex(), PREFACE, PREFACE.readerIndex(), length)) {
+      replaceCodec(ctx, new HttpServerCodec());
+      replaceApplicationCodec(ctx, new Http1ServerCodec());
+    } else if (length == PREFACE.readableBytes()) {
+      log.debug("h2c prior knowledge connection from {}", ctx.channel().remoteAddress());
+      replaceCodec(ctx, http2Handler.get());
+      replaceApplicationCodec(ctx, new Http2ServerCodec());
+    } else {
+      // a prefix of the preface, wait for more
+      return;
+    }
+    ctx.pipeline().remove(this);
+  }
+}
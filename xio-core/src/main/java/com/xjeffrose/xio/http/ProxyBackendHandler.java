@@ -1,15 +1,20 @@
 package com.xjeffrose.xio.http;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
-import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
-public class ProxyBackendHandler extends ChannelInboundHandlerAdapter {
+public class ProxyBackendHandler extends ChannelDuplexHandler {
 
   private final ChannelHandlerContext frontend;
   private boolean needFlush = false;
+  // requests written to the backend whose response hasn't completed yet
+  private int pendingResponses;
 
   private ChannelFutureListener errorListenter =
       (f) -> {
@@ -23,15 +28,101 @@ public class ProxyBackendHandler extends ChannelInboundHandlerAdapter {
     this.frontend = frontend;
   }
 
+  /** Called for the first message of every request written to the backend. */
+  protected void onRequestWritten(ChannelHandlerContext ctx, Request request) {
+    HedgedRequest.onPrimaryWritten(frontend, ctx.channel(), request);
+  }
+
+  /**
+   * Checks whether a response from the backend should be forwarded to the frontend, responses that
+   * lost a hedged request race are dropped here.
+   */
+  protected boolean accept(ChannelHandlerContext ctx, Response response) {
+    return HedgedRequest.acceptPrimary(ctx.channel(), response);
+  }
+
+  @Override
+  public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
+    // every response frame is written to the frontend, only then is it handed back to the backend
+    Http2FlowControl.deferAll(ctx.channel(), true);
+  }
+
+  @Override
+  public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+    Http2FlowControl.deferAll(ctx.channel(), false);
+  }
+
+  private static void recordResponse(ChannelHandlerContext ctx, Response response) {
+    CircuitBreaker breaker = ctx.channel().attr(CircuitBreaker.CIRCUIT_BREAKER_KEY).get();
+    if (breaker != null) {
+      if (response.status().code() >= 500) {
+        breaker.onFailure();
+      } else {
+        breaker.onSuccess();
+      }
+    }
+  }
+
+  /** Counts a backend that closed with requests still awaiting a response as a failure. */
+  protected void recordClose(ChannelHandlerContext ctx) {
+    if (pendingResponses == 0) {
+      return;
+    }
+    pendingResponses = 0;
+    CircuitBreaker breaker = ctx.channel().attr(CircuitBreaker.CIRCUIT_BREAKER_KEY).get();
+    if (breaker != null) {
+      breaker.onFailure();
+    }
+  }
+
+  private static int deferredBytes(Response response) {
+    if (!(response instanceof SegmentedData)) {
+      return 0;
+    }
+    ByteBuf content = ((SegmentedData) response).content();
+    return content == null ? 0 : content.readableBytes();
+  }
+
+  private static void consumeBytes(ChannelHandlerContext ctx, Integer streamId, int bytes) {
+    // the stream is closed once its mapping is gone, its bytes have been handed back already
+    if (streamId != null) {
+      Http2FlowControl.consumeBytes(ctx, streamId, bytes);
+    }
+  }
+
   @Override
   public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
     log.debug("RawBackendHandler[{}] channelRead: {}", this, msg);
     if (msg instanceof Response) {
       Response response = (Response) msg;
+      if (response.startOfMessage()) {
+        recordResponse(ctx, response);
+        RetriedRequest.onResponse(frontend, response.streamId());
+      }
+      if (response.endOfMessage() && pendingResponses > 0) {
+        pendingResponses--;
+      }
+      int deferred = deferredBytes(response);
+      Integer backendStreamId =
+          deferred == 0
+              ? null
+              : Http2ClientStreamMapper.http2ClientStreamMapper(ctx)
+                  .mappedStreamId(response.streamId());
+      if (!accept(ctx, response) || !RequestTimeout.acceptResponse(frontend, response)) {
+        consumeBytes(ctx, backendStreamId, deferred);
+        return;
+      }
+      ChannelFuture future;
       if (response.endOfMessage()) {
-        frontend.writeAndFlush(msg).addListener(errorListenter);
+        future = frontend.writeAndFlush(msg);
+        StreamingStreams.end(frontend, response.streamId());
       } else {
-        frontend.write(msg).addListener(errorListenter);
+        future = frontend.write(msg);
+        needFlush = true;
+      }
+      future.addListener(errorListenter);
+      if (deferred > 0) {
+        future.addListener(f -> consumeBytes(ctx, backendStreamId, deferred));
       }
     } else {
       frontend.write(msg).addListener(errorListenter);
@@ -39,6 +130,16 @@ public class ProxyBackendHandler extends ChannelInboundHandlerAdapter {
     }
   }
 
+  @Override
+  public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise)
+      throws Exception {
+    if (msg instanceof Request && ((Request) msg).startOfMessage()) {
+      pendingResponses++;
+      onRequestWritten(ctx, (Request) msg);
+    }
+    ctx.write(msg, promise);
+  }
+
   @Override
   public void channelReadComplete(ChannelHandlerContext ctx) throws Exception {
     log.debug("RawBackendHandler[{}] channelReadComplete", this);
@@ -54,6 +155,13 @@ public class ProxyBackendHandler extends ChannelInboundHandlerAdapter {
     // TODO(CK): this should really be some sort of notification to the frontend
     // that the backend closed. Keepalive/h2 will require the connection to stay open, we
     // shouldn't be closing it.
+    recordClose(ctx);
+    StreamingStreams.onBackendClosed(frontend, ctx.channel());
+    if (RetriedRequest.hasPending(frontend)
+        && RetriedRequest.onBackendClosed(frontend, ctx.channel())) {
+      // every request sent to this backend without a response is being retried
+      return;
+    }
     frontend.close();
   }
 
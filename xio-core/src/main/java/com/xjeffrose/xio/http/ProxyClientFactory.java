@@ -2,7 +2,9 @@ package com.xjeffrose.xio.http;
 
 import com.xjeffrose.xio.application.ApplicationState;
 import com.xjeffrose.xio.client.ClientConfig;
+import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
+import java.util.function.Supplier;
 import lombok.extern.slf4j.Slf4j;
 
 /** Generates an http proxy Client objects */
@@ -10,31 +12,41 @@ import lombok.extern.slf4j.Slf4j;
 public class ProxyClientFactory extends ClientFactory {
 
   private final ClientPool clientPool;
+  private final CircuitBreakers circuitBreakers;
 
   public ProxyClientFactory(ApplicationState state) {
     super(state.tracing());
-    this.clientPool = new ClientPool(state.config().getClientPoolSize());
+    this.clientPool = new ClientPool(state.config().getClientPoolSize(), state.getMetricRegistry());
+    this.circuitBreakers = state.getCircuitBreakers();
+  }
+
+  @Override
+  public CircuitBreaker circuitBreaker(ClientConfig config) {
+    return circuitBreakers.get(config.remote());
   }
 
   @Override
   public Client createClient(ChannelHandlerContext ctx, ClientConfig config) {
-    ClientState clientState = new ClientState(channelConfig(ctx), config);
-    ClientChannelInitializer clientChannelInit =
-        new ClientChannelInitializer(clientState, () -> new ProxyBackendHandler(ctx), getTracing());
-    ClientConnectionManager connManager =
-        new ClientConnectionManager(clientState, clientChannelInit);
-    Client client = new Client(clientState, connManager);
+    Client client = createClient(ctx, config, () -> new ProxyBackendHandler(ctx));
     ctx.channel().closeFuture().addListener(f -> clientPool.release(client));
     log.debug("creating client");
     return client;
   }
 
   @Override
-  public Client getClient(ChannelHandlerContext ctx, ClientConfig config) {
-    Client client =
-        getHandlerClient(ctx)
-            .orElseGet(() -> clientPool.acquire(ctx, config, () -> createClient(ctx, config)));
-    updateChannelAttr(ctx, client);
-    return client;
+  protected Client acquireClient(ChannelHandlerContext ctx, ClientConfig config) {
+    return clientPool.acquire(ctx, config, () -> createClient(ctx, config));
+  }
+
+  @Override
+  public Client acquireClient(
+      ChannelHandlerContext ctx, ClientConfig config, Supplier<ChannelHandler> backendHandler) {
+    return clientPool.acquire(
+        config, backendHandler, () -> createClient(ctx, config, backendHandler));
+  }
+
+  @Override
+  public void releaseClient(Client client) {
+    clientPool.release(client);
   }
 }
@@ -2,10 +2,17 @@ package com.xjeffrose.xio.http;
 
 import com.xjeffrose.xio.client.ClientConfig;
 import com.xjeffrose.xio.core.SocketAddressHelper;
+import com.xjeffrose.xio.core.SocketAddresses;
+import com.xjeffrose.xio.server.XioAccessLogger;
+import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.util.AsciiString;
+import io.netty.util.AttributeKey;
+import java.net.ConnectException;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
@@ -13,16 +20,36 @@ import lombok.val;
 @Slf4j
 public class ProxyHandler implements PipelineRequestHandler {
   private static final AsciiString X_FORWARDED_FOR = AsciiString.cached("x-forwarded-for");
+  // the client each segmented request is sent to, until its last segment
+  private static final AttributeKey<Map<Integer, Client>> REQUEST_CLIENTS =
+      AttributeKey.newInstance("xio_proxy_request_clients");
 
   protected final ClientFactory factory;
   protected final ProxyRouteConfig config;
   protected final SocketAddressHelper addressHelper;
+  // null unless hedging is enabled for the route
+  protected final HedgePolicy hedgePolicy;
+  // null unless retries are enabled for the route
+  protected final RetryPolicy retryPolicy;
+  // null unless timeouts are configured for the route
+  protected final TimeoutConfig timeouts;
 
   public ProxyHandler(
       ClientFactory factory, ProxyRouteConfig config, SocketAddressHelper addressHelper) {
     this.factory = factory;
     this.config = config;
     this.addressHelper = addressHelper;
+    HedgeConfig hedgeConfig = config.hedge();
+    this.hedgePolicy =
+        hedgeConfig != null && hedgeConfig.enabled() ? new HedgePolicy(hedgeConfig) : null;
+    RetryConfig retryConfig = config.retry();
+    // streaming routes never buffer requests, so there is nothing to replay
+    this.retryPolicy =
+        retryConfig != null && retryConfig.enabled() && !config.streaming()
+            ? new RetryPolicy(retryConfig)
+            : null;
+    TimeoutConfig timeoutConfig = config.timeouts();
+    this.timeouts = timeoutConfig != null && timeoutConfig.enabled() ? timeoutConfig : null;
   }
 
   public Optional<ClientConfig> getClientConfig(ChannelHandlerContext ctx, Request request) {
@@ -33,12 +60,77 @@ public class ProxyHandler implements PipelineRequestHandler {
     return Optional.empty();
   }
 
+  /**
+   * Picks the backend for a hedged or retried request, by default the client config following the
+   * previous one in the route's list so that the request never lands on the same backend twice in a
+   * row.
+   */
+  public Optional<ClientConfig> getAlternateClientConfig(
+      ChannelHandlerContext ctx, Request request, ClientConfig primary) {
+    List<ClientConfig> clientConfigs = config.clientConfigs();
+    if (clientConfigs.size() < 2) {
+      return Optional.empty();
+    }
+    int idx = clientConfigs.indexOf(primary);
+    return Optional.of(clientConfigs.get((idx + 1) % clientConfigs.size()));
+  }
+
+  /**
+   * @return false if the circuit breaker of the backend would reject a request, doesn't take a half
+   *     open probe so that candidate backends can be checked before one is picked
+   */
+  protected boolean isAvailable(ClientConfig clientConfig) {
+    CircuitBreaker breaker = factory.circuitBreaker(clientConfig);
+    return breaker == null || breaker.isAvailable();
+  }
+
+  /**
+   * Must only be called right before a request is sent to the backend.
+   *
+   * @return false if the circuit breaker of the backend rejects the request
+   */
+  protected boolean allowRequest(ClientConfig clientConfig) {
+    CircuitBreaker breaker = factory.circuitBreaker(clientConfig);
+    return breaker == null || breaker.allowRequest();
+  }
+
+  /**
+   * Must only be called right before a request is sent with the client.
+   *
+   * @return false if the circuit breaker of the client's backend rejects the request
+   */
+  protected boolean allowRequest(Client client) {
+    CircuitBreaker breaker = client.circuitBreaker();
+    return breaker == null || breaker.allowRequest();
+  }
+
+  private static Map<Integer, Client> requestClients(ChannelHandlerContext ctx) {
+    Map<Integer, Client> clients = ctx.channel().attr(REQUEST_CLIENTS).get();
+    if (clients == null) {
+      clients = new HashMap<>();
+      ctx.channel().attr(REQUEST_CLIENTS).set(clients);
+    }
+    return clients;
+  }
+
+  /** @return the client the start of the segmented request was sent to */
+  private Client requestClient(ChannelHandlerContext ctx, Request request, ClientConfig config) {
+    Map<Integer, Client> clients = requestClients(ctx);
+    int streamId = request.streamId();
+    Client client = request.endOfMessage() ? clients.remove(streamId) : clients.get(streamId);
+    return client != null ? client : factory.getClient(ctx, config);
+  }
+
   public String buildProxyHost(Request request, ClientConfig clientConfig) {
     switch (config.proxyHostPolicy()) {
       case UseRequestHeader:
         return request.host();
       case UseRemoteAddress:
-        return clientConfig.remote().getHostString() + ":" + clientConfig.remote().getPort();
+        if (SocketAddresses.isDomainSocket(clientConfig.remote())) {
+          // a socket path is no valid host, keep the host the request was sent to
+          return request.host();
+        }
+        return SocketAddresses.describe(clientConfig.remote());
       case UseConfigValue:
         return config.proxyHost();
       default:
@@ -141,23 +233,76 @@ public class ProxyHandler implements PipelineRequestHandler {
     // 2) set the outgoing request host
     // 3) set the tracing span (if there is one)
 
-    val clientConfig = getClientConfig(ctx, request);
+    Optional<ClientConfig> clientConfig = getClientConfig(ctx, request);
     if (clientConfig.isPresent()) {
-      Client client = factory.getClient(ctx, clientConfig.get());
-
       if (!request.startOfMessage()) {
         log.debug("not start of stream");
-        writeClientRequest(ctx, client, request);
+        writeClientRequest(ctx, requestClient(ctx, request, clientConfig.get()), request);
         return;
       }
       log.debug("start of stream");
 
+      Client client = factory.getClient(ctx, clientConfig.get());
+      if (!allowRequest(client)) {
+        // fail fast while the backend's circuit breaker is open, unless another backend can serve,
+        // the fallback is picked per request so later requests try the regular backend again
+        clientConfig =
+            getAlternateClientConfig(ctx, request, clientConfig.get()).filter(this::isAvailable);
+        client = clientConfig.map(c -> factory.getAlternateClient(ctx, c)).orElse(null);
+        if (client == null || !allowRequest(client)) {
+          log.debug("circuit breaker open, rejecting request {}", request);
+          ctx.writeAndFlush(ResponseBuilders.newServiceUnavailable(request));
+          return;
+        }
+      }
+      if (!request.endOfMessage()) {
+        // the rest of the request follows its start to the same client
+        requestClients(ctx).put(request.streamId(), client);
+      }
+
+      XioAccessLogger.upstream(ctx, request.streamId(), clientConfig.get().remote());
+
       String proxyHost = buildProxyHost(request, clientConfig.get());
       Request proxyRequest = buildRequest(request, proxyHost, buildProxyPath(request, route));
 
       appendXForwardedFor(ctx, proxyRequest);
 
+      if (hedgePolicy != null && hedgePolicy.canHedge(proxyRequest)) {
+        hedgePolicy.budget().deposit();
+        // the hedge takes a probe of its breaker only if it is sent
+        getAlternateClientConfig(ctx, request, clientConfig.get())
+            .filter(this::isAvailable)
+            .ifPresent(
+                hedgeConfig ->
+                    HedgedRequest.start(
+                        ctx, hedgePolicy, factory, hedgeConfig, (FullRequest) proxyRequest));
+      }
+
+      if (retryPolicy != null) {
+        retryPolicy.budget().deposit();
+        RetriedRequest.start(
+            ctx,
+            retryPolicy,
+            proxyRequest,
+            clientConfig.get(),
+            client,
+            (failed, cause) -> retryClientRequest(ctx, failed, proxyRequest, cause));
+      }
+
+      if (timeouts != null) {
+        RequestTimeout.start(ctx, timeouts, proxyRequest, client);
+      }
+
+      if (config.streaming()) {
+        // hand request bytes back to the frontend only once they have been written to the backend
+        Http2FlowControl.deferStream(ctx, request.streamId());
+      }
+
       writeClientRequest(ctx, client, proxyRequest);
+
+      if (config.streaming() && ctx.channel().isActive()) {
+        StreamingStreams.start(ctx, proxyRequest.streamId(), client.channel());
+      }
     } else {
       Response notFound = ResponseBuilders.newNotFound(request);
       ctx.writeAndFlush(notFound);
@@ -165,12 +310,37 @@ public class ProxyHandler implements PipelineRequestHandler {
   }
 
   private void writeClientRequest(ChannelHandlerContext ctx, Client client, Request request) {
+    RetriedRequest retry = retryPolicy == null ? null : RetriedRequest.get(ctx, request.streamId());
+    if (retry != null && !retry.record(request)) {
+      // a retry is pending, the message will be sent with the replay
+      return;
+    }
+    // after a retry the rest of the request follows the replay
+    sendClientRequest(ctx, retry == null ? client : retry.client(), request);
+  }
+
+  /** @return the number of request bytes whose flow control was deferred by the frontend */
+  private int deferredBytes(Request request) {
+    if (!config.streaming() || !(request instanceof SegmentedData)) {
+      return 0;
+    }
+    ByteBuf content = ((SegmentedData) request).content();
+    return content == null ? 0 : content.readableBytes();
+  }
+
+  private void sendClientRequest(ChannelHandlerContext ctx, Client client, Request request) {
+    int deferred = deferredBytes(request);
     Optional<ChannelFuture> optionalFuture = client.write(request);
     optionalFuture.ifPresent(
         channelFuture ->
             channelFuture.addListener(
                 (f) -> {
-                  if (!f.isSuccess()) {
+                  Http2FlowControl.consumeBytes(ctx, request.streamId(), deferred);
+                  if (f.isSuccess()) {
+                    if (timeouts != null && request.startOfMessage()) {
+                      RequestTimeout.onWritten(ctx, request);
+                    }
+                  } else if (!retryClientRequest(ctx, client, request, f.cause())) {
                     // todo: (WK) do something more polite
                     // we should probably emit a signal and have the application codec handle the event based
                     // on the the response state
@@ -180,8 +350,50 @@ public class ProxyHandler implements PipelineRequestHandler {
                   }
                 }));
     if (!optionalFuture.isPresent()) {
-      Response notFound = ResponseBuilders.newNotFound(request);
-      ctx.writeAndFlush(notFound);
+      Http2FlowControl.consumeBytes(ctx, request.streamId(), deferred);
+      if (!retryClientRequest(ctx, client, request, null)) {
+        Response notFound = ResponseBuilders.newNotFound(request);
+        ctx.writeAndFlush(notFound);
+      }
+    }
+  }
+
+  /**
+   * Schedules another attempt of a request whose write to the backend failed, or whose backend
+   * closed the connection before responding.
+   *
+   * @param cause null if the client refused the write because it could not connect
+   * @return true if the failure was handled by a retry
+   */
+  private boolean retryClientRequest(
+      ChannelHandlerContext ctx, Client failed, Request request, Throwable cause) {
+    RetriedRequest retry = retryPolicy == null ? null : RetriedRequest.get(ctx, request.streamId());
+    if (retry == null) {
+      return false;
+    }
+    if (retry.isStale(failed)) {
+      return true;
+    }
+    // nothing reached the backend if the connection could not be established
+    boolean sent = cause != null && !(cause instanceof ConnectException);
+    if (!retry.canRetry(sent)) {
+      log.debug("not retrying request {}", request, cause);
+      retry.remove();
+      return false;
+    }
+    ClientConfig previous = retry.clientConfig();
+    Optional<ClientConfig> next =
+        getAlternateClientConfig(ctx, request, previous).filter(this::isAvailable);
+    if (!next.isPresent() && isAvailable(previous)) {
+      next = Optional.of(previous);
+    }
+    // the probe is taken as the retry is scheduled, it is only dropped if the frontend closes
+    if (!next.isPresent() || !allowRequest(next.get())) {
+      log.debug("no backend available to retry request {}", request);
+      retry.remove();
+      return false;
     }
+    retry.retry(factory, next.get(), (client, message) -> sendClientRequest(ctx, client, message));
+    return true;
   }
 }
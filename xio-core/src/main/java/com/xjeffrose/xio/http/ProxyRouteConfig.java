@@ -30,6 +30,19 @@ url = scheme, authority, path, query-string, fragment
   proxyHostPolicy: "UseConfigValue"
   proxyHost: "google.com:5678"
   proxyPath: "/rabid/rabbit/"
+  hedge {
+    enabled: true
+    delay: 50milliseconds
+  }
+  retry {
+    enabled: true
+    maxRetries: 2
+  }
+  timeouts {
+    firstByte: 5seconds
+    total: 30seconds
+  }
+  streaming: true
 }
  */
 
@@ -46,6 +59,11 @@ public class ProxyRouteConfig extends RouteConfig {
   private final ProxyHostPolicy proxyHostPolicy;
   private final String proxyHost; // ideally should match client address:port
   private final String proxyPath; // must end in slash
+  private final HedgeConfig hedge;
+  private final RetryConfig retry;
+  private final TimeoutConfig timeouts;
+  // stream messages and trailers through without buffering, for grpc and other long-lived streams
+  private final boolean streaming;
 
   private static List<ClientConfig> buildClientConfigs(List<Config> configs) {
     return configs.stream().map(ClientConfig::from).collect(Collectors.toList());
@@ -65,6 +83,15 @@ public class ProxyRouteConfig extends RouteConfig {
     proxyPath = startsWith(config, "proxyPath", "/");
     endsWith(config, "proxyPath", "/");
     // validatePath(config.getString("proxyPath"), config.origin());
+    hedge =
+        config.hasPath("hedge") ? new HedgeConfig(config.getConfig("hedge")) : HedgeConfig.DISABLED;
+    retry =
+        config.hasPath("retry") ? new RetryConfig(config.getConfig("retry")) : RetryConfig.DISABLED;
+    timeouts =
+        config.hasPath("timeouts")
+            ? new TimeoutConfig(config.getConfig("timeouts"))
+            : TimeoutConfig.DISABLED;
+    streaming = config.hasPath("streaming") && config.getBoolean("streaming");
   }
 
   public ProxyRouteConfig(
@@ -76,6 +103,34 @@ public class ProxyRouteConfig extends RouteConfig {
       ProxyHostPolicy proxyHostPolicy,
       String proxyHost,
       String proxyPath) {
+    this(
+        methods,
+        host,
+        path,
+        permissionNeeded,
+        clientConfigs,
+        proxyHostPolicy,
+        proxyHost,
+        proxyPath,
+        HedgeConfig.DISABLED,
+        RetryConfig.DISABLED,
+        TimeoutConfig.DISABLED,
+        false);
+  }
+
+  public ProxyRouteConfig(
+      List<HttpMethod> methods,
+      String host,
+      String path,
+      String permissionNeeded,
+      List<ClientConfig> clientConfigs,
+      ProxyHostPolicy proxyHostPolicy,
+      String proxyHost,
+      String proxyPath,
+      HedgeConfig hedge,
+      RetryConfig retry,
+      TimeoutConfig timeouts,
+      boolean streaming) {
     super(methods, host, path, permissionNeeded);
     ensureEndsWith("path", path, "/");
     ensureStartsWith("proxyPath", proxyPath, "/");
@@ -85,6 +140,10 @@ public class ProxyRouteConfig extends RouteConfig {
     this.proxyHostPolicy = proxyHostPolicy;
     this.proxyHost = proxyHost;
     this.proxyPath = proxyPath;
+    this.hedge = hedge;
+    this.retry = retry;
+    this.timeouts = timeouts;
+    this.streaming = streaming;
   }
 
   public static Builder newBuilder(ProxyRouteConfig fallbackObject) {
@@ -106,6 +165,10 @@ public class ProxyRouteConfig extends RouteConfig {
     private ProxyHostPolicy proxyHostPolicy;
     private String proxyHost;
     private String proxyPath;
+    private HedgeConfig hedge;
+    private RetryConfig retry;
+    private TimeoutConfig timeouts;
+    private Boolean streaming;
 
     private Builder(ProxyRouteConfig fallbackObject) {
       this.fallbackObject = fallbackObject;
@@ -151,6 +214,26 @@ public class ProxyRouteConfig extends RouteConfig {
       return this;
     }
 
+    public Builder setHedge(HedgeConfig hedge) {
+      this.hedge = hedge;
+      return this;
+    }
+
+    public Builder setRetry(RetryConfig retry) {
+      this.retry = retry;
+      return this;
+    }
+
+    public Builder setTimeouts(TimeoutConfig timeouts) {
+      this.timeouts = timeouts;
+      return this;
+    }
+
+    public Builder setStreaming(boolean streaming) {
+      this.streaming = streaming;
+      return this;
+    }
+
     public ProxyRouteConfig build() {
       return new ProxyRouteConfig(
           valueOrFallback(methods, fallbackObject.methods()),
@@ -160,7 +243,11 @@ public class ProxyRouteConfig extends RouteConfig {
           valueOrFallback(clientConfigs, fallbackObject.clientConfigs()),
           valueOrFallback(proxyHostPolicy, fallbackObject.proxyHostPolicy()),
           valueOrFallback(proxyHost, fallbackObject.proxyHost()),
-          valueOrFallback(proxyPath, fallbackObject.proxyPath()));
+          valueOrFallback(proxyPath, fallbackObject.proxyPath()),
+          valueOrFallback(hedge, fallbackObject.hedge()),
+          valueOrFallback(retry, fallbackObject.retry()),
+          valueOrFallback(timeouts, fallbackObject.timeouts()),
+          valueOrFallback(streaming, fallbackObject.streaming()));
     }
 
     private <T> T valueOrFallback(@Nullable T value, T fallback) {
@@ -0,0 +1,110 @@
+package com.xjeffrose.xio.http;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.util.ReferenceCountUtil;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Holds retained copies of the messages of a single request so that the request can be written
+ * again to another backend. Once the buffered body would exceed {@code maxBytes} the buffer is
+ * released and the request can no longer be replayed.
+ *
+ * <p>Only accessed from the event loop of the frontend channel.
+ */
+class ReplayBuffer {
+
+  private final int maxBytes;
+  private final List<Request> messages = new ArrayList<>();
+  private int bytes;
+  private boolean overflowed;
+
+  ReplayBuffer(int maxBytes) {
+    this.maxBytes = maxBytes;
+  }
+
+  private static ByteBuf content(Request message) {
+    if (message instanceof SegmentedData) {
+      return ((SegmentedData) message).content();
+    }
+    return message.body();
+  }
+
+  /**
+   * Copies a request message with its own headers and a retained view of its body, the copy can be
+   * written independently of the original.
+   */
+  static Request copy(Request message) {
+    if (message instanceof FullRequest) {
+      Headers headers = new DefaultHeaders();
+      headers.set(message.headers());
+      ByteBuf body = message.body();
+      return DefaultFullRequest.builder()
+          .body(body == null ? null : body.retainedDuplicate())
+          .method(message.method())
+          .path(message.path())
+          .streamId(message.streamId())
+          .headers(headers)
+          .httpTraceInfo(message.httpTraceInfo())
+          .build();
+    } else if (message instanceof SegmentedRequestData) {
+      SegmentedRequestData data = (SegmentedRequestData) message;
+      Headers trailingHeaders =
+          data.trailingHeaders() == null ? new DefaultHeaders() : data.trailingHeaders();
+      return new SegmentedRequestData(
+          data,
+          DefaultSegmentedData.builder()
+              .content(data.content().retainedDuplicate())
+              .endOfMessage(data.endOfMessage())
+              .trailingHeaders(trailingHeaders)
+              .streamId(data.streamId())
+              .build(),
+          data.httpTraceInfo());
+    }
+    // the start of a segmented request carries no body
+    return message;
+  }
+
+  /** Must be called before the message is written, since writing releases its body. */
+  void add(Request message) {
+    if (overflowed) {
+      return;
+    }
+    ByteBuf content = content(message);
+    int size = content == null ? 0 : content.readableBytes();
+    if (bytes + size > maxBytes) {
+      release();
+      overflowed = true;
+      return;
+    }
+    bytes += size;
+    messages.add(copy(message));
+  }
+
+  boolean isReplayable() {
+    return !overflowed;
+  }
+
+  /** @return copies of the buffered messages, in order, each can be written once */
+  List<Request> replay() {
+    List<Request> result = new ArrayList<>(messages.size());
+    for (Request message : messages) {
+      result.add(copy(message));
+    }
+    return result;
+  }
+
+  void release() {
+    for (Request message : messages) {
+      if (!(message instanceof FullRequest || message instanceof SegmentedData)) {
+        continue;
+      }
+      ByteBuf content = content(message);
+      if (content != null && content.refCnt() > 0) {
+        ReferenceCountUtil.safeRelease(content);
+      }
+    }
+    messages.clear();
+    bytes = 0;
+  }
+}
@@ -0,0 +1,52 @@
+package com.xjeffrose.xio.http;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock free token bucket that limits extra requests (hedges, retries) to a fraction of the regular
+ * traffic. Every regular request deposits {@code ratio} of a token, every extra request withdraws a
+ * whole token, and at most {@code maxTokens} can be saved up. The bucket starts full so that a
+ * quiet route can still absorb a short burst.
+ */
+public class RequestBudget {
+
+  // balance is kept in thousandths of a token so that it fits in a single AtomicLong
+  private static final long SCALE = 1000;
+
+  private final long deposit;
+  private final long max;
+  private final AtomicLong balance;
+
+  public RequestBudget(double ratio, int maxTokens) {
+    this.deposit = Math.round(ratio * SCALE);
+    this.max = maxTokens * SCALE;
+    this.balance = new AtomicLong(max);
+  }
+
+  /** Records a regular request. */
+  public void deposit() {
+    long current;
+    do {
+      current = balance.get();
+      if (current >= max) {
+        return;
+      }
+    } while (!balance.compareAndSet(current, Math.min(max, current + deposit)));
+  }
+
+  /** @return true if there was a whole token available for an extra request */
+  public boolean tryWithdraw() {
+    long current;
+    do {
+      current = balance.get();
+      if (current < SCALE) {
+        return false;
+      }
+    } while (!balance.compareAndSet(current, current - SCALE));
+    return true;
+  }
+
+  public double balance() {
+    return (double) balance.get() / SCALE;
+  }
+}
@@ -0,0 +1,223 @@
+package com.xjeffrose.xio.http;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.xjeffrose.xio.core.XioTimer;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.util.AttributeKey;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.Timeout;
+import io.netty.util.Timer;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Enforces the {@link TimeoutConfig} of a proxied request. Timers are kept on a single {@link
+ * XioTimer} shared by every event loop: arming and cancelling a timeout is a cheap lock-free
+ * enqueue, and only expired timeouts are handed to the frontend event loop.
+ *
+ * <p>If a request times out before its response has started a 504 is sent to the frontend, then
+ * the request is abandoned: its stream is reset on an http/2 backend, an http/1 backend connection
+ * is closed since a late response can't be told apart from the responses that follow. Either way
+ * the other streams of the frontend are left alone. If the response had already started the
+ * frontend is closed. A timeout before the response started counts as a failure of the backend's
+ * circuit breaker.
+ */
+@Slf4j
+class RequestTimeout {
+
+  // 10ms ticks are precise enough for request timeouts of hundreds of milliseconds and up
+  private static final XioTimer TIMER = new XioTimer("xio-request", 10, TimeUnit.MILLISECONDS, 512);
+
+  private static final AttributeKey<Map<Integer, RequestTimeout>> REQUEST_TIMEOUTS =
+      AttributeKey.newInstance("xio_request_timeouts");
+
+  private enum Phase {
+    CONNECT,
+    FIRST_BYTE,
+    TOTAL
+  }
+
+  private final ChannelHandlerContext ctx;
+  private final Request request;
+  private final Client client;
+  private final Timer timer;
+  private Timeout connect;
+  private Timeout firstByte;
+  private Timeout total;
+  private boolean responseStarted;
+  private boolean expired;
+
+  private RequestTimeout(ChannelHandlerContext ctx, Request request, Client client, Timer timer) {
+    this.ctx = ctx;
+    this.request = request;
+    this.client = client;
+    this.timer = timer;
+  }
+
+  private static Map<Integer, RequestTimeout> timeouts(ChannelHandlerContext ctx) {
+    Map<Integer, RequestTimeout> timeouts = ctx.channel().attr(REQUEST_TIMEOUTS).get();
+    if (timeouts == null) {
+      Map<Integer, RequestTimeout> created = new HashMap<>();
+      ctx.channel().attr(REQUEST_TIMEOUTS).set(created);
+      ctx.channel()
+          .closeFuture()
+          .addListener(
+              f -> {
+                created.values().forEach(RequestTimeout::cancel);
+                created.clear();
+              });
+      timeouts = created;
+    }
+    return timeouts;
+  }
+
+  /**
+   * Must be called before the first message of the request is written.
+   *
+   * @param request the proxied request that is about to be sent to the backend
+   * @param client the client the request is sent with, abandons the request if it times out
+   */
+  static void start(
+      ChannelHandlerContext ctx, TimeoutConfig config, Request request, Client client) {
+    start(ctx, config, request, client, TIMER);
+  }
+
+  @VisibleForTesting
+  static void start(
+      ChannelHandlerContext ctx,
+      TimeoutConfig config,
+      Request request,
+      Client client,
+      Timer timer) {
+    RequestTimeout timeout = new RequestTimeout(ctx, request, client, timer);
+    timeout.connect = timeout.schedule(Phase.CONNECT, config.connect());
+    timeout.firstByte = timeout.schedule(Phase.FIRST_BYTE, config.firstByte());
+    timeout.total = timeout.schedule(Phase.TOTAL, config.total());
+    RequestTimeout previous = timeouts(ctx).put(request.streamId(), timeout);
+    if (previous != null) {
+      previous.cancel();
+    }
+  }
+
+  /** Called once the first message of the request has been written to the backend. */
+  static void onWritten(ChannelHandlerContext ctx, Request request) {
+    RequestTimeout timeout = get(ctx, request.streamId());
+    if (timeout != null && timeout.connect != null) {
+      timeout.connect.cancel();
+      timeout.connect = null;
+    }
+  }
+
+  /**
+   * Called for every response read from the backend for a frontend channel.
+   *
+   * @return false if the request has already timed out and the response must be dropped
+   */
+  static boolean acceptResponse(ChannelHandlerContext ctx, Response response) {
+    Map<Integer, RequestTimeout> timeouts = ctx.channel().attr(REQUEST_TIMEOUTS).get();
+    if (timeouts == null) {
+      return true;
+    }
+    RequestTimeout timeout = timeouts.get(response.streamId());
+    if (timeout == null) {
+      return true;
+    }
+    if (timeout.expired) {
+      // a late response to a request that was already answered with a 504
+      if (response.endOfMessage()) {
+        timeouts.remove(response.streamId());
+      }
+      ReferenceCountUtil.safeRelease(response.body());
+      return false;
+    }
+    if (response.startOfMessage()) {
+      timeout.responseStarted = true;
+      if (timeout.connect != null) {
+        timeout.connect.cancel();
+        timeout.connect = null;
+      }
+      if (timeout.firstByte != null) {
+        timeout.firstByte.cancel();
+        timeout.firstByte = null;
+      }
+    }
+    if (response.endOfMessage()) {
+      timeouts.remove(response.streamId());
+      timeout.cancel();
+    }
+    return true;
+  }
+
+  private static RequestTimeout get(ChannelHandlerContext ctx, int streamId) {
+    Map<Integer, RequestTimeout> timeouts = ctx.channel().attr(REQUEST_TIMEOUTS).get();
+    return timeouts == null ? null : timeouts.get(streamId);
+  }
+
+  private Timeout schedule(Phase phase, Duration duration) {
+    if (duration.isZero()) {
+      return null;
+    }
+    return timer.newTimeout(
+        t -> ctx.executor().execute(() -> expire(phase)),
+        duration.toNanos(),
+        TimeUnit.NANOSECONDS);
+  }
+
+  private void cancel() {
+    if (connect != null) {
+      connect.cancel();
+      connect = null;
+    }
+    if (firstByte != null) {
+      firstByte.cancel();
+      firstByte = null;
+    }
+    if (total != null) {
+      total.cancel();
+      total = null;
+    }
+  }
+
+  private void expire(Phase phase) {
+    Map<Integer, RequestTimeout> timeouts = ctx.channel().attr(REQUEST_TIMEOUTS).get();
+    if (expired || timeouts == null || timeouts.get(request.streamId()) != this) {
+      // the response completed while the expired timeout was handed to the event loop
+      return;
+    }
+    expired = true;
+    cancel();
+    log.debug("{} timeout for request {}", phase, request);
+    // answered with a 504 or abandoned, either way the request must not be replayed
+    RetriedRequest.onResponse(ctx, request.streamId());
+    if (responseStarted) {
+      ctx.close();
+      return;
+    }
+    Channel backend = client.channel();
+    CircuitBreaker breaker =
+        backend == null ? null : backend.attr(CircuitBreaker.CIRCUIT_BREAKER_KEY).get();
+    if (breaker != null) {
+      breaker.onFailure();
+    }
+    ctx.writeAndFlush(ResponseBuilders.newGatewayTimeout(request))
+        .addListener((ChannelFutureListener) f -> abandon());
+  }
+
+  private void abandon() {
+    StreamingStreams.end(ctx, request.streamId());
+    if (!client.abandon(request.streamId())) {
+      return;
+    }
+    // no late response will arrive on the reset stream
+    HedgedRequest.onPrimaryReset(client.channel(), request.streamId());
+    Map<Integer, RequestTimeout> timeouts = ctx.channel().attr(REQUEST_TIMEOUTS).get();
+    if (timeouts != null && timeouts.get(request.streamId()) == this) {
+      timeouts.remove(request.streamId());
+    }
+  }
+}
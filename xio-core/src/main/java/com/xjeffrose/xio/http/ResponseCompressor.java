@@ -0,0 +1,491 @@
+package com.xjeffrose.xio.http;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Splitter;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.util.AsciiString;
+import io.netty.util.collection.IntObjectHashMap;
+import io.netty.util.collection.IntObjectMap;
+import java.util.ArrayDeque;
+import java.util.Locale;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Compresses responses with the gzip or deflate content coding negotiated from the Accept-Encoding
+ * of the request. It sits between the application codec and the application, so it applies to
+ * direct handlers and proxied responses alike, over http/1.1 chunks and h2 DATA frames.
+ *
+ * <p>Full responses are compressed in one go. Segmented responses are compressed as each chunk is
+ * written, every chunk is sync flushed so that streamed data isn't held back. Responses without a
+ * body, smaller than the minimum size, already content encoded, or of a content type that isn't
+ * listed as compressible are passed through untouched, as are responses marked no-transform.
+ * Deflaters are pooled per event loop and the output is written to pooled buffers.
+ *
+ * <p>Given a {@link CompressedVariantCache}, full gzip responses that are cacheable are served from
+ * their stored variant instead of being compressed again.
+ *
+ * <p>The ETag of a compressed response is made weak, the body is no longer the identity
+ * representation the ETag was assigned to. If-None-Match uses the weak comparison, so conditional
+ * requests for the identity ETag still match.
+ */
+public class ResponseCompressor extends ChannelDuplexHandler {
+
+  static final int MAX_POOLED_DEFLATERS = 32;
+  // http1 and h2 responses without a content type are sent as text by the server codecs
+  private static final String DEFAULT_CONTENT_TYPE = "text/plain";
+  private static final byte[] GZIP_HEADER = {
+    0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0
+  };
+  private static final int GZIP_TRAILER_SIZE = 8;
+  private static final Splitter COMMA_SPLITTER = Splitter.on(',').trimResults().omitEmptyStrings();
+  private static final DeflaterPool deflaterPool = new DeflaterPool(MAX_POOLED_DEFLATERS);
+
+  @VisibleForTesting
+  enum Encoding {
+    GZIP(HttpHeaderValues.GZIP, true),
+    DEFLATE(HttpHeaderValues.DEFLATE, false);
+
+    final AsciiString value;
+    final boolean nowrap;
+
+    Encoding(AsciiString value, boolean nowrap) {
+      this.value = value;
+      this.nowrap = nowrap;
+    }
+  }
+
+  /** What was negotiated for the request on a stream. */
+  private static final class Negotiation {
+    // queued for http/1 requests that take the identity response, the encoding is null
+    static final Negotiation IDENTITY = new Negotiation(null, null);
+
+    final Encoding encoding;
+    final String resource;
+
+    Negotiation(Encoding encoding, String resource) {
+      this.encoding = encoding;
+      this.resource = resource;
+    }
+  }
+
+  /** Deflate state of a single response, deflate streams can't be shared between responses. */
+  private final class StreamCompressor {
+    private final Encoding encoding;
+    private final Deflater deflater;
+    private final CRC32 crc;
+    private boolean headerWritten = false;
+
+    StreamCompressor(Encoding encoding) {
+      this.encoding = encoding;
+      deflater = deflaterPool.acquire(config.level(), encoding.nowrap);
+      crc = encoding == Encoding.GZIP ? new CRC32() : null;
+    }
+
+    /** Deflates content into a new buffer, content is not released. */
+    ByteBuf compress(ByteBufAllocator alloc, ByteBuf content, boolean last) {
+      int length = content.readableBytes();
+      ByteBuf out = alloc.heapBuffer(estimateSize(length, last));
+      if (crc != null && !headerWritten) {
+        out.writeBytes(GZIP_HEADER);
+      }
+      headerWritten = true;
+      // the deflater only takes arrays, direct content is copied into a pooled heap buffer first
+      ByteBuf input = content;
+      if (!content.hasArray()) {
+        input = alloc.heapBuffer(length).writeBytes(content, content.readerIndex(), length);
+      }
+      try {
+        if (length > 0) {
+          byte[] array = input.array();
+          int offset = input.arrayOffset() + input.readerIndex();
+          if (crc != null) {
+            crc.update(array, offset, length);
+          }
+          deflater.setInput(array, offset, length);
+          if (!last) {
+            flush(out);
+          }
+        }
+        if (last) {
+          finish(out);
+        }
+      } catch (RuntimeException e) {
+        out.release();
+        throw e;
+      } finally {
+        if (input != content) {
+          input.release();
+        }
+      }
+      return out;
+    }
+
+    private int estimateSize(int length, boolean last) {
+      int size = (int) Math.ceil(length * 1.001) + 12;
+      if (crc != null) {
+        size += (headerWritten ? 0 : GZIP_HEADER.length) + (last ? GZIP_TRAILER_SIZE : 0);
+      }
+      return size;
+    }
+
+    private void deflate(ByteBuf out, int flush) {
+      int writerIndex = out.writerIndex();
+      int written =
+          deflater.deflate(
+              out.array(), out.arrayOffset() + writerIndex, out.writableBytes(), flush);
+      out.writerIndex(writerIndex + written);
+    }
+
+    private void flush(ByteBuf out) {
+      // a sync flush has emitted everything once it leaves room in the buffer
+      while (true) {
+        deflate(out, Deflater.SYNC_FLUSH);
+        if (out.isWritable()) {
+          return;
+        }
+        out.ensureWritable(out.capacity());
+      }
+    }
+
+    private void finish(ByteBuf out) {
+      deflater.finish();
+      while (!deflater.finished()) {
+        if (!out.isWritable()) {
+          out.ensureWritable(out.capacity());
+        }
+        deflate(out, Deflater.NO_FLUSH);
+      }
+      if (crc != null) {
+        out.writeIntLE((int) crc.getValue());
+        out.writeIntLE((int) deflater.getBytesRead());
+      }
+    }
+
+    void release() {
+      deflaterPool.release(deflater, encoding.nowrap);
+    }
+  }
+
+  private final CompressionConfig config;
+  private final CompressedVariantCache variants;
+  // http/1 requests are answered in the order they were read, pipelined requests share a stream id
+  private final ArrayDeque<Negotiation> h1Negotiated = new ArrayDeque<>();
+  private final IntObjectMap<Negotiation> negotiated = new IntObjectHashMap<>();
+  private final IntObjectMap<StreamCompressor> compressors = new IntObjectHashMap<>();
+
+  /** @param variants may be null to always compress inline */
+  public ResponseCompressor(CompressionConfig config, CompressedVariantCache variants) {
+    this.config = config;
+    this.variants = variants;
+  }
+
+  public ResponseCompressor(CompressionConfig config) {
+    this(config, null);
+  }
+
+  /**
+   * @return the preferred encoding acceptable to the client, gzip wins a tie, or null if the
+   *     client accepts neither gzip nor deflate
+   */
+  @VisibleForTesting
+  static Encoding negotiate(CharSequence acceptEncoding) {
+    if (acceptEncoding == null) {
+      return null;
+    }
+    float gzip = -1;
+    float deflate = -1;
+    float any = -1;
+    for (String part : COMMA_SPLITTER.split(acceptEncoding)) {
+      String coding = part;
+      float quality = 1;
+      int semicolon = part.indexOf(';');
+      if (semicolon != -1) {
+        coding = part.substring(0, semicolon);
+        quality = quality(part.substring(semicolon + 1));
+      }
+      switch (coding.trim().toLowerCase(Locale.ROOT)) {
+        case "gzip":
+        case "x-gzip":
+          gzip = quality;
+          break;
+        case "deflate":
+          deflate = quality;
+          break;
+        case "*":
+          any = quality;
+          break;
+        default:
+          break;
+      }
+    }
+    if (gzip == -1) {
+      gzip = any;
+    }
+    if (deflate == -1) {
+      deflate = any;
+    }
+    if (gzip > 0 && gzip >= deflate) {
+      return Encoding.GZIP;
+    } else if (deflate > 0) {
+      return Encoding.DEFLATE;
+    }
+    return null;
+  }
+
+  private static float quality(String parameter) {
+    String value = parameter.trim();
+    if (!value.startsWith("q=")) {
+      return 1;
+    }
+    try {
+      return Float.parseFloat(value.substring(2));
+    } catch (NumberFormatException e) {
+      return 0;
+    }
+  }
+
+  /** @param length of the body, or -1 if it isn't known up front */
+  private boolean isCompressible(HttpResponseStatus status, Headers headers, long length) {
+    int code = status.code();
+    // 206 bodies are ranges of the uncompressed representation
+    if (code < 200 || code == 204 || code == 206 || code == 304) {
+      return false;
+    }
+    if (headers.contains(HttpHeaderNames.CONTENT_ENCODING)) {
+      return false;
+    }
+    for (CharSequence cacheControl : headers.getAll(HttpHeaderNames.CACHE_CONTROL)) {
+      if (AsciiString.containsIgnoreCase(cacheControl, HttpHeaderValues.NO_TRANSFORM)) {
+        return false;
+      }
+    }
+    CharSequence contentType = headers.get(HttpHeaderNames.CONTENT_TYPE);
+    String type =
+        contentType == null
+            ? DEFAULT_CONTENT_TYPE
+            : contentType.toString().toLowerCase(Locale.ROOT);
+    if (config.contentTypes().stream().noneMatch(type::startsWith)) {
+      return false;
+    }
+    return length == -1 || (length > 0 && length >= config.minSize());
+  }
+
+  private boolean isCompressible(Response response) {
+    long length;
+    if (response instanceof FullResponse) {
+      ByteBuf body = response.body();
+      length = body == null ? 0 : body.readableBytes();
+    } else {
+      CharSequence contentLength = response.headers().get(HttpHeaderNames.CONTENT_LENGTH);
+      try {
+        length = contentLength == null ? -1 : Long.parseLong(contentLength.toString());
+      } catch (NumberFormatException e) {
+        return false;
+      }
+    }
+    return isCompressible(response.status(), response.headers(), length);
+  }
+
+  /**
+   * Lets handlers that write bodies this handler can't compress, like a file region, find out
+   * whether the response they are about to write on a stream would be compressed.
+   */
+  boolean willCompress(int streamId, HttpResponseStatus status, Headers headers, long length) {
+    Negotiation negotiation =
+        streamId == Message.H1_STREAM_ID_NONE ? h1Negotiated.peek() : negotiated.get(streamId);
+    return negotiation != null
+        && negotiation.encoding != null
+        && isCompressible(status, headers, length);
+  }
+
+  /** @return what was negotiated for the request the response answers, null for identity */
+  private Negotiation negotiation(Response response) {
+    int streamId = response.streamId();
+    // an interim response is followed by the final response to the same request
+    boolean last = response.status().code() >= 200;
+    Negotiation negotiation;
+    if (streamId == Message.H1_STREAM_ID_NONE) {
+      negotiation = last ? h1Negotiated.poll() : h1Negotiated.peek();
+    } else {
+      negotiation = last ? negotiated.remove(streamId) : negotiated.get(streamId);
+    }
+    return negotiation == null || negotiation.encoding == null ? null : negotiation;
+  }
+
+  private ByteBuf compress(ByteBufAllocator alloc, Encoding encoding, ByteBuf body) {
+    StreamCompressor compressor = new StreamCompressor(encoding);
+    try {
+      return compressor.compress(alloc, body, true);
+    } finally {
+      compressor.release();
+    }
+  }
+
+  /** @return the stored gzip variant of body, or null after offering body to the cache */
+  private ByteBuf storedVariant(Negotiation negotiation, Headers headers, ByteBuf body) {
+    if (variants == null
+        || negotiation.encoding != Encoding.GZIP
+        || !CompressedVariantCache.isCacheable(headers)) {
+      return null;
+    }
+    String key = CompressedVariantCache.key(negotiation.resource, headers);
+    byte[] variant = variants.get(key);
+    if (variant == null) {
+      variants.offer(key, body);
+      return null;
+    }
+    return Unpooled.wrappedBuffer(variant);
+  }
+
+  private static void weakenEtag(Headers headers) {
+    CharSequence etag = headers.get(HttpHeaderNames.ETAG);
+    if (etag != null && !AsciiString.regionMatches(etag, false, 0, "W/", 0, 2)) {
+      headers.set(HttpHeaderNames.ETAG, "W/" + etag);
+    }
+  }
+
+  private void releaseCompressor(int streamId) {
+    StreamCompressor compressor = compressors.remove(streamId);
+    if (compressor != null) {
+      compressor.release();
+    }
+  }
+
+  @Override
+  public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+    if (msg instanceof Request && ((Request) msg).startOfMessage()) {
+      Request request = (Request) msg;
+      Encoding encoding = null;
+      if (!HttpMethod.HEAD.equals(request.method())) {
+        encoding = negotiate(request.headers().get(HttpHeaderNames.ACCEPT_ENCODING));
+      }
+      Negotiation negotiation =
+          encoding == null
+              ? Negotiation.IDENTITY
+              : new Negotiation(encoding, request.host("") + request.path());
+      if (request.streamId() == Message.H1_STREAM_ID_NONE) {
+        h1Negotiated.add(negotiation);
+      } else {
+        negotiated.put(request.streamId(), negotiation);
+      }
+    }
+    ctx.fireChannelRead(msg);
+  }
+
+  private void writeResponse(ChannelHandlerContext ctx, Response response, ChannelPromise promise) {
+    int streamId = response.streamId();
+    Negotiation negotiation = negotiation(response);
+    // a new response means the previous one on this stream is over
+    releaseCompressor(streamId);
+    if (!isCompressible(response)) {
+      ctx.write(response, promise);
+      return;
+    }
+
+    Headers headers = response.headers();
+    if (headers
+        .getAll(HttpHeaderNames.VARY)
+        .stream()
+        .noneMatch(vary -> AsciiString.containsIgnoreCase(vary, HttpHeaderNames.ACCEPT_ENCODING))) {
+      headers.add(HttpHeaderNames.VARY, HttpHeaderNames.ACCEPT_ENCODING);
+    }
+    if (negotiation == null) {
+      ctx.write(response, promise);
+      return;
+    }
+    Encoding encoding = negotiation.encoding;
+    headers.set(HttpHeaderNames.CONTENT_ENCODING, encoding.value);
+    headers.remove(HttpHeaderNames.CONTENT_LENGTH);
+
+    if (response instanceof FullResponse) {
+      ByteBuf body = response.body();
+      ByteBuf compressed;
+      try {
+        // variants are keyed by the strong ETag of the identity response
+        compressed = storedVariant(negotiation, headers, body);
+        if (compressed == null) {
+          compressed = compress(ctx.alloc(), encoding, body);
+        }
+      } finally {
+        body.release();
+      }
+      weakenEtag(headers);
+      ctx.write(
+          DefaultFullResponse.builder()
+              .status(response.status())
+              .headers(headers)
+              .httpTraceInfo(response.httpTraceInfo())
+              .streamId(streamId)
+              .body(compressed)
+              .build(),
+          promise);
+    } else {
+      weakenEtag(headers);
+      compressors.put(streamId, new StreamCompressor(encoding));
+      ctx.write(response, promise);
+    }
+  }
+
+  private void writeContent(ChannelHandlerContext ctx, SegmentedData data, ChannelPromise promise) {
+    int streamId = data.streamId();
+    StreamCompressor compressor = compressors.get(streamId);
+    if (compressor == null) {
+      ctx.write(data, promise);
+      return;
+    }
+
+    ByteBuf content = data.content() == null ? Unpooled.EMPTY_BUFFER : data.content();
+    ByteBuf compressed;
+    try {
+      compressed = compressor.compress(ctx.alloc(), content, data.endOfMessage());
+    } finally {
+      content.release();
+      if (data.endOfMessage()) {
+        releaseCompressor(streamId);
+      }
+    }
+    ctx.write(
+        DefaultSegmentedData.builder()
+            .content(compressed)
+            .endOfMessage(data.endOfMessage())
+            .trailingHeaders(
+                data.trailingHeaders() == null ? new DefaultHeaders() : data.trailingHeaders())
+            .streamId(streamId)
+            .build(),
+        promise);
+  }
+
+  /**
+   * Compresses instances of Response and SegmentedData, all other types are forwarded to the next
+   * handler.
+   */
+  @Override
+  public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise)
+      throws Exception {
+    if (msg instanceof SegmentedData) {
+      writeContent(ctx, (SegmentedData) msg, promise);
+    } else if (msg instanceof Response) {
+      writeResponse(ctx, (Response) msg, promise);
+    } else {
+      ctx.write(msg, promise);
+    }
+  }
+
+  @Override
+  public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+    compressors.values().forEach(StreamCompressor::release);
+    compressors.clear();
+    h1Negotiated.clear();
+    negotiated.clear();
+  }
+}
@@ -0,0 +1,222 @@
+package com.xjeffrose.xio.http;
+
+import com.xjeffrose.xio.client.ClientConfig;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.util.AttributeKey;
+import io.netty.util.concurrent.ScheduledFuture;
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.BiPredicate;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Tracks a proxied request from its first message until the first response from the backend
+ * arrives, buffering the messages in a {@link ReplayBuffer} so that a failed attempt can be
+ * replayed to another backend after a backoff. An attempt fails when a write fails or when the
+ * backend connection closes before responding, the most common case of a retryable failure.
+ *
+ * <p>Write failures of every message of an attempt are reported, only the first one starts a
+ * retry, the rest are recognized as stale by the client they were written to. Messages that arrive
+ * from the frontend during the backoff are only buffered and are sent with the replay. Backend
+ * clients share the frontend event loop so none of this state needs to be synchronized.
+ */
+@Slf4j
+class RetriedRequest {
+
+  private static final AttributeKey<Map<Integer, RetriedRequest>> RETRIED_REQUESTS =
+      AttributeKey.newInstance("xio_retried_requests");
+
+  private static final ClosedChannelException BACKEND_CLOSED = new ClosedChannelException();
+
+  private final ChannelHandlerContext ctx;
+  private final RetryPolicy policy;
+  private final Request request;
+  private final ReplayBuffer replay;
+  // starts the next attempt, see ProxyHandler, false if the request can't be retried
+  private final BiPredicate<Client, Throwable> onFailure;
+  private ClientConfig clientConfig;
+  private Client client;
+  private int attempts;
+  private ScheduledFuture<?> backoff;
+
+  private RetriedRequest(
+      ChannelHandlerContext ctx,
+      RetryPolicy policy,
+      Request request,
+      ClientConfig clientConfig,
+      Client client,
+      BiPredicate<Client, Throwable> onFailure) {
+    this.ctx = ctx;
+    this.policy = policy;
+    this.request = request;
+    this.replay = new ReplayBuffer(policy.maxReplayBytes());
+    this.onFailure = onFailure;
+    this.clientConfig = clientConfig;
+    this.client = client;
+  }
+
+  private static Map<Integer, RetriedRequest> requests(ChannelHandlerContext ctx) {
+    Map<Integer, RetriedRequest> requests = ctx.channel().attr(RETRIED_REQUESTS).get();
+    if (requests == null) {
+      Map<Integer, RetriedRequest> created = new HashMap<>();
+      ctx.channel().attr(RETRIED_REQUESTS).set(created);
+      ctx.channel()
+          .closeFuture()
+          .addListener(
+              f -> {
+                created.values().forEach(RetriedRequest::release);
+                created.clear();
+              });
+      requests = created;
+    }
+    return requests;
+  }
+
+  /**
+   * Must be called before the first message of the request is written.
+   *
+   * @param request the proxied request that is about to be sent to the backend
+   * @param onFailure called with the failed client and the cause when the backend connection
+   *     closes before responding, returns false if the request couldn't be retried
+   */
+  static void start(
+      ChannelHandlerContext ctx,
+      RetryPolicy policy,
+      Request request,
+      ClientConfig clientConfig,
+      Client client,
+      BiPredicate<Client, Throwable> onFailure) {
+    RetriedRequest retry =
+        new RetriedRequest(ctx, policy, request, clientConfig, client, onFailure);
+    RetriedRequest previous = requests(ctx).put(request.streamId(), retry);
+    if (previous != null) {
+      previous.release();
+    }
+  }
+
+  static RetriedRequest get(ChannelHandlerContext ctx, int streamId) {
+    Map<Integer, RetriedRequest> requests = ctx.channel().attr(RETRIED_REQUESTS).get();
+    return requests == null ? null : requests.get(streamId);
+  }
+
+  /** @return true while some request on the frontend has not received a response */
+  static boolean hasPending(ChannelHandlerContext ctx) {
+    Map<Integer, RetriedRequest> requests = ctx.channel().attr(RETRIED_REQUESTS).get();
+    return requests != null && !requests.isEmpty();
+  }
+
+  /** Called for the first response to a request, the request can't be replayed any more. */
+  static void onResponse(ChannelHandlerContext ctx, int streamId) {
+    RetriedRequest retry = get(ctx, streamId);
+    if (retry != null) {
+      retry.remove();
+    }
+  }
+
+  /**
+   * Called when a backend connection of the frontend closed, retries every request that was sent
+   * to it and hasn't received a response.
+   *
+   * @return false if one of them couldn't be retried
+   */
+  static boolean onBackendClosed(ChannelHandlerContext ctx, Channel backend) {
+    Map<Integer, RetriedRequest> requests = ctx.channel().attr(RETRIED_REQUESTS).get();
+    if (requests == null) {
+      return true;
+    }
+    boolean retried = true;
+    // a request that can't be retried removes itself
+    for (RetriedRequest retry : new ArrayList<>(requests.values())) {
+      if (retry.backoff == null && retry.client.channel() == backend) {
+        retried &= retry.onFailure.test(retry.client, BACKEND_CLOSED);
+      }
+    }
+    return retried;
+  }
+
+  ClientConfig clientConfig() {
+    return clientConfig;
+  }
+
+  /** @return the client of the current attempt, the rest of the request is sent with it */
+  Client client() {
+    return client;
+  }
+
+  /**
+   * Buffers a message of the request, must be called before the message is written.
+   *
+   * @return false if the message should not be written because a retry is pending
+   */
+  boolean record(Request message) {
+    replay.add(message);
+    return backoff == null;
+  }
+
+  /** @return true if the failure was reported by an attempt that has already been given up */
+  boolean isStale(Client failed) {
+    return failed != client || backoff != null;
+  }
+
+  /**
+   * Checks the policy and takes a token from the retry budget.
+   *
+   * @param sent true if some of the request may have been written to the backend
+   */
+  boolean canRetry(boolean sent) {
+    return replay.isReplayable()
+        && policy.canRetry(request, attempts, sent)
+        && policy.budget().tryWithdraw();
+  }
+
+  /**
+   * Replays the request to {@code next} after the backoff with a client of its own, the client
+   * bound to the frontend channel is left alone. The rest of the request follows the replay, see
+   * {@link #client()}.
+   *
+   * @param sender writes a replayed message to the new client
+   */
+  void retry(ClientFactory factory, ClientConfig next, BiConsumer<Client, Request> sender) {
+    long delay = policy.backoffNanos(attempts);
+    attempts++;
+    clientConfig = next;
+    log.debug("retrying request {} to {} in {}ns", request, next.remote(), delay);
+    backoff =
+        ctx.executor()
+            .schedule(
+                () -> {
+                  backoff = null;
+                  if (!ctx.channel().isActive()) {
+                    return;
+                  }
+                  client = factory.createClient(ctx, next);
+                  for (Request message : replay.replay()) {
+                    sender.accept(client, message);
+                  }
+                },
+                delay,
+                TimeUnit.NANOSECONDS);
+  }
+
+  /** Gives up on the request. */
+  void remove() {
+    Map<Integer, RetriedRequest> requests = ctx.channel().attr(RETRIED_REQUESTS).get();
+    if (requests != null && requests.get(request.streamId()) == this) {
+      requests.remove(request.streamId());
+    }
+    release();
+  }
+
+  private void release() {
+    if (backoff != null) {
+      backoff.cancel(false);
+      backoff = null;
+    }
+    replay.release();
+  }
+}
@@ -0,0 +1,71 @@
+package com.xjeffrose.xio.http;
+
+import com.typesafe.config.Config;
+import java.time.Duration;
+import lombok.Getter;
+import lombok.experimental.Accessors;
+
+/**
+ * Per route retry settings, see proxyRouteTemplate.retry in reference.conf
+ *
+ * <pre>
+ * retry {
+ *   enabled = true
+ *   // maximum number of retries for a single request
+ *   maxRetries = 2
+ *   // base of the exponential backoff between attempts
+ *   backoff = 10milliseconds
+ *   // upper bound for the backoff between attempts
+ *   maxBackoff = 200milliseconds
+ *   // every request earns this fraction of a retry
+ *   budgetRatio = 0.1
+ *   // maximum number of retries that can be saved up
+ *   maxBudget = 10
+ *   // requests with a larger body are not buffered and can't be retried
+ *   maxReplayBytes = 64KiB
+ * }
+ * </pre>
+ */
+@Accessors(fluent = true)
+@Getter
+public class RetryConfig {
+
+  public static final RetryConfig DISABLED =
+      new RetryConfig(false, 0, Duration.ZERO, Duration.ZERO, 0, 0, 0);
+
+  private final boolean enabled;
+  private final int maxRetries;
+  private final Duration backoff;
+  private final Duration maxBackoff;
+  private final double budgetRatio;
+  private final int maxBudget;
+  private final int maxReplayBytes;
+
+  public RetryConfig(
+      boolean enabled,
+      int maxRetries,
+      Duration backoff,
+      Duration maxBackoff,
+      double budgetRatio,
+      int maxBudget,
+      int maxReplayBytes) {
+    this.enabled = enabled;
+    this.maxRetries = maxRetries;
+    this.backoff = backoff;
+    this.maxBackoff = maxBackoff;
+    this.budgetRatio = budgetRatio;
+    this.maxBudget = maxBudget;
+    this.maxReplayBytes = maxReplayBytes;
+  }
+
+  public RetryConfig(Config config) {
+    this(
+        config.getBoolean("enabled"),
+        config.getInt("maxRetries"),
+        config.getDuration("backoff"),
+        config.getDuration("maxBackoff"),
+        config.getDouble("budgetRatio"),
+        config.getInt("maxBudget"),
+        config.getBytes("maxReplayBytes").intValue());
+  }
+}
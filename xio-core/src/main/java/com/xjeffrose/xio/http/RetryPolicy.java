@@ -0,0 +1,53 @@
+package com.xjeffrose.xio.http;
+
+import java.util.concurrent.ThreadLocalRandom;
+import lombok.Getter;
+import lombok.experimental.Accessors;
+
+/**
+ * Per route retry state shared by every connection: which failed requests may be retried, how long
+ * to back off before the next attempt and how much retry budget is left.
+ *
+ * <p>The backoff follows xio-depr's ExponentialBackoffRetry, a random multiple of the base backoff
+ * that doubles in range with every attempt, but is scheduled on the event loop instead of sleeping.
+ */
+@Accessors(fluent = true)
+public class RetryPolicy {
+
+  // keeps the random range within an int
+  private static final int MAX_SHIFT = 29;
+
+  private final RetryConfig config;
+  @Getter private final RequestBudget budget;
+
+  public RetryPolicy(RetryConfig config) {
+    this.config = config;
+    this.budget = new RequestBudget(config.budgetRatio(), config.maxBudget());
+  }
+
+  public int maxReplayBytes() {
+    return config.maxReplayBytes();
+  }
+
+  /**
+   * A request that never reached the backend can always be retried, one that may have been
+   * (partially) sent only if it is idempotent.
+   *
+   * @param attempts the number of retries that were already made for the request
+   * @param sent true if some of the request may have been written to the backend
+   */
+  public boolean canRetry(Request request, int attempts, boolean sent) {
+    if (attempts >= config.maxRetries()) {
+      return false;
+    }
+    return !sent || HedgePolicy.isIdempotent(request.method());
+  }
+
+  /** @param attempts the number of retries that were already made for the request */
+  public long backoffNanos(int attempts) {
+    int shift = Math.min(attempts + 1, MAX_SHIFT);
+    long backoff =
+        config.backoff().toNanos() * Math.max(1, ThreadLocalRandom.current().nextInt(1 << shift));
+    return Math.min(config.maxBackoff().toNanos(), backoff);
+  }
+}
@@ -0,0 +1,150 @@
+package com.xjeffrose.xio.http;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.DefaultFileRegion;
+import io.netty.util.AbstractReferenceCounted;
+import io.netty.util.IllegalReferenceCountException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Bounded cache of open files for {@link StaticFileHandler}, shared by all connections. Files up to
+ * maxMappedFileSize are mapped into memory once, larger files keep only their descriptor open and
+ * are mapped chunk by chunk. Entries are weighed by their mapped size, or a page for larger files,
+ * against cacheSize and the least recently used are closed first.
+ *
+ * <p>A file is validated against its size and modification time on every lookup and reopened when
+ * it changed. Cached files are reference counted, in flight responses keep their file open after it
+ * was evicted or replaced.
+ */
+@Slf4j
+public class StaticFileCache {
+
+  private static final int PAGE_SIZE = 4096;
+
+  static final class CachedFile extends AbstractReferenceCounted {
+    final Path path;
+    final FileChannel channel;
+    final long size;
+    final long lastModified;
+    final String etag;
+    private final boolean mappable;
+    private MappedByteBuffer mapped;
+
+    CachedFile(Path path, FileChannel channel, BasicFileAttributes attributes, int maxMapped) {
+      this.path = path;
+      this.channel = channel;
+      size = attributes.size();
+      lastModified = attributes.lastModifiedTime().toMillis();
+      etag = "\"" + Long.toHexString(lastModified) + "-" + Long.toHexString(size) + "\"";
+      mappable = size <= maxMapped;
+    }
+
+    boolean isCurrent(BasicFileAttributes attributes) {
+      return size == attributes.size()
+          && lastModified == attributes.lastModifiedTime().toMillis();
+    }
+
+    int weight() {
+      return mappable ? (int) Math.max(size, PAGE_SIZE) : PAGE_SIZE;
+    }
+
+    /**
+     * @return length bytes of the file starting at position, backed by the mapped file. Releasing
+     *     the buffer doesn't unmap the file, mappings are unmapped once they are unreachable.
+     */
+    synchronized ByteBuf slice(long position, int length) throws IOException {
+      if (!mappable) {
+        return Unpooled.wrappedBuffer(channel.map(FileChannel.MapMode.READ_ONLY, position, length));
+      }
+      if (mapped == null) {
+        mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+      }
+      ByteBuffer slice = mapped.duplicate();
+      slice.position((int) position).limit((int) position + length);
+      return Unpooled.wrappedBuffer(slice.slice());
+    }
+
+    /** @return a region sent with sendfile, it keeps the file open until it is released */
+    DefaultFileRegion region(long position, long count) {
+      retain();
+      return new DefaultFileRegion(channel, position, count) {
+        @Override
+        protected void deallocate() {
+          // the descriptor is shared, it is closed once the cached file is released
+          CachedFile.this.release();
+        }
+      };
+    }
+
+    @Override
+    protected void deallocate() {
+      try {
+        channel.close();
+      } catch (IOException e) {
+        log.warn("Couldn't close {}", path, e);
+      }
+    }
+
+    @Override
+    public CachedFile retain() {
+      super.retain();
+      return this;
+    }
+
+    @Override
+    public CachedFile touch(Object hint) {
+      return this;
+    }
+  }
+
+  private final int maxMappedFileSize;
+  private final Cache<Path, CachedFile> files;
+
+  public StaticFileCache(StaticFileConfig config) {
+    maxMappedFileSize = config.maxMappedFileSize();
+    files =
+        CacheBuilder.newBuilder()
+            .maximumWeight(config.cacheSize())
+            .weigher((Path path, CachedFile file) -> file.weight())
+            .<Path, CachedFile>removalListener(notification -> notification.getValue().release())
+            .build();
+  }
+
+  /**
+   * @return the regular file at path, retained for the caller who has to release it
+   * @throws NoSuchFileException if there is no regular file at path
+   */
+  CachedFile open(Path path) throws IOException {
+    BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+    if (!attributes.isRegularFile()) {
+      throw new NoSuchFileException(path.toString());
+    }
+    CachedFile cached = files.getIfPresent(path);
+    if (cached != null && cached.isCurrent(attributes)) {
+      try {
+        return cached.retain();
+      } catch (IllegalReferenceCountException e) {
+        // evicted and closed since the lookup, open it again
+      }
+    }
+    CachedFile opened =
+        new CachedFile(
+            path, FileChannel.open(path, StandardOpenOption.READ), attributes, maxMappedFileSize);
+    opened.retain();
+    // a replaced entry is released by the removal listener
+    files.put(path, opened);
+    return opened;
+  }
+}
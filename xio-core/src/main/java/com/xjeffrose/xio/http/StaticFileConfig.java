@@ -0,0 +1,27 @@
+package com.xjeffrose.xio.http;
+
+import com.typesafe.config.Config;
+import lombok.Getter;
+import lombok.experimental.Accessors;
+
+/** Settings for {@link StaticFileHandler}, see staticFileTemplate in reference.conf */
+@Accessors(fluent = true)
+@Getter
+public class StaticFileConfig {
+
+  private final String root;
+  private final String indexFile;
+  private final String cacheControl;
+  private final int chunkSize;
+  private final int maxMappedFileSize;
+  private final long cacheSize;
+
+  public StaticFileConfig(Config config) {
+    root = config.getString("root");
+    indexFile = config.getString("indexFile");
+    cacheControl = config.getString("cacheControl");
+    chunkSize = (int) config.getBytes("chunkSize").longValue();
+    maxMappedFileSize = (int) config.getBytes("maxMappedFileSize").longValue();
+    cacheSize = config.getBytes("cacheSize");
+  }
+}
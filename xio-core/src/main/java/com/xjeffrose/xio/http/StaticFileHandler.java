@@ -0,0 +1,366 @@
+package com.xjeffrose.xio.http;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableMap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.DateFormatter;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.QueryStringDecoder;
+import io.netty.handler.ssl.SslHandler;
+import java.io.IOException;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.InvalidPathException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Date;
+import java.util.Locale;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Serves the files below a root directory for GET and HEAD requests. The file is named by the
+ * {@value #PATH_KEYWORD} keyword of the route (e.g. "/static/:*path"), or by the whole request path
+ * when the route has no such keyword.
+ *
+ * <p>Cleartext http/1.1 responses are sent with sendfile. Over tls and h2 the file is written as
+ * chunks of its memory mapping, the next chunk once the previous one was written. Responses that
+ * the {@link ResponseCompressor} in the pipeline will compress are written from the mapping as
+ * well, as a single buffer when the file is small enough to stay mapped, so that it can serve a
+ * stored variant. Single byte ranges, If-Range, If-None-Match and If-Modified-Since are supported,
+ * the ETag is derived from the modification time and size of the file. Open files are kept in a
+ * {@link StaticFileCache}.
+ */
+@Slf4j
+public class StaticFileHandler implements PipelineRequestHandler {
+
+  public static final String PATH_KEYWORD = "path";
+
+  private static final String DEFAULT_CONTENT_TYPE = "application/octet-stream";
+  private static final ImmutableMap<String, String> CONTENT_TYPES =
+      ImmutableMap.<String, String>builder()
+          .put("css", "text/css; charset=UTF-8")
+          .put("csv", "text/csv; charset=UTF-8")
+          .put("gif", "image/gif")
+          .put("gz", "application/gzip")
+          .put("htm", "text/html; charset=UTF-8")
+          .put("html", "text/html; charset=UTF-8")
+          .put("ico", "image/x-icon")
+          .put("jpeg", "image/jpeg")
+          .put("jpg", "image/jpeg")
+          .put("js", "application/javascript; charset=UTF-8")
+          .put("json", "application/json")
+          .put("map", "application/json")
+          .put("mp4", "video/mp4")
+          .put("pdf", "application/pdf")
+          .put("png", "image/png")
+          .put("svg", "image/svg+xml")
+          .put("txt", "text/plain; charset=UTF-8")
+          .put("wasm", "application/wasm")
+          .put("webp", "image/webp")
+          .put("woff", "font/woff")
+          .put("woff2", "font/woff2")
+          .put("xml", "application/xml")
+          .put("zip", "application/zip")
+          .build();
+
+  private final StaticFileConfig config;
+  private final StaticFileCache cache;
+  private final Path root;
+
+  public StaticFileHandler(StaticFileConfig config, StaticFileCache cache) {
+    this.config = config;
+    this.cache = cache;
+    root = Paths.get(config.root()).toAbsolutePath().normalize();
+  }
+
+  public StaticFileHandler(StaticFileConfig config) {
+    this(config, new StaticFileCache(config));
+  }
+
+  @VisibleForTesting
+  static String contentType(Path path) {
+    String name = path.getFileName().toString();
+    int dot = name.lastIndexOf('.');
+    if (dot == -1) {
+      return DEFAULT_CONTENT_TYPE;
+    }
+    return CONTENT_TYPES.getOrDefault(
+        name.substring(dot + 1).toLowerCase(Locale.ROOT), DEFAULT_CONTENT_TYPE);
+  }
+
+  /** @return the file named by the request, or null if it is outside of root */
+  private Path resolve(Request request, RouteState route) {
+    String path = new QueryStringDecoder(request.path()).path();
+    String relative = route == null ? null : route.route().groups(path).get(PATH_KEYWORD);
+    if (relative == null) {
+      relative = path;
+    }
+    try {
+      Path resolved = root.resolve(relative.replaceFirst("^/+", "")).normalize();
+      if (!resolved.startsWith(root)) {
+        return null;
+      }
+      if (resolved.toFile().isDirectory()) {
+        resolved = resolved.resolve(config.indexFile());
+      }
+      return resolved;
+    } catch (InvalidPathException e) {
+      return null;
+    }
+  }
+
+  private static boolean matches(CharSequence condition, String etag) {
+    for (String candidate : condition.toString().split(",")) {
+      String value = candidate.trim();
+      // If-None-Match uses the weak comparison
+      if (value.equals("*") || value.equals(etag) || value.equals("W/" + etag)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static boolean isNotModified(Request request, StaticFileCache.CachedFile file) {
+    CharSequence ifNoneMatch = request.headers().get(HttpHeaderNames.IF_NONE_MATCH);
+    if (ifNoneMatch != null) {
+      return matches(ifNoneMatch, file.etag);
+    }
+    CharSequence ifModifiedSince = request.headers().get(HttpHeaderNames.IF_MODIFIED_SINCE);
+    if (ifModifiedSince != null) {
+      Date date = DateFormatter.parseHttpDate(ifModifiedSince);
+      return date != null && file.lastModified / 1000 <= date.getTime() / 1000;
+    }
+    return false;
+  }
+
+  /** @return true if the range may be served, If-Range uses the strong comparison */
+  private static boolean isRangeCurrent(Request request, StaticFileCache.CachedFile file) {
+    CharSequence ifRange = request.headers().get(HttpHeaderNames.IF_RANGE);
+    if (ifRange == null) {
+      return true;
+    }
+    if (ifRange.toString().equals(file.etag)) {
+      return true;
+    }
+    Date date = DateFormatter.parseHttpDate(ifRange);
+    return date != null && file.lastModified / 1000 == date.getTime() / 1000;
+  }
+
+  /**
+   * Parses a single byte range, multiple ranges aren't supported and are served as a whole.
+   *
+   * @return the first and last byte of the range, an empty array if the range can't be satisfied,
+   *     or null to ignore the header
+   */
+  @VisibleForTesting
+  static long[] parseRange(CharSequence header, long size) {
+    String value = header.toString().trim();
+    if (!value.startsWith("bytes=") || value.indexOf(',') != -1) {
+      return null;
+    }
+    String range = value.substring("bytes=".length()).trim();
+    int dash = range.indexOf('-');
+    if (dash == -1) {
+      return null;
+    }
+    try {
+      long first;
+      long last;
+      if (dash == 0) {
+        long suffix = Long.parseLong(range.substring(1));
+        if (suffix <= 0 || size == 0) {
+          return new long[0];
+        }
+        first = Math.max(0, size - suffix);
+        last = size - 1;
+      } else {
+        first = Long.parseLong(range.substring(0, dash));
+        last = dash == range.length() - 1 ? size - 1 : Long.parseLong(range.substring(dash + 1));
+        if (last < first) {
+          return null;
+        }
+        if (first >= size) {
+          return new long[0];
+        }
+        last = Math.min(last, size - 1);
+      }
+      return new long[] {first, last};
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+
+  private static Response newResponse(
+      Request request, HttpResponseStatus status, Headers headers, ByteBuf body) {
+    return DefaultFullResponse.builder()
+        .status(status)
+        .headers(headers)
+        .httpTraceInfo(request.httpTraceInfo())
+        .streamId(request.streamId())
+        .body(body)
+        .build();
+  }
+
+  private static Response newResponse(Request request, HttpResponseStatus status) {
+    return newResponse(request, status, new DefaultHeaders(), Unpooled.EMPTY_BUFFER);
+  }
+
+  @Override
+  public void handle(ChannelHandlerContext ctx, Request request, RouteState route) {
+    if (!request.endOfMessage()) {
+      return;
+    }
+    if (!HttpMethod.GET.equals(request.method()) && !HttpMethod.HEAD.equals(request.method())) {
+      Response response = newResponse(request, HttpResponseStatus.METHOD_NOT_ALLOWED);
+      response.headers().set(HttpHeaderNames.ALLOW, "GET, HEAD");
+      ctx.writeAndFlush(response);
+      return;
+    }
+    Path path = resolve(request, route);
+    if (path == null) {
+      ctx.writeAndFlush(ResponseBuilders.newNotFound(request));
+      return;
+    }
+
+    StaticFileCache.CachedFile file;
+    try {
+      file = cache.open(path);
+    } catch (NoSuchFileException | AccessDeniedException e) {
+      ctx.writeAndFlush(ResponseBuilders.newNotFound(request));
+      return;
+    } catch (IOException e) {
+      log.error("Couldn't open {}", path, e);
+      ctx.writeAndFlush(newResponse(request, HttpResponseStatus.INTERNAL_SERVER_ERROR));
+      return;
+    }
+    try {
+      serve(ctx, request, file);
+    } catch (IOException e) {
+      log.error("Couldn't map {}", path, e);
+      ctx.writeAndFlush(newResponse(request, HttpResponseStatus.INTERNAL_SERVER_ERROR));
+    } finally {
+      file.release();
+    }
+  }
+
+  private void serve(ChannelHandlerContext ctx, Request request, StaticFileCache.CachedFile file)
+      throws IOException {
+    Headers headers = new DefaultHeaders();
+    headers.set(HttpHeaderNames.ETAG, file.etag);
+    headers.set(HttpHeaderNames.LAST_MODIFIED, DateFormatter.format(new Date(file.lastModified)));
+    headers.set(HttpHeaderNames.ACCEPT_RANGES, HttpHeaderValues.BYTES);
+    if (!config.cacheControl().isEmpty()) {
+      headers.set(HttpHeaderNames.CACHE_CONTROL, config.cacheControl());
+    }
+    if (isNotModified(request, file)) {
+      ctx.writeAndFlush(
+          newResponse(request, HttpResponseStatus.NOT_MODIFIED, headers, Unpooled.EMPTY_BUFFER));
+      return;
+    }
+
+    HttpResponseStatus status = HttpResponseStatus.OK;
+    long first = 0;
+    long last = file.size - 1;
+    CharSequence rangeHeader = request.headers().get(HttpHeaderNames.RANGE);
+    if (rangeHeader != null && isRangeCurrent(request, file)) {
+      long[] range = parseRange(rangeHeader, file.size);
+      if (range != null && range.length == 0) {
+        headers.set(HttpHeaderNames.CONTENT_RANGE, "bytes */" + file.size);
+        ctx.writeAndFlush(
+            newResponse(
+                request,
+                HttpResponseStatus.REQUESTED_RANGE_NOT_SATISFIABLE,
+                headers,
+                Unpooled.EMPTY_BUFFER));
+        return;
+      } else if (range != null) {
+        status = HttpResponseStatus.PARTIAL_CONTENT;
+        first = range[0];
+        last = range[1];
+        headers.set(HttpHeaderNames.CONTENT_RANGE, "bytes " + first + "-" + last + "/" + file.size);
+      }
+    }
+    long length = last - first + 1;
+    headers.set(HttpHeaderNames.CONTENT_TYPE, contentType(file.path));
+    headers.set(HttpHeaderNames.CONTENT_LENGTH, Long.toString(length));
+
+    if (HttpMethod.HEAD.equals(request.method()) || length == 0) {
+      ctx.writeAndFlush(newResponse(request, status, headers, Unpooled.EMPTY_BUFFER));
+      return;
+    }
+
+    ResponseCompressor compressor = ctx.pipeline().get(ResponseCompressor.class);
+    boolean compressed =
+        compressor != null && compressor.willCompress(request.streamId(), status, headers, length);
+    if (compressed && length <= config.maxMappedFileSize()) {
+      ctx.writeAndFlush(newResponse(request, status, headers, file.slice(first, (int) length)));
+      return;
+    }
+
+    Response head =
+        DefaultSegmentedResponse.builder()
+            .status(status)
+            .headers(headers)
+            .httpTraceInfo(request.httpTraceInfo())
+            .streamId(request.streamId())
+            .build();
+    ctx.write(head);
+    boolean sendfile =
+        !compressed
+            && request.streamId() == Message.H1_STREAM_ID_NONE
+            && ctx.pipeline().get(SslHandler.class) == null;
+    if (sendfile) {
+      ctx.write(file.region(first, length));
+      ctx.writeAndFlush(newData(head, Unpooled.EMPTY_BUFFER, true));
+    } else {
+      writeChunk(ctx, head, file.retain(), first, length);
+    }
+  }
+
+  /** The stages between the application and the codec only track the end of a Response. */
+  private static SegmentedResponseData newData(Response head, ByteBuf content, boolean last) {
+    return new SegmentedResponseData(
+        head,
+        DefaultSegmentedData.builder()
+            .content(content)
+            .endOfMessage(last)
+            .streamId(head.streamId())
+            .build());
+  }
+
+  /** Writes the next chunk once the previous one was written, file is released at the end. */
+  private void writeChunk(
+      ChannelHandlerContext ctx,
+      Response head,
+      StaticFileCache.CachedFile file,
+      long position,
+      long remaining) {
+    int length = (int) Math.min(config.chunkSize(), remaining);
+    ByteBuf chunk;
+    try {
+      chunk = file.slice(position, length);
+    } catch (IOException e) {
+      log.error("Couldn't map {}", file.path, e);
+      file.release();
+      ctx.close();
+      return;
+    }
+    boolean last = length == remaining;
+    ctx.writeAndFlush(newData(head, chunk, last))
+        .addListener(
+            (ChannelFutureListener)
+                future -> {
+                  if (last || !future.isSuccess()) {
+                    file.release();
+                  } else {
+                    writeChunk(ctx, head, file, position + length, remaining - length);
+                  }
+                });
+  }
+}
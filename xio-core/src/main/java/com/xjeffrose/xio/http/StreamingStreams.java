@@ -0,0 +1,115 @@
+package com.xjeffrose.xio.http;
+
+import com.xjeffrose.xio.core.XioIdleDisconnectHandler;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.util.AttributeKey;
+import io.netty.util.collection.IntObjectHashMap;
+import io.netty.util.collection.IntObjectMap;
+import java.util.ArrayList;
+import java.util.List;
+import javax.annotation.Nullable;
+
+/**
+ * Tracks the open streams of streaming proxy routes on a frontend channel. A stream is open from
+ * its first request message until the last message of its response has been forwarded, the stream
+ * is reset or abandoned, or either connection closes. While any stream is open neither the frontend
+ * nor the backend connection is disconnected for being idle. Backend clients share the frontend
+ * event loop so none of this state needs to be synchronized.
+ */
+final class StreamingStreams {
+
+  private static final AttributeKey<IntObjectMap<Channel>> STREAMING_STREAMS =
+      AttributeKey.newInstance("xio_streaming_streams");
+
+  private StreamingStreams() {}
+
+  private static IntObjectMap<Channel> streams(ChannelHandlerContext frontend) {
+    IntObjectMap<Channel> streams = frontend.channel().attr(STREAMING_STREAMS).get();
+    if (streams == null) {
+      IntObjectMap<Channel> created = new IntObjectHashMap<>();
+      frontend.channel().attr(STREAMING_STREAMS).set(created);
+      frontend
+          .channel()
+          .closeFuture()
+          .addListener(
+              f -> {
+                for (Channel backend : created.values()) {
+                  if (backend != null) {
+                    XioIdleDisconnectHandler.endLongLivedStream(backend);
+                  }
+                }
+                created.clear();
+              });
+      streams = created;
+    }
+    return streams;
+  }
+
+  /**
+   * Must be called before the first message of the request is written.
+   *
+   * @param backend the channel the stream is proxied to, null if it is not known yet
+   */
+  static void start(ChannelHandlerContext frontend, int streamId, @Nullable Channel backend) {
+    IntObjectMap<Channel> streams = streams(frontend);
+    if (streams.containsKey(streamId)) {
+      end(frontend, streamId);
+    }
+    streams.put(streamId, backend);
+    XioIdleDisconnectHandler.startLongLivedStream(frontend.channel());
+    if (backend != null) {
+      XioIdleDisconnectHandler.startLongLivedStream(backend);
+    }
+  }
+
+  /** @return true from the start of the stream until it is ended */
+  static boolean isOpen(ChannelHandlerContext frontend, int streamId) {
+    IntObjectMap<Channel> streams = frontend.channel().attr(STREAMING_STREAMS).get();
+    return streams != null && streams.containsKey(streamId);
+  }
+
+  /**
+   * Called once the last message of the response has been forwarded or the request was abandoned,
+   * ignores unknown streams.
+   */
+  static void end(ChannelHandlerContext frontend, int streamId) {
+    IntObjectMap<Channel> streams = frontend.channel().attr(STREAMING_STREAMS).get();
+    if (streams == null || !streams.containsKey(streamId)) {
+      return;
+    }
+    Channel backend = streams.remove(streamId);
+    XioIdleDisconnectHandler.endLongLivedStream(frontend.channel());
+    if (backend != null) {
+      XioIdleDisconnectHandler.endLongLivedStream(backend);
+    }
+  }
+
+  /** Called when the client reset the stream, resets the backend stream it is proxied to. */
+  static void reset(ChannelHandlerContext frontend, int streamId) {
+    IntObjectMap<Channel> streams = frontend.channel().attr(STREAMING_STREAMS).get();
+    if (streams == null || !streams.containsKey(streamId)) {
+      return;
+    }
+    Channel backend = streams.get(streamId);
+    end(frontend, streamId);
+    if (backend != null) {
+      Client.abandon(backend, streamId);
+    }
+  }
+
+  /** Called when a backend connection of the frontend closed, ends the streams proxied to it. */
+  static void onBackendClosed(ChannelHandlerContext frontend, Channel backend) {
+    IntObjectMap<Channel> streams = frontend.channel().attr(STREAMING_STREAMS).get();
+    if (streams == null) {
+      return;
+    }
+    List<Integer> closed = new ArrayList<>();
+    for (IntObjectMap.PrimitiveEntry<Channel> entry : streams.entries()) {
+      if (entry.value() == backend) {
+        closed.add(entry.key());
+      }
+    }
+    closed.forEach(streamId -> end(frontend, streamId));
+  }
+}
@@ -0,0 +1,50 @@
+package com.xjeffrose.xio.http;
+
+import com.typesafe.config.Config;
+import java.time.Duration;
+import lombok.Getter;
+import lombok.experimental.Accessors;
+
+/**
+ * Per route proxy timeouts, see proxyRouteTemplate.timeouts in reference.conf. A zero duration
+ * disables the timeout.
+ *
+ * <pre>
+ * timeouts {
+ *   // time until the request headers have been written to the backend
+ *   connect = 1second
+ *   // time until the response headers have arrived from the backend
+ *   firstByte = 5seconds
+ *   // time until the whole response has arrived from the backend
+ *   total = 30seconds
+ * }
+ * </pre>
+ */
+@Accessors(fluent = true)
+@Getter
+public class TimeoutConfig {
+
+  public static final TimeoutConfig DISABLED =
+      new TimeoutConfig(Duration.ZERO, Duration.ZERO, Duration.ZERO);
+
+  private final Duration connect;
+  private final Duration firstByte;
+  private final Duration total;
+
+  public TimeoutConfig(Duration connect, Duration firstByte, Duration total) {
+    this.connect = connect;
+    this.firstByte = firstByte;
+    this.total = total;
+  }
+
+  public TimeoutConfig(Config config) {
+    this(
+        config.getDuration("connect"),
+        config.getDuration("firstByte"),
+        config.getDuration("total"));
+  }
+
+  public boolean enabled() {
+    return !connect.isZero() || !firstByte.isZero() || !total.isZero();
+  }
+}
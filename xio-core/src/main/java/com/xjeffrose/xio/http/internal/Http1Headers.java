@@ -585,6 +585,10 @@ public class Http1Headers implements Headers {
     return before != delegate.size();
   }
 
+  /**
+   * Return the underlying HttpHeaders object itself, h1 to h1 forwarding never copies headers.
+   * Changes to the returned object are changes to this object.
+   */
   @Override
   public HttpHeaders http1Headers(boolean isTrailer, boolean isRequest) {
     return delegate;
@@ -582,6 +582,15 @@ public class Http2HeadersWrapper implements Headers {
     return delegate.size();
   }
 
+  /**
+   * Return the underlying Http2Headers object itself, h2 to h2 forwarding never copies headers.
+   * Changes to the returned object are changes to this object.
+   */
+  @Override
+  public Http2Headers http2Headers() {
+    return delegate;
+  }
+
   /** Return an Http1 Headers object based on the values in the underlying Http2Headers object. */
   @Override
   public HttpHeaders http1Headers(boolean isTrailer, boolean isRequest) {
@@ -1,5 +1,7 @@
 package com.xjeffrose.xio.marshall;
 
+import java.util.List;
+
 public interface Marshallable {
 
   public String keyName();
@@ -7,4 +9,7 @@ public interface Marshallable {
   public byte[] getBytes(Marshaller marshaller);
 
   public void putBytes(Unmarshaller unmarshaller, byte[] data);
+
+  /** Applies a delta of the changelog, as written by {@link Marshaller#marshall(List)}. */
+  public void putUpdates(Unmarshaller unmarshaller, byte[] data);
 }
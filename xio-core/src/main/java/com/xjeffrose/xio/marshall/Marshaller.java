@@ -3,6 +3,8 @@ package com.xjeffrose.xio.marshall;
 import com.xjeffrose.xio.config.HostnameDeterministicRuleEngineConfig;
 import com.xjeffrose.xio.config.Http1DeterministicRuleEngineConfig;
 import com.xjeffrose.xio.config.IpAddressDeterministicRuleEngineConfig;
+import com.xjeffrose.xio.config.UpdateMessage;
+import java.util.List;
 
 public interface Marshaller {
 
@@ -11,4 +13,7 @@ public interface Marshaller {
   public byte[] marshall(Http1DeterministicRuleEngineConfig config);
 
   public byte[] marshall(IpAddressDeterministicRuleEngineConfig config);
+
+  /** Encodes the updates of a changelog delta. */
+  public byte[] marshall(List<UpdateMessage> updates);
 }
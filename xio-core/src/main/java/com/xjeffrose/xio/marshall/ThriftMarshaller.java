@@ -4,6 +4,8 @@ import com.google.common.collect.HashMultimap;
 import com.xjeffrose.xio.config.HostnameDeterministicRuleEngineConfig;
 import com.xjeffrose.xio.config.Http1DeterministicRuleEngineConfig;
 import com.xjeffrose.xio.config.IpAddressDeterministicRuleEngineConfig;
+import com.xjeffrose.xio.config.UpdateMessage;
+import com.xjeffrose.xio.config.UpdateType;
 import com.xjeffrose.xio.marshall.thrift.HostnameRuleset;
 import com.xjeffrose.xio.marshall.thrift.Http1HeaderTuple;
 import com.xjeffrose.xio.marshall.thrift.Http1Method;
@@ -16,15 +18,25 @@ import io.netty.handler.codec.http.HttpVersion;
 import java.net.InetAddress;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import org.apache.thrift.TBase;
 import org.apache.thrift.TException;
 import org.apache.thrift.TSerializer;
 import org.apache.thrift.protocol.TCompactProtocol;
+import org.apache.thrift.protocol.TProtocol;
+import org.apache.thrift.transport.TMemoryBuffer;
 
 public class ThriftMarshaller implements Marshaller {
 
+  // a changelog delta is the number of updates followed by each update's type, rule type, and
+  // either the address of an ip rule or the Http1Rule struct of an http1 rule
+  static final byte ADD = 0;
+  static final byte REMOVE = 1;
+  static final byte IP_RULE = 0;
+  static final byte HTTP1_RULE = 1;
+
   TSerializer serializer;
 
   private byte[] serialize(TBase<?, ?> message) {
@@ -145,4 +157,27 @@ public class ThriftMarshaller implements Marshaller {
 
     return serialize(message);
   }
+
+  public byte[] marshall(List<UpdateMessage> updates) {
+    TMemoryBuffer buffer = new TMemoryBuffer(32 * (updates.size() + 1));
+    TProtocol protocol = new TCompactProtocol(buffer);
+    try {
+      protocol.writeI32(updates.size());
+      for (UpdateMessage update : updates) {
+        protocol.writeByte(update.getUpdateType() == UpdateType.Add ? ADD : REMOVE);
+        protocol.writeI32(update.getRuleType().getValue());
+        if (update instanceof UpdateMessage.IpRuleUpdate) {
+          InetAddress address = ((UpdateMessage.IpRuleUpdate) update).getAddress();
+          protocol.writeByte(IP_RULE);
+          protocol.writeBinary(ByteBuffer.wrap(address.getAddress()));
+        } else {
+          protocol.writeByte(HTTP1_RULE);
+          build(((UpdateMessage.Http1RuleUpdate) update).getHttp1Rule()).write(protocol);
+        }
+      }
+    } catch (TException e) {
+      throw new RuntimeException(e);
+    }
+    return Arrays.copyOf(buffer.getArray(), buffer.length());
+  }
 }
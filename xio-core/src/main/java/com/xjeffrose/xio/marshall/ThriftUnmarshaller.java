@@ -4,6 +4,8 @@ import com.google.common.collect.HashMultimap;
 import com.xjeffrose.xio.config.HostnameDeterministicRuleEngineConfig;
 import com.xjeffrose.xio.config.Http1DeterministicRuleEngineConfig;
 import com.xjeffrose.xio.config.IpAddressDeterministicRuleEngineConfig;
+import com.xjeffrose.xio.config.UpdateMessage;
+import com.xjeffrose.xio.config.thrift.RuleType;
 import com.xjeffrose.xio.marshall.thrift.HostnameRuleset;
 import com.xjeffrose.xio.marshall.thrift.Http1HeaderTuple;
 import com.xjeffrose.xio.marshall.thrift.Http1Method;
@@ -21,6 +23,8 @@ import org.apache.thrift.TBase;
 import org.apache.thrift.TDeserializer;
 import org.apache.thrift.TException;
 import org.apache.thrift.protocol.TCompactProtocol;
+import org.apache.thrift.protocol.TProtocol;
+import org.apache.thrift.transport.TMemoryInputTransport;
 
 public class ThriftUnmarshaller implements Unmarshaller {
 
@@ -148,4 +152,37 @@ public class ThriftUnmarshaller implements Unmarshaller {
       throw new RuntimeException(e);
     }
   }
+
+  public void unmarshall(List<UpdateMessage> updates, byte[] data) {
+    TProtocol protocol = new TCompactProtocol(new TMemoryInputTransport(data));
+    try {
+      int size = protocol.readI32();
+      for (int i = 0; i < size; i++) {
+        boolean add = protocol.readByte() == ThriftMarshaller.ADD;
+        RuleType ruleType = RuleType.findByValue(protocol.readI32());
+        byte kind = protocol.readByte();
+        if (kind == ThriftMarshaller.IP_RULE) {
+          InetAddress address = InetAddress.getByAddress(getBytes(protocol.readBinary()));
+          if (add) {
+            updates.add(UpdateMessage.addIpRule(address, ruleType));
+          } else {
+            updates.add(UpdateMessage.removeIpRule(address));
+          }
+        } else if (kind == ThriftMarshaller.HTTP1_RULE) {
+          Http1Rule message = new Http1Rule();
+          message.read(protocol);
+          Http1DeterministicRuleEngineConfig.Rule rule = build(message);
+          if (add) {
+            updates.add(UpdateMessage.addHttp1Rule(rule, ruleType));
+          } else {
+            updates.add(UpdateMessage.removeHttp1Rule(rule));
+          }
+        } else {
+          throw new IllegalStateException("unknown rule kind " + kind);
+        }
+      }
+    } catch (TException | UnknownHostException e) {
+      throw new RuntimeException(e);
+    }
+  }
 }
@@ -3,6 +3,8 @@ package com.xjeffrose.xio.marshall;
 import com.xjeffrose.xio.config.HostnameDeterministicRuleEngineConfig;
 import com.xjeffrose.xio.config.Http1DeterministicRuleEngineConfig;
 import com.xjeffrose.xio.config.IpAddressDeterministicRuleEngineConfig;
+import com.xjeffrose.xio.config.UpdateMessage;
+import java.util.List;
 
 public interface Unmarshaller {
 
@@ -11,4 +13,7 @@ public interface Unmarshaller {
   public void unmarshall(Http1DeterministicRuleEngineConfig config, byte[] data);
 
   public void unmarshall(IpAddressDeterministicRuleEngineConfig config, byte[] data);
+
+  /** Decodes a changelog delta, adding its updates to updates in order. */
+  public void unmarshall(List<UpdateMessage> updates, byte[] data);
 }
@@ -0,0 +1,62 @@
+package com.xjeffrose.xio.metric;
+
+import com.codahale.metrics.MetricFilter;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.collect.ImmutableMap;
+import com.xjeffrose.xio.application.ApplicationState;
+import com.xjeffrose.xio.http.PipelineRequestHandler;
+import com.xjeffrose.xio.http.RouteConfig;
+import com.xjeffrose.xio.http.RouteState;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Builds the routes served by the admin server:
+ *
+ * <ul>
+ *   <li>/metrics - every metric in prometheus text format
+ *   <li>/metrics/json - every metric as json
+ *   <li>/routes - per route stats recorded by {@link RouteMetricsHandler}
+ *   <li>/clients - client pool state exported by {@link com.xjeffrose.xio.http.ClientPool}
+ *   <li>/eventloops - scheduling lag, queue depth and i/o counters for each worker event loop
+ * </ul>
+ */
+public class AdminRoutes {
+
+  public static final String METRICS_PATH = "/metrics";
+  public static final String METRICS_JSON_PATH = "/metrics/json";
+  public static final String ROUTES_PATH = "/routes";
+  public static final String CLIENTS_PATH = "/clients";
+  public static final String EVENT_LOOPS_PATH = "/eventloops";
+
+  private static MetricFilter startsWith(String prefix) {
+    return (name, metric) -> name.startsWith(prefix);
+  }
+
+  private static RouteState route(String path, PipelineRequestHandler handler) {
+    return new RouteState(new RouteConfig(Collections.emptyList(), "", path, "*"), handler);
+  }
+
+  public static ImmutableMap<String, RouteState> build(ApplicationState state) {
+    MetricRegistry registry = state.getMetricRegistry();
+    MetricsRenderer json = new JsonMetricsRenderer();
+    Map<String, RouteState> routes = new LinkedHashMap<>();
+    // more specific paths need to be listed first, see PathToRequestHandler
+    routes.put(
+        METRICS_JSON_PATH, route(METRICS_JSON_PATH, new MetricsRequestHandler(registry, json)));
+    routes.put(
+        METRICS_PATH,
+        route(METRICS_PATH, new MetricsRequestHandler(registry, new PrometheusMetricsRenderer())));
+    routes.put(
+        ROUTES_PATH,
+        route(ROUTES_PATH, new MetricsRequestHandler(registry, startsWith("route."), json)));
+    routes.put(
+        CLIENTS_PATH,
+        route(CLIENTS_PATH, new MetricsRequestHandler(registry, startsWith("clientPool."), json)));
+    routes.put(
+        EVENT_LOOPS_PATH,
+        route(EVENT_LOOPS_PATH, new EventLoopsRequestHandler(state.getEventLoopProbe())));
+    return ImmutableMap.copyOf(routes);
+  }
+}
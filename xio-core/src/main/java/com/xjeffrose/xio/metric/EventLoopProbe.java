@@ -0,0 +1,114 @@
+package com.xjeffrose.xio.metric;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.collect.ImmutableList;
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.SingleThreadEventExecutor;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically schedules a task on every event loop in a group and records how late it ran (the
+ * scheduling lag) along with the depth of the task queue. A loop that is stalled by a slow handler
+ * will show a growing lag for every connection pinned to it, which makes these values usable as an
+ * input signal for load shedding.
+ *
+ * <p>The probe also binds an {@link EventLoopStats} to each event loop thread so that {@link
+ * com.xjeffrose.xio.core.ChannelStatistics} can count bytes and active channels per loop.
+ */
+public class EventLoopProbe {
+
+  private final List<EventLoopStats> loops;
+  private final long intervalNanos;
+  private volatile boolean running;
+
+  public EventLoopProbe(EventLoopGroup group, Duration interval) {
+    ImmutableList.Builder<EventLoopStats> builder = ImmutableList.builder();
+    int index = 0;
+    for (EventExecutor executor : group) {
+      builder.add(new EventLoopStats(index++, (EventLoop) executor));
+    }
+    this.loops = builder.build();
+    this.intervalNanos = interval.toNanos();
+  }
+
+  public List<EventLoopStats> loops() {
+    return loops;
+  }
+
+  public void start() {
+    running = true;
+    for (EventLoopStats stats : loops) {
+      stats.getEventLoop().execute(new Sampler(stats));
+    }
+  }
+
+  public void stop() {
+    running = false;
+  }
+
+  /** Largest scheduling lag across every event loop at the last sample. */
+  public long maxLagNanos() {
+    long result = 0;
+    for (int i = 0; i < loops.size(); i++) {
+      result = Math.max(result, loops.get(i).lagNanos());
+    }
+    return result;
+  }
+
+  /** Total number of queued tasks across every event loop at the last sample. */
+  public int pendingTasks() {
+    int result = 0;
+    for (int i = 0; i < loops.size(); i++) {
+      result += loops.get(i).pendingTasks();
+    }
+    return result;
+  }
+
+  public static String name(EventLoopStats stats, String metric) {
+    return MetricRegistry.name("eventLoop", Integer.toString(stats.getIndex()), metric);
+  }
+
+  public void register(MetricRegistry registry) {
+    for (EventLoopStats stats : loops) {
+      registry.gauge(name(stats, "lagNanos"), () -> (Gauge<Long>) stats::lagNanos);
+      registry.gauge(name(stats, "maxLagNanos"), () -> (Gauge<Long>) stats::maxLagNanos);
+      registry.gauge(name(stats, "pendingTasks"), () -> (Gauge<Integer>) stats::pendingTasks);
+      registry.gauge(name(stats, "bytesRead"), () -> (Gauge<Long>) stats::bytesRead);
+      registry.gauge(name(stats, "bytesWritten"), () -> (Gauge<Long>) stats::bytesWritten);
+      registry.gauge(name(stats, "activeChannels"), () -> (Gauge<Integer>) stats::activeChannels);
+    }
+  }
+
+  private class Sampler implements Runnable {
+    private final EventLoopStats stats;
+    private long deadline;
+
+    Sampler(EventLoopStats stats) {
+      this.stats = stats;
+    }
+
+    @Override
+    public void run() {
+      long now = System.nanoTime();
+      if (deadline == 0) {
+        stats.bind();
+      } else {
+        EventLoop loop = stats.getEventLoop();
+        int pending = 0;
+        if (loop instanceof SingleThreadEventExecutor) {
+          pending = ((SingleThreadEventExecutor) loop).pendingTasks();
+        }
+        stats.sample(Math.max(0, now - deadline), pending);
+      }
+      if (running && !stats.getEventLoop().isShuttingDown()) {
+        deadline = now + intervalNanos;
+        stats.getEventLoop().schedule(this, intervalNanos, TimeUnit.NANOSECONDS);
+      }
+    }
+  }
+}
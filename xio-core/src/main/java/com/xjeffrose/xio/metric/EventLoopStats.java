@@ -0,0 +1,93 @@
+package com.xjeffrose.xio.metric;
+
+import io.netty.channel.EventLoop;
+import io.netty.util.concurrent.FastThreadLocal;
+import lombok.Getter;
+
+/**
+ * Health counters for a single event loop. Every counter is written only from the event loop's own
+ * thread so updates are plain volatile stores, readers on other threads (metrics reporters, the
+ * admin server) see a recent value without any contention on the hot path.
+ */
+public class EventLoopStats {
+
+  private static final FastThreadLocal<EventLoopStats> current = new FastThreadLocal<>();
+
+  @Getter private final int index;
+  @Getter private final EventLoop eventLoop;
+
+  private volatile long lagNanos;
+  private volatile long maxLagNanos;
+  private volatile int pendingTasks;
+  private volatile long bytesRead;
+  private volatile long bytesWritten;
+  private volatile int activeChannels;
+
+  EventLoopStats(int index, EventLoop eventLoop) {
+    this.index = index;
+    this.eventLoop = eventLoop;
+  }
+
+  /**
+   * Returns the stats for the event loop running on the calling thread, or null if the calling
+   * thread is not an event loop watched by an {@link EventLoopProbe}.
+   */
+  public static EventLoopStats current() {
+    return current.get();
+  }
+
+  void bind() {
+    current.set(this);
+  }
+
+  void sample(long lagNanos, int pendingTasks) {
+    this.lagNanos = lagNanos;
+    if (lagNanos > maxLagNanos) {
+      maxLagNanos = lagNanos;
+    }
+    this.pendingTasks = pendingTasks;
+  }
+
+  public void bytesRead(long count) {
+    bytesRead += count;
+  }
+
+  public void bytesWritten(long count) {
+    bytesWritten += count;
+  }
+
+  public void channelActive() {
+    activeChannels++;
+  }
+
+  public void channelInactive() {
+    activeChannels--;
+  }
+
+  /** Delay between when the last probe task was due and when it actually ran. */
+  public long lagNanos() {
+    return lagNanos;
+  }
+
+  /** Largest delay observed since the probe was started. */
+  public long maxLagNanos() {
+    return maxLagNanos;
+  }
+
+  /** Number of tasks waiting in the event loop queue when it was last sampled. */
+  public int pendingTasks() {
+    return pendingTasks;
+  }
+
+  public long bytesRead() {
+    return bytesRead;
+  }
+
+  public long bytesWritten() {
+    return bytesWritten;
+  }
+
+  public int activeChannels() {
+    return activeChannels;
+  }
+}
@@ -0,0 +1,68 @@
+package com.xjeffrose.xio.metric;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.xjeffrose.xio.http.PipelineRequestHandler;
+import com.xjeffrose.xio.http.Request;
+import com.xjeffrose.xio.http.Response;
+import com.xjeffrose.xio.http.ResponseBuilders;
+import com.xjeffrose.xio.http.RouteState;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufOutputStream;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Serves a live JSON view of the health of every event loop watched by an {@link EventLoopProbe}.
+ */
+public class EventLoopsRequestHandler implements PipelineRequestHandler {
+
+  private static final JsonFactory jsonFactory = new JsonFactory();
+
+  private final EventLoopProbe probe;
+
+  public EventLoopsRequestHandler(EventLoopProbe probe) {
+    this.probe = probe;
+  }
+
+  void render(ByteBuf out) {
+    try (JsonGenerator json =
+        jsonFactory.createGenerator((OutputStream) new ByteBufOutputStream(out))) {
+      json.writeStartObject();
+      json.writeArrayFieldStart("eventLoops");
+      for (EventLoopStats stats : probe.loops()) {
+        json.writeStartObject();
+        json.writeNumberField("index", stats.getIndex());
+        json.writeStringField("type", stats.getEventLoop().getClass().getSimpleName());
+        json.writeNumberField("lagNanos", stats.lagNanos());
+        json.writeNumberField("maxLagNanos", stats.maxLagNanos());
+        json.writeNumberField("pendingTasks", stats.pendingTasks());
+        json.writeNumberField("activeChannels", stats.activeChannels());
+        json.writeNumberField("bytesRead", stats.bytesRead());
+        json.writeNumberField("bytesWritten", stats.bytesWritten());
+        json.writeBooleanField("shuttingDown", stats.getEventLoop().isShuttingDown());
+        json.writeEndObject();
+      }
+      json.writeEndArray();
+      json.writeEndObject();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  @Override
+  public void handle(ChannelHandlerContext ctx, Request request, RouteState route) {
+    if (!request.endOfMessage()) {
+      return;
+    }
+
+    ByteBuf body = ctx.alloc().buffer();
+    render(body);
+    Response response = ResponseBuilders.newOk(request).body(body).build();
+    response.headers().set(HttpHeaderNames.CONTENT_TYPE, "application/json");
+    ctx.writeAndFlush(response);
+  }
+}
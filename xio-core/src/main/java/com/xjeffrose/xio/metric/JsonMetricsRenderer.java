@@ -0,0 +1,112 @@
+package com.xjeffrose.xio.metric;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricFilter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Snapshot;
+import com.codahale.metrics.Timer;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Renders a MetricRegistry as a JSON document grouped by metric type. The document is streamed
+ * through a JsonGenerator straight into the target ByteBuf. Timer values are reported in
+ * milliseconds.
+ */
+public class JsonMetricsRenderer implements MetricsRenderer {
+
+  private static final JsonFactory jsonFactory = new JsonFactory();
+  private static final double MILLIS_PER_NANO = 1.0 / TimeUnit.MILLISECONDS.toNanos(1);
+
+  @Override
+  public String contentType() {
+    return "application/json";
+  }
+
+  @Override
+  public void render(MetricRegistry registry, MetricFilter filter, ByteBuf out) {
+    try (JsonGenerator json =
+        jsonFactory.createGenerator((OutputStream) new ByteBufOutputStream(out))) {
+      json.writeStartObject();
+
+      json.writeObjectFieldStart("gauges");
+      for (Map.Entry<String, Gauge> entry : registry.getGauges(filter).entrySet()) {
+        Object value = entry.getValue().getValue();
+        if (value instanceof Number) {
+          json.writeNumberField(entry.getKey(), ((Number) value).doubleValue());
+        } else if (value instanceof Boolean) {
+          json.writeBooleanField(entry.getKey(), (Boolean) value);
+        } else if (value != null) {
+          json.writeStringField(entry.getKey(), value.toString());
+        }
+      }
+      json.writeEndObject();
+
+      json.writeObjectFieldStart("counters");
+      for (Map.Entry<String, Counter> entry : registry.getCounters(filter).entrySet()) {
+        json.writeNumberField(entry.getKey(), entry.getValue().getCount());
+      }
+      json.writeEndObject();
+
+      json.writeObjectFieldStart("meters");
+      for (Map.Entry<String, Meter> entry : registry.getMeters(filter).entrySet()) {
+        Meter meter = entry.getValue();
+        json.writeObjectFieldStart(entry.getKey());
+        json.writeNumberField("count", meter.getCount());
+        json.writeNumberField("m1_rate", meter.getOneMinuteRate());
+        json.writeNumberField("m5_rate", meter.getFiveMinuteRate());
+        json.writeNumberField("m15_rate", meter.getFifteenMinuteRate());
+        json.writeNumberField("mean_rate", meter.getMeanRate());
+        json.writeEndObject();
+      }
+      json.writeEndObject();
+
+      json.writeObjectFieldStart("histograms");
+      for (Map.Entry<String, Histogram> entry : registry.getHistograms(filter).entrySet()) {
+        Histogram histogram = entry.getValue();
+        json.writeObjectFieldStart(entry.getKey());
+        json.writeNumberField("count", histogram.getCount());
+        writeSnapshot(json, histogram.getSnapshot(), 1);
+        json.writeEndObject();
+      }
+      json.writeEndObject();
+
+      json.writeObjectFieldStart("timers");
+      for (Map.Entry<String, Timer> entry : registry.getTimers(filter).entrySet()) {
+        Timer timer = entry.getValue();
+        json.writeObjectFieldStart(entry.getKey());
+        json.writeNumberField("count", timer.getCount());
+        json.writeNumberField("m1_rate", timer.getOneMinuteRate());
+        writeSnapshot(json, timer.getSnapshot(), MILLIS_PER_NANO);
+        json.writeEndObject();
+      }
+      json.writeEndObject();
+
+      json.writeEndObject();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static void writeSnapshot(JsonGenerator json, Snapshot snapshot, double factor)
+      throws IOException {
+    json.writeNumberField("min", snapshot.getMin() * factor);
+    json.writeNumberField("max", snapshot.getMax() * factor);
+    json.writeNumberField("mean", snapshot.getMean() * factor);
+    json.writeNumberField("p50", snapshot.getMedian() * factor);
+    json.writeNumberField("p75", snapshot.get75thPercentile() * factor);
+    json.writeNumberField("p95", snapshot.get95thPercentile() * factor);
+    json.writeNumberField("p99", snapshot.get99thPercentile() * factor);
+    json.writeNumberField("p999", snapshot.get999thPercentile() * factor);
+  }
+}
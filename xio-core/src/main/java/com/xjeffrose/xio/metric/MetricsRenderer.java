@@ -0,0 +1,21 @@
+package com.xjeffrose.xio.metric;
+
+import com.codahale.metrics.MetricFilter;
+import com.codahale.metrics.MetricRegistry;
+import io.netty.buffer.ByteBuf;
+
+/**
+ * Writes the contents of a MetricRegistry into a ByteBuf. Implementations write each metric
+ * directly into the buffer as they walk the registry so that a scrape never materializes the whole
+ * document as a String.
+ */
+public interface MetricsRenderer {
+
+  String contentType();
+
+  void render(MetricRegistry registry, MetricFilter filter, ByteBuf out);
+
+  default void render(MetricRegistry registry, ByteBuf out) {
+    render(registry, MetricFilter.ALL, out);
+  }
+}
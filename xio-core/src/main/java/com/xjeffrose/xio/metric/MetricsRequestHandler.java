@@ -0,0 +1,57 @@
+package com.xjeffrose.xio.metric;
+
+import com.codahale.metrics.MetricFilter;
+import com.codahale.metrics.MetricRegistry;
+import com.xjeffrose.xio.http.PipelineRequestHandler;
+import com.xjeffrose.xio.http.Request;
+import com.xjeffrose.xio.http.Response;
+import com.xjeffrose.xio.http.ResponseBuilders;
+import com.xjeffrose.xio.http.RouteState;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Serves a (optionally filtered) view of a MetricRegistry. The document is rendered into a buffer
+ * taken from the channel's allocator, which is pooled for servers built by xio.
+ */
+@Slf4j
+public class MetricsRequestHandler implements PipelineRequestHandler {
+
+  private final MetricRegistry registry;
+  private final MetricFilter filter;
+  private final MetricsRenderer renderer;
+
+  public MetricsRequestHandler(
+      MetricRegistry registry, MetricFilter filter, MetricsRenderer renderer) {
+    this.registry = registry;
+    this.filter = filter;
+    this.renderer = renderer;
+  }
+
+  public MetricsRequestHandler(MetricRegistry registry, MetricsRenderer renderer) {
+    this(registry, MetricFilter.ALL, renderer);
+  }
+
+  @Override
+  public void handle(ChannelHandlerContext ctx, Request request, RouteState route) {
+    if (!request.endOfMessage()) {
+      return;
+    }
+
+    ByteBuf body = ctx.alloc().buffer();
+    try {
+      renderer.render(registry, filter, body);
+    } catch (RuntimeException e) {
+      log.error("Couldn't render metrics", e);
+      body.release();
+      ctx.writeAndFlush(ResponseBuilders.newServiceUnavailable(request));
+      return;
+    }
+
+    Response response = ResponseBuilders.newOk(request).body(body).build();
+    response.headers().set(HttpHeaderNames.CONTENT_TYPE, renderer.contentType());
+    ctx.writeAndFlush(response);
+  }
+}
@@ -0,0 +1,137 @@
+package com.xjeffrose.xio.metric;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricFilter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Snapshot;
+import com.codahale.metrics.Timer;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Renders a MetricRegistry in the Prometheus text exposition format (version 0.0.4).
+ *
+ * <p>Dropwizard metric names are sanitized into valid Prometheus names, meters are exported as
+ * counters and histograms/timers are exported as summaries with the usual quantiles. Timer values
+ * are reported in seconds.
+ */
+public class PrometheusMetricsRenderer implements MetricsRenderer {
+
+  private static final String[] QUANTILE_LABELS = {"0.5", "0.75", "0.95", "0.98", "0.99", "0.999"};
+  private static final double SECONDS_PER_NANO = 1.0 / TimeUnit.SECONDS.toNanos(1);
+
+  @Override
+  public String contentType() {
+    return "text/plain; version=0.0.4; charset=utf-8";
+  }
+
+  @Override
+  public void render(MetricRegistry registry, MetricFilter filter, ByteBuf out) {
+    for (Map.Entry<String, Gauge> entry : registry.getGauges(filter).entrySet()) {
+      Object value = entry.getValue().getValue();
+      if (value instanceof Number) {
+        String name = sanitize(entry.getKey());
+        writeType(out, name, "gauge");
+        writeSample(out, name, null, ((Number) value).doubleValue());
+      } else if (value instanceof Boolean) {
+        String name = sanitize(entry.getKey());
+        writeType(out, name, "gauge");
+        writeSample(out, name, null, ((Boolean) value) ? 1 : 0);
+      }
+    }
+    for (Map.Entry<String, Counter> entry : registry.getCounters(filter).entrySet()) {
+      String name = sanitize(entry.getKey());
+      writeType(out, name, "gauge");
+      writeSample(out, name, null, entry.getValue().getCount());
+    }
+    for (Map.Entry<String, Meter> entry : registry.getMeters(filter).entrySet()) {
+      String name = sanitize(entry.getKey()) + "_total";
+      writeType(out, name, "counter");
+      writeSample(out, name, null, entry.getValue().getCount());
+    }
+    for (Map.Entry<String, Histogram> entry : registry.getHistograms(filter).entrySet()) {
+      Histogram histogram = entry.getValue();
+      writeSummary(out, sanitize(entry.getKey()), histogram.getSnapshot(), histogram.getCount(), 1);
+    }
+    for (Map.Entry<String, Timer> entry : registry.getTimers(filter).entrySet()) {
+      Timer timer = entry.getValue();
+      writeSummary(
+          out,
+          sanitize(entry.getKey()) + "_seconds",
+          timer.getSnapshot(),
+          timer.getCount(),
+          SECONDS_PER_NANO);
+    }
+  }
+
+  private static void writeSummary(
+      ByteBuf out, String name, Snapshot snapshot, long count, double factor) {
+    writeType(out, name, "summary");
+    writeSample(out, name, QUANTILE_LABELS[0], snapshot.getMedian() * factor);
+    writeSample(out, name, QUANTILE_LABELS[1], snapshot.get75thPercentile() * factor);
+    writeSample(out, name, QUANTILE_LABELS[2], snapshot.get95thPercentile() * factor);
+    writeSample(out, name, QUANTILE_LABELS[3], snapshot.get98thPercentile() * factor);
+    writeSample(out, name, QUANTILE_LABELS[4], snapshot.get99thPercentile() * factor);
+    writeSample(out, name, QUANTILE_LABELS[5], snapshot.get999thPercentile() * factor);
+    writeSample(out, name + "_count", null, count);
+  }
+
+  private static void writeType(ByteBuf out, String name, String type) {
+    ByteBufUtil.writeAscii(out, "# TYPE ");
+    ByteBufUtil.writeAscii(out, name);
+    out.writeByte(' ');
+    ByteBufUtil.writeAscii(out, type);
+    out.writeByte('\n');
+  }
+
+  private static void writeSample(ByteBuf out, String name, String quantile, double value) {
+    ByteBufUtil.writeAscii(out, name);
+    if (quantile != null) {
+      ByteBufUtil.writeAscii(out, "{quantile=\"");
+      ByteBufUtil.writeAscii(out, quantile);
+      ByteBufUtil.writeAscii(out, "\"}");
+    }
+    out.writeByte(' ');
+    ByteBufUtil.writeAscii(out, Double.toString(value));
+    out.writeByte('\n');
+  }
+
+  private static void writeSample(ByteBuf out, String name, String quantile, long value) {
+    ByteBufUtil.writeAscii(out, name);
+    if (quantile != null) {
+      ByteBufUtil.writeAscii(out, "{quantile=\"");
+      ByteBufUtil.writeAscii(out, quantile);
+      ByteBufUtil.writeAscii(out, "\"}");
+    }
+    out.writeByte(' ');
+    ByteBufUtil.writeAscii(out, Long.toString(value));
+    out.writeByte('\n');
+  }
+
+  /** Maps a dropwizard metric name onto the Prometheus name charset [a-zA-Z_:][a-zA-Z0-9_:]*. */
+  static String sanitize(String name) {
+    StringBuilder result = new StringBuilder(name.length() + 1);
+    for (int i = 0; i < name.length(); i++) {
+      char c = name.charAt(i);
+      boolean valid =
+          (c >= 'a' && c <= 'z')
+              || (c >= 'A' && c <= 'Z')
+              || c == '_'
+              || c == ':'
+              || (i > 0 && c >= '0' && c <= '9');
+      if (valid) {
+        result.append(c);
+      } else if (i == 0 && c >= '0' && c <= '9') {
+        result.append('_').append(c);
+      } else {
+        result.append('_');
+      }
+    }
+    return result.toString();
+  }
+}
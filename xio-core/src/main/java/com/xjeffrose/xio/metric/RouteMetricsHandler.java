@@ -0,0 +1,104 @@
+package com.xjeffrose.xio.metric;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.xjeffrose.xio.http.Request;
+import com.xjeffrose.xio.http.Response;
+import com.xjeffrose.xio.http.RoutePartial;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records per route request rates, latencies and server errors. Must be placed after the
+ * application router so that it can observe the RoutePartial for each request, the response is
+ * matched back to the route by stream id.
+ *
+ * <p>Metrics are registered under {@code route.<path>.*}, see {@link #name(String, String)}.
+ */
+public class RouteMetricsHandler extends ChannelDuplexHandler {
+
+  private final MetricRegistry registry;
+  private final Map<String, RouteMetrics> routeMetrics = new HashMap<>();
+  private final Map<Integer, InFlight> inFlight = new HashMap<>();
+
+  public RouteMetricsHandler(MetricRegistry registry) {
+    this.registry = registry;
+  }
+
+  public static String name(String path, String metric) {
+    return MetricRegistry.name("route", path, metric);
+  }
+
+  private RouteMetrics metrics(String path) {
+    return routeMetrics.computeIfAbsent(path, k -> new RouteMetrics(registry, k));
+  }
+
+  @Override
+  public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+    if (msg instanceof RoutePartial) {
+      RoutePartial partial = (RoutePartial) msg;
+      Request request = partial.request();
+      if (request.startOfMessage()) {
+        RouteMetrics metrics = metrics(partial.route().path());
+        metrics.requests.mark();
+        inFlight.put(request.streamId(), new InFlight(metrics, System.nanoTime()));
+      }
+    }
+    ctx.fireChannelRead(msg);
+  }
+
+  @Override
+  public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise)
+      throws Exception {
+    if (msg instanceof Response) {
+      Response response = (Response) msg;
+      if (response.startOfMessage() && response.status().code() >= 500) {
+        InFlight current = inFlight.get(response.streamId());
+        if (current != null) {
+          current.metrics.serverErrors.mark();
+        }
+      }
+      if (response.endOfMessage()) {
+        InFlight completed = inFlight.remove(response.streamId());
+        if (completed != null) {
+          completed.metrics.latency.update(
+              System.nanoTime() - completed.startNanos, TimeUnit.NANOSECONDS);
+        }
+      }
+    }
+    ctx.write(msg, promise);
+  }
+
+  @Override
+  public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+    inFlight.clear();
+    ctx.fireChannelInactive();
+  }
+
+  private static class RouteMetrics {
+    final Meter requests;
+    final Meter serverErrors;
+    final Timer latency;
+
+    RouteMetrics(MetricRegistry registry, String path) {
+      requests = registry.meter(name(path, "requests"));
+      serverErrors = registry.meter(name(path, "serverErrors"));
+      latency = registry.timer(name(path, "latency"));
+    }
+  }
+
+  private static class InFlight {
+    final RouteMetrics metrics;
+    final long startNanos;
+
+    InFlight(RouteMetrics metrics, long startNanos) {
+      this.metrics = metrics;
+      this.startNanos = startNanos;
+    }
+  }
+}
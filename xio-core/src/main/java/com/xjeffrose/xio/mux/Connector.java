@@ -15,6 +15,7 @@ import io.netty.channel.ChannelPipeline;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.WriteBufferWaterMark;
 import io.netty.channel.local.LocalAddress;
+import io.netty.channel.unix.DomainSocketAddress;
 import java.net.InetSocketAddress;
 import java.net.SocketAddress;
 import java.util.Arrays;
@@ -37,6 +38,10 @@ public abstract class Connector {
     this((SocketAddress) address);
   }
 
+  public Connector(DomainSocketAddress address) {
+    this((SocketAddress) address);
+  }
+
   protected List<Map.Entry<String, ChannelHandler>> payloadHandlers() {
     return Arrays.asList();
   }
@@ -1,15 +1,23 @@
 package com.xjeffrose.xio.mux;
 
+import com.xjeffrose.xio.bootstrap.ChannelConfiguration;
 import com.xjeffrose.xio.bootstrap.ClientChannelConfiguration;
+import com.xjeffrose.xio.bootstrap.TransportConfig;
+import com.xjeffrose.xio.core.SocketAddresses;
 import io.netty.bootstrap.Bootstrap;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.EventLoopGroup;
+import io.netty.channel.unix.DomainSocketAddress;
 import java.net.InetSocketAddress;
+import javax.annotation.Nullable;
 
+/** Connects over tcp, or over a unix domain socket to processes on the same host. */
 public class SocketConnector extends Connector {
 
   protected final ClientChannelConfiguration channelConfig;
+  // null keeps the options below and the defaults of Connector
+  @Nullable protected final TransportConfig transport;
 
   @Override
   protected EventLoopGroup group() {
@@ -23,13 +31,42 @@ public class SocketConnector extends Connector {
 
   @Override
   protected Bootstrap configure(Bootstrap bootstrap) {
+    if (transport != null) {
+      transport.connectionOptions(channel(), true).forEach(bootstrap::option);
+      return bootstrap;
+    }
+    if (SocketAddresses.isDomainSocket(address())) {
+      return bootstrap;
+    }
     return bootstrap
         .option(ChannelOption.SO_REUSEADDR, true)
         .option(ChannelOption.TCP_NODELAY, true);
   }
 
-  public SocketConnector(InetSocketAddress address, ClientChannelConfiguration channelConfig) {
+  public SocketConnector(
+      InetSocketAddress address,
+      ClientChannelConfiguration channelConfig,
+      @Nullable TransportConfig transport) {
     super(address);
     this.channelConfig = channelConfig;
+    this.transport = transport;
+  }
+
+  public SocketConnector(InetSocketAddress address, ClientChannelConfiguration channelConfig) {
+    this(address, channelConfig, null);
+  }
+
+  /** @param channelConfig its workerGroup must be epoll, the channel is picked for the socket */
+  public SocketConnector(
+      DomainSocketAddress address,
+      ClientChannelConfiguration channelConfig,
+      @Nullable TransportConfig transport) {
+    super(address);
+    this.channelConfig = ChannelConfiguration.clientConfig(channelConfig.workerGroup(), address);
+    this.transport = transport;
+  }
+
+  public SocketConnector(DomainSocketAddress address, ClientChannelConfiguration channelConfig) {
+    this(address, channelConfig, null);
   }
 }
@@ -14,7 +14,8 @@ import lombok.extern.slf4j.Slf4j;
  * default), it will: - accept incoming TLS and negotiate the application protocol - supporting
  * http/2 requests if the client can - supporting http/1 requests as a fallback - try to upgrade
  * plain text requests with http response code 426 - http/1.1 over cleartext if configured to do so
- * (not the default)
+ * (not the default) - h2c with prior knowledge next to http/1.1 over cleartext if h2cPriorKnowledge
+ * is set
  */
 @Slf4j
 public class SmartHttpPipeline extends XioServerPipeline {
@@ -44,13 +45,15 @@ public class SmartHttpPipeline extends XioServerPipeline {
   public ChannelHandler getCodecNegotiationHandler(XioServerConfig config) {
     if (config.getTls().isUseSsl()) {
       return new HttpNegotiationHandler(this::buildHttp2Handler);
+    } else if (config.isH2cPriorKnowledge()) {
+      return new HttpCleartextNegotiationHandler(this::buildHttp2Handler);
     } else {
       return null;
     }
   }
 
   public ChannelHandler getCodecHandler(XioServerConfig config) {
-    if (config.getTls().isUseSsl()) {
+    if (config.getTls().isUseSsl() || config.isH2cPriorKnowledge()) {
       return CodecPlaceholderHandler.INSTANCE;
     } else {
       return new HttpServerCodec();
@@ -66,7 +69,7 @@ public class SmartHttpPipeline extends XioServerPipeline {
   }
 
   public ChannelHandler getApplicationCodec(XioServerConfig config) {
-    if (config.getTls().isUseSsl()) {
+    if (config.getTls().isUseSsl() || config.isH2cPriorKnowledge()) {
       return ApplicationCodecPlaceholderHandler.INSTANCE;
     } else {
       return new Http1ServerCodec();
@@ -8,9 +8,14 @@ import com.xjeffrose.xio.core.XioExceptionLogger;
 import com.xjeffrose.xio.core.XioMessageLogger;
 import com.xjeffrose.xio.filter.Http1Filter;
 import com.xjeffrose.xio.filter.IpFilter;
+import com.xjeffrose.xio.http.ResponseCompressor;
 import com.xjeffrose.xio.metric.MetricsHandler;
+import com.xjeffrose.xio.metric.RouteMetricsHandler;
+import com.xjeffrose.xio.server.XioAccessLogger;
 import com.xjeffrose.xio.server.XioBehavioralRuleEngine;
 import com.xjeffrose.xio.server.XioConnectionLimiter;
+import com.xjeffrose.xio.server.XioLoadShedder;
+import com.xjeffrose.xio.server.XioRequestLimiter;
 import com.xjeffrose.xio.server.XioResponseClassifier;
 import com.xjeffrose.xio.server.XioServer;
 import com.xjeffrose.xio.server.XioServerConfig;
@@ -22,9 +27,6 @@ import io.netty.channel.ChannelPipeline;
 
 public abstract class XioBasePipeline implements XioPipelineFragment {
 
-  protected static final XioConnectionLimiter globalConnectionLimiter =
-      new XioConnectionLimiter(15000);
-
   public abstract ChannelHandler getEncryptionHandler(XioServerConfig config, XioServerState state);
 
   public ChannelHandler getTlsAuthenticationHandler() {
@@ -58,9 +60,7 @@ public abstract class XioBasePipeline implements XioPipelineFragment {
       XioServerConfig config,
       XioServerState state,
       ChannelPipeline pipeline) {
-    // TODO(CK): pull globalConnectionLimiter from state
-    pipeline.addLast(
-        "globalConnectionLimiter", globalConnectionLimiter); // TODO(JR): Need to make this config
+    pipeline.addLast("globalConnectionLimiter", appState.getConnectionLimiter());
     pipeline.addLast(
         "serviceConnectionLimiter", new XioConnectionLimiter(config.getLimits().maxConnections()));
     ChannelHandler idleDisconnectHandler = getIdleDisconnectHandler(config.getLimits());
@@ -86,9 +86,27 @@ public abstract class XioBasePipeline implements XioPipelineFragment {
       throw new RuntimeException("No codec configured");
     }
     addHandler(pipeline, "application codec", getApplicationCodec(config));
+    if (config.getCompression().enabled()) {
+      pipeline.addLast(
+          "response compressor",
+          new ResponseCompressor(config.getCompression(), state.getCompressedVariants()));
+    }
+    if (appState.getLoadShedder().isEnabled()) {
+      pipeline.addLast("load shedder", new XioLoadShedder(appState.getLoadShedder()));
+    }
     addHandler(pipeline, "metric handler", new MetricsHandler(appState.getMetricRegistry()));
     addHandler(pipeline, "distributed tracing", state.tracingHandler(appState));
-    addHandler(pipeline, "application router", getApplicationRouter());
+    ChannelHandler applicationRouter = getApplicationRouter();
+    addHandler(pipeline, "application router", applicationRouter);
+    if (applicationRouter != null) {
+      pipeline.addLast("route metrics", new RouteMetricsHandler(appState.getMetricRegistry()));
+      if (appState.getAccessLog().isEnabled()) {
+        pipeline.addLast("access log", new XioAccessLogger(appState.getAccessLog()));
+      }
+      if (appState.getRequestLimiter().isEnabled()) {
+        pipeline.addLast("request limiter", new XioRequestLimiter(appState.getRequestLimiter()));
+      }
+    }
     addHandler(pipeline, "authentication handler", getAuthenticationHandler());
     pipeline.addLast("l7DeterministicRuleEngine", new Http1Filter(appState.getHttp1FilterConfig()));
     pipeline.addLast(
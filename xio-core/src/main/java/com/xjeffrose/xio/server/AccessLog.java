@@ -0,0 +1,232 @@
+package com.xjeffrose.xio.server;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.annotations.VisibleForTesting;
+import com.xjeffrose.xio.core.SocketAddresses;
+import io.netty.handler.codec.http.HttpMethod;
+import java.net.SocketAddress;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Application wide access log. Event loops copy a fixed set of fields per request into a slot of a
+ * preallocated ring buffer and a single background thread formats the slots and writes one line
+ * per request to the configured logger, so an event loop never formats a string. Entries are
+ * dropped, and counted in {@code accessLog.dropped}, while the ring buffer is full. See {@link
+ * XioAccessLogger} for the pipeline side.
+ */
+@Slf4j
+public class AccessLog {
+
+  private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+  private static final long STOP_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(5);
+
+  private final AccessLogConfig config;
+  private final Logger logger;
+  private final Entry[] ring;
+  private final int mask;
+  // next sequence to claim, shared by every event loop
+  private final AtomicLong head = new AtomicLong();
+  // next sequence to drain, only written by the drain thread
+  private volatile long tail;
+  private final Meter dropped;
+  private final StringBuilder line = new StringBuilder(256);
+  private Thread drainer;
+  private volatile boolean running;
+
+  public AccessLog(AccessLogConfig config, MetricRegistry registry) {
+    this(config, registry, LoggerFactory.getLogger(config.logger()));
+  }
+
+  @VisibleForTesting
+  AccessLog(AccessLogConfig config, MetricRegistry registry, Logger logger) {
+    this.config = config;
+    this.logger = logger;
+    // the ring buffer is only allocated when it will be used
+    this.ring = new Entry[config.enabled() ? config.bufferSize() : 1];
+    for (int i = 0; i < ring.length; i++) {
+      ring[i] = new Entry();
+    }
+    this.mask = ring.length - 1;
+    this.dropped = registry.meter(MetricRegistry.name("accessLog", "dropped"));
+  }
+
+  public boolean isEnabled() {
+    return config.enabled();
+  }
+
+  public synchronized void start() {
+    if (!isEnabled() || drainer != null) {
+      return;
+    }
+    running = true;
+    drainer = new Thread(this::run, "xio-access-log");
+    drainer.setDaemon(true);
+    drainer.start();
+  }
+
+  /** Stops the drain thread once it has written every entry already in the ring buffer. */
+  public synchronized void stop() {
+    running = false;
+    if (drainer != null) {
+      LockSupport.unpark(drainer);
+      try {
+        drainer.join(STOP_TIMEOUT_MILLIS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      drainer = null;
+    }
+  }
+
+  private void run() {
+    while (running) {
+      if (drain() == 0) {
+        LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+      }
+    }
+    drain();
+  }
+
+  /** @return true if the request completed with status should be logged */
+  boolean sample(int status) {
+    if (config.logServerErrors() && status >= 500) {
+      return true;
+    }
+    double rate = config.sampleRate();
+    return rate >= 1.0 || (rate > 0.0 && ThreadLocalRandom.current().nextDouble() < rate);
+  }
+
+  /**
+   * Copies entry into the next free slot of the ring buffer, may be called from any thread.
+   *
+   * @return false if the ring buffer is full and the entry was dropped
+   */
+  boolean append(Entry entry) {
+    long sequence;
+    do {
+      sequence = head.get();
+      if (sequence - tail >= ring.length) {
+        dropped.mark();
+        return false;
+      }
+    } while (!head.compareAndSet(sequence, sequence + 1));
+    Entry slot = ring[(int) sequence & mask];
+    slot.copy(entry);
+    // publishes the slot to the drain thread
+    slot.sequence = sequence;
+    return true;
+  }
+
+  /**
+   * Writes every published slot to the logger, only called by the drain thread.
+   *
+   * @return the number of slots written
+   */
+  int drain() {
+    int drained = 0;
+    long next = tail;
+    while (true) {
+      Entry slot = ring[(int) next & mask];
+      if (slot.sequence != next) {
+        return drained;
+      }
+      try {
+        logger.info(format(slot));
+      } catch (RuntimeException e) {
+        log.error("Couldn't write access log entry", e);
+      }
+      slot.clear();
+      tail = ++next;
+      drained++;
+    }
+  }
+
+  private String format(Entry entry) {
+    line.setLength(0);
+    line.append("time=")
+        .append(entry.startMillis)
+        .append(" remote=")
+        .append(SocketAddresses.describe(entry.remote))
+        .append(" method=")
+        .append(entry.method)
+        .append(" path=")
+        .append(entry.path)
+        .append(" route=")
+        .append(entry.route)
+        .append(" stream=")
+        .append(entry.streamId)
+        .append(" status=")
+        .append(entry.status)
+        .append(" requestBytes=")
+        .append(entry.requestBytes)
+        .append(" responseBytes=")
+        .append(entry.responseBytes)
+        .append(" headerMicros=")
+        .append(TimeUnit.NANOSECONDS.toMicros(entry.headerNanos))
+        .append(" totalMicros=")
+        .append(TimeUnit.NANOSECONDS.toMicros(entry.totalNanos))
+        .append(" upstream=")
+        .append(entry.upstream == null ? "-" : SocketAddresses.describe(entry.upstream));
+    return line.toString();
+  }
+
+  /**
+   * The fields logged for a single request. Only references to objects that already exist for the
+   * request are kept, so filling an entry doesn't allocate.
+   */
+  static class Entry {
+    // sequence of the ring buffer slot, -1 until the first publish
+    volatile long sequence = -1;
+    long startMillis;
+    long startNanos;
+    SocketAddress remote;
+    HttpMethod method;
+    String path;
+    String route;
+    int streamId;
+    int status;
+    long requestBytes;
+    long responseBytes;
+    // from the start of the request to the response headers
+    long headerNanos;
+    // from the start of the request to the end of the response
+    long totalNanos;
+    SocketAddress upstream;
+
+    void copy(Entry other) {
+      startMillis = other.startMillis;
+      startNanos = other.startNanos;
+      remote = other.remote;
+      method = other.method;
+      path = other.path;
+      route = other.route;
+      streamId = other.streamId;
+      status = other.status;
+      requestBytes = other.requestBytes;
+      responseBytes = other.responseBytes;
+      headerNanos = other.headerNanos;
+      totalNanos = other.totalNanos;
+      upstream = other.upstream;
+    }
+
+    void clear() {
+      remote = null;
+      method = null;
+      path = null;
+      route = null;
+      upstream = null;
+      status = 0;
+      requestBytes = 0;
+      responseBytes = 0;
+      headerNanos = 0;
+      totalNanos = 0;
+    }
+  }
+}
@@ -0,0 +1,30 @@
+package com.xjeffrose.xio.server;
+
+import com.typesafe.config.Config;
+import lombok.Getter;
+import lombok.experimental.Accessors;
+
+/** Settings for {@link AccessLog}, see applicationSettings.accessLog in reference.conf */
+@Accessors(fluent = true)
+@Getter
+public class AccessLogConfig {
+
+  private final boolean enabled;
+  private final String logger;
+  // rounded up to a power of two
+  private final int bufferSize;
+  private final double sampleRate;
+  private final boolean logServerErrors;
+
+  public AccessLogConfig(Config config) {
+    enabled = config.getBoolean("enabled");
+    logger = config.getString("logger");
+    int size = config.getInt("bufferSize");
+    if (size < 1) {
+      throw new IllegalArgumentException("accessLog.bufferSize must be positive, was " + size);
+    }
+    bufferSize = size == 1 ? 1 : Integer.highestOneBit(size - 1) << 1;
+    sampleRate = config.getDouble("sampleRate");
+    logServerErrors = config.getBoolean("logServerErrors");
+  }
+}
@@ -0,0 +1,115 @@
+package com.xjeffrose.xio.server;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Concurrency limit that is continuously estimated from observed latency, based on the gradient
+ * algorithm from Netflix concurrency-limits.
+ *
+ * <p>Every {@code windowSize} samples the minimum latency seen in the window (the short rtt) is
+ * compared against a slowly moving average of past windows (the long rtt). While latency stays
+ * within {@code rttTolerance} of the long rtt the limit grows by roughly its square root, once
+ * requests start queueing the gradient {@code longRtt / shortRtt} drops below one and the limit
+ * shrinks proportionally. The limit is never adjusted while less than half of it is in use since
+ * latency tells us nothing about capacity that isn't being exercised.
+ *
+ * <p>Acquire and release are lock free and safe to call from any event loop, the recalculation is
+ * done by whichever thread completes a window.
+ */
+public class AdaptiveLimit {
+
+  private static final double LONG_RTT_SMOOTHING = 0.05;
+
+  private final int minLimit;
+  private final int maxLimit;
+  private final double smoothing;
+  private final double rttTolerance;
+  private final int windowSize;
+
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final AtomicLong windowMinRtt = new AtomicLong(Long.MAX_VALUE);
+  private final AtomicInteger windowSamples = new AtomicInteger();
+  private final AtomicInteger windowMaxInFlight = new AtomicInteger();
+  private final AtomicBoolean updating = new AtomicBoolean();
+  private volatile double limit;
+  // only accessed by the thread holding updating
+  private double longRtt;
+
+  public AdaptiveLimit(AdaptiveLimitConfig config) {
+    this.minLimit = config.minLimit();
+    this.maxLimit = config.maxLimit();
+    this.smoothing = config.smoothing();
+    this.rttTolerance = config.rttTolerance();
+    this.windowSize = config.windowSize();
+    this.limit = clamp(config.initialLimit());
+  }
+
+  private double clamp(double value) {
+    return Math.max(minLimit, Math.min(maxLimit, value));
+  }
+
+  public int limit() {
+    return (int) limit;
+  }
+
+  public int inFlight() {
+    return inFlight.get();
+  }
+
+  /** @return true if the caller may proceed, in which case it must later call a release method */
+  public boolean tryAcquire() {
+    int current;
+    do {
+      current = inFlight.get();
+      if (current >= (int) limit) {
+        return false;
+      }
+    } while (!inFlight.compareAndSet(current, current + 1));
+    windowMaxInFlight.accumulateAndGet(current + 1, Math::max);
+    return true;
+  }
+
+  /** Releases a permit for a request that completed in {@code rttNanos}. */
+  public void release(long rttNanos) {
+    inFlight.decrementAndGet();
+    windowMinRtt.accumulateAndGet(rttNanos, Math::min);
+    if (windowSamples.incrementAndGet() >= windowSize && updating.compareAndSet(false, true)) {
+      try {
+        update();
+      } finally {
+        updating.set(false);
+      }
+    }
+  }
+
+  /** Releases a permit for a request that never completed, no latency sample is recorded. */
+  public void release() {
+    inFlight.decrementAndGet();
+  }
+
+  private void update() {
+    windowSamples.set(0);
+    long shortRtt = windowMinRtt.getAndSet(Long.MAX_VALUE);
+    int maxInFlight = windowMaxInFlight.getAndSet(0);
+    if (shortRtt == Long.MAX_VALUE || shortRtt <= 0) {
+      return;
+    }
+
+    if (longRtt == 0) {
+      longRtt = shortRtt;
+    } else {
+      longRtt = longRtt * (1 - LONG_RTT_SMOOTHING) + shortRtt * LONG_RTT_SMOOTHING;
+    }
+
+    double current = limit;
+    if (maxInFlight < current / 2) {
+      return;
+    }
+
+    double gradient = Math.max(0.5, Math.min(1.0, rttTolerance * longRtt / shortRtt));
+    double estimate = current * gradient + Math.sqrt(current);
+    limit = clamp(current * (1 - smoothing) + estimate * smoothing);
+  }
+}
@@ -0,0 +1,34 @@
+package com.xjeffrose.xio.server;
+
+import com.typesafe.config.Config;
+import java.time.Duration;
+import lombok.Getter;
+import lombok.experimental.Accessors;
+
+/** Settings for {@link AdaptiveLimit}, see applicationLimits.requestLimiter in reference.conf */
+@Accessors(fluent = true)
+@Getter
+public class AdaptiveLimitConfig {
+
+  private final boolean enabled;
+  private final boolean perRoute;
+  private final int initialLimit;
+  private final int minLimit;
+  private final int maxLimit;
+  private final double smoothing;
+  private final double rttTolerance;
+  private final int windowSize;
+  private final Duration retryAfter;
+
+  public AdaptiveLimitConfig(Config config) {
+    enabled = config.getBoolean("enabled");
+    perRoute = config.getBoolean("perRoute");
+    initialLimit = config.getInt("initialLimit");
+    minLimit = config.getInt("minLimit");
+    maxLimit = config.getInt("maxLimit");
+    smoothing = config.getDouble("smoothing");
+    rttTolerance = config.getDouble("rttTolerance");
+    windowSize = config.getInt("windowSize");
+    retryAfter = config.getDuration("retryAfter");
+  }
+}
@@ -0,0 +1,94 @@
+package com.xjeffrose.xio.server;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.xjeffrose.xio.http.Request;
+import com.xjeffrose.xio.metric.EventLoopStats;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Decides which requests to shed when the application falls behind. Requests are classified by the
+ * priority header or by path prefix, each class below {@link RequestPriority#CRITICAL} is shed once
+ * the scheduling lag of the current event loop (see {@link EventLoopStats}) or the number of
+ * requests in flight across the application crosses the threshold configured for that class. Shared
+ * by every channel of every server in the application, see {@link XioLoadShedder} for the pipeline
+ * side.
+ */
+public class LoadShedder {
+
+  private final LoadSheddingConfig config;
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final Map<RequestPriority, Meter> shed = new EnumMap<>(RequestPriority.class);
+
+  public LoadShedder(LoadSheddingConfig config, MetricRegistry registry) {
+    this.config = config;
+    for (RequestPriority priority : RequestPriority.values()) {
+      shed.put(priority, registry.meter(name(priority)));
+    }
+    registry.gauge(
+        MetricRegistry.name("loadShedder", "inFlight"), () -> (Gauge<Integer>) inFlight::get);
+  }
+
+  public static String name(RequestPriority priority) {
+    return MetricRegistry.name("loadShedder", priority.name().toLowerCase(), "shed");
+  }
+
+  public boolean isEnabled() {
+    return config.enabled();
+  }
+
+  private static boolean startsWith(String path, List<String> prefixes) {
+    for (int i = 0; i < prefixes.size(); i++) {
+      if (path.startsWith(prefixes.get(i))) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  RequestPriority classify(Request request) {
+    String path = request.path();
+    if (path != null && startsWith(path, config.criticalPaths())) {
+      return RequestPriority.CRITICAL;
+    }
+    RequestPriority fallback = RequestPriority.NORMAL;
+    if (path != null) {
+      if (startsWith(path, config.highPriorityPaths())) {
+        fallback = RequestPriority.HIGH;
+      } else if (startsWith(path, config.lowPriorityPaths())) {
+        fallback = RequestPriority.LOW;
+      }
+    }
+    RequestPriority result =
+        RequestPriority.parse(request.headers().get(config.priorityHeader()), fallback);
+    // only the path can mark a request as critical
+    return result == RequestPriority.CRITICAL ? RequestPriority.HIGH : result;
+  }
+
+  /**
+   * Admits or sheds a request, admitted requests must be completed by calling {@link #complete()}.
+   *
+   * @return true if the request was admitted
+   */
+  boolean admit(RequestPriority priority) {
+    if (priority != RequestPriority.CRITICAL) {
+      LoadSheddingConfig.Threshold threshold = config.thresholds().get(priority);
+      EventLoopStats stats = EventLoopStats.current();
+      long lag = stats == null ? 0 : stats.lagNanos();
+      if (lag > threshold.maxLagNanos() || inFlight.get() >= threshold.maxInFlight()) {
+        shed.get(priority).mark();
+        return false;
+      }
+    }
+    inFlight.incrementAndGet();
+    return true;
+  }
+
+  void complete() {
+    inFlight.decrementAndGet();
+  }
+}
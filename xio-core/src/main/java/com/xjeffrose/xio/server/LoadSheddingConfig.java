@@ -0,0 +1,44 @@
+package com.xjeffrose.xio.server;
+
+import com.typesafe.config.Config;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import lombok.Getter;
+import lombok.experimental.Accessors;
+
+/** Settings for {@link LoadShedder}, see applicationLimits.loadShedding in reference.conf */
+@Accessors(fluent = true)
+@Getter
+public class LoadSheddingConfig {
+
+  @Accessors(fluent = true)
+  @Getter
+  public static class Threshold {
+    private final long maxLagNanos;
+    private final int maxInFlight;
+
+    public Threshold(Config config) {
+      maxLagNanos = config.getDuration("maxLag").toNanos();
+      maxInFlight = config.getInt("maxInFlight");
+    }
+  }
+
+  private final boolean enabled;
+  private final String priorityHeader;
+  private final List<String> criticalPaths;
+  private final List<String> highPriorityPaths;
+  private final List<String> lowPriorityPaths;
+  private final Map<RequestPriority, Threshold> thresholds = new EnumMap<>(RequestPriority.class);
+
+  public LoadSheddingConfig(Config config) {
+    enabled = config.getBoolean("enabled");
+    priorityHeader = config.getString("priorityHeader");
+    criticalPaths = config.getStringList("criticalPaths");
+    highPriorityPaths = config.getStringList("highPriorityPaths");
+    lowPriorityPaths = config.getStringList("lowPriorityPaths");
+    thresholds.put(RequestPriority.HIGH, new Threshold(config.getConfig("high")));
+    thresholds.put(RequestPriority.NORMAL, new Threshold(config.getConfig("normal")));
+    thresholds.put(RequestPriority.LOW, new Threshold(config.getConfig("low")));
+  }
+}
@@ -0,0 +1,75 @@
+package com.xjeffrose.xio.server;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.xjeffrose.xio.http.DefaultFullResponse;
+import com.xjeffrose.xio.http.Request;
+import com.xjeffrose.xio.http.Response;
+import com.xjeffrose.xio.http.ResponseBuilders;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.util.internal.PlatformDependent;
+import java.util.Map;
+
+/**
+ * Application wide adaptive limit on requests in flight, optionally with an additional adaptive
+ * limit for every route. Shared by every channel of every server in the application, see {@link
+ * XioRequestLimiter} for the pipeline side.
+ */
+public class RequestLimiter {
+
+  private final AdaptiveLimitConfig config;
+  private final MetricRegistry registry;
+  private final AdaptiveLimit global;
+  private final Map<String, AdaptiveLimit> routes = PlatformDependent.newConcurrentHashMap();
+  private final Meter rejected;
+  private final String retryAfter;
+
+  public RequestLimiter(AdaptiveLimitConfig config, MetricRegistry registry) {
+    this.config = config;
+    this.registry = registry;
+    this.global = register("requestLimiter", new AdaptiveLimit(config));
+    this.rejected = registry.meter(MetricRegistry.name("requestLimiter", "rejected"));
+    this.retryAfter = Long.toString(Math.max(1, config.retryAfter().getSeconds()));
+  }
+
+  private AdaptiveLimit register(String name, AdaptiveLimit limit) {
+    registry.gauge(MetricRegistry.name(name, "limit"), () -> (Gauge<Integer>) limit::limit);
+    registry.gauge(MetricRegistry.name(name, "inFlight"), () -> (Gauge<Integer>) limit::inFlight);
+    return limit;
+  }
+
+  public boolean isEnabled() {
+    return config.enabled();
+  }
+
+  AdaptiveLimit global() {
+    return global;
+  }
+
+  /** @return the per route limit for path, or null if per route limits are disabled */
+  AdaptiveLimit route(String path) {
+    if (!config.perRoute()) {
+      return null;
+    }
+    return routes.computeIfAbsent(
+        path,
+        k ->
+            register(MetricRegistry.name("requestLimiter", "route", k), new AdaptiveLimit(config)));
+  }
+
+  Response newRejection(Request request) {
+    rejected.mark();
+    Response response =
+        ResponseBuilders.defaultHeaders(DefaultFullResponse.builder())
+            .body(Unpooled.EMPTY_BUFFER)
+            .httpTraceInfo(request.httpTraceInfo())
+            .streamId(request.streamId())
+            .status(HttpResponseStatus.SERVICE_UNAVAILABLE)
+            .build();
+    response.headers().set(HttpHeaderNames.RETRY_AFTER, retryAfter);
+    return response;
+  }
+}
@@ -0,0 +1,22 @@
+package com.xjeffrose.xio.server;
+
+/** Priority classes used by the {@link LoadShedder}, ordered from most to least important. */
+public enum RequestPriority {
+  /** Never shed, e.g. health checks. */
+  CRITICAL,
+  HIGH,
+  NORMAL,
+  LOW;
+
+  /** @return the priority named by value (case insensitive), or fallback if there is no match */
+  public static RequestPriority parse(CharSequence value, RequestPriority fallback) {
+    if (value != null) {
+      for (RequestPriority priority : values()) {
+        if (priority.name().equalsIgnoreCase(value.toString())) {
+          return priority;
+        }
+      }
+    }
+    return fallback;
+  }
+}
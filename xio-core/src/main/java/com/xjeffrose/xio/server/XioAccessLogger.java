@@ -0,0 +1,160 @@
+package com.xjeffrose.xio.server;
+
+import com.xjeffrose.xio.http.Message;
+import com.xjeffrose.xio.http.Request;
+import com.xjeffrose.xio.http.Response;
+import com.xjeffrose.xio.http.RoutePartial;
+import com.xjeffrose.xio.http.SegmentedData;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.FileRegion;
+import io.netty.util.collection.IntObjectHashMap;
+import io.netty.util.collection.IntObjectMap;
+import java.net.SocketAddress;
+import java.util.ArrayDeque;
+
+/**
+ * Captures the {@link AccessLog} fields of every request on a single channel. Must be placed after
+ * the application router so that it can observe the RoutePartial for each request. An h2 response
+ * is matched back to its request by stream id, http/1 responses are matched in the order the
+ * requests were read since pipelined requests share a stream id. Entries are reused once their
+ * request completed, so the steady state doesn't allocate.
+ */
+public class XioAccessLogger extends ChannelDuplexHandler {
+
+  private final AccessLog accessLog;
+  private final ArrayDeque<AccessLog.Entry> h1InFlight = new ArrayDeque<>();
+  private final IntObjectMap<AccessLog.Entry> inFlight = new IntObjectHashMap<>();
+  private final ArrayDeque<AccessLog.Entry> free = new ArrayDeque<>();
+
+  public XioAccessLogger(AccessLog accessLog) {
+    this.accessLog = accessLog;
+  }
+
+  /** Records the backend a proxied request was sent to, if the access log is in the pipeline. */
+  public static void upstream(ChannelHandlerContext ctx, int streamId, SocketAddress upstream) {
+    XioAccessLogger logger = ctx.pipeline().get(XioAccessLogger.class);
+    if (logger != null) {
+      AccessLog.Entry entry = logger.requestEntry(streamId);
+      if (entry != null) {
+        entry.upstream = upstream;
+      }
+    }
+  }
+
+  private static int readableBytes(ByteBuf buf) {
+    return buf == null ? 0 : buf.readableBytes();
+  }
+
+  // the body of an http/1 request belongs to the last request read
+  private AccessLog.Entry requestEntry(int streamId) {
+    return streamId == Message.H1_STREAM_ID_NONE ? h1InFlight.peekLast() : inFlight.get(streamId);
+  }
+
+  // http/1 responses are written in the order the requests were read
+  private AccessLog.Entry responseEntry(int streamId) {
+    return streamId == Message.H1_STREAM_ID_NONE ? h1InFlight.peekFirst() : inFlight.get(streamId);
+  }
+
+  private AccessLog.Entry start(ChannelHandlerContext ctx, RoutePartial partial) {
+    Request request = partial.request();
+    AccessLog.Entry entry = free.poll();
+    if (entry == null) {
+      entry = new AccessLog.Entry();
+    }
+    entry.startMillis = System.currentTimeMillis();
+    entry.startNanos = System.nanoTime();
+    entry.remote = ctx.channel().remoteAddress();
+    entry.method = request.method();
+    entry.path = request.path();
+    entry.route = partial.route().path();
+    entry.streamId = request.streamId();
+    if (request.streamId() == Message.H1_STREAM_ID_NONE) {
+      h1InFlight.add(entry);
+    } else {
+      inFlight.put(request.streamId(), entry);
+    }
+    return entry;
+  }
+
+  private void complete(int streamId) {
+    AccessLog.Entry entry =
+        streamId == Message.H1_STREAM_ID_NONE ? h1InFlight.poll() : inFlight.remove(streamId);
+    if (entry == null) {
+      return;
+    }
+    entry.totalNanos = System.nanoTime() - entry.startNanos;
+    if (accessLog.sample(entry.status)) {
+      accessLog.append(entry);
+    }
+    entry.clear();
+    free.add(entry);
+  }
+
+  @Override
+  public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+    if (msg instanceof RoutePartial) {
+      RoutePartial partial = (RoutePartial) msg;
+      Request request = partial.request();
+      AccessLog.Entry entry =
+          request.startOfMessage() ? start(ctx, partial) : requestEntry(request.streamId());
+      if (entry != null) {
+        entry.requestBytes += readableBytes(request.body());
+      }
+    }
+    ctx.fireChannelRead(msg);
+  }
+
+  @Override
+  public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise)
+      throws Exception {
+    int streamId;
+    long bytes;
+    boolean end;
+    // segments of proxied responses are Responses too, their body() is the body of the head
+    if (msg instanceof SegmentedData) {
+      SegmentedData data = (SegmentedData) msg;
+      streamId = data.streamId();
+      bytes = readableBytes(data.content());
+      end = data.endOfMessage();
+    } else if (msg instanceof Response) {
+      Response response = (Response) msg;
+      streamId = response.streamId();
+      bytes = readableBytes(response.body());
+      end = response.endOfMessage();
+      if (response.startOfMessage()) {
+        AccessLog.Entry entry = responseEntry(streamId);
+        if (entry != null) {
+          entry.status = response.status().code();
+          entry.headerNanos = System.nanoTime() - entry.startNanos;
+        }
+      }
+    } else if (msg instanceof FileRegion) {
+      // file regions are only written to http/1 connections
+      streamId = Message.H1_STREAM_ID_NONE;
+      bytes = ((FileRegion) msg).count();
+      end = false;
+    } else {
+      ctx.write(msg, promise);
+      return;
+    }
+    AccessLog.Entry entry = responseEntry(streamId);
+    if (entry != null) {
+      entry.responseBytes += bytes;
+    }
+    if (end) {
+      complete(streamId);
+    }
+    ctx.write(msg, promise);
+  }
+
+  @Override
+  public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+    // requests without a response are not logged
+    h1InFlight.clear();
+    inFlight.clear();
+    ctx.fireChannelInactive();
+  }
+}
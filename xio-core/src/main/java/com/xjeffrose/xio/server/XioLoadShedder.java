@@ -0,0 +1,80 @@
+package com.xjeffrose.xio.server;
+
+import com.xjeffrose.xio.http.Request;
+import com.xjeffrose.xio.http.Response;
+import com.xjeffrose.xio.http.ResponseBuilders;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.util.ReferenceCountUtil;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Applies the {@link LoadShedder} to a single channel. Placed right after the application codec so
+ * that shed requests cost as little as possible: they are answered with an empty 503 and the
+ * remaining segments of a shed request are dropped without being routed.
+ */
+public class XioLoadShedder extends ChannelDuplexHandler {
+
+  private final LoadShedder shedder;
+  private final Set<Integer> admitted = new HashSet<>();
+  private final Set<Integer> shed = new HashSet<>();
+
+  public XioLoadShedder(LoadShedder shedder) {
+    this.shedder = shedder;
+  }
+
+  private void drop(Request request) {
+    if (request.body() != null) {
+      ReferenceCountUtil.safeRelease(request.body());
+    }
+  }
+
+  @Override
+  public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+    if (msg instanceof Request) {
+      Request request = (Request) msg;
+      int streamId = request.streamId();
+      if (request.startOfMessage()) {
+        if (!shedder.admit(shedder.classify(request))) {
+          if (!request.endOfMessage()) {
+            shed.add(streamId);
+          }
+          drop(request);
+          ctx.writeAndFlush(ResponseBuilders.newServiceUnavailable(request));
+          return;
+        }
+        admitted.add(streamId);
+      } else if (shed.contains(streamId)) {
+        if (request.endOfMessage()) {
+          shed.remove(streamId);
+        }
+        drop(request);
+        return;
+      }
+    }
+    ctx.fireChannelRead(msg);
+  }
+
+  @Override
+  public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise)
+      throws Exception {
+    if (msg instanceof Response && ((Response) msg).endOfMessage()) {
+      if (admitted.remove(((Response) msg).streamId())) {
+        shedder.complete();
+      }
+    }
+    ctx.write(msg, promise);
+  }
+
+  @Override
+  public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+    for (int i = 0; i < admitted.size(); i++) {
+      shedder.complete();
+    }
+    admitted.clear();
+    shed.clear();
+    ctx.fireChannelInactive();
+  }
+}
@@ -0,0 +1,123 @@
+package com.xjeffrose.xio.server;
+
+import com.xjeffrose.xio.http.Request;
+import com.xjeffrose.xio.http.Response;
+import com.xjeffrose.xio.http.RoutePartial;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.util.ReferenceCountUtil;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Enforces the {@link RequestLimiter} for a single channel. Must be placed after the application
+ * router so that it can observe the RoutePartial for each request. Requests above the limit are
+ * answered immediately with a 503 and a Retry-After header and never reach the application handler,
+ * the remaining segments of a rejected request are dropped.
+ */
+public class XioRequestLimiter extends ChannelDuplexHandler {
+
+  private final RequestLimiter limiter;
+  private final Map<Integer, Permit> inFlight = new HashMap<>();
+  private final Set<Integer> rejected = new HashSet<>();
+
+  public XioRequestLimiter(RequestLimiter limiter) {
+    this.limiter = limiter;
+  }
+
+  private Permit acquire(String path) {
+    AdaptiveLimit global = limiter.global();
+    if (!global.tryAcquire()) {
+      return null;
+    }
+    AdaptiveLimit route = limiter.route(path);
+    if (route != null && !route.tryAcquire()) {
+      global.release();
+      return null;
+    }
+    return new Permit(global, route, System.nanoTime());
+  }
+
+  private void drop(Request request) {
+    if (request.body() != null) {
+      ReferenceCountUtil.safeRelease(request.body());
+    }
+  }
+
+  @Override
+  public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+    if (msg instanceof RoutePartial) {
+      RoutePartial partial = (RoutePartial) msg;
+      Request request = partial.request();
+      int streamId = request.streamId();
+      if (request.startOfMessage()) {
+        Permit permit = acquire(partial.route().path());
+        if (permit == null) {
+          if (!request.endOfMessage()) {
+            rejected.add(streamId);
+          }
+          drop(request);
+          ctx.writeAndFlush(limiter.newRejection(request));
+          return;
+        }
+        inFlight.put(streamId, permit);
+      } else if (rejected.contains(streamId)) {
+        if (request.endOfMessage()) {
+          rejected.remove(streamId);
+        }
+        drop(request);
+        return;
+      }
+    }
+    ctx.fireChannelRead(msg);
+  }
+
+  @Override
+  public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise)
+      throws Exception {
+    if (msg instanceof Response && ((Response) msg).endOfMessage()) {
+      Permit permit = inFlight.remove(((Response) msg).streamId());
+      if (permit != null) {
+        permit.release(System.nanoTime() - permit.startNanos);
+      }
+    }
+    ctx.write(msg, promise);
+  }
+
+  @Override
+  public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+    inFlight.values().forEach(Permit::release);
+    inFlight.clear();
+    rejected.clear();
+    ctx.fireChannelInactive();
+  }
+
+  private static class Permit {
+    final AdaptiveLimit global;
+    final AdaptiveLimit route;
+    final long startNanos;
+
+    Permit(AdaptiveLimit global, AdaptiveLimit route, long startNanos) {
+      this.global = global;
+      this.route = route;
+      this.startNanos = startNanos;
+    }
+
+    void release(long rttNanos) {
+      global.release(rttNanos);
+      if (route != null) {
+        route.release(rttNanos);
+      }
+    }
+
+    void release() {
+      global.release();
+      if (route != null) {
+        route.release();
+      }
+    }
+  }
+}
@@ -1,6 +1,8 @@
 package com.xjeffrose.xio.server;
 
+import com.google.common.collect.ImmutableList;
 import io.netty.channel.Channel;
+import java.util.List;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
@@ -10,6 +12,9 @@ public class XioServer implements AutoCloseable {
   // TODO(CK): move this into server state
   @Getter private final Channel serverChannel;
 
+  // more than one if the listening sockets are bound with SO_REUSEPORT
+  @Getter private final List<Channel> serverChannels;
+
   // TODO(CK): move this into server state
   @Getter private final XioServerInstrumentation instrumentation;
 
@@ -19,22 +24,35 @@ public class XioServer implements AutoCloseable {
   @Getter private final XioServerState state;
 
   public XioServer(
-      Channel serverChannel,
+      List<Channel> serverChannels,
       XioServerInstrumentation instrumentation,
       XioServerConfig config,
       XioServerState state) {
-    this.serverChannel = serverChannel;
+    this.serverChannel = serverChannels.get(0);
+    this.serverChannels = ImmutableList.copyOf(serverChannels);
     this.instrumentation = instrumentation;
     this.config = config;
     this.state = state;
   }
 
+  public XioServer(
+      Channel serverChannel,
+      XioServerInstrumentation instrumentation,
+      XioServerConfig config,
+      XioServerState state) {
+    this(ImmutableList.of(serverChannel), instrumentation, config, state);
+  }
+
   public void close() {
     log.debug("Closing " + this);
-    serverChannel.close();
+    serverChannels.forEach(Channel::close);
   }
 
+  /** @return the bound tcp port, or -1 for servers bound to a unix domain socket */
   public int getPort() {
+    if (instrumentation.boundAddress() == null) {
+      return -1;
+    }
     return instrumentation.boundAddress().getPort();
   }
 }
@@ -3,8 +3,11 @@ package com.xjeffrose.xio.server;
 import com.typesafe.config.Config;
 import com.typesafe.config.ConfigFactory;
 import com.xjeffrose.xio.SSL.TlsConfig;
+import com.xjeffrose.xio.bootstrap.TransportConfig;
+import com.xjeffrose.xio.core.SocketAddresses;
+import com.xjeffrose.xio.http.CompressionConfig;
 import io.netty.channel.ChannelOption;
-import java.net.InetSocketAddress;
+import java.net.SocketAddress;
 import java.util.Map;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
@@ -14,10 +17,14 @@ import lombok.extern.slf4j.Slf4j;
 public class XioServerConfig {
   @Getter private final Map<ChannelOption<Object>, Object> bootstrapOptions;
   @Getter private String name;
-  @Getter private InetSocketAddress bindAddress;
+  // a unix domain socket if bindIp is "unix:/path/to/socket"
+  @Getter private SocketAddress bindAddress;
   @Getter private XioServerLimits limits;
   @Getter private TlsConfig tls;
   @Getter private final boolean messageLoggerEnabled;
+  @Getter private final boolean h2cPriorKnowledge;
+  @Getter private final CompressionConfig compression;
+  @Getter private final TransportConfig transport;
 
   public XioServerConfig(Config config) {
     bootstrapOptions = null;
@@ -30,10 +37,13 @@ public class XioServerConfig {
       address = config.getString("settings.bindIp");
     }
 
-    bindAddress = new InetSocketAddress(address, config.getInt("settings.bindPort"));
+    bindAddress = SocketAddresses.parse(address, config.getInt("settings.bindPort"));
     limits = new XioServerLimits(config.getConfig("limits"));
     tls = new TlsConfig(config.getConfig("settings.tls"));
     messageLoggerEnabled = config.getBoolean("settings.messageLoggerEnabled");
+    h2cPriorKnowledge = config.getBoolean("settings.h2cPriorKnowledge");
+    compression = new CompressionConfig(config.getConfig("settings.compression"));
+    transport = new TransportConfig(config.getConfig("settings.transport"));
     if (!tls.isUseSsl() && tls.isLogInsecureConfig()) {
       log.warn("Server '{}' has useSsl set to false!", name);
     }
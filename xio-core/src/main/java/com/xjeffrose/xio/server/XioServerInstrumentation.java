@@ -1,11 +1,14 @@
 package com.xjeffrose.xio.server;
 
 import java.net.InetSocketAddress;
+import java.net.SocketAddress;
 
 // TODO(CK): this can be folded into XioServerState
 public class XioServerInstrumentation {
 
+  // null for servers bound to a unix domain socket
   public InetSocketAddress addressBound;
+  public SocketAddress localAddress;
   public String applicationProtocol;
 
   public XioServerInstrumentation() {}
@@ -19,6 +22,11 @@ public class XioServerInstrumentation {
     return addressBound;
   }
 
+  /** @return the tcp address or unix domain socket the server is bound to */
+  public SocketAddress localAddress() {
+    return localAddress;
+  }
+
   public String applicationProtocol() {
     return applicationProtocol;
   }
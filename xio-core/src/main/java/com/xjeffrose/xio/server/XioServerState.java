@@ -3,6 +3,8 @@ package com.xjeffrose.xio.server;
 import com.xjeffrose.xio.SSL.SslContextFactory;
 import com.xjeffrose.xio.application.ApplicationState;
 import com.xjeffrose.xio.core.ChannelStatistics;
+import com.xjeffrose.xio.http.CompressedVariantCache;
+import com.xjeffrose.xio.http.CompressionConfig;
 import io.netty.channel.ChannelHandler;
 import io.netty.channel.group.ChannelGroup;
 import io.netty.channel.group.DefaultChannelGroup;
@@ -20,9 +22,18 @@ public class XioServerState {
 
   @Getter private final SslContext sslContext;
 
+  /** Shared by the connections of the server, null unless compression variants are enabled. */
+  @Getter private final CompressedVariantCache compressedVariants;
+
   public XioServerState(XioServerConfig config) {
     channelStatistics = new ChannelStatistics(allChannels);
     sslContext = SslContextFactory.buildServerContext(config.getTls());
+    CompressionConfig compression = config.getCompression();
+    if (compression.enabled() && compression.variants().enabled()) {
+      compressedVariants = new CompressedVariantCache(compression.variants());
+    } else {
+      compressedVariants = null;
+    }
   }
 
   public ChannelHandler tracingHandler(ApplicationState appState) {
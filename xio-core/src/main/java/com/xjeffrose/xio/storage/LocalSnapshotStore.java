@@ -0,0 +1,183 @@
+package com.xjeffrose.xio.storage;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps the last applied rules in a local snapshot file, so that a restarting instance comes up
+ * with its filters in place in milliseconds and reconciles with ZooKeeper in the background.
+ *
+ * <p>The file is memory-mapped on load and holds a magic number, a format version, the entries as
+ * length prefixed key/value pairs, and a CRC32 of everything before it. A file that fails any of
+ * these checks is ignored. Writes are coalesced over the flush delay, happen on a background
+ * thread, and replace the file atomically so a crash never leaves a torn snapshot behind. Writes
+ * pending when the process exits are lost, ZooKeeper remains the source of truth.
+ */
+@Slf4j
+public class LocalSnapshotStore implements Closeable {
+
+  static final int MAGIC = 0x58494f53; // XIOS
+  static final int FORMAT_VERSION = 1;
+
+  private final Path file;
+  private final long flushDelayMillis;
+  private final ScheduledExecutorService executor;
+  private final Map<String, byte[]> entries = new HashMap<>();
+  private final Map<String, Supplier<byte[]>> pending = new HashMap<>();
+  private final Object writeLock = new Object();
+  private boolean flushScheduled = false;
+
+  public LocalSnapshotStore(Path file, Duration flushDelay) {
+    this.file = file;
+    this.flushDelayMillis = flushDelay.toMillis();
+    ThreadFactory threadFactory =
+        new ThreadFactoryBuilder().setNameFormat("xio-snapshot-writer").setDaemon(true).build();
+    this.executor = Executors.newSingleThreadScheduledExecutor(threadFactory);
+    entries.putAll(read(file));
+  }
+
+  /** @return the value stored for key when the snapshot was loaded or last written */
+  public synchronized Optional<byte[]> get(String key) {
+    return Optional.ofNullable(entries.get(key));
+  }
+
+  /**
+   * Stores a value on the next flush, only the latest value of a key is written.
+   *
+   * @param value called on the writer thread, it must only capture immutable state
+   */
+  public synchronized void put(String key, Supplier<byte[]> value) {
+    pending.put(key, value);
+    if (!flushScheduled) {
+      flushScheduled = true;
+      executor.schedule(this::flush, flushDelayMillis, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  @VisibleForTesting
+  void flush() {
+    synchronized (writeLock) {
+      Map<String, Supplier<byte[]>> values;
+      synchronized (this) {
+        values = new HashMap<>(pending);
+        pending.clear();
+        flushScheduled = false;
+      }
+      if (values.isEmpty()) {
+        return;
+      }
+      Map<String, byte[]> snapshot;
+      synchronized (this) {
+        values.forEach((key, value) -> entries.put(key, value.get()));
+        snapshot = new HashMap<>(entries);
+      }
+      try {
+        write(file, snapshot);
+      } catch (IOException e) {
+        log.error("Couldn't write snapshot {}", file, e);
+      }
+    }
+  }
+
+  @Override
+  public void close() {
+    executor.shutdownNow();
+    flush();
+  }
+
+  static Map<String, byte[]> read(Path file) {
+    Map<String, byte[]> result = new HashMap<>();
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      if (buffer.remaining() < Integer.BYTES * 3 + Long.BYTES) {
+        log.warn("Ignoring truncated snapshot {}", file);
+        return result;
+      }
+      ByteBuffer content = buffer.duplicate();
+      content.limit(buffer.limit() - Long.BYTES);
+      CRC32 crc = new CRC32();
+      crc.update(content.duplicate());
+      if (crc.getValue() != buffer.getLong(buffer.limit() - Long.BYTES)) {
+        log.warn("Ignoring snapshot {} with a bad checksum", file);
+        return result;
+      }
+      if (content.getInt() != MAGIC || content.getInt() != FORMAT_VERSION) {
+        log.warn("Ignoring snapshot {} with an unknown format", file);
+        return result;
+      }
+      int size = content.getInt();
+      for (int i = 0; i < size; i++) {
+        byte[] key = new byte[content.getShort()];
+        content.get(key);
+        byte[] value = new byte[content.getInt()];
+        content.get(value);
+        result.put(new String(key, StandardCharsets.UTF_8), value);
+      }
+      log.info("Loaded {} entries from snapshot {}", size, file);
+    } catch (NoSuchFileException e) {
+      log.info("No snapshot at {}", file);
+    } catch (IOException | RuntimeException e) {
+      log.warn("Ignoring unreadable snapshot {}", file, e);
+      result.clear();
+    }
+    return result;
+  }
+
+  static void write(Path file, Map<String, byte[]> entries) throws IOException {
+    Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+    CRC32 crc = new CRC32();
+    try (FileChannel channel =
+            FileChannel.open(
+                temp,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE);
+        OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel))) {
+      DataOutputStream data = new DataOutputStream(new CheckedOutputStream(out, crc));
+      data.writeInt(MAGIC);
+      data.writeInt(FORMAT_VERSION);
+      data.writeInt(entries.size());
+      for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+        byte[] key = entry.getKey().getBytes(StandardCharsets.UTF_8);
+        data.writeShort(key.length);
+        data.write(key);
+        data.writeInt(entry.getValue().length);
+        data.write(entry.getValue());
+      }
+      data.flush();
+      // the checksum itself isn't part of the checksum
+      DataOutputStream trailer = new DataOutputStream(out);
+      trailer.writeLong(crc.getValue());
+      trailer.flush();
+      channel.force(true);
+    }
+    Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+}
@@ -5,7 +5,7 @@ import com.xjeffrose.xio.marshall.Unmarshaller;
 
 public abstract class ReadProvider {
 
-  private Unmarshaller unmarshaller;
+  protected final Unmarshaller unmarshaller;
 
   public ReadProvider(Unmarshaller unmarshaller) {
     this.unmarshaller = unmarshaller;
@@ -5,7 +5,7 @@ import com.xjeffrose.xio.marshall.Marshaller;
 
 public abstract class WriteProvider {
 
-  private Marshaller marshaller;
+  protected final Marshaller marshaller;
 
   public WriteProvider(Marshaller marshaller) {
     this.marshaller = marshaller;
@@ -0,0 +1,168 @@
+package com.xjeffrose.xio.storage;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.utils.ZKPaths;
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.data.Stat;
+
+/**
+ * Follows the versioned changelog of a ruleset stored in ZooKeeper, so that a change to a large
+ * ruleset is shipped and applied as a small delta instead of the whole ruleset. The layout under
+ * the ruleset path is:
+ *
+ * <pre>
+ *   path                      the full ruleset, for readers that don't follow the changelog
+ *   path/log/base             the sequence of the last delta folded in, followed by the ruleset
+ *   path/log/delta-sequence   the updates of one flush, sequential znodes
+ * </pre>
+ *
+ * <p>Deltas are appended by {@link ZooKeeperWriteProvider#append(String, byte[])} and
+ * periodically folded into the base by {@link ZooKeeperWriteProvider#compact(String, byte[])},
+ * which deletes them in the same transaction. A path without a base is read as a plain ruleset.
+ */
+@Slf4j
+public class ZooKeeperChangelog {
+
+  static final String LOG = "log";
+  static final String BASE = "base";
+  static final String DELTA = "delta-";
+
+  private final CuratorFramework client;
+  private final String path;
+  // sequence of the last delta applied, or folded into the last snapshot applied
+  private long sequence = -1;
+  // zxid of the last change seen to the node holding the snapshot
+  private long snapshotZxid = -1;
+
+  public ZooKeeperChangelog(CuratorFramework client, String path) {
+    this.client = client;
+    this.path = path;
+  }
+
+  static String logPath(String path) {
+    return ZKPaths.makePath(path, LOG);
+  }
+
+  static String basePath(String path) {
+    return ZKPaths.makePath(path, LOG, BASE);
+  }
+
+  static long sequence(String node) {
+    return Long.parseLong(ZKPaths.getNodeFromPath(node).substring(DELTA.length()));
+  }
+
+  static boolean isDelta(String node) {
+    return ZKPaths.getNodeFromPath(node).startsWith(DELTA);
+  }
+
+  static byte[] encodeBase(long sequence, byte[] snapshot) {
+    return ByteBuffer.allocate(Long.BYTES + snapshot.length)
+        .putLong(sequence)
+        .put(snapshot)
+        .array();
+  }
+
+  static long baseSequence(byte[] base) {
+    return ByteBuffer.wrap(base).getLong();
+  }
+
+  static byte[] baseSnapshot(byte[] base) {
+    return Arrays.copyOfRange(base, Long.BYTES, base.length);
+  }
+
+  /**
+   * Brings the reader up to date. The snapshot is only handed out when the reader is behind the
+   * base, and the deltas written since are handed out in order as one batch.
+   *
+   * @param snapshot receives a full ruleset that replaces the current one
+   * @param deltas receives the deltas to apply on top of the current ruleset
+   * @return false if there is no ruleset at the path
+   */
+  public synchronized boolean sync(Consumer<byte[]> snapshot, Consumer<List<byte[]>> deltas)
+      throws Exception {
+    while (true) {
+      try {
+        return trySync(snapshot, deltas);
+      } catch (KeeperException.NoNodeException e) {
+        // the changelog was compacted while it was being read
+        log.debug("changelog of {} changed while reading, retrying", path, e);
+      }
+    }
+  }
+
+  private boolean trySync(Consumer<byte[]> snapshot, Consumer<List<byte[]>> deltas)
+      throws Exception {
+    // children are listed before the base is read: a compaction in between leaves a base that
+    // already folded in the missing deltas, the other way around deltas could be skipped
+    List<String> children;
+    try {
+      children = client.getChildren().forPath(logPath(path));
+    } catch (KeeperException.NoNodeException e) {
+      children = new ArrayList<>();
+    }
+
+    Stat baseStat = client.checkExists().forPath(basePath(path));
+    if (baseStat == null) {
+      return syncPlain(snapshot);
+    }
+
+    byte[] nextSnapshot = null;
+    long nextSequence = sequence;
+    long nextZxid = snapshotZxid;
+    if (baseStat.getMzxid() != snapshotZxid) {
+      Stat stat = new Stat();
+      byte[] base = client.getData().storingStatIn(stat).forPath(basePath(path));
+      nextZxid = stat.getMzxid();
+      if (baseSequence(base) > sequence || sequence == -1) {
+        // the reader is behind the base, deltas it applied before are folded in the snapshot
+        nextSnapshot = baseSnapshot(base);
+        nextSequence = baseSequence(base);
+      }
+    }
+
+    List<String> pending = new ArrayList<>();
+    for (String child : children) {
+      if (isDelta(child) && sequence(child) > nextSequence) {
+        pending.add(child);
+      }
+    }
+    pending.sort(Comparator.comparingLong(ZooKeeperChangelog::sequence));
+    List<byte[]> nextDeltas = new ArrayList<>(pending.size());
+    for (String delta : pending) {
+      nextDeltas.add(client.getData().forPath(ZKPaths.makePath(logPath(path), delta)));
+      nextSequence = sequence(delta);
+    }
+
+    // everything was read, hand it out
+    if (nextSnapshot != null) {
+      snapshot.accept(nextSnapshot);
+    }
+    if (!nextDeltas.isEmpty()) {
+      deltas.accept(nextDeltas);
+    }
+    sequence = nextSequence;
+    snapshotZxid = nextZxid;
+    return true;
+  }
+
+  private boolean syncPlain(Consumer<byte[]> snapshot) throws Exception {
+    Stat stat = client.checkExists().forPath(path);
+    if (stat == null) {
+      return false;
+    }
+    if (stat.getMzxid() != snapshotZxid) {
+      Stat dataStat = new Stat();
+      byte[] data = client.getData().storingStatIn(dataStat).forPath(path);
+      snapshot.accept(data);
+      snapshotZxid = dataStat.getMzxid();
+    }
+    return true;
+  }
+}
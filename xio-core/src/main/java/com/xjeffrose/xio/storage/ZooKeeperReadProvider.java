@@ -1,5 +1,6 @@
 package com.xjeffrose.xio.storage;
 
+import com.xjeffrose.xio.marshall.Marshallable;
 import com.xjeffrose.xio.marshall.Unmarshaller;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.curator.framework.CuratorFramework;
@@ -30,4 +31,17 @@ public class ZooKeeperReadProvider extends ReadProvider {
       throw new RuntimeException(e);
     }
   }
+
+  /** Reads the ruleset at key, applying the deltas of its changelog if it has one. */
+  @Override
+  public boolean read(String key, Marshallable message) {
+    try {
+      return new ZooKeeperChangelog(client, key)
+          .sync(
+              snapshot -> message.putBytes(unmarshaller, snapshot),
+              deltas -> deltas.forEach(delta -> message.putUpdates(unmarshaller, delta)));
+    } catch (Exception e) {
+      throw new RuntimeException(e);
+    }
+  }
 }
@@ -1,8 +1,16 @@
 package com.xjeffrose.xio.storage;
 
+import com.xjeffrose.xio.config.UpdateMessage;
+import com.xjeffrose.xio.marshall.Marshallable;
 import com.xjeffrose.xio.marshall.Marshaller;
+import java.util.ArrayList;
+import java.util.List;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.api.transaction.CuratorOp;
+import org.apache.curator.utils.ZKPaths;
+import org.apache.zookeeper.CreateMode;
+import org.apache.zookeeper.data.Stat;
 
 @Slf4j
 public class ZooKeeperWriteProvider extends WriteProvider {
@@ -22,4 +30,87 @@ public class ZooKeeperWriteProvider extends WriteProvider {
       throw new RuntimeException(e);
     }
   }
+
+  /**
+   * Appends a delta to the changelog of the ruleset at key, see {@link ZooKeeperChangelog}.
+   *
+   * @return the sequence of the delta
+   */
+  public long append(String key, byte[] delta) {
+    try {
+      String created =
+          client
+              .create()
+              .creatingParentsIfNeeded()
+              .withMode(CreateMode.PERSISTENT_SEQUENTIAL)
+              .forPath(
+                  ZKPaths.makePath(ZooKeeperChangelog.logPath(key), ZooKeeperChangelog.DELTA),
+                  delta);
+      return ZooKeeperChangelog.sequence(created);
+    } catch (Exception e) {
+      log.error("ZooKeeperWriteProvider.append", e);
+      throw new RuntimeException(e);
+    }
+  }
+
+  public long append(String key, List<UpdateMessage> updates) {
+    return append(key, marshaller.marshall(updates));
+  }
+
+  /**
+   * Folds the changelog of the ruleset at key into a new base. The base and the deletion of the
+   * folded deltas are written in one transaction, so readers never see a base without the deltas it
+   * is missing. The plain ruleset at key is only written once the transaction committed: the whole
+   * transaction is bounded by jute.maxbuffer, so it carries the snapshot once. Readers of the plain
+   * ruleset don't follow the changelog and see the snapshot a moment later. Assumes a single writer
+   * per key.
+   *
+   * @param snapshot the full ruleset, including every delta appended so far
+   */
+  public void compact(String key, byte[] snapshot) {
+    try {
+      String logPath = ZooKeeperChangelog.logPath(key);
+      String basePath = ZooKeeperChangelog.basePath(key);
+      boolean created = false;
+      if (client.checkExists().forPath(key) == null) {
+        client.create().creatingParentsIfNeeded().forPath(key, snapshot);
+        created = true;
+      }
+      if (client.checkExists().forPath(logPath) == null) {
+        client.create().forPath(logPath);
+      }
+
+      long sequence = -1;
+      List<CuratorOp> operations = new ArrayList<>();
+      Stat baseStat = client.checkExists().forPath(basePath);
+      if (baseStat != null) {
+        sequence = ZooKeeperChangelog.baseSequence(client.getData().forPath(basePath));
+      }
+      for (String child : client.getChildren().forPath(logPath)) {
+        if (ZooKeeperChangelog.isDelta(child)) {
+          sequence = Math.max(sequence, ZooKeeperChangelog.sequence(child));
+          operations.add(client.transactionOp().delete().forPath(ZKPaths.makePath(logPath, child)));
+        }
+      }
+
+      byte[] base = ZooKeeperChangelog.encodeBase(sequence, snapshot);
+      if (baseStat == null) {
+        operations.add(client.transactionOp().create().forPath(basePath, base));
+      } else {
+        operations.add(client.transactionOp().setData().forPath(basePath, base));
+      }
+      client.transaction().forOperations(operations);
+      if (!created) {
+        client.setData().forPath(key, snapshot);
+      }
+      log.debug("compacted changelog of {} through {}", key, sequence);
+    } catch (Exception e) {
+      log.error("ZooKeeperWriteProvider.compact", e);
+      throw new RuntimeException(e);
+    }
+  }
+
+  public void compact(String key, Marshallable snapshot) {
+    compact(key, snapshot.getBytes(marshaller));
+  }
 }
@@ -0,0 +1,80 @@
+package com.xjeffrose.xio.bootstrap;
+
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+import com.typesafe.config.ConfigValueFactory;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.WriteBufferWaterMark;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.epoll.EpollDomainSocketChannel;
+import io.netty.channel.epoll.EpollMode;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import java.util.Map;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TransportConfigUnitTest extends Assert {
+
+  private static TransportConfig config(String path) {
+    Config config =
+        ConfigFactory.load()
+            .getConfig(path)
+            .withValue("tcpFastOpen", ConfigValueFactory.fromAnyRef(16))
+            .withValue("tcpQuickAck", ConfigValueFactory.fromAnyRef(true))
+            .withValue("edgeTriggered", ConfigValueFactory.fromAnyRef(false))
+            .withValue("receiveBufferSize", ConfigValueFactory.fromAnyRef("128KiB"));
+    if (config.hasPath("reusePort")) {
+      config = config.withValue("reusePort", ConfigValueFactory.fromAnyRef(true));
+    }
+    return new TransportConfig(config);
+  }
+
+  @Test
+  public void testServerOptions() {
+    TransportConfig subject = config("xio.serverSettings.transport");
+
+    Map<ChannelOption<Object>, Object> options =
+        subject.serverOptions(EpollServerSocketChannel.class);
+    assertEquals(true, options.get(EpollChannelOption.SO_REUSEPORT));
+    assertEquals(16, options.get(EpollChannelOption.TCP_FASTOPEN));
+    assertEquals(EpollMode.LEVEL_TRIGGERED, options.get(EpollChannelOption.EPOLL_MODE));
+    assertEquals(128 * 1024, options.get(ChannelOption.SO_RCVBUF));
+
+    options = subject.serverOptions(NioServerSocketChannel.class);
+    assertFalse(options.containsKey(EpollChannelOption.SO_REUSEPORT));
+    assertFalse(options.containsKey(EpollChannelOption.EPOLL_MODE));
+
+    options = subject.connectionOptions(EpollSocketChannel.class, false);
+    assertEquals(true, options.get(ChannelOption.TCP_NODELAY));
+    assertEquals(true, options.get(EpollChannelOption.TCP_QUICKACK));
+    assertFalse(options.containsKey(EpollChannelOption.TCP_FASTOPEN_CONNECT));
+    assertFalse(options.containsKey(ChannelOption.SO_SNDBUF));
+    WriteBufferWaterMark waterMark =
+        (WriteBufferWaterMark) options.get(ChannelOption.WRITE_BUFFER_WATER_MARK);
+    assertEquals(32 * 1024, waterMark.low());
+    assertEquals(64 * 1024, waterMark.high());
+  }
+
+  @Test
+  public void testClientOptions() {
+    TransportConfig subject = config("xio.clientTemplate.transport");
+    assertFalse(subject.reusePort());
+
+    Map<ChannelOption<Object>, Object> options =
+        subject.connectionOptions(EpollSocketChannel.class, true);
+    assertEquals(true, options.get(EpollChannelOption.TCP_FASTOPEN_CONNECT));
+    assertFalse(options.containsKey(ChannelOption.CONNECT_TIMEOUT_MILLIS));
+
+    options = subject.connectionOptions(EpollDomainSocketChannel.class, true);
+    assertFalse(options.containsKey(ChannelOption.TCP_NODELAY));
+    assertFalse(options.containsKey(EpollChannelOption.TCP_QUICKACK));
+    assertEquals(EpollMode.LEVEL_TRIGGERED, options.get(EpollChannelOption.EPOLL_MODE));
+
+    options = subject.connectionOptions(NioSocketChannel.class, true);
+    assertEquals(true, options.get(ChannelOption.TCP_NODELAY));
+    assertFalse(options.containsKey(EpollChannelOption.TCP_QUICKACK));
+  }
+}
@@ -2,6 +2,9 @@ package com.xjeffrose.xio.bootstrap;
 
 import static org.junit.Assert.assertEquals;
 
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+import com.typesafe.config.ConfigValueFactory;
 import com.xjeffrose.xio.application.ApplicationState;
 import com.xjeffrose.xio.helpers.ClientHelper;
 import com.xjeffrose.xio.http.XioHttp404Handler;
@@ -10,35 +13,131 @@ import com.xjeffrose.xio.pipeline.XioPipelineFragment;
 import com.xjeffrose.xio.server.XioServer;
 import com.xjeffrose.xio.server.XioServerConfig;
 import com.xjeffrose.xio.server.XioServerState;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelPipeline;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollDomainSocketChannel;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.unix.DomainSocketAddress;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpClientCodec;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpVersion;
+import java.io.File;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import okhttp3.Response;
+import org.junit.Assume;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 public class XioServerBootstrapFunctionalTest {
 
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+  private XioServerBootstrap notFoundServer(Config config) {
+    return XioServerBootstrap.fromConfig("xio.testHttpServer", config)
+        .addToPipeline(
+            new SmartHttpPipeline(
+                new XioPipelineFragment() {
+                  public String applicationProtocol() {
+                    return "";
+                  }
+
+                  public void buildHandlers(
+                      ApplicationState appState,
+                      XioServerConfig config,
+                      XioServerState state,
+                      ChannelPipeline pipeline) {
+                    pipeline.addLast(new XioHttp404Handler());
+                  }
+                }));
+  }
+
   @Test
   public void testServe404() {
-    XioServerBootstrap bootstrap =
-        XioServerBootstrap.fromConfig("xio.testHttpServer")
-            .addToPipeline(
-                new SmartHttpPipeline(
-                    new XioPipelineFragment() {
-                      public String applicationProtocol() {
-                        return "";
-                      }
-
-                      public void buildHandlers(
-                          ApplicationState appState,
-                          XioServerConfig config,
-                          XioServerState state,
-                          ChannelPipeline pipeline) {
-                        pipeline.addLast(new XioHttp404Handler());
-                      }
-                    }));
+    XioServerBootstrap bootstrap = notFoundServer(ConfigFactory.load());
     try (XioServer server = bootstrap.build()) {
       Response response = ClientHelper.http(server.getInstrumentation().addressBound());
       assertEquals(404, response.code());
       assertEquals(server.getInstrumentation() != null, true);
     }
   }
+
+  @Test
+  public void testServe404WithReusePort() {
+    Assume.assumeTrue(Epoll.isAvailable());
+    Config config =
+        ConfigFactory.load()
+            .withValue(
+                "xio.testHttpServer.settings.transport.reusePort",
+                ConfigValueFactory.fromAnyRef(true));
+    try (XioServer server = notFoundServer(config).build()) {
+      // one listening socket per worker event loop, all bound to the same port
+      assertEquals(
+          ConfigFactory.load().getInt("xio.defaultApplication.settings.workerThreads"),
+          server.getServerChannels().size());
+      for (Channel channel : server.getServerChannels()) {
+        assertEquals(server.getInstrumentation().addressBound(), channel.localAddress());
+      }
+      Response response = ClientHelper.http(server.getInstrumentation().addressBound());
+      assertEquals(404, response.code());
+    }
+  }
+
+  @Test
+  public void testServe404OverUnixDomainSocket() throws Exception {
+    Assume.assumeTrue(Epoll.isAvailable());
+    String path = new File(temporaryFolder.getRoot(), "xio.sock").getPath();
+    Config config =
+        ConfigFactory.load()
+            .withValue(
+                "xio.testHttpServer.settings.bindIp",
+                ConfigValueFactory.fromAnyRef("unix:" + path));
+    EpollEventLoopGroup group = new EpollEventLoopGroup(1);
+    try (XioServer server = notFoundServer(config).build()) {
+      assertEquals(new DomainSocketAddress(path), server.getInstrumentation().localAddress());
+      assertEquals(-1, server.getPort());
+
+      CompletableFuture<Integer> status = new CompletableFuture<>();
+      Channel channel =
+          new Bootstrap()
+              .group(group)
+              .channel(EpollDomainSocketChannel.class)
+              .handler(
+                  new ChannelInitializer<Channel>() {
+                    @Override
+                    protected void initChannel(Channel ch) {
+                      ch.pipeline()
+                          .addLast(new HttpClientCodec())
+                          .addLast(new HttpObjectAggregator(8192))
+                          .addLast(
+                              new SimpleChannelInboundHandler<FullHttpResponse>() {
+                                @Override
+                                protected void channelRead0(
+                                    ChannelHandlerContext ctx, FullHttpResponse response) {
+                                  status.complete(response.status().code());
+                                }
+                              });
+                    }
+                  })
+              .connect(new DomainSocketAddress(path))
+              .sync()
+              .channel();
+      DefaultFullHttpRequest request =
+          new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/");
+      request.headers().set("host", "localhost");
+      channel.writeAndFlush(request);
+      assertEquals(404, (int) status.get(5, TimeUnit.SECONDS));
+      channel.close().sync();
+    } finally {
+      group.shutdownGracefully(0, 0, TimeUnit.SECONDS);
+    }
+  }
 }
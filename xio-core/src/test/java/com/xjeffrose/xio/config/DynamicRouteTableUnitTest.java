@@ -0,0 +1,164 @@
+package com.xjeffrose.xio.config;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class DynamicRouteTableUnitTest extends Assert {
+
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private final DynamicClientConfig client1 = new DynamicClientConfig("1.2.3.4", 1234, false);
+  private final DynamicClientConfig client2 = new DynamicClientConfig("1.2.3.5", 1234, false);
+  private final DynamicClientConfig client3 = new DynamicClientConfig("2.2.3.4", 5678, true);
+
+  private List<Object> retired;
+
+  private static DynamicRouteConfig route(String path, DynamicClientConfig... clients) {
+    return new DynamicRouteConfig(path, Arrays.asList(clients));
+  }
+
+  private DynamicRouteTable<Object> table(List<DynamicRouteConfig> routes) {
+    return new DynamicRouteTable<>(routes, route -> new Object(), retired::add);
+  }
+
+  private static String routeJson(String path, String ip) {
+    return "{\"path\": \""
+        + path
+        + "\", \"ip_addresses\": [\""
+        + ip
+        + "\"], \"port_number\": 1234, \"tls_enabled\": false}";
+  }
+
+  private static void writeRoutes(File file, String... routes) throws Exception {
+    long lastModified = file.lastModified();
+    String json = "[" + String.join(", ", routes) + "]";
+    Files.write(file.toPath(), json.getBytes(StandardCharsets.UTF_8));
+    // make sure the change is seen on file systems with coarse timestamps
+    file.setLastModified(Math.max(file.lastModified(), lastModified + 1000));
+  }
+
+  @Before
+  public void setUp() {
+    retired = new ArrayList<>();
+  }
+
+  @Test
+  public void testDiff() {
+    List<DynamicRouteConfig> previous =
+        Arrays.asList(route("/path1/", client1, client2), route("/path2/", client3));
+    List<DynamicRouteConfig> next =
+        Arrays.asList(route("/path1/", client1), route("/path3/", client3));
+
+    DynamicRouteConfigsDiff diff = DynamicRouteConfigsDiff.diff(previous, next);
+
+    assertEquals(Collections.singletonList(route("/path3/", client3)), diff.getAdded());
+    assertEquals(Collections.singletonList(route("/path2/", client3)), diff.getRemoved());
+    assertEquals(Collections.singletonList(route("/path1/", client1)), diff.getChanged());
+    assertFalse(diff.isEmpty());
+  }
+
+  @Test
+  public void testReorderingIsNotAChange() {
+    List<DynamicRouteConfig> previous =
+        Arrays.asList(route("/path1/", client1, client2), route("/path2/", client3));
+    List<DynamicRouteConfig> next =
+        Arrays.asList(route("/path2/", client3), route("/path1/", client2, client1));
+
+    assertTrue(DynamicRouteConfigsDiff.diff(previous, next).isEmpty());
+  }
+
+  @Test
+  public void testUnchangedRoutesKeepTheirState() {
+    DynamicRouteTable<Object> table =
+        table(Arrays.asList(route("/path1/", client1), route("/path2/", client3)));
+    Object path1 = table.states().get("/path1/");
+    Object path2 = table.states().get("/path2/");
+
+    DynamicRouteConfigsDiff diff =
+        table.update(Arrays.asList(route("/path1/", client1), route("/path2/", client2)));
+
+    assertEquals(1, diff.getChanged().size());
+    assertSame(path1, table.states().get("/path1/"));
+    assertNotSame(path2, table.states().get("/path2/"));
+    assertEquals(Collections.singletonList(path2), retired);
+  }
+
+  @Test
+  public void testRemovedRoutesAreRetired() {
+    DynamicRouteTable<Object> table =
+        table(Arrays.asList(route("/path1/", client1), route("/path2/", client3)));
+    Object path2 = table.states().get("/path2/");
+
+    table.update(Collections.singletonList(route("/path1/", client1)));
+
+    assertEquals(Collections.singleton("/path1/"), table.states().keySet());
+    assertEquals(Collections.singletonList(path2), retired);
+  }
+
+  @Test
+  public void testFailedBuildLeavesTableUntouched() {
+    DynamicRouteTable<Object> table =
+        new DynamicRouteTable<>(
+            Collections.singletonList(route("/path1/", client1)),
+            route -> {
+              if (route.getPath().equals("/bad/")) {
+                throw new IllegalStateException("bad route");
+              }
+              return new Object();
+            },
+            retired::add);
+    Object path1 = table.states().get("/path1/");
+
+    try {
+      table.update(
+          Arrays.asList(route("/path1/", client1), route("/path2/", client2), route("/bad/")));
+      fail("expected the update to fail");
+    } catch (IllegalStateException e) {
+      // expected
+    }
+
+    assertEquals(Collections.singleton("/path1/"), table.states().keySet());
+    assertSame(path1, table.states().get("/path1/"));
+    // the state built for /path2/ before the failure was released
+    assertEquals(1, retired.size());
+  }
+
+  @Test
+  public void testReloadedRoutesAreSwapped() throws Exception {
+    File file = temporaryFolder.newFile("routes.json");
+    writeRoutes(file, routeJson("/path1/", "1.2.3.4"), routeJson("/path2/", "1.2.3.5"));
+    ScheduledExecutorService executor = new ScheduledThreadPoolExecutor(1);
+    RouteReloader<List<DynamicRouteConfig>> reloader =
+        new RouteReloader<>(executor, DynamicRouteConfigsFactory::build);
+    DynamicRouteTable<Object> table =
+        DynamicRouteTable.load(
+            reloader, file.getAbsolutePath(), route -> new Object(), retired::add);
+    Object path1 = table.states().get("/path1/");
+    Object path2 = table.states().get("/path2/");
+
+    writeRoutes(file, routeJson("/path1/", "1.2.3.4"), routeJson("/path2/", "2.2.3.4"));
+    reloader.checkForUpdates();
+    assertSame(path1, table.states().get("/path1/"));
+    assertNotSame(path2, table.states().get("/path2/"));
+    assertEquals(Collections.singletonList(path2), retired);
+
+    // once closed later changes are no longer picked up
+    reloader.close();
+    writeRoutes(file, routeJson("/path1/", "1.2.3.4"));
+    Thread.sleep(FileWatcher.DEBOUNCE_MILLIS * 5);
+    assertEquals(2, table.states().size());
+    executor.shutdown();
+  }
+}
@@ -0,0 +1,88 @@
+package com.xjeffrose.xio.config;
+
+import com.xjeffrose.xio.http.DefaultHeaders;
+import com.xjeffrose.xio.http.DefaultSegmentedData;
+import com.xjeffrose.xio.http.DefaultSegmentedRequest;
+import com.xjeffrose.xio.http.Request;
+import com.xjeffrose.xio.http.Response;
+import com.xjeffrose.xio.http.SegmentedRequestData;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class IpRuleImportRequestHandlerUnitTest extends Assert {
+
+  private final BlockingQueue<UpdateMessage> workLoad = new LinkedBlockingQueue<>();
+  private EmbeddedChannel channel;
+
+  @Before
+  public void setUp() {
+    IpRuleImportRequestHandler subject =
+        new IpRuleImportRequestHandler(new IpRules(new Ruleset()), workLoad);
+    channel =
+        new EmbeddedChannel(
+            new SimpleChannelInboundHandler<Request>() {
+              @Override
+              protected void channelRead0(ChannelHandlerContext ctx, Request request) {
+                subject.handle(ctx, request, null);
+              }
+            });
+  }
+
+  private SegmentedRequestData segment(String content, boolean endOfMessage) {
+    Request request =
+        DefaultSegmentedRequest.builder()
+            .path(Configurator.IP_RULES_PATH)
+            .method(HttpMethod.POST)
+            .headers(new DefaultHeaders())
+            .streamId(1)
+            .build();
+    DefaultSegmentedData data =
+        DefaultSegmentedData.builder()
+            .content(Unpooled.copiedBuffer(content, StandardCharsets.US_ASCII))
+            .endOfMessage(endOfMessage)
+            .streamId(1)
+            .build();
+    return new SegmentedRequestData(request, data);
+  }
+
+  @Test
+  public void testLinesSplitAcrossSegments() {
+    channel.writeInbound(segment("blacklist 10.0.0.1\r\nwhite", false));
+    assertEquals(1, workLoad.size());
+    assertNull(channel.readOutbound());
+
+    channel.writeInbound(segment("list 2001:db8::1\n# comment\n\nexample.com\n10.0", false));
+    channel.writeInbound(segment(".0.1", true));
+
+    Response response = channel.readOutbound();
+    assertEquals(HttpResponseStatus.OK, response.status());
+    String body = response.body().toString(StandardCharsets.UTF_8);
+    assertTrue(body, body.contains("\"applied\":2"));
+    assertTrue(body, body.contains("\"rejected\":2"));
+    assertTrue(body, body.contains("5: invalid address example.com"));
+    assertEquals(2, workLoad.size());
+  }
+
+  @Test
+  public void testLongLineFailsTheImport() {
+    StringBuilder line = new StringBuilder();
+    for (int i = 0; i <= IpRuleImportRequestHandler.MAX_LINE_LENGTH; i++) {
+      line.append('1');
+    }
+    channel.writeInbound(segment(line.toString(), false));
+
+    Response response = channel.readOutbound();
+    assertEquals(HttpResponseStatus.BAD_REQUEST, response.status());
+    assertFalse(channel.isOpen());
+  }
+}
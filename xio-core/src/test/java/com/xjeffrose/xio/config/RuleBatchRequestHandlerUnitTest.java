@@ -0,0 +1,96 @@
+package com.xjeffrose.xio.config;
+
+import com.google.common.collect.HashMultimap;
+import com.xjeffrose.xio.config.thrift.RuleType;
+import com.xjeffrose.xio.http.DefaultHeaders;
+import com.xjeffrose.xio.http.DefaultSegmentedData;
+import com.xjeffrose.xio.http.DefaultSegmentedRequest;
+import com.xjeffrose.xio.http.Request;
+import com.xjeffrose.xio.http.Response;
+import com.xjeffrose.xio.http.SegmentedRequestData;
+import com.xjeffrose.xio.marshall.ThriftMarshaller;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class RuleBatchRequestHandlerUnitTest extends Assert {
+
+  private final BlockingQueue<UpdateMessage> workLoad = new LinkedBlockingQueue<>();
+  private EmbeddedChannel channel;
+
+  @Before
+  public void setUp() {
+    Ruleset rules = new Ruleset();
+    RuleBatchRequestHandler subject =
+        new RuleBatchRequestHandler(
+            new IpRules(rules), new Http1Rules(rules), workLoad, Configurator.MAX_REQUEST_SIZE);
+    channel =
+        new EmbeddedChannel(
+            new SimpleChannelInboundHandler<Request>() {
+              @Override
+              protected void channelRead0(ChannelHandlerContext ctx, Request request) {
+                subject.handle(ctx, request, null);
+              }
+            });
+  }
+
+  private SegmentedRequestData request(byte[] content) {
+    Request request =
+        DefaultSegmentedRequest.builder()
+            .path(Configurator.RULES_PATH)
+            .method(HttpMethod.POST)
+            .headers(new DefaultHeaders())
+            .streamId(3)
+            .build();
+    DefaultSegmentedData data =
+        DefaultSegmentedData.builder()
+            .content(Unpooled.wrappedBuffer(content))
+            .endOfMessage(true)
+            .streamId(3)
+            .build();
+    return new SegmentedRequestData(request, data);
+  }
+
+  @Test
+  public void testBatchIsAppliedInOneCall() throws Exception {
+    Http1DeterministicRuleEngineConfig.Rule rule =
+        new Http1DeterministicRuleEngineConfig.Rule(
+            HttpMethod.GET, "/path/to/failure", HttpVersion.HTTP_1_0, HashMultimap.create());
+    byte[] batch =
+        new ThriftMarshaller()
+            .marshall(
+                Arrays.asList(
+                    UpdateMessage.addIpRule(InetAddress.getByName("127.0.0.1"), RuleType.blacklist),
+                    UpdateMessage.addHttp1Rule(rule, RuleType.blacklist),
+                    UpdateMessage.removeIpRule(InetAddress.getByName("127.0.0.2"))));
+    channel.writeInbound(request(batch));
+
+    Response response = channel.readOutbound();
+    assertEquals(HttpResponseStatus.OK, response.status());
+    String body = response.body().toString(StandardCharsets.UTF_8);
+    assertTrue(body, body.contains("\"applied\":2"));
+    assertTrue(body, body.contains("\"rejected\":1"));
+    assertEquals(2, workLoad.size());
+  }
+
+  @Test
+  public void testMalformedBatchIsRejected() {
+    channel.writeInbound(request(new byte[] {2, 0, 0, 9}));
+
+    Response response = channel.readOutbound();
+    assertEquals(HttpResponseStatus.BAD_REQUEST, response.status());
+    assertTrue(workLoad.isEmpty());
+  }
+}
@@ -0,0 +1,34 @@
+package com.xjeffrose.xio.core;
+
+import io.netty.channel.unix.DomainSocketAddress;
+import java.net.InetSocketAddress;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SocketAddressesTest extends Assert {
+
+  @Test
+  public void testParse() {
+    assertEquals(
+        new InetSocketAddress("127.0.0.1", 8080), SocketAddresses.parse("127.0.0.1", 8080));
+    DomainSocketAddress address =
+        (DomainSocketAddress) SocketAddresses.parse("unix:/var/run/sidecar.sock", 0);
+    assertEquals("/var/run/sidecar.sock", address.path());
+    assertTrue(SocketAddresses.isDomainSocket(address));
+    assertFalse(SocketAddresses.isDomainSocket(new InetSocketAddress("127.0.0.1", 8080)));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testParseMissingPath() {
+    SocketAddresses.parse("unix:", 0);
+  }
+
+  @Test
+  public void testDescribe() {
+    assertEquals(
+        "127.0.0.1:8080", SocketAddresses.describe(new InetSocketAddress("127.0.0.1", 8080)));
+    assertEquals(
+        "unix:/var/run/sidecar.sock",
+        SocketAddresses.describe(new DomainSocketAddress("/var/run/sidecar.sock")));
+  }
+}
@@ -1,9 +1,14 @@
 package com.xjeffrose.xio.filter;
 
+import com.google.common.collect.ImmutableSet;
 import com.xjeffrose.xio.config.IpAddressDeterministicRuleEngineConfig;
+import com.xjeffrose.xio.config.UpdateMessage;
+import com.xjeffrose.xio.config.thrift.RuleType;
 import com.xjeffrose.xio.marshall.ThriftMarshaller;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
+import java.util.Arrays;
+import java.util.Collections;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -25,6 +30,25 @@ public class IpFilterConfigUnitTest extends Assert {
     assertEquals(expected, config);
   }
 
+  @Test
+  public void testUpdaterAppliesDeltas() throws UnknownHostException {
+    ThriftMarshaller marshaller = new ThriftMarshaller();
+    IpAddressDeterministicRuleEngineConfig rules = new IpAddressDeterministicRuleEngineConfig();
+    InetAddress first = InetAddress.getByName("127.0.0.1");
+    InetAddress second = InetAddress.getByName("127.0.0.2");
+    rules.blacklistIp(first);
+
+    IpFilterConfig.Updater updater = new IpFilterConfig.Updater("path", this::setIpFilterConfig);
+    updater.update(marshaller.marshall(rules));
+    updater.apply(
+        Arrays.asList(
+            marshaller.marshall(
+                Collections.singletonList(UpdateMessage.addIpRule(second, RuleType.blacklist))),
+            marshaller.marshall(Collections.singletonList(UpdateMessage.removeIpRule(first)))));
+
+    assertEquals(new IpFilterConfig(ImmutableSet.of(second)), config);
+  }
+
   public void setIpFilterConfig(IpFilterConfig config) {
     this.config = config;
   }
@@ -0,0 +1,162 @@
+package com.xjeffrose.xio.http;
+
+import com.codahale.metrics.MetricRegistry;
+import com.typesafe.config.ConfigFactory;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CircuitBreakerTest extends Assert {
+
+  private final MetricRegistry registry = new MetricRegistry();
+
+  private CircuitBreaker breaker(Duration openDuration, Duration halfOpenTimeout) {
+    return new CircuitBreaker(
+        "backend:80",
+        new CircuitBreakerConfig(true, 2, openDuration, 1, halfOpenTimeout),
+        registry);
+  }
+
+  private CircuitBreaker breaker(Duration openDuration) {
+    return breaker(openDuration, Duration.ofMinutes(1));
+  }
+
+  @Test
+  public void testReferenceConfig() {
+    CircuitBreakerConfig config =
+        new CircuitBreakerConfig(ConfigFactory.load().getConfig("xio.clientLimits.circuitBreaker"));
+    assertFalse(config.enabled());
+    assertEquals(5, config.failureThreshold());
+    assertEquals(Duration.ofSeconds(10), config.halfOpenTimeout());
+  }
+
+  @Test
+  public void testOpensAfterConsecutiveFailures() {
+    CircuitBreaker breaker = breaker(Duration.ofMinutes(1));
+
+    breaker.onFailure();
+    breaker.onSuccess();
+    breaker.onFailure();
+    assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+    assertTrue(breaker.allowRequest());
+
+    breaker.onFailure();
+    assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+    assertFalse(breaker.allowRequest());
+    assertEquals(1, registry.meter("circuitBreaker.backend:80.open").getCount());
+    assertEquals(1, registry.meter("circuitBreaker.backend:80.rejected").getCount());
+  }
+
+  @Test
+  public void testHalfOpenAdmitsProbesAndCloses() {
+    CircuitBreaker breaker = breaker(Duration.ZERO);
+    breaker.onFailure();
+    breaker.onFailure();
+
+    assertTrue(breaker.allowRequest());
+    assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.state());
+    assertFalse(breaker.allowRequest());
+
+    breaker.onSuccess();
+    assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+    assertTrue(breaker.allowRequest());
+  }
+
+  @Test
+  public void testHalfOpenReopensOnFailure() {
+    CircuitBreaker breaker = breaker(Duration.ZERO);
+    breaker.onFailure();
+    breaker.onFailure();
+
+    assertTrue(breaker.allowRequest());
+    breaker.onFailure();
+    assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+    assertEquals(2, registry.meter("circuitBreaker.backend:80.open").getCount());
+  }
+
+  @Test
+  public void testAvailabilityDoesNotTakeProbes() {
+    CircuitBreaker breaker = breaker(Duration.ZERO);
+    breaker.onFailure();
+    breaker.onFailure();
+
+    assertTrue(breaker.isAvailable());
+    assertTrue(breaker.isAvailable());
+    assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+
+    assertTrue(breaker.allowRequest());
+    assertFalse(breaker.isAvailable());
+    assertFalse(breaker.allowRequest());
+    assertEquals(1, registry.meter("circuitBreaker.backend:80.rejected").getCount());
+  }
+
+  @Test
+  public void testHalfOpenReopensWithoutReport() throws Exception {
+    CircuitBreaker breaker = breaker(Duration.ZERO, Duration.ofNanos(1));
+    breaker.onFailure();
+    breaker.onFailure();
+
+    assertTrue(breaker.allowRequest());
+    Thread.sleep(1);
+    // the probe never reported back, the breaker reopens and lets a new probe through
+    assertTrue(breaker.isAvailable());
+    assertTrue(breaker.allowRequest());
+    assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.state());
+    assertEquals(2, registry.meter("circuitBreaker.backend:80.open").getCount());
+    assertEquals(2, registry.meter("circuitBreaker.backend:80.halfOpen").getCount());
+  }
+
+  private EmbeddedChannel backend(CircuitBreaker breaker) {
+    EmbeddedChannel frontend = new EmbeddedChannel(new ChannelInboundHandlerAdapter());
+    EmbeddedChannel backend =
+        new EmbeddedChannel(new ProxyBackendHandler(frontend.pipeline().firstContext()));
+    backend.attr(CircuitBreaker.CIRCUIT_BREAKER_KEY).set(breaker);
+    backend.writeOutbound(
+        DefaultFullRequest.builder()
+            .body(Unpooled.EMPTY_BUFFER)
+            .headers(new DefaultHeaders())
+            .method(HttpMethod.GET)
+            .path("/")
+            .streamId(1)
+            .build());
+    return backend;
+  }
+
+  @Test
+  public void testBackendCloseBeforeResponseIsAFailure() {
+    CircuitBreaker breaker = breaker(Duration.ofMinutes(1));
+
+    EmbeddedChannel answered = backend(breaker);
+    answered.writeInbound(
+        DefaultFullResponse.builder()
+            .body(Unpooled.EMPTY_BUFFER)
+            .headers(new DefaultHeaders())
+            .status(HttpResponseStatus.OK)
+            .streamId(1)
+            .build());
+    answered.close();
+    backend(breaker).close();
+    assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+
+    backend(breaker).close();
+    assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+  }
+
+  @Test
+  public void testBreakersArePerAddress() {
+    CircuitBreakers breakers =
+        new CircuitBreakers(
+            new CircuitBreakerConfig(true, 1, Duration.ofMinutes(1), 1, Duration.ZERO), registry);
+    InetSocketAddress address = new InetSocketAddress("127.0.0.1", 8080);
+
+    assertSame(breakers.get(address), breakers.get(new InetSocketAddress("127.0.0.1", 8080)));
+    assertNotSame(breakers.get(address), breakers.get(new InetSocketAddress("127.0.0.1", 8081)));
+    assertNull(new CircuitBreakers(CircuitBreakerConfig.DISABLED, registry).get(address));
+  }
+}
@@ -3,6 +3,7 @@ package com.xjeffrose.xio.http;
 import static org.powermock.api.mockito.PowerMockito.when;
 
 import com.typesafe.config.ConfigFactory;
+import com.typesafe.config.ConfigValueFactory;
 import com.xjeffrose.xio.bootstrap.ChannelConfiguration;
 import com.xjeffrose.xio.client.ClientConfig;
 import com.xjeffrose.xio.core.XioIdleDisconnectHandler;
@@ -11,6 +12,8 @@ import com.xjeffrose.xio.tracing.XioTracing;
 import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.HttpClientCodec;
+import io.netty.handler.codec.http2.Http2ConnectionHandler;
 import io.netty.handler.ssl.SslHandler;
 import lombok.val;
 import okhttp3.mockwebserver.MockResponse;
@@ -144,4 +147,26 @@ public class ClientChannelInitializerTest extends Assert {
     val result = testChannel.pipeline().get(XioIdleDisconnectHandler.class);
     assertNotNull(result);
   }
+
+  @Test
+  public void testH2cPriorKnowledge() {
+    val channelConfig = ChannelConfiguration.clientConfig(1, "worker");
+    val clientConfig =
+        ClientConfig.from(
+            ConfigFactory.load()
+                .getConfig("xio.basicClient")
+                .withValue("settings.h2cPriorKnowledge", ConfigValueFactory.fromAnyRef(true)));
+    val clientState = new ClientState(channelConfig, clientConfig);
+    when(tracing.newClientHandler()).thenReturn(null);
+
+    subject = new ClientChannelInitializer(clientState, () -> appHandler, tracing);
+
+    // Assert that we speak http2 without TLS and hold writes until the server's settings
+    val testChannel = new EmbeddedChannel(subject);
+    assertNull(testChannel.pipeline().get(SslHandler.class));
+    assertNull(testChannel.pipeline().get(HttpClientCodec.class));
+    assertNotNull(testChannel.pipeline().get(Http2ConnectionHandler.class));
+    assertNotNull(testChannel.pipeline().get(Http2ClientCodec.class));
+    assertNotNull(testChannel.pipeline().get(RequestBuffer.class));
+  }
 }
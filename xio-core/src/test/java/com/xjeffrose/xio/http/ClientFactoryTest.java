@@ -0,0 +1,68 @@
+package com.xjeffrose.xio.http;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.xjeffrose.xio.client.ClientConfig;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ClientFactoryTest extends Assert {
+
+  private ChannelHandlerContext ctx;
+  private ClientFactory factory;
+  private ClientConfig primary;
+  private ClientConfig fallback;
+
+  private static ClientConfig config(int port) {
+    ClientConfig config = mock(ClientConfig.class);
+    when(config.remote()).thenReturn(new InetSocketAddress("127.0.0.1", port));
+    return config;
+  }
+
+  @Before
+  public void setUp() {
+    ctx = new EmbeddedChannel(new ChannelInboundHandlerAdapter()).pipeline().firstContext();
+    factory =
+        new ClientFactory(null) {
+          @Override
+          public Client createClient(ChannelHandlerContext ctx, ClientConfig config) {
+            SocketAddress remote = config.remote();
+            Client client = mock(Client.class);
+            when(client.remoteAddress()).thenReturn(remote);
+            return client;
+          }
+        };
+    primary = config(8001);
+    fallback = config(8002);
+  }
+
+  @Test
+  public void testAlternateClientKeepsChannelBinding() {
+    Client bound = factory.getClient(ctx, primary);
+    Client alternate = factory.getAlternateClient(ctx, fallback);
+
+    assertNotSame(bound, alternate);
+    assertEquals(fallback.remote(), alternate.remoteAddress());
+    // later requests reuse both clients, the channel stays bound to its backend
+    assertSame(bound, factory.getClient(ctx, primary));
+    assertSame(alternate, factory.getAlternateClient(ctx, fallback));
+  }
+
+  @Test
+  public void testClientMatchesConfig() {
+    Client bound = factory.getClient(ctx, primary);
+    Client other = factory.getClient(ctx, fallback);
+
+    assertNotSame(bound, other);
+    assertEquals(fallback.remote(), other.remoteAddress());
+    assertSame(bound, factory.getClient(ctx, primary));
+    assertSame(bound, factory.getAlternateClient(ctx, primary));
+  }
+}
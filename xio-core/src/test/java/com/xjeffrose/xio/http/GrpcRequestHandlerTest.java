@@ -6,14 +6,21 @@ import helloworld.*;
 import io.grpc.Status;
 import io.grpc.StatusException;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.Unpooled;
 import io.netty.buffer.UnpooledByteBufAllocator;
 import io.netty.channel.*;
 import io.netty.channel.embedded.EmbeddedChannel;
 import io.netty.handler.codec.http.HttpHeaderNames;
 import io.netty.handler.codec.http.HttpMethod;
 import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http2.Http2FrameTypes;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
 import java.nio.ByteBuffer;
 import java.util.Objects;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -390,6 +397,228 @@ public class GrpcRequestHandlerTest extends Assert {
     assertTrue(segmentedData.endOfMessage());
   }
 
+  private void useHandler(GrpcRequestHandler<HelloRequest, HelloReply> handler) {
+    subject = handler;
+    channel =
+        new EmbeddedChannel(
+            new SimpleChannelInboundHandler<Request>() {
+              @Override
+              protected void channelRead0(ChannelHandlerContext ctx, Request request) {
+                subject.handle(ctx, request, null);
+              }
+            });
+  }
+
+  private HelloReply reply(String message) {
+    return HelloReply.newBuilder().setMessage(message).build();
+  }
+
+  @Test
+  public void testServerStreaming() {
+    useHandler(
+        GrpcRequestHandler.serverStreaming(
+            HelloRequest::parseFrom,
+            (HelloRequest request, GrpcStreamObserver<HelloReply> responses) -> {
+              responses.onNext(reply("first " + request.getName()));
+              responses.onNext(reply("second " + request.getName()));
+              responses.onCompleted();
+            },
+            GrpcRequestHandler.DEFAULT_MAX_MESSAGE_SIZE));
+    int streamId = 3;
+
+    ByteBuf grpcRequestBuffer = bufferFor(HelloRequest.newBuilder().setName("myName").build());
+    channel.writeInbound(fullGrpcRequest(grpcRequestBuffer, streamId, true));
+
+    Response response = channel.readOutbound();
+    SegmentedData first = channel.readOutbound();
+    SegmentedData second = channel.readOutbound();
+    SegmentedData trailers = channel.readOutbound();
+
+    assertEquals(HttpResponseStatus.OK, response.status());
+    assertEquals(reply("first myName"), protoObjectFor(first.content(), HelloReply::parseFrom));
+    assertFalse(first.endOfMessage());
+    assertEquals(reply("second myName"), protoObjectFor(second.content(), HelloReply::parseFrom));
+    assertFalse(second.endOfMessage());
+    assertFalse(trailers.content().isReadable());
+    assertEquals("0", Objects.requireNonNull(trailers.trailingHeaders()).get("grpc-status"));
+    assertTrue(trailers.endOfMessage());
+  }
+
+  @Test
+  public void testBidiStreamingAcrossChunks() {
+    useHandler(
+        GrpcRequestHandler.bidiStreaming(
+            HelloRequest::parseFrom,
+            responses ->
+                new GrpcStreamObserver<HelloRequest>() {
+                  @Override
+                  public void onNext(HelloRequest request) {
+                    responses.onNext(reply("echo " + request.getName()));
+                  }
+
+                  @Override
+                  public void onError(Status status) {}
+
+                  @Override
+                  public void onCompleted() {
+                    responses.onCompleted();
+                  }
+                },
+            GrpcRequestHandler.DEFAULT_MAX_MESSAGE_SIZE));
+    int streamId = 5;
+
+    ByteBuf one = bufferFor(HelloRequest.newBuilder().setName("one").build());
+    ByteBuf two = bufferFor(HelloRequest.newBuilder().setName("two").build());
+    ByteBuf both = Unpooled.wrappedBuffer(one, two);
+    // split the second message in the middle of its metadata
+    int split = one.readableBytes() + 2;
+
+    channel.writeInbound(fullGrpcRequest(both.retainedSlice(0, split), streamId, false));
+    Response response = channel.readOutbound();
+    SegmentedData first = channel.readOutbound();
+    assertEquals(HttpResponseStatus.OK, response.status());
+    assertEquals(reply("echo one"), protoObjectFor(first.content(), HelloReply::parseFrom));
+    assertNull(channel.readOutbound());
+
+    channel.writeInbound(
+        fullGrpcRequest(
+            both.retainedSlice(split, both.readableBytes() - split), streamId, true));
+    SegmentedData second = channel.readOutbound();
+    SegmentedData trailers = channel.readOutbound();
+    assertEquals(reply("echo two"), protoObjectFor(second.content(), HelloReply::parseFrom));
+    assertEquals("0", Objects.requireNonNull(trailers.trailingHeaders()).get("grpc-status"));
+    assertTrue(trailers.endOfMessage());
+  }
+
+  @Test
+  public void testGzipCompressedRequest() throws Exception {
+    HelloRequest grpcRequest = HelloRequest.newBuilder().setName("myName").build();
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+    try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+      grpcRequest.writeTo(out);
+    }
+    byte[] dataBytes = compressed.toByteArray();
+    ByteBuf grpcRequestBuffer = Unpooled.buffer(dataBytes.length + 5);
+    grpcRequestBuffer.writeByte(1);
+    grpcRequestBuffer.writeInt(dataBytes.length);
+    grpcRequestBuffer.writeBytes(dataBytes);
+    int streamId = 7;
+
+    Request request =
+        DefaultSegmentedRequest.builder()
+            .path("/")
+            .method(HttpMethod.POST)
+            .headers(new DefaultHeaders().set("grpc-encoding", "gzip"))
+            .streamId(streamId)
+            .build();
+    DefaultSegmentedData requestData =
+        DefaultSegmentedData.builder()
+            .content(grpcRequestBuffer)
+            .endOfMessage(true)
+            .streamId(streamId)
+            .build();
+    channel.writeInbound(new SegmentedRequestData(request, requestData));
+
+    Response response = channel.readOutbound();
+    SegmentedData segmentedData = channel.readOutbound();
+
+    assertEquals("gzip", response.headers().get("grpc-encoding"));
+    assertEquals("0", Objects.requireNonNull(segmentedData.trailingHeaders()).get("grpc-status"));
+    ByteBuf content = segmentedData.content();
+    assertEquals(1, content.getByte(0));
+    ByteBuf message = content.slice(5, content.readableBytes() - 5);
+    try (InputStream in = new GZIPInputStream(new ByteBufInputStream(message))) {
+      assertEquals(reply(responsePrefix + "myName"), HelloReply.parseFrom(in));
+    }
+  }
+
+  @Test
+  public void testConfiguredMaxMessageSize() {
+    useHandler(
+        new GrpcRequestHandler<>(
+            HelloRequest::parseFrom,
+            (HelloRequest request) -> HelloReply.getDefaultInstance(),
+            4));
+    int streamId = 9;
+
+    ByteBuf grpcRequestBuffer = bufferFor(HelloRequest.newBuilder().setName("myName").build());
+    channel.writeInbound(fullGrpcRequest(grpcRequestBuffer, streamId, true));
+
+    Response response = channel.readOutbound();
+    SegmentedData segmentedData = channel.readOutbound();
+
+    assertEquals(HttpResponseStatus.OK, response.status());
+    assertEquals("8", Objects.requireNonNull(segmentedData.trailingHeaders()).get("grpc-status"));
+  }
+
+  @Test
+  public void testRestOfFailedRequestIsDropped() {
+    useHandler(
+        new GrpcRequestHandler<>(
+            HelloRequest::parseFrom,
+            (HelloRequest request) -> HelloReply.getDefaultInstance(),
+            4));
+    int streamId = 11;
+
+    ByteBuf grpcRequestBuffer = bufferFor(HelloRequest.newBuilder().setName("myName").build());
+    int size = grpcRequestBuffer.readableBytes();
+    channel.writeInbound(fullGrpcRequest(grpcRequestBuffer.retainedSlice(0, 5), streamId, false));
+    Response response = channel.readOutbound();
+    SegmentedData segmentedData = channel.readOutbound();
+    assertEquals(HttpResponseStatus.OK, response.status());
+    assertEquals("8", Objects.requireNonNull(segmentedData.trailingHeaders()).get("grpc-status"));
+
+    // the remaining data doesn't start a new call
+    channel.writeInbound(
+        fullGrpcRequest(grpcRequestBuffer.retainedSlice(5, size - 5), streamId, false));
+    channel.writeInbound(fullGrpcRequest(Unpooled.EMPTY_BUFFER, streamId, true));
+    assertNull(channel.readOutbound());
+    assertTrue(channel.isOpen());
+  }
+
+  @Test
+  public void testFailedCallResetsOnlyItsStream() {
+    channel.pipeline().addFirst(new Http2HandlerBuilder().server(true).build());
+    int streamId = 13;
+
+    ByteBuf tooLarge = Unpooled.buffer().writeByte(0).writeInt(900_000_000);
+    channel.writeInbound(fullGrpcRequest(tooLarge, streamId, false));
+    Response response = readMessage();
+    SegmentedData segmentedData = readMessage();
+    assertEquals(HttpResponseStatus.OK, response.status());
+    assertEquals("8", Objects.requireNonNull(segmentedData.trailingHeaders()).get("grpc-status"));
+
+    // other calls on the connection go on
+    ByteBuf grpcRequestBuffer = bufferFor(HelloRequest.newBuilder().setName("myName").build());
+    channel.writeInbound(fullGrpcRequest(grpcRequestBuffer, streamId + 2, true));
+    response = readMessage();
+    SegmentedData reply = readMessage();
+    assertEquals(streamId + 2, response.streamId());
+    assertEquals(
+        reply(responsePrefix + "myName"), protoObjectFor(reply.content(), HelloReply::parseFrom));
+    // the reset was written after the trailers of the failed call
+    assertTrue(resetSent);
+    assertTrue(channel.isOpen());
+  }
+
+  // whether an http/2 RST_STREAM frame was among the frames skipped by readMessage
+  private boolean resetSent;
+
+  /** @return the next message written by the handler, skipping encoded http/2 frames */
+  @SuppressWarnings("unchecked")
+  private <T> T readMessage() {
+    Object msg = channel.readOutbound();
+    while (msg instanceof ByteBuf) {
+      ByteBuf frame = (ByteBuf) msg;
+      if (frame.readableBytes() >= 9 && frame.getByte(3) == Http2FrameTypes.RST_STREAM) {
+        resetSent = true;
+      }
+      frame.release();
+      msg = channel.readOutbound();
+    }
+    return (T) msg;
+  }
+
   private ByteBuf bufferFor(
       com.google.protobuf.GeneratedMessageV3 protoObject, boolean compressed) {
     byte[] dataBytes = protoObject.toByteArray();
@@ -0,0 +1,82 @@
+package com.xjeffrose.xio.http;
+
+import com.typesafe.config.ConfigFactory;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.HttpMethod;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class HedgePolicyTest extends Assert {
+
+  private static FullRequest request(HttpMethod method) {
+    return DefaultFullRequest.builder()
+        .body(Unpooled.EMPTY_BUFFER)
+        .headers(new DefaultHeaders())
+        .method(method)
+        .path("/")
+        .build();
+  }
+
+  @Test
+  public void testReferenceConfig() {
+    HedgeConfig config =
+        new HedgeConfig(ConfigFactory.load().getConfig("xio.proxyRouteTemplate.hedge"));
+    assertFalse(config.enabled());
+    assertEquals(Duration.ofMillis(50), config.delay());
+    assertEquals(10, config.maxBudget());
+  }
+
+  @Test
+  public void testBudgetStartsFullAndRefills() {
+    RequestBudget budget = new RequestBudget(0.5, 2);
+
+    assertTrue(budget.tryWithdraw());
+    assertTrue(budget.tryWithdraw());
+    assertFalse(budget.tryWithdraw());
+
+    budget.deposit();
+    assertFalse(budget.tryWithdraw());
+    budget.deposit();
+    assertTrue(budget.tryWithdraw());
+  }
+
+  @Test
+  public void testBudgetIsCapped() {
+    RequestBudget budget = new RequestBudget(1, 3);
+    for (int i = 0; i < 10; i++) {
+      budget.deposit();
+    }
+    assertEquals(3.0, budget.balance(), 0.0001);
+  }
+
+  @Test
+  public void testOnlyIdempotentFullRequestsCanBeHedged() {
+    HedgePolicy policy =
+        new HedgePolicy(
+            new HedgeConfig(true, Duration.ofMillis(20), 0, Duration.ofMillis(5), 0.1, 1));
+
+    assertTrue(policy.canHedge(request(HttpMethod.GET)));
+    assertTrue(policy.canHedge(request(HttpMethod.PUT)));
+    assertFalse(policy.canHedge(request(HttpMethod.POST)));
+    assertFalse(
+        policy.canHedge(
+            DefaultSegmentedRequest.builder()
+                .headers(new DefaultHeaders())
+                .method(HttpMethod.GET)
+                .path("/")
+                .build()));
+  }
+
+  @Test
+  public void testFixedDelay() {
+    HedgePolicy policy =
+        new HedgePolicy(
+            new HedgeConfig(true, Duration.ofMillis(20), 0, Duration.ofMillis(5), 0.1, 1));
+    for (int i = 0; i < 200; i++) {
+      policy.recordLatency(TimeUnit.SECONDS.toNanos(1));
+    }
+    assertEquals(TimeUnit.MILLISECONDS.toNanos(20), policy.delayNanos());
+  }
+}
@@ -0,0 +1,122 @@
+package com.xjeffrose.xio.http;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.xjeffrose.xio.client.ClientConfig;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class HedgedRequestTest extends Assert {
+
+  private EmbeddedChannel frontend;
+  private EmbeddedChannel backend;
+  private ChannelHandlerContext ctx;
+  private HedgePolicy policy;
+
+  private static FullRequest request() {
+    return DefaultFullRequest.builder()
+        .body(Unpooled.EMPTY_BUFFER)
+        .headers(new DefaultHeaders())
+        .method(HttpMethod.GET)
+        .path("/")
+        .streamId(1)
+        .build();
+  }
+
+  // segmented responses never end the race
+  private static Response response() {
+    return DefaultSegmentedResponse.builder()
+        .status(HttpResponseStatus.OK)
+        .headers(new DefaultHeaders())
+        .streamId(1)
+        .build();
+  }
+
+  private static Response fullResponse() {
+    return ResponseBuilders.newOk().body(Unpooled.EMPTY_BUFFER).streamId(1).build();
+  }
+
+  @Before
+  public void setUp() {
+    frontend = new EmbeddedChannel(new ChannelInboundHandlerAdapter());
+    ctx = frontend.pipeline().firstContext();
+    backend = new EmbeddedChannel();
+    policy = mock(HedgePolicy.class);
+    // the hedge is never sent by these tests
+    when(policy.delayNanos()).thenReturn(TimeUnit.HOURS.toNanos(1));
+  }
+
+  private HedgedRequest start() {
+    FullRequest request = request();
+    HedgedRequest race =
+        HedgedRequest.start(ctx, policy, mock(ClientFactory.class), null, request);
+    HedgedRequest.onPrimaryWritten(ctx, backend, request);
+    return race;
+  }
+
+  @Test
+  public void testPrimaryWinRecordsLatency() {
+    start();
+    assertTrue(HedgedRequest.acceptPrimary(backend, response()));
+    verify(policy, times(1)).recordLatency(anyLong());
+  }
+
+  @Test
+  public void testLosingPrimaryRecordsLatency() {
+    HedgedRequest race = start();
+    assertTrue(race.onHedgeResponse(response()));
+
+    // the slow primary is discarded but still counts towards the hedge delay
+    assertFalse(HedgedRequest.acceptPrimary(backend, response()));
+    assertFalse(HedgedRequest.acceptPrimary(backend, response()));
+    verify(policy, times(1)).recordLatency(anyLong());
+  }
+
+  @Test
+  public void testRaceOnlyDecidesItsOwnRequest() {
+    HedgedRequest race = start();
+    // the next request on the same connection and stream isn't hedged
+    HedgedRequest.onPrimaryWritten(ctx, backend, request());
+    assertTrue(race.onHedgeResponse(fullResponse()));
+
+    assertFalse(HedgedRequest.acceptPrimary(backend, fullResponse()));
+    assertTrue(HedgedRequest.acceptPrimary(backend, fullResponse()));
+  }
+
+  @Test
+  public void testLosingHedgeIsReleased() {
+    when(policy.delayNanos()).thenReturn(0L);
+    RequestBudget budget = mock(RequestBudget.class);
+    when(budget.tryWithdraw()).thenReturn(true);
+    when(policy.budget()).thenReturn(budget);
+    ClientConfig hedgeConfig = mock(ClientConfig.class);
+    Client hedgeClient = mock(Client.class);
+    when(hedgeClient.write(any())).thenReturn(Optional.of(frontend.newSucceededFuture()));
+    ClientFactory factory = mock(ClientFactory.class);
+    when(factory.acquireClient(eq(ctx), eq(hedgeConfig), any())).thenReturn(hedgeClient);
+
+    FullRequest request = request();
+    HedgedRequest.start(ctx, policy, factory, hedgeConfig, request);
+    HedgedRequest.onPrimaryWritten(ctx, backend, request);
+    frontend.runScheduledPendingTasks();
+    assertTrue(HedgedRequest.acceptPrimary(backend, fullResponse()));
+
+    verify(hedgeClient).abandon(1);
+    verify(factory).releaseClient(hedgeClient);
+  }
+}
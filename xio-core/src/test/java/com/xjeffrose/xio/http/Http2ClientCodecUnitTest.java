@@ -4,8 +4,10 @@ import static io.netty.handler.codec.http.HttpMethod.*;
 import static io.netty.handler.codec.http.HttpResponseStatus.*;
 
 import com.google.common.util.concurrent.Uninterruptibles;
+import com.xjeffrose.xio.http.internal.Http2HeadersWrapper;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
 import io.netty.buffer.UnpooledByteBufAllocator;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelOutboundHandlerAdapter;
@@ -13,6 +15,7 @@ import io.netty.channel.ChannelPromise;
 import io.netty.channel.SimpleChannelInboundHandler;
 import io.netty.channel.embedded.EmbeddedChannel;
 import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http2.DefaultHttp2Connection;
 import io.netty.handler.codec.http2.DefaultHttp2DataFrame;
 import io.netty.handler.codec.http2.DefaultHttp2Headers;
 import io.netty.handler.codec.http2.Http2DataFrame;
@@ -356,4 +359,79 @@ public class Http2ClientCodecUnitTest extends Assert {
     assertEquals("bar", trailersOut.trailingHeaders().get("foo"));
     assertTrue(trailersOut.endOfMessage());
   }
+
+  @Test
+  public void testTrailingHeadersOnMappedStream() throws Exception {
+    outputReceived = new CountDownLatch(3);
+    int streamId = 5;
+    int mappedId =
+        Http2ClientStreamMapper.http2ClientStreamMapper(channel.pipeline().firstContext())
+            .outboundStreamId(new DefaultHttp2Connection(false), streamId);
+    Http2Headers headers = new DefaultHttp2Headers().status("200");
+    ByteBuf body = ByteBufUtil.writeUtf8(UnpooledByteBufAllocator.DEFAULT, "body");
+    Http2Response content =
+        Http2Response.build(mappedId, new DefaultHttp2DataFrame(body, false), false);
+    Http2Response trailers =
+        Http2Response.build(mappedId, new DefaultHttp2Headers().set("grpc-status", "0"), true);
+
+    channel.writeInbound(Http2Response.build(mappedId, headers, false));
+    channel.writeInbound(content);
+    channel.writeInbound(trailers);
+
+    channel.runPendingTasks(); // blocks
+
+    Uninterruptibles.awaitUninterruptibly(outputReceived);
+
+    assertEquals(streamId, responses.remove(0).streamId());
+    assertEquals(streamId, responses.remove(0).streamId());
+    SegmentedResponseData trailersOut = (SegmentedResponseData) responses.remove(0);
+
+    assertEquals(streamId, trailersOut.streamId());
+    assertEquals("0", trailersOut.trailingHeaders().get("grpc-status"));
+    assertTrue(trailersOut.endOfMessage());
+  }
+
+  private Request proxiedRequest(Http2Headers incoming, String path) {
+    return DefaultFullRequest.builder()
+        .body(Unpooled.EMPTY_BUFFER)
+        .headers(new Http2HeadersWrapper(incoming))
+        .method(GET)
+        .path(path)
+        .host("localhost")
+        .build();
+  }
+
+  @Test
+  public void testProxiedHeadersAreForwardedWithoutCopy() throws Exception {
+    outputReceived = new CountDownLatch(1);
+    Http2Headers incoming =
+        new DefaultHttp2Headers().method("GET").path("/").authority("localhost").set("foo", "bar");
+
+    channel.writeOutbound(proxiedRequest(incoming, "/"));
+
+    channel.runPendingTasks(); // blocks
+
+    Uninterruptibles.awaitUninterruptibly(outputReceived);
+
+    assertSame(incoming, requests.remove(0).payload);
+  }
+
+  @Test
+  public void testProxiedHeadersWithNewPathAreCopied() throws Exception {
+    outputReceived = new CountDownLatch(1);
+    Http2Headers incoming =
+        new DefaultHttp2Headers().method("GET").path("/").authority("localhost").set("foo", "bar");
+
+    channel.writeOutbound(proxiedRequest(incoming, "/backend/"));
+
+    channel.runPendingTasks(); // blocks
+
+    Uninterruptibles.awaitUninterruptibly(outputReceived);
+
+    Http2Headers headersOut = (Http2Headers) requests.remove(0).payload;
+    assertEquals("/backend/", headersOut.path().toString());
+    assertEquals("bar", headersOut.get("foo").toString());
+    // the incoming headers still route the rest of the incoming stream
+    assertEquals("/", incoming.path().toString());
+  }
 }
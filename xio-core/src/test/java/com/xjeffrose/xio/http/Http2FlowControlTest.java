@@ -0,0 +1,64 @@
+package com.xjeffrose.xio.http;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import java.nio.charset.StandardCharsets;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class Http2FlowControlTest extends Assert {
+
+  private EmbeddedChannel channel;
+  private ChannelHandlerContext ctx;
+  private final ByteBuf data = Unpooled.copiedBuffer("data", StandardCharsets.UTF_8);
+
+  @Before
+  public void setUp() {
+    channel = new EmbeddedChannel(new ChannelInboundHandlerAdapter());
+    ctx = channel.pipeline().firstContext();
+  }
+
+  @Test
+  public void testStreamsAreProcessedRightAway() {
+    assertEquals(6, Http2FlowControl.processedBytes(ctx, 1, data, 2, false));
+  }
+
+  @Test
+  public void testDeferredStreamOnlyHandsBackPadding() {
+    Http2FlowControl.deferStream(ctx, 3);
+
+    assertEquals(6, Http2FlowControl.processedBytes(ctx, 1, data, 2, false));
+    assertEquals(2, Http2FlowControl.processedBytes(ctx, 3, data, 2, false));
+    assertEquals(2, Http2FlowControl.processedBytes(ctx, 3, data, 2, true));
+    // the stream ended, its id is no longer deferred
+    assertEquals(6, Http2FlowControl.processedBytes(ctx, 3, data, 2, false));
+  }
+
+  @Test
+  public void testResetStreamIsNoLongerDeferred() {
+    Http2FlowControl.deferStream(ctx, 3);
+    Http2FlowControl.endStream(ctx, 3);
+
+    assertEquals(4, Http2FlowControl.processedBytes(ctx, 3, data, 0, false));
+  }
+
+  @Test
+  public void testDeferAll() {
+    Http2FlowControl.deferAll(channel, true);
+    assertEquals(0, Http2FlowControl.processedBytes(ctx, 1, data, 0, false));
+    assertEquals(0, Http2FlowControl.processedBytes(ctx, 3, data, 0, true));
+
+    Http2FlowControl.deferAll(channel, false);
+    assertEquals(4, Http2FlowControl.processedBytes(ctx, 1, data, 0, false));
+  }
+
+  @Test
+  public void testConsumeBytesWithoutHttp2IsIgnored() {
+    Http2FlowControl.consumeBytes(ctx, 1, 4);
+    assertTrue(channel.isOpen());
+  }
+}
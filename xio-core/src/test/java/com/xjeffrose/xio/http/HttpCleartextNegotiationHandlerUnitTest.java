@@ -0,0 +1,56 @@
+package com.xjeffrose.xio.http;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.handler.codec.http2.Http2CodecUtil;
+import io.netty.handler.codec.http2.Http2ConnectionHandler;
+import java.nio.charset.StandardCharsets;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class HttpCleartextNegotiationHandlerUnitTest extends Assert {
+
+  private EmbeddedChannel channel;
+
+  @Before
+  public void setUp() {
+    channel =
+        new EmbeddedChannel(
+            new HttpCleartextNegotiationHandler(
+                () -> new Http2HandlerBuilder().server(true).build()));
+    channel
+        .pipeline()
+        .addLast("codec", CodecPlaceholderHandler.INSTANCE)
+        .addLast("application codec", ApplicationCodecPlaceholderHandler.INSTANCE);
+  }
+
+  @Test
+  public void testPriorKnowledge() {
+    ByteBuf preface = Http2CodecUtil.connectionPrefaceBuf();
+    // the first bytes could still be either protocol
+    channel.writeInbound(preface.readRetainedSlice(10));
+    assertNotNull(channel.pipeline().get(HttpCleartextNegotiationHandler.class));
+
+    channel.writeInbound(preface);
+    assertNull(channel.pipeline().get(HttpCleartextNegotiationHandler.class));
+    assertTrue(channel.pipeline().get("codec") instanceof Http2ConnectionHandler);
+    assertTrue(channel.pipeline().get("application codec") instanceof Http2ServerCodec);
+    channel.finishAndReleaseAll();
+  }
+
+  @Test
+  public void testHttp1() {
+    channel.writeInbound(
+        Unpooled.copiedBuffer(
+            "GET / HTTP/1.1\r\nHost: localhost\r\n\r\n", StandardCharsets.US_ASCII));
+    assertNull(channel.pipeline().get(HttpCleartextNegotiationHandler.class));
+    assertTrue(channel.pipeline().get("codec") instanceof HttpServerCodec);
+    assertTrue(channel.pipeline().get("application codec") instanceof Http1ServerCodec);
+    Request request = channel.readInbound();
+    assertEquals("/", request.path());
+    channel.finishAndReleaseAll();
+  }
+}
@@ -3,6 +3,7 @@ package com.xjeffrose.xio.http;
 import com.typesafe.config.ConfigFactory;
 import com.xjeffrose.xio.client.ClientConfig;
 import io.netty.handler.codec.http.HttpMethod;
+import java.time.Duration;
 import java.util.List;
 import org.assertj.core.util.Lists;
 import org.junit.Assert;
@@ -37,6 +38,7 @@ public class ProxyRouteConfigTest extends Assert {
             .setProxyHostPolicy(expectedProxyHostPolicy)
             .setProxyHost(expectedProxyHost)
             .setProxyPath(expectedProxyPath)
+            .setStreaming(true)
             .build();
 
     assertEquals(expectedMethods, subject.methods());
@@ -47,6 +49,7 @@ public class ProxyRouteConfigTest extends Assert {
     assertEquals(expectedProxyHostPolicy, subject.proxyHostPolicy());
     assertEquals(expectedProxyHost, subject.proxyHost());
     assertEquals(expectedProxyPath, subject.proxyPath());
+    assertTrue(subject.streaming());
   }
 
   @Test
@@ -56,5 +59,25 @@ public class ProxyRouteConfigTest extends Assert {
     ProxyRouteConfig subject = ProxyRouteConfig.newBuilder(fallbackObject).build();
 
     assertNotNull(subject);
+    assertFalse(subject.streaming());
+  }
+
+  @Test
+  public void testBuilderSetsHedgeAndRetryIndependently() {
+    ProxyRouteConfig fallbackObject =
+        new ProxyRouteConfig(ConfigFactory.load().getConfig("xio.proxyRouteTemplate"));
+    HedgeConfig hedge =
+        new HedgeConfig(true, Duration.ofMillis(20), 0, Duration.ofMillis(5), 0.1, 1);
+    RetryConfig retry =
+        new RetryConfig(true, 2, Duration.ofMillis(10), Duration.ofMillis(30), 0.1, 1, 8);
+
+    ProxyRouteConfig subject =
+        ProxyRouteConfig.newBuilder(fallbackObject).setHedge(hedge).setRetry(retry).build();
+    assertSame(hedge, subject.hedge());
+    assertSame(retry, subject.retry());
+
+    subject = ProxyRouteConfig.newBuilder(fallbackObject).setHedge(hedge).build();
+    assertSame(hedge, subject.hedge());
+    assertSame(fallbackObject.retry(), subject.retry());
   }
 }
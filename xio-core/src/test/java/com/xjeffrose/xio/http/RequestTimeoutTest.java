@@ -0,0 +1,149 @@
+package com.xjeffrose.xio.http;
+
+import static org.mockito.Mockito.when;
+
+import com.codahale.metrics.MetricRegistry;
+import com.typesafe.config.ConfigFactory;
+import com.xjeffrose.xio.http.test_helpers.ManualTimer;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http2.Http2ConnectionHandler;
+import java.time.Duration;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+public class RequestTimeoutTest extends Assert {
+
+  private static final TimeoutConfig FIRST_BYTE_TIMEOUT =
+      new TimeoutConfig(Duration.ZERO, Duration.ofMillis(50), Duration.ZERO);
+
+  private EmbeddedChannel frontend;
+  private EmbeddedChannel backend;
+  private ChannelHandlerContext ctx;
+  private Client client;
+  private CircuitBreaker breaker;
+  private ManualTimer timer;
+  @Mock private ClientConnectionManager connectionManager;
+
+  private static Request request() {
+    return DefaultFullRequest.builder()
+        .body(Unpooled.EMPTY_BUFFER)
+        .headers(new DefaultHeaders())
+        .method(HttpMethod.GET)
+        .path("/")
+        .build();
+  }
+
+  private static Response response() {
+    return ResponseBuilders.newOk().body(Unpooled.EMPTY_BUFFER).build();
+  }
+
+  @Before
+  public void setUp() {
+    MockitoAnnotations.initMocks(this);
+    timer = new ManualTimer();
+    frontend = new EmbeddedChannel(new ChannelInboundHandlerAdapter());
+    backend = new EmbeddedChannel();
+    ctx = frontend.pipeline().firstContext();
+    breaker =
+        new CircuitBreaker(
+            "backend:80",
+            new CircuitBreakerConfig(true, 1, Duration.ofMinutes(1), 1, Duration.ZERO),
+            new MetricRegistry());
+    backend.attr(CircuitBreaker.CIRCUIT_BREAKER_KEY).set(breaker);
+    when(connectionManager.currentChannel()).thenReturn(backend);
+    client = new Client(null, connectionManager);
+  }
+
+  @Test
+  public void testReferenceConfig() {
+    TimeoutConfig config =
+        new TimeoutConfig(ConfigFactory.load().getConfig("xio.proxyRouteTemplate.timeouts"));
+    assertFalse(config.enabled());
+  }
+
+  @Test
+  public void testFirstByteTimeoutSendsGatewayTimeout() {
+    Request request = request();
+    RequestTimeout.start(ctx, FIRST_BYTE_TIMEOUT, request, client, timer);
+
+    timer.advance(FIRST_BYTE_TIMEOUT.firstByte());
+    frontend.runPendingTasks();
+
+    Response timedOut = frontend.readOutbound();
+    assertEquals(HttpResponseStatus.GATEWAY_TIMEOUT, timedOut.status());
+    assertFalse(backend.isOpen());
+    assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+    // a late response must not reach the frontend
+    assertFalse(RequestTimeout.acceptResponse(ctx, response()));
+  }
+
+  @Test
+  public void testHttp1TimeoutKeepsFrontendOpen() {
+    backend.pipeline().addLast(ClientChannelInitializer.APP_HANDLER, new ProxyBackendHandler(ctx));
+    RequestTimeout.start(ctx, FIRST_BYTE_TIMEOUT, request(), client, timer);
+
+    timer.advance(FIRST_BYTE_TIMEOUT.firstByte());
+    frontend.runPendingTasks();
+
+    Response timedOut = frontend.readOutbound();
+    assertEquals(HttpResponseStatus.GATEWAY_TIMEOUT, timedOut.status());
+    assertFalse(backend.isOpen());
+    // the backend handler was removed before the close, it didn't take the frontend down
+    assertTrue(frontend.isOpen());
+  }
+
+  @Test
+  public void testHttp2TimeoutResetsStream() {
+    Http2ConnectionHandler http2 = new Http2HandlerBuilder().server(false).build();
+    backend = new EmbeddedChannel(http2, new Http2ClientCodec(), new ProxyBackendHandler(ctx));
+    when(connectionManager.currentChannel()).thenReturn(backend);
+    Request request =
+        DefaultFullRequest.builder()
+            .body(Unpooled.EMPTY_BUFFER)
+            .headers(new DefaultHeaders())
+            .method(HttpMethod.GET)
+            .path("/")
+            .host("localhost")
+            .streamId(1)
+            .build();
+    RequestTimeout.start(ctx, FIRST_BYTE_TIMEOUT, request, client, timer);
+    backend.writeOutbound(request);
+    assertEquals(1, http2.connection().numActiveStreams());
+
+    timer.advance(FIRST_BYTE_TIMEOUT.firstByte());
+    frontend.runPendingTasks();
+
+    Response timedOut = frontend.readOutbound();
+    assertEquals(HttpResponseStatus.GATEWAY_TIMEOUT, timedOut.status());
+    // only the timed out stream is reset, both connections stay open
+    assertEquals(0, http2.connection().numActiveStreams());
+    assertNull(
+        Http2ClientStreamMapper.http2ClientStreamMapper(backend.pipeline().firstContext())
+            .mappedStreamId(1));
+    assertTrue(backend.isOpen());
+    assertTrue(frontend.isOpen());
+    backend.releaseOutbound();
+  }
+
+  @Test
+  public void testResponseCancelsTimeout() {
+    Request request = request();
+    RequestTimeout.start(ctx, FIRST_BYTE_TIMEOUT, request, client, timer);
+    assertTrue(RequestTimeout.acceptResponse(ctx, response()));
+
+    timer.advance(FIRST_BYTE_TIMEOUT.firstByte());
+    frontend.runPendingTasks();
+
+    assertNull(frontend.readOutbound());
+    assertTrue(backend.isOpen());
+    assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+  }
+}
@@ -0,0 +1,253 @@
+package com.xjeffrose.xio.http;
+
+import com.google.common.io.ByteStreams;
+import com.typesafe.config.ConfigFactory;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ResponseCompressorUnitTest extends Assert {
+
+  private static final String BODY = repeat("{\"key\":\"value\"},", 1000);
+
+  private EmbeddedChannel channel;
+
+  private static String repeat(String value, int count) {
+    StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < count; i++) {
+      builder.append(value);
+    }
+    return builder.toString();
+  }
+
+  @Before
+  public void setUp() {
+    CompressionConfig config =
+        new CompressionConfig(ConfigFactory.load().getConfig("xio.serverSettings.compression"));
+    channel = new EmbeddedChannel(new ResponseCompressor(config));
+  }
+
+  private void request(String acceptEncoding) {
+    Headers headers = new DefaultHeaders();
+    if (acceptEncoding != null) {
+      headers.set(HttpHeaderNames.ACCEPT_ENCODING, acceptEncoding);
+    }
+    channel.writeInbound(
+        DefaultFullRequest.builder()
+            .method(HttpMethod.GET)
+            .path("/")
+            .headers(headers)
+            .body(Unpooled.EMPTY_BUFFER)
+            .build());
+    assertNotNull(channel.readInbound());
+  }
+
+  private Response fullResponse(String contentType, String body) {
+    Headers headers = new DefaultHeaders();
+    headers.set(HttpHeaderNames.CONTENT_TYPE, contentType);
+    return DefaultFullResponse.builder()
+        .status(HttpResponseStatus.OK)
+        .headers(headers)
+        .body(Unpooled.copiedBuffer(body, StandardCharsets.UTF_8))
+        .build();
+  }
+
+  private static String decode(InputStream compressed) throws IOException {
+    return new String(ByteStreams.toByteArray(compressed), StandardCharsets.UTF_8);
+  }
+
+  @Test
+  public void testNegotiate() {
+    assertNull(ResponseCompressor.negotiate(null));
+    assertNull(ResponseCompressor.negotiate("identity"));
+    assertNull(ResponseCompressor.negotiate("gzip;q=0, deflate;q=0"));
+    assertEquals(ResponseCompressor.Encoding.GZIP, ResponseCompressor.negotiate("gzip, deflate"));
+    assertEquals(ResponseCompressor.Encoding.GZIP, ResponseCompressor.negotiate("*"));
+    assertEquals(
+        ResponseCompressor.Encoding.DEFLATE, ResponseCompressor.negotiate("gzip;q=0.5, deflate"));
+    assertEquals(ResponseCompressor.Encoding.DEFLATE, ResponseCompressor.negotiate("*, gzip;q=0"));
+  }
+
+  @Test
+  public void testFullResponseGzip() throws Exception {
+    request("gzip, deflate, br");
+    Response input = fullResponse("application/json", BODY);
+    input.headers().setInt(HttpHeaderNames.CONTENT_LENGTH, BODY.length());
+    channel.writeOutbound(input);
+
+    FullResponse response = channel.readOutbound();
+    assertEquals("gzip", response.headers().get(HttpHeaderNames.CONTENT_ENCODING).toString());
+    assertEquals("accept-encoding", response.headers().get(HttpHeaderNames.VARY).toString());
+    assertFalse(response.headers().contains(HttpHeaderNames.CONTENT_LENGTH));
+    assertTrue(response.body().readableBytes() < BODY.length() / 10);
+    assertEquals(BODY, decode(new GZIPInputStream(new ByteBufInputStream(response.body(), true))));
+  }
+
+  @Test
+  public void testFullResponseDeflate() throws Exception {
+    request("deflate");
+    channel.writeOutbound(fullResponse("text/html; charset=UTF-8", BODY));
+
+    FullResponse response = channel.readOutbound();
+    assertEquals("deflate", response.headers().get(HttpHeaderNames.CONTENT_ENCODING).toString());
+    assertEquals(
+        BODY, decode(new InflaterInputStream(new ByteBufInputStream(response.body(), true))));
+  }
+
+  @Test
+  public void testPipelinedHttp1Responses() {
+    request("gzip");
+    request(null);
+    channel.writeOutbound(fullResponse("application/json", BODY));
+    Response identity = fullResponse("application/json", BODY);
+    channel.writeOutbound(identity);
+
+    // responses are matched to the requests in order, not by their shared stream id
+    FullResponse compressed = channel.readOutbound();
+    assertEquals("gzip", compressed.headers().get(HttpHeaderNames.CONTENT_ENCODING).toString());
+    compressed.body().release();
+    assertSame(identity, channel.readOutbound());
+    assertFalse(identity.headers().contains(HttpHeaderNames.CONTENT_ENCODING));
+    identity.body().release();
+  }
+
+  @Test
+  public void testSkipsUncompressibleResponses() {
+    request("gzip");
+    Response small = fullResponse("application/json", "{}");
+    channel.writeOutbound(small);
+    assertSame(small, channel.readOutbound());
+    assertFalse(small.headers().contains(HttpHeaderNames.CONTENT_ENCODING));
+
+    request("gzip");
+    Response image = fullResponse("image/png", BODY);
+    channel.writeOutbound(image);
+    assertSame(image, channel.readOutbound());
+    assertFalse(image.headers().contains(HttpHeaderNames.CONTENT_ENCODING));
+
+    request(null);
+    Response identity = fullResponse("application/json", BODY);
+    channel.writeOutbound(identity);
+    assertSame(identity, channel.readOutbound());
+    assertFalse(identity.headers().contains(HttpHeaderNames.CONTENT_ENCODING));
+    assertTrue(identity.headers().contains(HttpHeaderNames.VARY));
+
+    request("gzip");
+    Response encoded = fullResponse("application/json", BODY);
+    encoded.headers().set(HttpHeaderNames.CONTENT_ENCODING, "br");
+    channel.writeOutbound(encoded);
+    assertSame(encoded, channel.readOutbound());
+
+    for (Response response : new Response[] {small, image, identity, encoded}) {
+      response.body().release();
+    }
+  }
+
+  @Test
+  public void testSegmentedResponseIsCompressedIncrementally() throws Exception {
+    request("gzip");
+    Headers headers = new DefaultHeaders();
+    headers.set(HttpHeaderNames.CONTENT_TYPE, "application/json");
+    headers.set(HttpHeaderNames.ETAG, "\"v2\"");
+    channel.writeOutbound(
+        DefaultSegmentedResponse.builder().status(HttpResponseStatus.OK).headers(headers).build());
+    Response head = channel.readOutbound();
+    assertEquals("gzip", head.headers().get(HttpHeaderNames.CONTENT_ENCODING).toString());
+    assertEquals("W/\"v2\"", head.headers().get(HttpHeaderNames.ETAG).toString());
+
+    // every chunk is sync flushed, so what was received so far inflates to what was sent so far
+    Inflater inflater = new Inflater(true);
+    ByteArrayOutputStream received = new ByteArrayOutputStream();
+    ByteArrayOutputStream inflated = new ByteArrayOutputStream();
+    byte[] buffer = new byte[BODY.length()];
+    int headerLength = 10;
+    for (int i = 0; i < 3; i++) {
+      channel.writeOutbound(
+          DefaultSegmentedData.builder()
+              .content(Unpooled.copiedBuffer(BODY, StandardCharsets.UTF_8))
+              .endOfMessage(false)
+              .build());
+      SegmentedData data = channel.readOutbound();
+      byte[] bytes = ByteBufUtil.getBytes(data.content());
+      data.content().release();
+      received.write(bytes);
+      int offset = received.size() == bytes.length ? headerLength : 0;
+      inflater.setInput(bytes, offset, bytes.length - offset);
+      int length;
+      while ((length = inflater.inflate(buffer)) > 0) {
+        inflated.write(buffer, 0, length);
+      }
+      assertEquals(repeat(BODY, i + 1), inflated.toString("UTF-8"));
+    }
+    inflater.end();
+
+    channel.writeOutbound(
+        DefaultSegmentedData.builder().content(Unpooled.EMPTY_BUFFER).endOfMessage(true).build());
+    SegmentedData last = channel.readOutbound();
+    assertTrue(last.endOfMessage());
+    ByteBuf content = last.content();
+    received.write(ByteBufUtil.getBytes(content));
+    content.release();
+
+    assertEquals(
+        repeat(BODY, 3),
+        decode(new GZIPInputStream(new ByteArrayInputStream(received.toByteArray()))));
+  }
+
+  @Test
+  public void testCacheableResponseIsServedFromStoredVariant() throws Exception {
+    CompressedVariantCache variants =
+        new CompressedVariantCache(
+            new CompressionConfig.Variants(
+                ConfigFactory.load().getConfig("xio.serverSettings.compression.variants")));
+    CompressionConfig config =
+        new CompressionConfig(ConfigFactory.load().getConfig("xio.serverSettings.compression"));
+    channel = new EmbeddedChannel(new ResponseCompressor(config, variants));
+
+    FullResponse[] responses = new FullResponse[2];
+    for (int i = 0; i < responses.length; i++) {
+      request("gzip");
+      Response input = fullResponse("application/json", BODY);
+      input.headers().set(HttpHeaderNames.ETAG, "\"v1\"");
+      channel.writeOutbound(input);
+      responses[i] = channel.readOutbound();
+      variants.awaitPending();
+    }
+
+    Headers identity = new DefaultHeaders().set(HttpHeaderNames.ETAG, "\"v1\"");
+    byte[] variant = variants.get(CompressedVariantCache.key("/", identity));
+    assertNotNull(variant);
+    assertArrayEquals(variant, ByteBufUtil.getBytes(responses[1].body()));
+    for (FullResponse response : responses) {
+      assertEquals("gzip", response.headers().get(HttpHeaderNames.CONTENT_ENCODING).toString());
+      // inline and stored variants may differ byte for byte
+      assertEquals("W/\"v1\"", response.headers().get(HttpHeaderNames.ETAG).toString());
+      assertEquals(
+          BODY, decode(new GZIPInputStream(new ByteBufInputStream(response.body(), true))));
+    }
+
+    Headers headers = new DefaultHeaders();
+    headers.set(HttpHeaderNames.ETAG, "W/\"v1\"");
+    assertFalse(CompressedVariantCache.isCacheable(headers));
+    headers.set(HttpHeaderNames.ETAG, "\"v1\"");
+    assertTrue(CompressedVariantCache.isCacheable(headers));
+    headers.set(HttpHeaderNames.CACHE_CONTROL, "private, max-age=60");
+    assertFalse(CompressedVariantCache.isCacheable(headers));
+  }
+}
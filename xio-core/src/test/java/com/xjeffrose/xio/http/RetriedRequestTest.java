@@ -0,0 +1,134 @@
+package com.xjeffrose.xio.http;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.xjeffrose.xio.client.ClientConfig;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.HttpMethod;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+public class RetriedRequestTest extends Assert {
+
+  private static final RetryPolicy POLICY =
+      new RetryPolicy(
+          new RetryConfig(true, 2, Duration.ofMillis(10), Duration.ofMillis(30), 0.1, 1, 1024));
+
+  // the replay is sent as soon as scheduled tasks are run
+  private static final RetryPolicy NO_BACKOFF =
+      new RetryPolicy(new RetryConfig(true, 2, Duration.ZERO, Duration.ZERO, 0.1, 1, 1024));
+
+  private EmbeddedChannel frontend;
+  private EmbeddedChannel backend;
+  private ChannelHandlerContext ctx;
+  private Client client;
+  private List<Client> failed;
+  private boolean retryable;
+  @Mock private ClientConnectionManager connectionManager;
+
+  private static Request request() {
+    return DefaultFullRequest.builder()
+        .body(Unpooled.EMPTY_BUFFER)
+        .headers(new DefaultHeaders())
+        .method(HttpMethod.GET)
+        .path("/")
+        .streamId(1)
+        .build();
+  }
+
+  @Before
+  public void setUp() {
+    MockitoAnnotations.initMocks(this);
+    frontend = new EmbeddedChannel(new ChannelInboundHandlerAdapter());
+    ctx = frontend.pipeline().firstContext();
+    backend = new EmbeddedChannel(new ProxyBackendHandler(ctx));
+    when(connectionManager.currentChannel()).thenReturn(backend);
+    client = new Client(null, connectionManager);
+    failed = new ArrayList<>();
+    retryable = true;
+  }
+
+  private void start() {
+    start(POLICY);
+  }
+
+  private void start(RetryPolicy policy) {
+    Request request = request();
+    RetriedRequest.start(
+        ctx,
+        policy,
+        request,
+        null,
+        client,
+        (failedClient, cause) -> {
+          failed.add(failedClient);
+          return retryable;
+        });
+    RetriedRequest.get(ctx, request.streamId()).record(request);
+  }
+
+  @Test
+  public void testBackendCloseBeforeResponseRetries() {
+    start();
+    backend.close();
+
+    assertEquals(1, failed.size());
+    assertSame(client, failed.get(0));
+    // the retry keeps the frontend open
+    assertTrue(frontend.isOpen());
+  }
+
+  @Test
+  public void testBackendCloseClosesFrontendIfNotRetryable() {
+    retryable = false;
+    start();
+    backend.close();
+
+    assertEquals(1, failed.size());
+    assertFalse(frontend.isOpen());
+  }
+
+  @Test
+  public void testResponseEndsReplay() {
+    start();
+    backend.writeInbound(ResponseBuilders.newOk().body(Unpooled.EMPTY_BUFFER).streamId(1).build());
+    assertFalse(RetriedRequest.hasPending(ctx));
+    assertNotNull(frontend.readOutbound());
+
+    backend.close();
+    assertTrue(failed.isEmpty());
+  }
+
+  @Test
+  public void testRetryUsesClientOfItsOwn() {
+    start(NO_BACKOFF);
+    ClientConfig config = mock(ClientConfig.class);
+    Client next = mock(Client.class);
+    ClientFactory factory = mock(ClientFactory.class);
+    when(factory.createClient(ctx, config)).thenReturn(next);
+    List<Client> sent = new ArrayList<>();
+
+    RetriedRequest retry = RetriedRequest.get(ctx, 1);
+    retry.retry(factory, config, (retryClient, message) -> sent.add(retryClient));
+    frontend.runScheduledPendingTasks();
+
+    assertEquals(Collections.singletonList(next), sent);
+    assertSame(next, retry.client());
+    // the frontend stays bound to its own client
+    verify(factory, never()).updateChannelAttr(any(), any());
+  }
+}
@@ -0,0 +1,88 @@
+package com.xjeffrose.xio.http;
+
+import com.typesafe.config.ConfigFactory;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.HttpMethod;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class RetryPolicyTest extends Assert {
+
+  private static final RetryConfig CONFIG =
+      new RetryConfig(true, 2, Duration.ofMillis(10), Duration.ofMillis(30), 0.1, 1, 8);
+
+  private static FullRequest request(HttpMethod method, ByteBuf body) {
+    return DefaultFullRequest.builder()
+        .body(body)
+        .headers(new DefaultHeaders())
+        .method(method)
+        .path("/")
+        .build();
+  }
+
+  @Test
+  public void testReferenceConfig() {
+    RetryConfig config =
+        new RetryConfig(ConfigFactory.load().getConfig("xio.proxyRouteTemplate.retry"));
+    assertFalse(config.enabled());
+    assertEquals(2, config.maxRetries());
+    assertEquals(64 * 1024, config.maxReplayBytes());
+  }
+
+  @Test
+  public void testOnlyIdempotentRequestsAreRetriedOnceSent() {
+    RetryPolicy policy = new RetryPolicy(CONFIG);
+
+    assertTrue(policy.canRetry(request(HttpMethod.GET, Unpooled.EMPTY_BUFFER), 0, true));
+    assertFalse(policy.canRetry(request(HttpMethod.POST, Unpooled.EMPTY_BUFFER), 0, true));
+    assertTrue(policy.canRetry(request(HttpMethod.POST, Unpooled.EMPTY_BUFFER), 0, false));
+    assertFalse(policy.canRetry(request(HttpMethod.GET, Unpooled.EMPTY_BUFFER), 2, false));
+  }
+
+  @Test
+  public void testBackoffIsBounded() {
+    RetryPolicy policy = new RetryPolicy(CONFIG);
+    for (int attempts = 0; attempts < 40; attempts++) {
+      long backoff = policy.backoffNanos(attempts);
+      assertTrue(backoff >= TimeUnit.MILLISECONDS.toNanos(10));
+      assertTrue(backoff <= TimeUnit.MILLISECONDS.toNanos(30));
+    }
+  }
+
+  @Test
+  public void testReplayBufferRetainsBody() {
+    ReplayBuffer replay = new ReplayBuffer(8);
+    ByteBuf body = Unpooled.copiedBuffer("body", StandardCharsets.UTF_8);
+    FullRequest request = request(HttpMethod.GET, body);
+
+    replay.add(request);
+    body.release();
+
+    assertTrue(replay.isReplayable());
+    List<Request> messages = replay.replay();
+    assertEquals(1, messages.size());
+    ByteBuf replayed = messages.get(0).body();
+    assertEquals("body", replayed.toString(StandardCharsets.UTF_8));
+    replayed.release();
+
+    replay.release();
+    assertEquals(0, body.refCnt());
+  }
+
+  @Test
+  public void testReplayBufferOverflow() {
+    ReplayBuffer replay = new ReplayBuffer(8);
+    ByteBuf body = Unpooled.copiedBuffer("too large a body", StandardCharsets.UTF_8);
+
+    replay.add(request(HttpMethod.PUT, body));
+
+    assertFalse(replay.isReplayable());
+    assertEquals(1, body.refCnt());
+    body.release();
+  }
+}
@@ -0,0 +1,158 @@
+package com.xjeffrose.xio.http;
+
+import com.typesafe.config.ConfigFactory;
+import com.typesafe.config.ConfigValueFactory;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.DefaultFileRegion;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class StaticFileHandlerUnitTest extends Assert {
+
+  private static final String CONTENT = "static content served from disk";
+
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private EmbeddedChannel channel;
+
+  @Before
+  public void setUp() throws Exception {
+    Path root = temporaryFolder.newFolder("root").toPath();
+    Files.write(root.resolve("file.txt"), CONTENT.getBytes(StandardCharsets.UTF_8));
+    temporaryFolder.newFile("secret.txt");
+    StaticFileConfig config =
+        new StaticFileConfig(
+            ConfigFactory.load()
+                .getConfig("xio.staticFileTemplate")
+                .withValue("root", ConfigValueFactory.fromAnyRef(root.toString()))
+                .withValue("chunkSize", ConfigValueFactory.fromAnyRef(8)));
+    StaticFileHandler subject = new StaticFileHandler(config);
+    channel =
+        new EmbeddedChannel(
+            new SimpleChannelInboundHandler<Request>() {
+              @Override
+              protected void channelRead0(ChannelHandlerContext ctx, Request request) {
+                subject.handle(ctx, request, null);
+              }
+            });
+  }
+
+  private Response request(String path, int streamId, Headers headers) {
+    channel.writeInbound(
+        DefaultFullRequest.builder()
+            .method(HttpMethod.GET)
+            .path(path)
+            .headers(headers)
+            .body(Unpooled.EMPTY_BUFFER)
+            .streamId(streamId)
+            .build());
+    return channel.readOutbound();
+  }
+
+  private Response request(String path) {
+    return request(path, Message.H1_STREAM_ID_NONE, new DefaultHeaders());
+  }
+
+  private String readChunks() {
+    StringBuilder content = new StringBuilder();
+    while (true) {
+      SegmentedData data = channel.readOutbound();
+      content.append(data.content().toString(StandardCharsets.UTF_8));
+      data.content().release();
+      if (data.endOfMessage()) {
+        return content.toString();
+      }
+    }
+  }
+
+  @Test
+  public void testSendfile() throws Exception {
+    Response response = request("/file.txt?version=1");
+    assertEquals(HttpResponseStatus.OK, response.status());
+    assertFalse(response instanceof FullResponse);
+    assertEquals(
+        Integer.toString(CONTENT.length()),
+        response.headers().get(HttpHeaderNames.CONTENT_LENGTH).toString());
+    assertEquals(
+        "text/plain; charset=UTF-8",
+        response.headers().get(HttpHeaderNames.CONTENT_TYPE).toString());
+    assertNotNull(response.headers().get(HttpHeaderNames.ETAG));
+
+    DefaultFileRegion region = channel.readOutbound();
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    region.transferTo(Channels.newChannel(out), 0);
+    region.release();
+    assertEquals(CONTENT, out.toString("UTF-8"));
+
+    SegmentedData last = channel.readOutbound();
+    assertTrue(last.endOfMessage());
+    assertFalse(last.content().isReadable());
+  }
+
+  @Test
+  public void testMappedChunksForRange() {
+    Headers headers = new DefaultHeaders();
+    headers.set(HttpHeaderNames.RANGE, "bytes=7-");
+    Response response = request("/file.txt", 3, headers);
+    assertEquals(HttpResponseStatus.PARTIAL_CONTENT, response.status());
+    assertEquals(
+        "bytes 7-" + (CONTENT.length() - 1) + "/" + CONTENT.length(),
+        response.headers().get(HttpHeaderNames.CONTENT_RANGE).toString());
+    assertEquals(CONTENT.substring(7), readChunks());
+
+    headers.set(HttpHeaderNames.RANGE, "bytes=100-");
+    response = request("/file.txt", 5, headers);
+    assertEquals(HttpResponseStatus.REQUESTED_RANGE_NOT_SATISFIABLE, response.status());
+    assertEquals(
+        "bytes */" + CONTENT.length(),
+        response.headers().get(HttpHeaderNames.CONTENT_RANGE).toString());
+  }
+
+  @Test
+  public void testNotModified() {
+    Response response = request("/file.txt");
+    CharSequence etag = response.headers().get(HttpHeaderNames.ETAG);
+    DefaultFileRegion region = channel.readOutbound();
+    region.release();
+    assertNotNull(channel.readOutbound());
+
+    Headers headers = new DefaultHeaders();
+    headers.set(HttpHeaderNames.IF_NONE_MATCH, etag);
+    response = request("/file.txt", Message.H1_STREAM_ID_NONE, headers);
+    assertEquals(HttpResponseStatus.NOT_MODIFIED, response.status());
+    assertEquals(0, ByteBufUtil.getBytes(response.body()).length);
+  }
+
+  @Test
+  public void testNotFound() {
+    assertEquals(HttpResponseStatus.NOT_FOUND, request("/missing.txt").status());
+    assertEquals(HttpResponseStatus.NOT_FOUND, request("/../secret.txt").status());
+    assertEquals(HttpResponseStatus.NOT_FOUND, request("/%2e%2e/secret.txt").status());
+  }
+
+  @Test
+  public void testParseRange() {
+    assertArrayEquals(new long[] {0, 9}, StaticFileHandler.parseRange("bytes=0-9", 100));
+    assertArrayEquals(new long[] {90, 99}, StaticFileHandler.parseRange("bytes=-10", 100));
+    assertArrayEquals(new long[] {50, 99}, StaticFileHandler.parseRange("bytes=50-500", 100));
+    assertArrayEquals(new long[0], StaticFileHandler.parseRange("bytes=100-", 100));
+    assertNull(StaticFileHandler.parseRange("bytes=0-1,5-6", 100));
+    assertNull(StaticFileHandler.parseRange("bytes=9-0", 100));
+    assertNull(StaticFileHandler.parseRange("items=0-1", 100));
+  }
+}
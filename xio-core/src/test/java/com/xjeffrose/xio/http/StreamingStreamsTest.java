@@ -0,0 +1,58 @@
+package com.xjeffrose.xio.http;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class StreamingStreamsTest extends Assert {
+
+  private EmbeddedChannel frontend;
+  private ChannelHandlerContext ctx;
+  private EmbeddedChannel backend;
+
+  @Before
+  public void setUp() {
+    frontend = new EmbeddedChannel(new ChannelInboundHandlerAdapter());
+    ctx = frontend.pipeline().firstContext();
+    backend = new EmbeddedChannel(new ChannelInboundHandlerAdapter());
+  }
+
+  @Test
+  public void testResponseEndsStream() {
+    StreamingStreams.start(ctx, 1, backend);
+    assertTrue(StreamingStreams.isOpen(ctx, 1));
+
+    StreamingStreams.end(ctx, 1);
+    assertFalse(StreamingStreams.isOpen(ctx, 1));
+    assertTrue(backend.isOpen());
+  }
+
+  @Test
+  public void testResetAbandonsBackendStream() {
+    StreamingStreams.start(ctx, 1, backend);
+    StreamingStreams.reset(ctx, 1);
+
+    assertFalse(StreamingStreams.isOpen(ctx, 1));
+    // an http/1 backend can't reset a single stream, its connection is closed instead
+    assertFalse(backend.isOpen());
+    assertTrue(frontend.isOpen());
+  }
+
+  @Test
+  public void testBackendCloseEndsItsStreams() {
+    EmbeddedChannel other = new EmbeddedChannel(new ChannelInboundHandlerAdapter());
+    StreamingStreams.start(ctx, 1, backend);
+    StreamingStreams.start(ctx, 3, backend);
+    StreamingStreams.start(ctx, 5, other);
+
+    backend.close();
+    StreamingStreams.onBackendClosed(ctx, backend);
+
+    assertFalse(StreamingStreams.isOpen(ctx, 1));
+    assertFalse(StreamingStreams.isOpen(ctx, 3));
+    assertTrue(StreamingStreams.isOpen(ctx, 5));
+  }
+}
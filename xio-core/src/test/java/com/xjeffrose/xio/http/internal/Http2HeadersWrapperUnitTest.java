@@ -25,6 +25,11 @@ public class Http2HeadersWrapperUnitTest extends Assert {
     headers = new Http2HeadersWrapper(new DefaultHttp2Headers());
   }
 
+  @Test
+  public void testHttp2HeadersIsNotACopy() {
+    assertSame(headers.delegate(), headers.http2Headers());
+  }
+
   @Test
   public void testAdd() {
     headers.add("header", "value");
@@ -0,0 +1,100 @@
+package com.xjeffrose.xio.http.test_helpers;
+
+import io.netty.util.Timeout;
+import io.netty.util.Timer;
+import io.netty.util.TimerTask;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/** A {@link Timer} whose clock only moves when a test advances it, tasks run on the caller. */
+public class ManualTimer implements Timer {
+
+  private final List<ManualTimeout> timeouts = new ArrayList<>();
+  private long nowNanos;
+
+  @Override
+  public Timeout newTimeout(TimerTask task, long delay, TimeUnit unit) {
+    ManualTimeout timeout = new ManualTimeout(task, nowNanos + unit.toNanos(delay));
+    timeouts.add(timeout);
+    return timeout;
+  }
+
+  /** Moves the clock forward and runs the tasks that expired, in the order of their deadlines. */
+  public void advance(Duration duration) {
+    nowNanos += duration.toNanos();
+    List<ManualTimeout> expired =
+        timeouts
+            .stream()
+            .filter(timeout -> timeout.deadlineNanos <= nowNanos)
+            .sorted(Comparator.comparingLong(timeout -> timeout.deadlineNanos))
+            .collect(Collectors.toList());
+    timeouts.removeAll(expired);
+    for (ManualTimeout timeout : expired) {
+      timeout.expire();
+    }
+  }
+
+  @Override
+  public Set<Timeout> stop() {
+    Set<Timeout> unexpired = new HashSet<>(timeouts);
+    timeouts.clear();
+    return unexpired;
+  }
+
+  private class ManualTimeout implements Timeout {
+    private final TimerTask task;
+    private final long deadlineNanos;
+    private boolean expired;
+    private boolean cancelled;
+
+    ManualTimeout(TimerTask task, long deadlineNanos) {
+      this.task = task;
+      this.deadlineNanos = deadlineNanos;
+    }
+
+    void expire() {
+      expired = true;
+      try {
+        task.run(this);
+      } catch (Exception e) {
+        throw new IllegalStateException(e);
+      }
+    }
+
+    @Override
+    public Timer timer() {
+      return ManualTimer.this;
+    }
+
+    @Override
+    public TimerTask task() {
+      return task;
+    }
+
+    @Override
+    public boolean isExpired() {
+      return expired;
+    }
+
+    @Override
+    public boolean isCancelled() {
+      return cancelled;
+    }
+
+    @Override
+    public boolean cancel() {
+      if (expired || cancelled) {
+        return false;
+      }
+      cancelled = true;
+      timeouts.remove(this);
+      return true;
+    }
+  }
+}
@@ -0,0 +1,74 @@
+package com.xjeffrose.xio.metric;
+
+import com.xjeffrose.xio.application.Application;
+import com.xjeffrose.xio.bootstrap.ApplicationBootstrap;
+import com.xjeffrose.xio.pipeline.SmartHttpPipeline;
+import com.xjeffrose.xio.test.JulBridge;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class AdminServerFunctionalTest extends Assert {
+
+  @BeforeClass
+  public static void setupJul() {
+    JulBridge.initialize();
+  }
+
+  private Application application;
+  private OkHttpClient client;
+
+  @Before
+  public void setUp() {
+    application =
+        new ApplicationBootstrap("xio.adminApplication")
+            .addServer("main", bs -> bs.addToPipeline(new SmartHttpPipeline()))
+            .build();
+    client = new OkHttpClient();
+  }
+
+  @After
+  public void tearDown() {
+    application.close();
+  }
+
+  private Response get(String path) throws Exception {
+    int port =
+        application.instrumentation(ApplicationBootstrap.ADMIN_SERVER).boundAddress().getPort();
+    Request request = new Request.Builder().url("http://127.0.0.1:" + port + path).build();
+    return client.newCall(request).execute();
+  }
+
+  @Test
+  public void testPrometheusMetrics() throws Exception {
+    application.getState().getMetricRegistry().meter("adminTest").mark();
+
+    try (Response response = get(AdminRoutes.METRICS_PATH)) {
+      assertEquals(200, response.code());
+      assertTrue(response.header("Content-Type").startsWith("text/plain; version=0.0.4"));
+      assertTrue(response.body().string().contains("adminTest_total 1\n"));
+    }
+  }
+
+  @Test
+  public void testJsonMetrics() throws Exception {
+    try (Response response = get(AdminRoutes.METRICS_JSON_PATH)) {
+      assertEquals(200, response.code());
+      assertEquals("application/json", response.header("Content-Type"));
+      assertTrue(response.body().string().contains("\"meters\":{"));
+    }
+  }
+
+  @Test
+  public void testEventLoops() throws Exception {
+    try (Response response = get(AdminRoutes.EVENT_LOOPS_PATH)) {
+      assertEquals(200, response.code());
+      assertTrue(response.body().string().contains("\"pendingTasks\":"));
+    }
+  }
+}
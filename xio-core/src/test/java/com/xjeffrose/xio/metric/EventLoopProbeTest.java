@@ -0,0 +1,112 @@
+package com.xjeffrose.xio.metric;
+
+import com.codahale.metrics.MetricRegistry;
+import com.xjeffrose.xio.core.ChannelStatistics;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.DefaultEventLoopGroup;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.group.DefaultChannelGroup;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalServerChannel;
+import io.netty.util.concurrent.GlobalEventExecutor;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class EventLoopProbeTest extends Assert {
+
+  private EventLoopGroup group;
+  private EventLoopProbe probe;
+
+  @Before
+  public void setUp() {
+    group = new DefaultEventLoopGroup(1);
+    probe = new EventLoopProbe(group, Duration.ofMillis(10));
+    probe.start();
+  }
+
+  @After
+  public void tearDown() {
+    probe.stop();
+    group.shutdownGracefully(0, 0, TimeUnit.SECONDS);
+  }
+
+  private void waitFor(BooleanSupplier condition) throws Exception {
+    long deadline = System.currentTimeMillis() + 5000;
+    while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    assertTrue(condition.getAsBoolean());
+  }
+
+  @Test
+  public void testLag() throws Exception {
+    EventLoopStats stats = probe.loops().get(0);
+    // stall the event loop so the next probe task runs late
+    group
+        .submit(
+            () -> {
+              Thread.sleep(200);
+              return null;
+            })
+        .sync();
+
+    waitFor(() -> stats.maxLagNanos() >= TimeUnit.MILLISECONDS.toNanos(100));
+    assertTrue(probe.maxLagNanos() >= 0);
+  }
+
+  @Test
+  public void testGaugesRegistered() {
+    MetricRegistry registry = new MetricRegistry();
+    probe.register(registry);
+
+    assertTrue(registry.getGauges().containsKey("eventLoop.0.lagNanos"));
+    assertTrue(registry.getGauges().containsKey("eventLoop.0.pendingTasks"));
+    assertTrue(registry.getGauges().containsKey("eventLoop.0.bytesRead"));
+    assertTrue(registry.getGauges().containsKey("eventLoop.0.bytesWritten"));
+    assertTrue(registry.getGauges().containsKey("eventLoop.0.activeChannels"));
+  }
+
+  @Test
+  public void testChannelStatisticsPerEventLoop() throws Exception {
+    EventLoopStats stats = probe.loops().get(0);
+    ChannelStatistics statistics =
+        new ChannelStatistics(new DefaultChannelGroup(GlobalEventExecutor.INSTANCE));
+    LocalAddress address = new LocalAddress("EventLoopProbeTest");
+    Channel server =
+        new ServerBootstrap()
+            .group(group)
+            .channel(LocalServerChannel.class)
+            .childHandler(statistics)
+            .bind(address)
+            .sync()
+            .channel();
+    Channel client =
+        new Bootstrap()
+            .group(group)
+            .channel(LocalChannel.class)
+            .handler(new ChannelInboundHandlerAdapter())
+            .connect(address)
+            .sync()
+            .channel();
+
+    waitFor(() -> stats.activeChannels() == 1);
+    client.writeAndFlush(Unpooled.wrappedBuffer(new byte[] {1, 2, 3, 4})).sync();
+    waitFor(() -> stats.bytesRead() == 4);
+    assertEquals(4, statistics.getBytesRead());
+    assertEquals(1, statistics.getChannelCount());
+
+    client.close().sync();
+    waitFor(() -> stats.activeChannels() == 0);
+    server.close().sync();
+  }
+}
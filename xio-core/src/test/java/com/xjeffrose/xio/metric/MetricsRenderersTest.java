@@ -0,0 +1,70 @@
+package com.xjeffrose.xio.metric;
+
+import com.codahale.metrics.MetricRegistry;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.util.CharsetUtil;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MetricsRenderersTest extends Assert {
+
+  private MetricRegistry metricRegistry;
+
+  @Before
+  public void setUp() {
+    metricRegistry = new MetricRegistry();
+    metricRegistry.meter("requests").mark(3);
+    metricRegistry.counter("route./foo/.inFlight").inc(2);
+    metricRegistry.timer("route./foo/.latency");
+  }
+
+  private String render(MetricsRenderer renderer) {
+    ByteBuf out = Unpooled.buffer();
+    try {
+      renderer.render(metricRegistry, out);
+      return out.toString(CharsetUtil.UTF_8);
+    } finally {
+      out.release();
+    }
+  }
+
+  @Test
+  public void testPrometheusSanitize() {
+    assertEquals("route__foo__latency", PrometheusMetricsRenderer.sanitize("route./foo/.latency"));
+    assertEquals("_9lives", PrometheusMetricsRenderer.sanitize("9lives"));
+  }
+
+  @Test
+  public void testPrometheus() {
+    String result = render(new PrometheusMetricsRenderer());
+
+    assertTrue(result.contains("# TYPE requests_total counter\nrequests_total 3\n"));
+    assertTrue(result.contains("route__foo__inFlight 2\n"));
+    assertTrue(result.contains("# TYPE route__foo__latency_seconds summary\n"));
+    assertTrue(result.contains("route__foo__latency_seconds{quantile=\"0.99\"} 0.0\n"));
+    assertTrue(result.contains("route__foo__latency_seconds_count 0\n"));
+  }
+
+  @Test
+  public void testJson() {
+    String result = render(new JsonMetricsRenderer());
+
+    assertTrue(result.startsWith("{\"gauges\":{},\"counters\":{\"route./foo/.inFlight\":2}"));
+    assertTrue(result.contains("\"meters\":{\"requests\":{\"count\":3,"));
+    assertTrue(result.contains("\"timers\":{\"route./foo/.latency\":{\"count\":0,"));
+  }
+
+  @Test
+  public void testJsonFiltered() {
+    ByteBuf out = Unpooled.buffer();
+    new JsonMetricsRenderer()
+        .render(metricRegistry, (name, metric) -> name.startsWith("route."), out);
+    String result = out.toString(CharsetUtil.UTF_8);
+    out.release();
+
+    assertFalse(result.contains("requests"));
+    assertTrue(result.contains("route./foo/.latency"));
+  }
+}
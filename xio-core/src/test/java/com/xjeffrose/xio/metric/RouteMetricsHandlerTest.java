@@ -0,0 +1,57 @@
+package com.xjeffrose.xio.metric;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.collect.ImmutableMap;
+import com.xjeffrose.xio.http.DefaultFullResponse;
+import com.xjeffrose.xio.http.DefaultHeaders;
+import com.xjeffrose.xio.http.PipelineRouter;
+import com.xjeffrose.xio.http.RequestBuilders;
+import com.xjeffrose.xio.http.RouteApplicator;
+import com.xjeffrose.xio.http.RouteConfig;
+import com.xjeffrose.xio.http.RouteState;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import java.util.Collections;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class RouteMetricsHandlerTest extends Assert {
+
+  private EmbeddedChannel channel;
+  private MetricRegistry metricRegistry;
+
+  @Before
+  public void setUp() {
+    metricRegistry = new MetricRegistry();
+    RouteState route =
+        new RouteState(
+            new RouteConfig(Collections.emptyList(), "", "/foo/", "*"),
+            (ctx, request, state) ->
+                ctx.writeAndFlush(
+                    DefaultFullResponse.builder()
+                        .body(Unpooled.EMPTY_BUFFER)
+                        .headers(new DefaultHeaders())
+                        .status(HttpResponseStatus.BAD_GATEWAY)
+                        .build()));
+
+    channel =
+        new EmbeddedChannel(
+            new PipelineRouter(ImmutableMap.of("/foo/", route)),
+            new RouteMetricsHandler(metricRegistry),
+            new RouteApplicator());
+  }
+
+  @Test
+  public void testRouteMetrics() {
+    channel.writeInbound(RequestBuilders.newGet("/foo/").host("localhost").build());
+    channel.runPendingTasks();
+
+    assertNotNull(channel.readOutbound());
+    assertEquals(1, metricRegistry.meter(RouteMetricsHandler.name("/foo/", "requests")).getCount());
+    assertEquals(
+        1, metricRegistry.meter(RouteMetricsHandler.name("/foo/", "serverErrors")).getCount());
+    assertEquals(1, metricRegistry.timer(RouteMetricsHandler.name("/foo/", "latency")).getCount());
+  }
+}
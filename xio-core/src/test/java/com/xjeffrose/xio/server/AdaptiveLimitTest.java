@@ -0,0 +1,81 @@
+package com.xjeffrose.xio.server;
+
+import com.typesafe.config.ConfigFactory;
+import java.util.concurrent.TimeUnit;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class AdaptiveLimitTest extends Assert {
+
+  private static AdaptiveLimitConfig config(String overrides) {
+    return new AdaptiveLimitConfig(
+        ConfigFactory.parseString(overrides)
+            .withFallback(ConfigFactory.load().getConfig("xio.applicationLimits.requestLimiter")));
+  }
+
+  private static void fill(AdaptiveLimit limit, long rttMillis) {
+    int count = 0;
+    while (limit.tryAcquire()) {
+      count++;
+    }
+    for (int i = 0; i < count; i++) {
+      limit.release(TimeUnit.MILLISECONDS.toNanos(rttMillis));
+    }
+  }
+
+  @Test
+  public void testAcquireUpToLimit() {
+    AdaptiveLimit limit = new AdaptiveLimit(config("initialLimit = 10, minLimit = 1"));
+
+    for (int i = 0; i < 10; i++) {
+      assertTrue(limit.tryAcquire());
+    }
+    assertFalse(limit.tryAcquire());
+    assertEquals(10, limit.inFlight());
+
+    limit.release();
+    assertTrue(limit.tryAcquire());
+  }
+
+  @Test
+  public void testLimitGrowsWhileLatencyIsStable() {
+    AdaptiveLimit limit =
+        new AdaptiveLimit(config("initialLimit = 10, minLimit = 1, windowSize = 10"));
+
+    for (int i = 0; i < 20; i++) {
+      fill(limit, 10);
+    }
+
+    assertTrue(limit.limit() > 10);
+    assertEquals(0, limit.inFlight());
+  }
+
+  @Test
+  public void testLimitShrinksWhenLatencyGrows() {
+    AdaptiveLimit limit =
+        new AdaptiveLimit(config("initialLimit = 100, minLimit = 1, windowSize = 10"));
+
+    for (int i = 0; i < 5; i++) {
+      fill(limit, 10);
+    }
+    int stable = limit.limit();
+    for (int i = 0; i < 5; i++) {
+      fill(limit, 100);
+    }
+
+    assertTrue(limit.limit() < stable);
+  }
+
+  @Test
+  public void testLimitIsNotAdjustedWhenUnderused() {
+    AdaptiveLimit limit =
+        new AdaptiveLimit(config("initialLimit = 100, minLimit = 1, windowSize = 10"));
+
+    for (int i = 0; i < 100; i++) {
+      assertTrue(limit.tryAcquire());
+      limit.release(TimeUnit.MILLISECONDS.toNanos(10));
+    }
+
+    assertEquals(100, limit.limit());
+  }
+}
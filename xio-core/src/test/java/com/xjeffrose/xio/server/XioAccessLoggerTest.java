@@ -0,0 +1,197 @@
+package com.xjeffrose.xio.server;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.collect.ImmutableMap;
+import com.typesafe.config.ConfigFactory;
+import com.xjeffrose.xio.http.DefaultFullResponse;
+import com.xjeffrose.xio.http.DefaultHeaders;
+import com.xjeffrose.xio.http.DefaultSegmentedData;
+import com.xjeffrose.xio.http.DefaultSegmentedResponse;
+import com.xjeffrose.xio.http.Message;
+import com.xjeffrose.xio.http.PipelineRouter;
+import com.xjeffrose.xio.http.ProxySegmentedResponseData;
+import com.xjeffrose.xio.http.RequestBuilders;
+import com.xjeffrose.xio.http.Response;
+import com.xjeffrose.xio.http.RouteApplicator;
+import com.xjeffrose.xio.http.RouteConfig;
+import com.xjeffrose.xio.http.RouteState;
+import com.xjeffrose.xio.http.SegmentedResponseData;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.slf4j.Logger;
+
+public class XioAccessLoggerTest extends Assert {
+
+  private EmbeddedChannel channel;
+  private MetricRegistry metricRegistry;
+  private Logger logger;
+  private AccessLog accessLog;
+
+  private void setUp(String settings) {
+    metricRegistry = new MetricRegistry();
+    logger = mock(Logger.class);
+    accessLog =
+        new AccessLog(
+            new AccessLogConfig(
+                ConfigFactory.parseString(settings)
+                    .withFallback(
+                        ConfigFactory.load().getConfig("xio.applicationSettings.accessLog"))),
+            metricRegistry,
+            logger);
+    // requests are proxied to a fake upstream and held until the test responds to them
+    RouteState route =
+        new RouteState(
+            new RouteConfig(Collections.emptyList(), "", "/foo/", "*"),
+            (ctx, request, state) ->
+                XioAccessLogger.upstream(
+                    ctx, request.streamId(), new InetSocketAddress("127.0.0.1", 8080)));
+
+    channel =
+        new EmbeddedChannel(
+            new PipelineRouter(ImmutableMap.of("/foo/", route)),
+            new XioAccessLogger(accessLog),
+            new RouteApplicator());
+  }
+
+  private void get(int streamId) {
+    channel.writeInbound(
+        RequestBuilders.newGet("/foo/bar").host("localhost").streamId(streamId).build());
+  }
+
+  private void respond(int streamId, HttpResponseStatus status) {
+    channel.writeAndFlush(
+        DefaultFullResponse.builder()
+            .body(Unpooled.copiedBuffer("hello", StandardCharsets.UTF_8))
+            .headers(new DefaultHeaders())
+            .status(status)
+            .streamId(streamId)
+            .build());
+    channel.releaseOutbound();
+  }
+
+  @Test
+  public void testLogsCompletedRequests() {
+    setUp("enabled = true");
+    get(1);
+    get(3);
+    respond(3, HttpResponseStatus.OK);
+    // nothing is written on the event loop
+    verify(logger, never()).info(anyString());
+
+    assertEquals(1, accessLog.drain());
+    ArgumentCaptor<String> line = ArgumentCaptor.forClass(String.class);
+    verify(logger).info(line.capture());
+    assertTrue(line.getValue().contains(" method=GET path=/foo/bar route=/foo/ stream=3 "));
+    assertTrue(line.getValue().contains(" status=200 requestBytes=0 responseBytes=5 "));
+    assertTrue(line.getValue().endsWith(" upstream=127.0.0.1:8080"));
+
+    // the request without a response is still in flight
+    assertEquals(0, accessLog.drain());
+    respond(1, HttpResponseStatus.OK);
+    assertEquals(1, accessLog.drain());
+  }
+
+  @Test
+  public void testMatchesPipelinedHttp1Responses() {
+    setUp("enabled = true");
+    get(Message.H1_STREAM_ID_NONE);
+    get(Message.H1_STREAM_ID_NONE);
+    respond(Message.H1_STREAM_ID_NONE, HttpResponseStatus.OK);
+    respond(Message.H1_STREAM_ID_NONE, HttpResponseStatus.BAD_GATEWAY);
+
+    assertEquals(2, accessLog.drain());
+    ArgumentCaptor<String> line = ArgumentCaptor.forClass(String.class);
+    verify(logger, times(2)).info(line.capture());
+    assertTrue(line.getAllValues().get(0).contains(" status=200 "));
+    assertTrue(line.getAllValues().get(1).contains(" status=502 "));
+  }
+
+  @Test
+  public void testCountsProxiedSegments() {
+    setUp("enabled = true");
+    get(1);
+    Response head =
+        DefaultSegmentedResponse.builder()
+            .headers(new DefaultHeaders())
+            .status(HttpResponseStatus.OK)
+            .streamId(1)
+            .build();
+    channel.write(head);
+    for (String chunk : new String[] {"hel", "lo"}) {
+      // segments relayed from a backend carry the head along with their content
+      channel.write(
+          new ProxySegmentedResponseData(
+              new SegmentedResponseData(
+                  head,
+                  DefaultSegmentedData.builder()
+                      .content(Unpooled.copiedBuffer(chunk, StandardCharsets.UTF_8))
+                      .endOfMessage(chunk.equals("lo"))
+                      .build()),
+              1));
+    }
+    channel.flush();
+    channel.releaseOutbound();
+
+    assertEquals(1, accessLog.drain());
+    ArgumentCaptor<String> line = ArgumentCaptor.forClass(String.class);
+    verify(logger).info(line.capture());
+    assertTrue(line.getValue().contains(" status=200 requestBytes=0 responseBytes=5 "));
+  }
+
+  @Test
+  public void testSamplingKeepsServerErrors() {
+    setUp("enabled = true, sampleRate = 0");
+    get(1);
+    respond(1, HttpResponseStatus.OK);
+    get(3);
+    respond(3, HttpResponseStatus.BAD_GATEWAY);
+
+    assertEquals(1, accessLog.drain());
+    ArgumentCaptor<String> line = ArgumentCaptor.forClass(String.class);
+    verify(logger).info(line.capture());
+    assertTrue(line.getValue().contains(" status=502 "));
+  }
+
+  @Test
+  public void testDropsWhenFull() {
+    setUp("enabled = true, bufferSize = 2");
+    for (int streamId = 1; streamId < 8; streamId += 2) {
+      get(streamId);
+      respond(streamId, HttpResponseStatus.OK);
+    }
+
+    assertEquals(2, accessLog.drain());
+    assertEquals(2, metricRegistry.meter("accessLog.dropped").getCount());
+
+    // drained slots are reused
+    get(9);
+    respond(9, HttpResponseStatus.OK);
+    assertEquals(1, accessLog.drain());
+  }
+
+  @Test
+  public void testStopWritesBufferedEntries() {
+    setUp("enabled = true");
+    get(1);
+    respond(1, HttpResponseStatus.OK);
+    get(3);
+    respond(3, HttpResponseStatus.OK);
+
+    accessLog.start();
+    accessLog.stop();
+    verify(logger, times(2)).info(anyString());
+  }
+}
@@ -0,0 +1,106 @@
+package com.xjeffrose.xio.server;
+
+import com.codahale.metrics.MetricRegistry;
+import com.typesafe.config.ConfigFactory;
+import com.xjeffrose.xio.http.DefaultFullResponse;
+import com.xjeffrose.xio.http.DefaultHeaders;
+import com.xjeffrose.xio.http.Request;
+import com.xjeffrose.xio.http.RequestBuilders;
+import com.xjeffrose.xio.http.Response;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class XioLoadShedderTest extends Assert {
+
+  private EmbeddedChannel channel;
+  private MetricRegistry metricRegistry;
+  private LoadShedder shedder;
+
+  @Before
+  public void setUp() {
+    metricRegistry = new MetricRegistry();
+    shedder =
+        new LoadShedder(
+            new LoadSheddingConfig(
+                ConfigFactory.parseString(
+                        "enabled = true, lowPriorityPaths = [\"/batch\"], low.maxInFlight = 1, normal.maxInFlight = 2, high.maxInFlight = 3")
+                    .withFallback(
+                        ConfigFactory.load().getConfig("xio.applicationLimits.loadShedding"))),
+            metricRegistry);
+    channel = new EmbeddedChannel(new XioLoadShedder(shedder));
+  }
+
+  private Request get(String path, int streamId) {
+    return RequestBuilders.newGet(path).host("localhost").streamId(streamId).build();
+  }
+
+  private void respond(int streamId) {
+    channel.writeAndFlush(
+        DefaultFullResponse.builder()
+            .body(Unpooled.EMPTY_BUFFER)
+            .headers(new DefaultHeaders())
+            .status(HttpResponseStatus.OK)
+            .streamId(streamId)
+            .build());
+  }
+
+  private long shedCount(RequestPriority priority) {
+    return metricRegistry.meter(LoadShedder.name(priority)).getCount();
+  }
+
+  @Test
+  public void testClassify() {
+    assertEquals(RequestPriority.CRITICAL, shedder.classify(get("/health", 1)));
+    assertEquals(RequestPriority.LOW, shedder.classify(get("/batch/job", 1)));
+    assertEquals(RequestPriority.NORMAL, shedder.classify(get("/foo", 1)));
+
+    Request high = get("/batch/job", 1);
+    high.headers().set("x-xio-priority", "HIGH");
+    assertEquals(RequestPriority.HIGH, shedder.classify(high));
+
+    Request critical = get("/foo", 1);
+    critical.headers().set("x-xio-priority", "critical");
+    assertEquals(RequestPriority.HIGH, shedder.classify(critical));
+  }
+
+  @Test
+  public void testShedsByPriority() {
+    channel.writeInbound(get("/foo", 1));
+    assertNotNull(channel.readInbound());
+
+    // one request in flight, low priority requests are shed
+    channel.writeInbound(get("/batch", 3));
+    assertNull(channel.readInbound());
+    Response response = channel.readOutbound();
+    assertEquals(HttpResponseStatus.SERVICE_UNAVAILABLE, response.status());
+    assertEquals(3, response.streamId());
+    assertEquals(1, shedCount(RequestPriority.LOW));
+
+    channel.writeInbound(get("/foo", 5));
+    assertNotNull(channel.readInbound());
+
+    // two requests in flight, normal priority requests are shed but health checks are not
+    channel.writeInbound(get("/foo", 7));
+    assertNull(channel.readInbound());
+    assertEquals(1, shedCount(RequestPriority.NORMAL));
+    channel.writeInbound(get("/health", 9));
+    assertNotNull(channel.readInbound());
+    assertEquals(0, shedCount(RequestPriority.CRITICAL));
+  }
+
+  @Test
+  public void testResponseCompletesRequest() {
+    channel.writeInbound(get("/foo", 1));
+    assertNotNull(channel.readInbound());
+    respond(1);
+    assertNotNull(channel.readOutbound());
+
+    channel.writeInbound(get("/batch", 3));
+    assertNotNull(channel.readInbound());
+    assertEquals(0, shedCount(RequestPriority.LOW));
+  }
+}
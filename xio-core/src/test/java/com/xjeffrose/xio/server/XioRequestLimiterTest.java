@@ -0,0 +1,106 @@
+package com.xjeffrose.xio.server;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.collect.ImmutableMap;
+import com.typesafe.config.ConfigFactory;
+import com.xjeffrose.xio.http.DefaultFullResponse;
+import com.xjeffrose.xio.http.DefaultHeaders;
+import com.xjeffrose.xio.http.PipelineRouter;
+import com.xjeffrose.xio.http.Request;
+import com.xjeffrose.xio.http.RequestBuilders;
+import com.xjeffrose.xio.http.Response;
+import com.xjeffrose.xio.http.RouteApplicator;
+import com.xjeffrose.xio.http.RouteConfig;
+import com.xjeffrose.xio.http.RouteState;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class XioRequestLimiterTest extends Assert {
+
+  private EmbeddedChannel channel;
+  private MetricRegistry metricRegistry;
+  private List<Request> received;
+
+  @Before
+  public void setUp() {
+    metricRegistry = new MetricRegistry();
+    received = new ArrayList<>();
+    RequestLimiter limiter =
+        new RequestLimiter(
+            new AdaptiveLimitConfig(
+                ConfigFactory.parseString(
+                        "enabled = true, perRoute = true, initialLimit = 1, minLimit = 1, retryAfter = 5seconds")
+                    .withFallback(
+                        ConfigFactory.load().getConfig("xio.applicationLimits.requestLimiter"))),
+            metricRegistry);
+    // requests are held until the test responds to them
+    RouteState route =
+        new RouteState(
+            new RouteConfig(Collections.emptyList(), "", "/foo/", "*"),
+            (ctx, request, state) -> received.add(request));
+
+    channel =
+        new EmbeddedChannel(
+            new PipelineRouter(ImmutableMap.of("/foo/", route)),
+            new XioRequestLimiter(limiter),
+            new RouteApplicator());
+  }
+
+  private Request get(int streamId) {
+    return RequestBuilders.newGet("/foo/").host("localhost").streamId(streamId).build();
+  }
+
+  private void respond(int streamId) {
+    channel.writeAndFlush(
+        DefaultFullResponse.builder()
+            .body(Unpooled.EMPTY_BUFFER)
+            .headers(new DefaultHeaders())
+            .status(HttpResponseStatus.OK)
+            .streamId(streamId)
+            .build());
+  }
+
+  @Test
+  public void testRejectsAboveLimit() {
+    channel.writeInbound(get(1));
+    channel.writeInbound(get(3));
+
+    assertEquals(1, received.size());
+    Response rejected = channel.readOutbound();
+    assertEquals(HttpResponseStatus.SERVICE_UNAVAILABLE, rejected.status());
+    assertEquals(3, rejected.streamId());
+    assertEquals("5", rejected.headers().get(HttpHeaderNames.RETRY_AFTER));
+    assertEquals(1, metricRegistry.meter("requestLimiter.rejected").getCount());
+    assertEquals(1, metricRegistry.getGauges().get("requestLimiter.inFlight").getValue());
+    assertEquals(
+        1, metricRegistry.getGauges().get("requestLimiter.route./foo/.inFlight").getValue());
+  }
+
+  @Test
+  public void testResponseReleasesPermit() {
+    channel.writeInbound(get(1));
+    respond(1);
+    assertEquals(HttpResponseStatus.OK, ((Response) channel.readOutbound()).status());
+
+    channel.writeInbound(get(3));
+
+    assertEquals(2, received.size());
+    assertNull(channel.readOutbound());
+  }
+
+  @Test
+  public void testChannelCloseReleasesPermit() {
+    channel.writeInbound(get(1));
+    channel.close();
+
+    assertEquals(0, metricRegistry.getGauges().get("requestLimiter.inFlight").getValue());
+  }
+}
@@ -0,0 +1,65 @@
+package com.xjeffrose.xio.storage;
+
+import com.google.common.collect.ImmutableSet;
+import com.xjeffrose.xio.filter.IpFilterConfig;
+import com.xjeffrose.xio.marshall.ThriftMarshaller;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class LocalSnapshotStoreUnitTest extends Assert {
+
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private Path snapshotPath() {
+    return temporaryFolder.getRoot().toPath().resolve("rules.snapshot");
+  }
+
+  @Test
+  public void testMissingSnapshotIsEmpty() {
+    LocalSnapshotStore store = new LocalSnapshotStore(snapshotPath(), Duration.ofHours(1));
+    assertFalse(store.get("/xio/ipFilterRules").isPresent());
+  }
+
+  @Test
+  public void testRoundTrip() throws Exception {
+    IpFilterConfig filter =
+        new IpFilterConfig(ImmutableSet.of(InetAddress.getByName("127.0.0.1")));
+    ThriftMarshaller marshaller = new ThriftMarshaller();
+    LocalSnapshotStore store = new LocalSnapshotStore(snapshotPath(), Duration.ofHours(1));
+    store.put("/xio/ipFilterRules", () -> filter.marshall(marshaller));
+    store.put("/xio/http1FilterRules", () -> "first".getBytes(StandardCharsets.UTF_8));
+    // only the latest value is written
+    store.put("/xio/http1FilterRules", () -> "second".getBytes(StandardCharsets.UTF_8));
+    store.flush();
+
+    LocalSnapshotStore loaded = new LocalSnapshotStore(snapshotPath(), Duration.ofHours(1));
+    AtomicReference<IpFilterConfig> restored = new AtomicReference<>();
+    new IpFilterConfig.Updater("/xio/ipFilterRules", restored::set)
+        .update(loaded.get("/xio/ipFilterRules").get());
+    assertEquals(filter, restored.get());
+    assertEquals(
+        "second",
+        new String(loaded.get("/xio/http1FilterRules").get(), StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void testCorruptSnapshotIsIgnored() throws Exception {
+    LocalSnapshotStore store = new LocalSnapshotStore(snapshotPath(), Duration.ofHours(1));
+    store.put("key", () -> "value".getBytes(StandardCharsets.UTF_8));
+    store.flush();
+
+    byte[] bytes = Files.readAllBytes(snapshotPath());
+    bytes[bytes.length / 2] ^= 0xff;
+    Files.write(snapshotPath(), bytes);
+
+    assertFalse(new LocalSnapshotStore(snapshotPath(), Duration.ofHours(1)).get("key").isPresent());
+  }
+}
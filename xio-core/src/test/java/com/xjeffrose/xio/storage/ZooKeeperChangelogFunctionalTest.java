@@ -0,0 +1,148 @@
+package com.xjeffrose.xio.storage;
+
+import com.google.common.collect.HashMultimap;
+import com.xjeffrose.xio.config.Http1DeterministicRuleEngineConfig;
+import com.xjeffrose.xio.config.IpAddressDeterministicRuleEngineConfig;
+import com.xjeffrose.xio.config.UpdateMessage;
+import com.xjeffrose.xio.config.thrift.RuleType;
+import com.xjeffrose.xio.marshall.ThriftMarshaller;
+import com.xjeffrose.xio.marshall.ThriftUnmarshaller;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpVersion;
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.CuratorFrameworkFactory;
+import org.apache.curator.retry.RetryOneTime;
+import org.apache.curator.test.TestingServer;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ZooKeeperChangelogFunctionalTest extends Assert {
+
+  private final ThriftMarshaller marshaller = new ThriftMarshaller();
+  private final ThriftUnmarshaller unmarshaller = new ThriftUnmarshaller();
+  private final String path = "/some/path/to/nodes/ipRules";
+
+  @Test
+  public void testReadAppliesDeltasOnTopOfBase() throws Exception {
+    try (TestingServer server = new TestingServer()) {
+      server.start();
+      try (CuratorFramework client =
+          CuratorFrameworkFactory.newClient(server.getConnectString(), new RetryOneTime(1))) {
+        client.start();
+        ZooKeeperWriteProvider writer = new ZooKeeperWriteProvider(marshaller, client);
+        InetAddress first = InetAddress.getByName("127.0.0.1");
+        InetAddress second = InetAddress.getByName("::1");
+
+        IpAddressDeterministicRuleEngineConfig rules = new IpAddressDeterministicRuleEngineConfig();
+        rules.blacklistIp(first);
+        writer.compact(path, rules);
+        writer.append(path, Collections.singletonList(UpdateMessage.removeIpRule(first)));
+        writer.append(
+            path, Collections.singletonList(UpdateMessage.addIpRule(second, RuleType.blacklist)));
+
+        IpAddressDeterministicRuleEngineConfig expected =
+            new IpAddressDeterministicRuleEngineConfig();
+        expected.blacklistIp(second);
+        IpAddressDeterministicRuleEngineConfig read = new IpAddressDeterministicRuleEngineConfig();
+        assertTrue(new ZooKeeperReadProvider(unmarshaller, client).read(path, read));
+        assertEquals(expected, read);
+
+        // the plain node is only rewritten on compaction
+        IpAddressDeterministicRuleEngineConfig plain = new IpAddressDeterministicRuleEngineConfig();
+        unmarshaller.unmarshall(plain, client.getData().forPath(path));
+        assertEquals(rules, plain);
+
+        writer.compact(path, expected);
+        plain = new IpAddressDeterministicRuleEngineConfig();
+        unmarshaller.unmarshall(plain, client.getData().forPath(path));
+        assertEquals(expected, plain);
+        assertEquals(
+            Collections.singletonList(ZooKeeperChangelog.BASE),
+            client.getChildren().forPath(ZooKeeperChangelog.logPath(path)));
+      }
+    }
+  }
+
+  @Test
+  public void testCompactsSnapshotsLargerThanHalfTheTransactionLimit() throws Exception {
+    try (TestingServer server = new TestingServer()) {
+      server.start();
+      try (CuratorFramework client =
+          CuratorFrameworkFactory.newClient(server.getConnectString(), new RetryOneTime(1))) {
+        client.start();
+        ZooKeeperWriteProvider writer = new ZooKeeperWriteProvider(marshaller, client);
+        // jute.maxbuffer defaults to 1MB, a transaction carrying the snapshot twice would fail
+        byte[] snapshot = new byte[700 * 1024];
+        Arrays.fill(snapshot, (byte) 'x');
+
+        writer.compact(path, snapshot);
+        long sequence = writer.append(path, new byte[] {1});
+        writer.compact(path, snapshot);
+
+        assertArrayEquals(snapshot, client.getData().forPath(path));
+        byte[] base = client.getData().forPath(ZooKeeperChangelog.basePath(path));
+        assertArrayEquals(snapshot, ZooKeeperChangelog.baseSnapshot(base));
+        assertEquals(sequence, ZooKeeperChangelog.baseSequence(base));
+      }
+    }
+  }
+
+  @Test
+  public void testSyncOnlyHandsOutWhatChanged() throws Exception {
+    try (TestingServer server = new TestingServer()) {
+      server.start();
+      try (CuratorFramework client =
+          CuratorFrameworkFactory.newClient(server.getConnectString(), new RetryOneTime(1))) {
+        client.start();
+        ZooKeeperWriteProvider writer = new ZooKeeperWriteProvider(marshaller, client);
+        ZooKeeperChangelog changelog = new ZooKeeperChangelog(client, path);
+        List<byte[]> snapshots = new ArrayList<>();
+        List<byte[]> deltas = new ArrayList<>();
+
+        assertFalse(changelog.sync(snapshots::add, deltas::addAll));
+
+        Http1DeterministicRuleEngineConfig.Rule rule =
+            new Http1DeterministicRuleEngineConfig.Rule(
+                HttpMethod.GET, "/path/to/failure", HttpVersion.HTTP_1_0, HashMultimap.create());
+        writer.compact(path, new Http1DeterministicRuleEngineConfig());
+        assertTrue(changelog.sync(snapshots::add, deltas::addAll));
+        assertEquals(1, snapshots.size());
+        assertEquals(0, deltas.size());
+
+        byte[] first =
+            marshaller.marshall(
+                Collections.singletonList(UpdateMessage.addHttp1Rule(rule, RuleType.blacklist)));
+        byte[] second =
+            marshaller.marshall(Collections.singletonList(UpdateMessage.removeHttp1Rule(rule)));
+        writer.append(path, first);
+        writer.append(path, second);
+        assertTrue(changelog.sync(snapshots::add, deltas::addAll));
+        assertEquals(1, snapshots.size());
+        assertEquals(2, deltas.size());
+        assertArrayEquals(first, deltas.get(0));
+        assertArrayEquals(second, deltas.get(1));
+
+        // compacting what the reader already applied doesn't hand out the snapshot again
+        writer.compact(path, new Http1DeterministicRuleEngineConfig());
+        assertTrue(changelog.sync(snapshots::add, deltas::addAll));
+        assertEquals(1, snapshots.size());
+        assertEquals(2, deltas.size());
+
+        // a reader that is behind gets the snapshot instead of the folded deltas
+        ZooKeeperChangelog late = new ZooKeeperChangelog(client, path);
+        writer.append(path, first);
+        List<byte[]> lateSnapshots = new ArrayList<>();
+        List<byte[]> lateDeltas = new ArrayList<>();
+        assertTrue(late.sync(lateSnapshots::add, lateDeltas::addAll));
+        assertEquals(1, lateSnapshots.size());
+        assertEquals(1, lateDeltas.size());
+        assertArrayEquals(first, lateDeltas.get(0));
+      }
+    }
+  }
+}